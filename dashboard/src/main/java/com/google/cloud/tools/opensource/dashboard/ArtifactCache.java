@@ -16,35 +16,32 @@
 
 package com.google.cloud.tools.opensource.dashboard;
 
-import java.util.List;
 import java.util.Map;
 
 import org.eclipse.aether.artifact.Artifact;
 
-import com.google.cloud.tools.opensource.dependencies.DependencyGraph;
-
 /**
  * Unified return type to bundle a lot of information  about multiple artifacts together.
  */
 class ArtifactCache {
 
   private Map<Artifact, ArtifactInfo> infoMap;
-  private List<DependencyGraph> globalDependencies;
+  private GlobalVersionIndex globalVersionIndex;
 
   void setInfoMap(Map<Artifact, ArtifactInfo> infoMap) {
     this.infoMap = infoMap;
   }
 
-  void setGlobalDependencies(List<DependencyGraph> globalDependencies) {
-    this.globalDependencies = globalDependencies;
+  void setGlobalVersionIndex(GlobalVersionIndex globalVersionIndex) {
+    this.globalVersionIndex = globalVersionIndex;
   }
 
   Map<Artifact, ArtifactInfo> getInfoMap() {
     return infoMap;
   }
 
-  List<DependencyGraph> getGlobalDependencies() {
-    return globalDependencies;
+  GlobalVersionIndex getGlobalVersionIndex() {
+    return globalVersionIndex;
   }
 
 }
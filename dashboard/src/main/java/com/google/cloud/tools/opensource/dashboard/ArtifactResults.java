@@ -24,6 +24,7 @@ import javax.annotation.Nullable;
 import org.eclipse.aether.artifact.Artifact;
 
 import com.google.cloud.tools.opensource.dependencies.Artifacts;
+import com.google.common.collect.ImmutableMap;
 
 /**
  * Collection of test results for a single artifact.
@@ -58,6 +59,11 @@ public final class ArtifactResults {
     return null;
   }
 
+  /** Returns the number of failures of each test. */
+  ImmutableMap<String, Integer> getResults() {
+    return ImmutableMap.copyOf(results);
+  }
+
   public String getCoordinates() {
     return Artifacts.toCoordinates(artifact);
   }
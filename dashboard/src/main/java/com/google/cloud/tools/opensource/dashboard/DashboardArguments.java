@@ -92,12 +92,38 @@ final class DashboardArguments {
     return commandLine.getOptionValue('a').trim();
   }
 
+  /**
+   * Returns the number of threads to resolve dependency graphs and generate reports. If the
+   * argument is not specified, the number of available processors.
+   */
+  int getThreadCount() {
+    if (!commandLine.hasOption('t')) {
+      return Runtime.getRuntime().availableProcessors();
+    }
+    return Integer.parseInt(commandLine.getOptionValue('t').trim());
+  }
+
+  /**
+   * Returns true if the pages whose inputs have not changed since the previous run should not be
+   * generated again; otherwise false.
+   */
+  boolean isIncremental() {
+    return commandLine.hasOption('i');
+  }
+
   static DashboardArguments readCommandLine(String... arguments) throws ParseException {
     CommandLineParser parser = new DefaultParser();
 
     try {
       // Throws ParseException if required option group ('-f' or '-c') is not specified
-      return new DashboardArguments(parser.parse(options, arguments));
+      CommandLine commandLine = parser.parse(options, arguments);
+      if (commandLine.hasOption('t')) {
+        String threadCount = commandLine.getOptionValue('t').trim();
+        if (!threadCount.matches("[1-9][0-9]{0,5}")) {
+          throw new ParseException("The number of threads must be positive: " + threadCount);
+        }
+      }
+      return new DashboardArguments(commandLine);
     } catch (ParseException ex) {
       helpFormatter.printHelp("DashboardMain", options);
       throw ex;
@@ -133,6 +159,25 @@ final class DashboardArguments {
     inputGroup.addOption(versionlessCoordinatesOption);
 
     options.addOptionGroup(inputGroup);
+
+    Option threadCountOption =
+        Option.builder("t")
+            .longOpt("threads")
+            .hasArg()
+            .desc(
+                "Number of threads to resolve dependency graphs and generate reports. "
+                    + "The default is the number of available processors")
+            .build();
+    options.addOption(threadCountOption);
+
+    Option incrementalOption =
+        Option.builder("i")
+            .longOpt("incremental")
+            .desc(
+                "Skips the pages and the BOM versions whose inputs have not changed since the "
+                    + "previous run in the output directory")
+            .build();
+    options.addOption(incrementalOption);
     return options;
   }
 }
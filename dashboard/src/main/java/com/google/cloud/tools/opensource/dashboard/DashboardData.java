@@ -0,0 +1,207 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.dashboard;
+
+import com.google.cloud.tools.opensource.classpath.ClassPathEntry;
+import com.google.cloud.tools.opensource.classpath.LinkageProblem;
+import com.google.cloud.tools.opensource.dependencies.Artifacts;
+import com.google.cloud.tools.opensource.dependencies.DependencyGraph;
+import com.google.cloud.tools.opensource.dependencies.DependencyPath;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.CharMatcher;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * Writer of the data of a dashboard as compact JSON files in the {@code data} directory of the
+ * output, so that the pages load large sections on demand and other tools read the same data:
+ *
+ * <ul>
+ *   <li>{@code data/artifacts.json}: the test results of the artifacts in the BOM and the files of
+ *       their dependency trees
+ *   <li>{@code data/trees/$groupId_$artifactId_$version.json}: the dependency tree of an
+ *       artifact. A node is an object with the {@code artifact} and, unless it is a leaf, its
+ *       {@code children}
+ *   <li>{@code data/linkage.json}: the JAR files with linkage errors and the files of their
+ *       problem tables
+ *   <li>{@code data/linkage/$jar.json}: the linkage errors in a JAR file grouped by symbol problem,
+ *       with their source classes
+ * </ul>
+ *
+ * <p>The file paths in the JSON files are relative to the output directory. The pages load the files
+ * with {@code fetch()}, which browsers block for pages opened from {@code file:} URLs; serve the
+ * output directory over HTTP to browse the sections loaded on demand.
+ */
+final class DashboardData {
+
+  @VisibleForTesting static final String DIRECTORY = "data";
+
+  private static final CharMatcher FILE_NAME_CHARACTERS =
+      CharMatcher.inRange('a', 'z')
+          .or(CharMatcher.inRange('A', 'Z'))
+          .or(CharMatcher.inRange('0', '9'))
+          .or(CharMatcher.anyOf(".-"));
+
+  private DashboardData() {}
+
+  /**
+   * Writes the dependency tree of each graph in {@code dependencyGraphs} as a JSON file. Returns the JSON files of the trees relative to {@code output}, keyed by the
+   * coordinates of their root artifacts.
+   */
+  static ImmutableMap<String, String> writeDependencyTrees(
+      Path output, List<DependencyGraph> dependencyGraphs) throws IOException {
+    Files.createDirectories(output.resolve(DIRECTORY).resolve("trees"));
+    Map<String, String> dataFiles = new LinkedHashMap<>();
+    for (DependencyGraph graph : dependencyGraphs) {
+      DependencyPath rootPath = graph.getRootPath();
+      String coordinates = Artifacts.toCoordinates(rootPath.getLeaf());
+      String dataFile = DIRECTORY + "/trees/" + fileName(coordinates) + ".json";
+      try (JsonWriter writer = newJsonWriter(output.resolve(dataFile))) {
+        writeDependencyTree(writer, graph, rootPath);
+      }
+      dataFiles.putIfAbsent(coordinates, dataFile);
+    }
+    return ImmutableMap.copyOf(dataFiles);
+  }
+
+  private static void writeDependencyTree(
+      JsonWriter writer, DependencyGraph graph, DependencyPath node) throws IOException {
+    writer.beginObject();
+    writer.name("artifact").value(node.getLeaf().toString());
+    boolean hasChildren = false;
+    for (DependencyPath child : graph.getChildren(node)) {
+      if (child.equals(node)) {
+        continue;
+      }
+      if (!hasChildren) {
+        writer.name("children").beginArray();
+        hasChildren = true;
+      }
+      writeDependencyTree(writer, graph, child);
+    }
+    if (hasChildren) {
+      writer.endArray();
+    }
+    writer.endObject();
+  }
+
+  /**
+   * Writes the test results in {@code table} with the files of the dependency trees returned by
+   * {@link #writeDependencyTrees(Path, List)}.
+   */
+  static void writeArtifacts(
+      Path output, List<ArtifactResults> table, Map<String, String> dependencyTrees)
+      throws IOException {
+    Files.createDirectories(output.resolve(DIRECTORY));
+    try (JsonWriter writer = newJsonWriter(output.resolve(DIRECTORY).resolve("artifacts.json"))) {
+      writer.beginArray();
+      for (ArtifactResults results : table) {
+        writer.beginObject();
+        writer.name("coordinates").value(results.getCoordinates());
+        writer.name("results").beginObject();
+        for (Entry<String, Integer> result : results.getResults().entrySet()) {
+          writer.name(result.getKey()).value(result.getValue());
+        }
+        writer.endObject();
+        if (results.getExceptionMessage() != null) {
+          writer.name("exceptionMessage").value(results.getExceptionMessage());
+        }
+        String dependencyTree = dependencyTrees.get(results.getCoordinates());
+        if (dependencyTree != null) {
+          writer.name("dependencyTree").value(dependencyTree);
+        }
+        writer.endObject();
+      }
+      writer.endArray();
+    }
+  }
+
+  /**
+   * Writes the problem table of each JAR file in {@code linkageProblemTable} and the index of the
+   * tables. Returns the files of the problem tables relative to {@code output}, keyed by the JAR
+   * files as strings.
+   */
+  static ImmutableMap<String, String> writeLinkageProblems(
+      Path output, Map<ClassPathEntry, ImmutableSet<LinkageProblem>> linkageProblemTable)
+      throws IOException {
+    Files.createDirectories(output.resolve(DIRECTORY).resolve("linkage"));
+    Set<String> fileNames = new HashSet<>();
+    Map<String, String> dataFiles = new LinkedHashMap<>();
+    try (JsonWriter index = newJsonWriter(output.resolve(DIRECTORY).resolve("linkage.json"))) {
+      index.beginArray();
+      for (Entry<ClassPathEntry, ImmutableSet<LinkageProblem>> entry :
+          linkageProblemTable.entrySet()) {
+        String jar = entry.getKey().toString();
+        String fileName = fileName(jar);
+        // Two JAR files without artifacts may have the same file name
+        for (int i = 2; !fileNames.add(fileName); i++) {
+          fileName = fileName(jar) + "_" + i;
+        }
+        String dataFile = DIRECTORY + "/linkage/" + fileName + ".json";
+
+        ImmutableMap<String, ImmutableSet<String>> problemsToClasses =
+            LinkageProblem.groupBySymbolProblem(entry.getValue());
+        try (JsonWriter writer = newJsonWriter(output.resolve(dataFile))) {
+          writer.beginObject();
+          writer.name("jar").value(jar);
+          writer.name("problems").beginArray();
+          for (Entry<String, ImmutableSet<String>> problem : problemsToClasses.entrySet()) {
+            writer.beginObject();
+            writer.name("problem").value(problem.getKey());
+            writer.name("sourceClasses").beginArray();
+            for (String sourceClass : problem.getValue()) {
+              writer.value(sourceClass);
+            }
+            writer.endArray();
+            writer.endObject();
+          }
+          writer.endArray();
+          writer.endObject();
+        }
+
+        index.beginObject();
+        index.name("jar").value(jar);
+        index.name("problemCount").value(problemsToClasses.size());
+        index.name("problemTable").value(dataFile);
+        index.endObject();
+        dataFiles.putIfAbsent(jar, dataFile);
+      }
+      index.endArray();
+    }
+    return ImmutableMap.copyOf(dataFiles);
+  }
+
+  /** Returns a file name for {@code name} that has no special characters. */
+  private static String fileName(String name) {
+    return FILE_NAME_CHARACTERS.negate().replaceFrom(name, '_');
+  }
+
+  private static JsonWriter newJsonWriter(Path file) throws IOException {
+    return new JsonWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8));
+  }
+}
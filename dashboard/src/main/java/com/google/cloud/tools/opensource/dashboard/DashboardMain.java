@@ -17,12 +17,13 @@
 package com.google.cloud.tools.opensource.dashboard;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 
 import com.google.cloud.tools.opensource.classpath.ClassFile;
 import com.google.cloud.tools.opensource.classpath.ClassPathBuilder;
 import com.google.cloud.tools.opensource.classpath.ClassPathEntry;
 import com.google.cloud.tools.opensource.classpath.ClassPathResult;
-import com.google.cloud.tools.opensource.classpath.LinkageChecker;
+import com.google.cloud.tools.opensource.classpath.IncompatibleLinkageProblem;
 import com.google.cloud.tools.opensource.classpath.LinkageProblem;
 import com.google.cloud.tools.opensource.dependencies.Artifacts;
 import com.google.cloud.tools.opensource.dependencies.Bom;
@@ -36,12 +37,17 @@ import com.google.cloud.tools.opensource.dependencies.VersionComparator;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimaps;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Resources;
 import freemarker.template.Configuration;
 import freemarker.template.DefaultObjectWrapper;
 import freemarker.template.DefaultObjectWrapperBuilder;
@@ -59,6 +65,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -68,7 +75,9 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import org.apache.commons.cli.ParseException;
 import org.eclipse.aether.RepositoryException;
 import org.eclipse.aether.RepositorySystem;
@@ -85,6 +94,16 @@ public class DashboardMain {
 
   private static final Configuration freemarkerConfiguration = configureFreemarker();
 
+  /** Templates of the pages of the dashboard of a BOM. */
+  private static final ImmutableList<String> TEMPLATES =
+      ImmutableList.of(
+          "templates/macros.ftl",
+          "templates/component.ftl",
+          "templates/index.ftl",
+          "templates/artifact_details.ftl",
+          "templates/unstable_artifacts.ftl",
+          "templates/dependency_trees.ftl");
+
   private static final DependencyGraphBuilder dependencyGraphBuilder = new DependencyGraphBuilder();
   private static final ClassPathBuilder classPathBuilder =
       new ClassPathBuilder(dependencyGraphBuilder);
@@ -101,17 +120,21 @@ public class DashboardMain {
       throws IOException, TemplateException, RepositoryException, URISyntaxException,
       ParseException, MavenRepositoryException {
     DashboardArguments dashboardArguments = DashboardArguments.readCommandLine(arguments);
+    int threadCount = dashboardArguments.getThreadCount();
+    boolean incremental = dashboardArguments.isIncremental();
 
     if (dashboardArguments.hasVersionlessCoordinates()) {
-      generateAllVersions(dashboardArguments.getVersionlessCoordinates());
+      generateAllVersions(
+          dashboardArguments.getVersionlessCoordinates(), threadCount, incremental);
     } else if (dashboardArguments.hasFile()) {
-      generate(dashboardArguments.getBomFile());
+      generate(dashboardArguments.getBomFile(), threadCount, incremental);
     } else {
-      generate(dashboardArguments.getBomCoordinates());
+      generate(dashboardArguments.getBomCoordinates(), threadCount, incremental);
     }
   }
 
-  private static void generateAllVersions(String versionlessCoordinates)
+  private static void generateAllVersions(
+      String versionlessCoordinates, int threadCount, boolean incremental)
       throws IOException, TemplateException, RepositoryException, URISyntaxException,
       MavenRepositoryException {
     List<String> elements = Splitter.on(':').splitToList(versionlessCoordinates);
@@ -124,8 +147,13 @@ public class DashboardMain {
     RepositorySystem repositorySystem = RepositoryUtility.newRepositorySystem();
     ImmutableList<String> versions =
         RepositoryUtility.findVersions(repositorySystem, groupId, artifactId);
-    for (String version : versions) {
-      generate(String.format("%s:%s:%s", groupId, artifactId, version));
+    // Consecutive versions share most of their JAR files
+    try (LinkageCheckSession session = new LinkageCheckSession(threadCount)) {
+      for (String version : versions) {
+        String bomCoordinates = String.format("%s:%s:%s", groupId, artifactId, version);
+        Path output = generate(Bom.readBom(bomCoordinates), threadCount, incremental, session);
+        System.out.println("Wrote dashboard for " + bomCoordinates + " to " + output);
+      }
     }
     generateVersionIndex(groupId, artifactId, versions);
   }
@@ -154,60 +182,105 @@ public class DashboardMain {
     return page;
   }
 
+  /**
+   * Generates the dashboard for the BOM at {@code bomCoordinates}. If {@code incremental} is true,
+   * the pages whose inputs have not changed since the previous run in the output directory are not
+   * generated again.
+   */
   @VisibleForTesting
-  static Path generate(String bomCoordinates)
+  static Path generate(String bomCoordinates, int threadCount, boolean incremental)
       throws IOException, TemplateException, RepositoryException, URISyntaxException {
-    Path output = generate(Bom.readBom(bomCoordinates));
-    System.out.println("Wrote dashboard for " + bomCoordinates + " to " + output);
-    return output;
+    try (LinkageCheckSession session = new LinkageCheckSession(threadCount)) {
+      Path output = generate(Bom.readBom(bomCoordinates), threadCount, incremental, session);
+      System.out.println("Wrote dashboard for " + bomCoordinates + " to " + output);
+      return output;
+    }
   }
 
   @VisibleForTesting
-  static Path generate(Path bomFile)
+  static Path generate(Path bomFile, int threadCount, boolean incremental)
       throws IOException, TemplateException, URISyntaxException, MavenRepositoryException {
     checkArgument(Files.isRegularFile(bomFile), "The input BOM %s is not a regular file", bomFile);
     checkArgument(Files.isReadable(bomFile), "The input BOM %s is not readable", bomFile);
-    Path output = generate(Bom.readBom(bomFile));
-    System.out.println("Wrote dashboard for " + bomFile + " to " + output);
-    return output;
+    try (LinkageCheckSession session = new LinkageCheckSession(threadCount)) {
+      Path output = generate(Bom.readBom(bomFile), threadCount, incremental, session);
+      System.out.println("Wrote dashboard for " + bomFile + " to " + output);
+      return output;
+    }
   }
 
-  private static Path generate(Bom bom) throws IOException, TemplateException, URISyntaxException {
+  /**
+   * Generates the dashboard for {@code bom}. The linkage check of the class path reuses the JAR
+   * files read by the earlier checks in {@code session}.
+   */
+  private static Path generate(
+      Bom bom, int threadCount, boolean incremental, LinkageCheckSession session)
+      throws IOException, TemplateException, URISyntaxException {
+
+    Artifact bomArtifact = new DefaultArtifact(bom.getCoordinates());
+    Path output =
+        Files.createDirectories(
+            outputDirectory(
+                bomArtifact.getGroupId(), bomArtifact.getArtifactId(), bomArtifact.getVersion()));
+
+    String templateVersion = templateVersion();
+    DashboardManifest manifest =
+        incremental
+            ? DashboardManifest.read(output, templateVersion)
+            : DashboardManifest.create(output, templateVersion);
 
     ImmutableList<Artifact> managedDependencies = bom.getManagedDependencies();
+    String bomFingerprint =
+        manifest.fingerprint(
+            Iterables.concat(ImmutableList.of(bom.getCoordinates()), managedDependencies));
+    // Snapshot artifacts may change without changing their coordinates
+    boolean hasSnapshot =
+        bomArtifact.isSnapshot() || managedDependencies.stream().anyMatch(Artifact::isSnapshot);
+    if (!hasSnapshot && manifest.isBomUpToDate(bomFingerprint)) {
+      System.out.println("Dashboard for " + bom.getCoordinates() + " is up to date in " + output);
+      return output;
+    }
 
     ClassPathResult classPathResult = classPathBuilder.resolve(managedDependencies, false);
     ImmutableList<ClassPathEntry> classpath = classPathResult.getClassPath();
 
-    LinkageChecker linkageChecker = LinkageChecker.create(classpath);
-
-    ImmutableSet<LinkageProblem> linkageProblems = linkageChecker.findLinkageProblems();
+    ImmutableSet<LinkageProblem> linkageProblems = session.findLinkageProblems(classpath);
 
-    ArtifactCache cache = loadArtifactInfo(managedDependencies);
-    Path output = generateHtml(bom, cache, classPathResult, linkageProblems);
+    ArtifactCache cache = loadArtifactInfo(managedDependencies, threadCount);
+    generateHtml(
+        bom, output, cache, classPathResult, linkageProblems, manifest, incremental, threadCount);
 
+    manifest.putBom(bomFingerprint);
+    manifest.write();
     return output;
   }
 
+  /** Returns the fingerprint of the templates of the dashboard. */
+  private static String templateVersion() throws IOException {
+    Hasher hasher = Hashing.sha256().newHasher();
+    ClassLoader classLoader = DashboardMain.class.getClassLoader();
+    for (String template : TEMPLATES) {
+      hasher.putBytes(Resources.toByteArray(classLoader.getResource(template)));
+    }
+    return hasher.hash().toString();
+  }
+
   private static Path outputDirectory(String groupId, String artifactId, String version) {
     String versionPathElement = version.contains("-SNAPSHOT") ? "snapshot" : version;
     return Paths.get("target", groupId, artifactId, versionPathElement);
   }
 
-  private static Path generateHtml(
+  private static void generateHtml(
       Bom bom,
+      Path output,
       ArtifactCache cache,
       ClassPathResult classPathResult,
-      ImmutableSet<LinkageProblem> linkageProblems)
+      ImmutableSet<LinkageProblem> linkageProblems,
+      DashboardManifest manifest,
+      boolean incremental,
+      int threadCount)
       throws IOException, TemplateException, URISyntaxException {
 
-    Artifact bomArtifact = new DefaultArtifact(bom.getCoordinates());
-
-    Path relativePath =
-        outputDirectory(
-            bomArtifact.getGroupId(), bomArtifact.getArtifactId(), bomArtifact.getVersion());
-    Path output = Files.createDirectories(relativePath);
-
     copyResource(output, "css/dashboard.css");
     copyResource(output, "js/dashboard.js");
 
@@ -216,18 +289,24 @@ public class DashboardMain {
 
     List<ArtifactResults> table =
         generateReports(
-            freemarkerConfiguration, output, cache, linkageProblemTable, classPathResult, bom);
+            freemarkerConfiguration,
+            output,
+            cache,
+            linkageProblemTable,
+            classPathResult,
+            bom,
+            manifest,
+            incremental,
+            threadCount);
 
     generateDashboard(
         freemarkerConfiguration,
         output,
         table,
-        cache.getGlobalDependencies(),
+        cache.getGlobalVersionIndex(),
         linkageProblemTable,
         classPathResult,
         bom);
-
-    return output;
   }
 
   private static void copyResource(Path output, String resourceName)
@@ -235,9 +314,8 @@ public class DashboardMain {
     ClassLoader classLoader = DashboardMain.class.getClassLoader();
     Path input = Paths.get(classLoader.getResource(resourceName).toURI()).toAbsolutePath();
     Path copy = output.resolve(input.getFileName());
-    if (!Files.exists(copy)) {
-      Files.copy(input, copy);
-    }
+    // Replaces the resource in an existing output directory, which the pages of this run use
+    Files.copy(input, copy, StandardCopyOption.REPLACE_EXISTING);
   }
 
   @VisibleForTesting
@@ -248,6 +326,12 @@ public class DashboardMain {
     return configuration;
   }
 
+  /**
+   * Generates the report of each artifact in {@code cache} with up to {@code threadCount}
+   * threads. The results are in the order of the artifacts in {@code cache}. If {@code
+   * incremental} is true, the reports whose inputs have not changed since the run recorded in
+   * {@code manifest} are not generated again.
+   */
   @VisibleForTesting
   static List<ArtifactResults> generateReports(
       Configuration configuration,
@@ -255,71 +339,199 @@ public class DashboardMain {
       ArtifactCache cache,
       ImmutableMap<ClassPathEntry, ImmutableSet<LinkageProblem>> linkageProblemTable,
       ClassPathResult classPathResult,
-      Bom bom)
+      Bom bom,
+      DashboardManifest manifest,
+      boolean incremental,
+      int threadCount)
       throws TemplateException {
+    checkArgument(threadCount > 0, "The number of threads must be positive: %s", threadCount);
 
+    GlobalVersionIndex globalVersionIndex = cache.getGlobalVersionIndex();
     Map<Artifact, ArtifactInfo> artifacts = cache.getInfoMap();
-    List<ArtifactResults> table = new ArrayList<>();
-    for (Entry<Artifact, ArtifactInfo> entry : artifacts.entrySet()) {
-      ArtifactInfo info = entry.getValue();
-      try {
-        if (info.getException() != null) {
-          ArtifactResults unavailable = new ArtifactResults(entry.getKey());
-          unavailable.setExceptionMessage(info.getException().getMessage());
-          table.add(unavailable);
-        } else {
-          Artifact artifact = entry.getKey();
-          ImmutableSet<ClassPathEntry> jarsInDependencyTree =
-              classPathResult.getClassPathEntries(Artifacts.toCoordinates(artifact));
-          Map<ClassPathEntry, ImmutableSet<LinkageProblem>> relevantLinkageProblemTable =
-              Maps.filterKeys(linkageProblemTable, jarsInDependencyTree::contains);
-
-          ArtifactResults results =
-              generateArtifactReport(
-                  configuration,
-                  output,
-                  artifact,
-                  entry.getValue(),
-                  cache.getGlobalDependencies(),
-                  ImmutableMap.copyOf(relevantLinkageProblemTable),
-                  classPathResult,
-                  bom);
-          table.add(results);
+    ForkJoinPool pool = new ForkJoinPool(threadCount);
+    try {
+      List<ForkJoinTask<ArtifactResults>> tasks = new ArrayList<>();
+      for (Entry<Artifact, ArtifactInfo> entry : artifacts.entrySet()) {
+        tasks.add(
+            pool.submit(
+                () ->
+                    generateArtifactResults(
+                        configuration,
+                        output,
+                        entry.getKey(),
+                        entry.getValue(),
+                        globalVersionIndex,
+                        linkageProblemTable,
+                        classPathResult,
+                        bom,
+                        manifest,
+                        incremental)));
+      }
+
+      List<ArtifactResults> table = new ArrayList<>();
+      for (ForkJoinTask<ArtifactResults> task : tasks) {
+        table.add(task.get());
+      }
+      return table;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while generating reports", ex);
+    } catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
+      Throwables.throwIfInstanceOf(cause, TemplateException.class);
+      Throwables.throwIfUnchecked(cause);
+      throw new IllegalStateException(cause);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private static ArtifactResults generateArtifactResults(
+      Configuration configuration,
+      Path output,
+      Artifact artifact,
+      ArtifactInfo info,
+      GlobalVersionIndex globalVersionIndex,
+      ImmutableMap<ClassPathEntry, ImmutableSet<LinkageProblem>> linkageProblemTable,
+      ClassPathResult classPathResult,
+      Bom bom,
+      DashboardManifest manifest,
+      boolean incremental)
+      throws TemplateException {
+    try {
+      if (info.getException() != null) {
+        ArtifactResults unavailable = new ArtifactResults(artifact);
+        unavailable.setExceptionMessage(info.getException().getMessage());
+        return unavailable;
+      }
+      ImmutableSet<ClassPathEntry> jarsInDependencyTree =
+          classPathResult.getClassPathEntries(Artifacts.toCoordinates(artifact));
+      ImmutableMap<ClassPathEntry, ImmutableSet<LinkageProblem>> relevantLinkageProblemTable =
+          ImmutableMap.copyOf(Maps.filterKeys(linkageProblemTable, jarsInDependencyTree::contains));
+
+      String page = reportFileName(artifact);
+      String fingerprint = null;
+      if (incremental) {
+        fingerprint =
+            manifest.fingerprint(
+                reportInputs(
+                    artifact,
+                    info,
+                    globalVersionIndex,
+                    jarsInDependencyTree,
+                    relevantLinkageProblemTable,
+                    bom));
+        ArtifactResults previousResults = manifest.getArtifactResults(artifact, page, fingerprint);
+        if (previousResults != null) {
+          return previousResults;
         }
-      } catch (IOException ex) {
-        ArtifactResults unavailableTestResult = new ArtifactResults(entry.getKey());
-        unavailableTestResult.setExceptionMessage(ex.getMessage());
-        // Even when there's a problem generating test result, show the error in the dashboard
-        table.add(unavailableTestResult);
       }
+
+      ArtifactResults results =
+          generateArtifactReport(
+              configuration,
+              output,
+              artifact,
+              info,
+              globalVersionIndex,
+              relevantLinkageProblemTable,
+              classPathResult,
+              bom);
+      if (fingerprint != null) {
+        manifest.putArtifactResults(page, fingerprint, results);
+      }
+      return results;
+    } catch (IOException | RuntimeException ex) {
+      ArtifactResults unavailableTestResult = new ArtifactResults(artifact);
+      unavailableTestResult.setExceptionMessage(ex.getMessage());
+      // Even when there's a problem generating test result, show the error in the dashboard
+      // instead of failing the reports of the other artifacts
+      return unavailableTestResult;
     }
+  }
 
-    return table;
+  /**
+   * Returns the inputs of the report of {@code artifact} that decide whether it has to be
+   * generated again: the coordinates, the dependency graphs and the class path of the artifact,
+   * the linkage problems in the class path, and the latest versions in the BOM.
+   */
+  private static ImmutableList<Object> reportInputs(
+      Artifact artifact,
+      ArtifactInfo info,
+      GlobalVersionIndex globalVersionIndex,
+      ImmutableSet<ClassPathEntry> classPath,
+      ImmutableMap<ClassPathEntry, ImmutableSet<LinkageProblem>> linkageProblemTable,
+      Bom bom) {
+    ImmutableList.Builder<Object> inputs = ImmutableList.builder();
+    inputs.add(bom.getCoordinates(), Artifacts.toCoordinates(artifact));
+    inputs.addAll(info.getCompleteDependencies().list());
+    inputs.addAll(info.getTransitiveDependencies().list());
+    inputs.addAll(classPath);
+    linkageProblemTable.entrySet().stream()
+        .flatMap(
+            entry ->
+                entry.getValue().stream().map(problem -> entry.getKey() + " " + describe(problem)))
+        .sorted()
+        .forEach(inputs::add);
+    inputs.add(globalVersionIndex.getLatestVersions());
+    return inputs.build();
+  }
+
+  /**
+   * Returns the fields of {@code problem} shown in the report: its type, the source class, the
+   * symbol, and the class path entry of the target class, if any.
+   */
+  private static String describe(LinkageProblem problem) {
+    ClassFile sourceClass = problem.getSourceClass();
+    StringBuilder description =
+        new StringBuilder(problem.getClass().getSimpleName())
+            .append(' ')
+            .append(sourceClass.getClassPathEntry())
+            .append(' ')
+            .append(sourceClass.getBinaryName())
+            .append(' ')
+            .append(problem.getSymbol());
+    if (problem instanceof IncompatibleLinkageProblem) {
+      ClassFile targetClass = ((IncompatibleLinkageProblem) problem).getTargetClass();
+      if (targetClass != null) {
+        description.append(' ').append(targetClass.getClassPathEntry());
+      }
+    }
+    return description.toString();
+  }
+
+  private static String reportFileName(Artifact artifact) {
+    return Artifacts.toCoordinates(artifact).replace(':', '_') + ".html";
   }
 
   /**
    * This is the only method that queries the Maven repository.
    */
-  private static ArtifactCache loadArtifactInfo(List<Artifact> artifacts) {
+  private static ArtifactCache loadArtifactInfo(List<Artifact> artifacts, int threadCount) {
     Map<Artifact, ArtifactInfo> infoMap = new LinkedHashMap<>();
-    List<DependencyGraph> globalDependencies = new ArrayList<>();
 
-    for (Artifact artifact : artifacts) {
-      DependencyGraph completeDependencies =
-          dependencyGraphBuilder.buildVerboseDependencyGraph(artifact);
-      globalDependencies.add(completeDependencies);
+    ImmutableList<DependencyGraph> completeDependencyGraphs =
+        dependencyGraphBuilder.buildVerboseDependencyGraphs(artifacts, threadCount);
 
-      // picks versions according to Maven rules
-      DependencyGraph transitiveDependencies =
-          dependencyGraphBuilder.buildMavenDependencyGraph(new Dependency(artifact, "compile"));
+    // picks versions according to Maven rules
+    ImmutableList<Dependency> dependencies =
+        artifacts.stream()
+            .map(artifact -> new Dependency(artifact, "compile"))
+            .collect(toImmutableList());
+    ImmutableList<DependencyGraph> transitiveDependencyGraphs =
+        dependencyGraphBuilder.buildMavenDependencyGraphs(dependencies, threadCount);
 
+    for (int i = 0; i < artifacts.size(); i++) {
+      DependencyGraph completeDependencies = completeDependencyGraphs.get(i);
+      DependencyGraph transitiveDependencies = transitiveDependencyGraphs.get(i);
       ArtifactInfo info = new ArtifactInfo(completeDependencies, transitiveDependencies);
-      infoMap.put(artifact, info);
+      infoMap.put(artifacts.get(i), info);
     }
 
     ArtifactCache cache = new ArtifactCache();
     cache.setInfoMap(infoMap);
-    cache.setGlobalDependencies(globalDependencies);
+    // The highest versions are shared by all reports and the dashboard
+    cache.setGlobalVersionIndex(GlobalVersionIndex.create(infoMap.values()));
 
     return cache;
   }
@@ -329,14 +541,13 @@ public class DashboardMain {
       Path output,
       Artifact artifact,
       ArtifactInfo artifactInfo,
-      List<DependencyGraph> globalDependencies,
+      GlobalVersionIndex globalVersionIndex,
       ImmutableMap<ClassPathEntry, ImmutableSet<LinkageProblem>> linkageProblemTable,
       ClassPathResult classPathResult,
       Bom bom)
       throws IOException, TemplateException {
 
-    String coordinates = Artifacts.toCoordinates(artifact);
-    File outputFile = output.resolve(coordinates.replace(':', '_') + ".html").toFile();
+    File outputFile = output.resolve(reportFileName(artifact)).toFile();
 
     try (Writer out = new OutputStreamWriter(
         new FileOutputStream(outputFile), StandardCharsets.UTF_8)) {
@@ -348,11 +559,14 @@ public class DashboardMain {
       // picks versions according to Maven rules
       DependencyGraph transitiveDependencies = artifactInfo.getTransitiveDependencies();
 
+      Map<String, String> actualVersionMap =
+          globalVersionIndex.getHighestVersions(transitiveDependencies);
+
       Map<Artifact, Artifact> upperBoundFailures =
-          findUpperBoundsFailures(graph.getHighestVersionMap(), transitiveDependencies);
+          findUpperBoundsFailures(globalVersionIndex.getHighestVersions(graph), actualVersionMap);
 
-      Map<Artifact, Artifact> globalUpperBoundFailures = findUpperBoundsFailures(
-          collectLatestVersions(globalDependencies), transitiveDependencies);
+      Map<Artifact, Artifact> globalUpperBoundFailures =
+          findUpperBoundsFailures(globalVersionIndex.getLatestVersions(), actualVersionMap);
 
       long totalLinkageErrorCount =
           linkageProblemTable.values().stream()
@@ -393,10 +607,7 @@ public class DashboardMain {
   }
 
   private static Map<Artifact, Artifact> findUpperBoundsFailures(
-      Map<String, String> expectedVersionMap,
-      DependencyGraph transitiveDependencies) {
-
-    Map<String, String> actualVersionMap = transitiveDependencies.getHighestVersionMap();
+      Map<String, String> expectedVersionMap, Map<String, String> actualVersionMap) {
 
     VersionComparator comparator = new VersionComparator();
 
@@ -441,23 +652,30 @@ public class DashboardMain {
       Configuration configuration,
       Path output,
       List<ArtifactResults> table,
-      List<DependencyGraph> globalDependencies,
+      GlobalVersionIndex globalVersionIndex,
       ImmutableMap<ClassPathEntry, ImmutableSet<LinkageProblem>> linkageProblemTable,
       ClassPathResult classPathResult,
       Bom bom)
       throws IOException, TemplateException {
 
-    Map<String, String> latestArtifacts = collectLatestVersions(globalDependencies);
+    // The dependency trees and the linkage errors of all JAR files are too large to inline into a
+    // page. The pages fetch them on demand.
+    ImmutableMap<String, String> dependencyTreeFiles =
+        DashboardData.writeDependencyTrees(output, globalVersionIndex.getDependencyGraphs());
+    DashboardData.writeArtifacts(output, table, dependencyTreeFiles);
+    ImmutableMap<String, String> linkageProblemFiles =
+        DashboardData.writeLinkageProblems(output, linkageProblemTable);
 
     Map<String, Object> templateData = new HashMap<>();
     templateData.put("table", table);
     templateData.put("lastUpdated", LocalDateTime.now());
-    templateData.put("latestArtifacts", latestArtifacts);
+    templateData.put("latestArtifacts", globalVersionIndex.getLatestVersions());
     templateData.put("linkageProblems", linkageProblemTable);
     templateData.put("classPathResult", classPathResult);
     templateData.put("dependencyPathRootCauses", findRootCauses(classPathResult));
     templateData.put("coordinates", bom.getCoordinates());
-    templateData.put("dependencyGraphs", globalDependencies);
+    templateData.put("dependencyTrees", dependencyTreeFiles);
+    templateData.put("linkageProblemFiles", linkageProblemFiles);
 
     // Accessing static methods from Freemarker template
     // https://freemarker.apache.org/docs/pgui_misc_beanwrapper.html#autoid_60
@@ -497,26 +715,6 @@ public class DashboardMain {
     }
   }
 
-  private static Map<String, String> collectLatestVersions(
-      List<DependencyGraph> globalDependencies) {
-    Map<String, String> latestArtifacts = new TreeMap<>();
-    VersionComparator comparator = new VersionComparator();
-
-    if (globalDependencies != null) {
-      for (DependencyGraph graph : globalDependencies) {
-        Map<String, String> map = graph.getHighestVersionMap();
-        for (String key : map.keySet()) {
-          String newVersion = map.get(key);
-          String oldVersion = latestArtifacts.get(key);
-          if (oldVersion == null || comparator.compare(newVersion, oldVersion) > 0) {
-            latestArtifacts.put(key, map.get(key));
-          }
-        }
-      }
-    }
-    return latestArtifacts;
-  }
-
   /**
    * Returns the number of rows in {@code table} that show unavailable ({@code null} result) or some
    * failures for {@code columnName}.
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.dashboard;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import javax.annotation.Nullable;
+import org.eclipse.aether.artifact.Artifact;
+
+/**
+ * Fingerprints of the inputs of the pages in a dashboard output directory. An incremental run
+ * skips a page, or the whole dashboard of a BOM, when the fingerprint of its inputs is the same as
+ * the one recorded by the previous run.
+ *
+ * <p>Each run records a new manifest. Only the pages generated or skipped by the run are in it.
+ */
+final class DashboardManifest {
+
+  @VisibleForTesting static final String FILE_NAME = "dashboard-manifest.properties";
+
+  /** Incremented when the fingerprints or the pages change in a way the templates do not show. */
+  private static final String FORMAT_VERSION = "1";
+
+  private static final String VERSION_KEY = "version";
+  private static final String BOM_KEY = "bom";
+  private static final String PAGE_PREFIX = "page.";
+  private static final String RESULT_PREFIX = "result.";
+
+  private final Path directory;
+  private final String templateVersion;
+  private final Properties previous;
+  private final Properties current = new Properties();
+
+  private DashboardManifest(Path directory, String templateVersion, Properties previous) {
+    this.directory = checkNotNull(directory);
+    this.templateVersion = checkNotNull(templateVersion);
+    this.previous = previous;
+    current.setProperty(VERSION_KEY, FORMAT_VERSION);
+  }
+
+  /**
+   * Returns a manifest for {@code directory} that does not reuse any page of the previous run. The
+   * {@code templateVersion} is part of all fingerprints.
+   */
+  static DashboardManifest create(Path directory, String templateVersion) {
+    return new DashboardManifest(directory, templateVersion, new Properties());
+  }
+
+  /**
+   * Returns a manifest for {@code directory} that reuses the pages recorded by the previous run,
+   * if any. The {@code templateVersion} is part of all fingerprints.
+   */
+  static DashboardManifest read(Path directory, String templateVersion) throws IOException {
+    Path file = directory.resolve(FILE_NAME);
+    Properties previous = new Properties();
+    if (Files.isRegularFile(file)) {
+      try (InputStream input = Files.newInputStream(file)) {
+        previous.load(input);
+      } catch (IllegalArgumentException ex) {
+        // A malformed manifest regenerates all pages
+        previous.clear();
+      }
+      if (!FORMAT_VERSION.equals(previous.getProperty(VERSION_KEY))) {
+        previous.clear();
+      }
+    }
+    return new DashboardManifest(directory, templateVersion, previous);
+  }
+
+  /**
+   * Returns the fingerprint of {@code inputs}, which are compared by their string
+   * representations, and the template version.
+   */
+  String fingerprint(Iterable<?> inputs) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putString(templateVersion, StandardCharsets.UTF_8).putByte((byte) 0);
+    for (Object input : inputs) {
+      hasher.putString(String.valueOf(input), StandardCharsets.UTF_8).putByte((byte) 0);
+    }
+    return hasher.hash().toString();
+  }
+
+  /** Returns true if the previous run generated the dashboard of a BOM with {@code fingerprint}. */
+  boolean isBomUpToDate(String fingerprint) {
+    return fingerprint.equals(previous.getProperty(BOM_KEY));
+  }
+
+  /** Records that the dashboard of a BOM with {@code fingerprint} has been generated. */
+  synchronized void putBom(String fingerprint) {
+    current.setProperty(BOM_KEY, fingerprint);
+  }
+
+  /**
+   * Returns the results of {@code artifact} recorded by the previous run for {@code page} if the
+   * page exists and was generated with {@code fingerprint}. Otherwise null. The returned results
+   * are recorded again in this manifest.
+   */
+  @Nullable
+  synchronized ArtifactResults getArtifactResults(
+      Artifact artifact, String page, String fingerprint) {
+    if (!fingerprint.equals(previous.getProperty(PAGE_PREFIX + page))
+        || !Files.isRegularFile(directory.resolve(page))) {
+      return null;
+    }
+
+    ArtifactResults results = new ArtifactResults(artifact);
+    String resultPrefix = RESULT_PREFIX + page + '.';
+    for (String key : previous.stringPropertyNames()) {
+      if (key.startsWith(resultPrefix)) {
+        String testName = key.substring(resultPrefix.length());
+        try {
+          results.addResult(testName, Integer.parseInt(previous.getProperty(key)));
+        } catch (NumberFormatException ex) {
+          return null;
+        }
+      }
+    }
+    putArtifactResults(page, fingerprint, results);
+    return results;
+  }
+
+  /** Records that {@code page} with {@code results} has been generated with {@code fingerprint}. */
+  synchronized void putArtifactResults(String page, String fingerprint, ArtifactResults results) {
+    current.setProperty(PAGE_PREFIX + page, fingerprint);
+    for (Map.Entry<String, Integer> result : results.getResults().entrySet()) {
+      String key = RESULT_PREFIX + page + '.' + result.getKey();
+      current.setProperty(key, result.getValue().toString());
+    }
+  }
+
+  /** Writes this manifest to the output directory, replacing the manifest of the previous run. */
+  synchronized void write() throws IOException {
+    Path file = directory.resolve(FILE_NAME);
+    // Writing to a temporary file first avoids leaving a partially-written manifest
+    Path temporaryFile = Files.createTempFile(directory, FILE_NAME, ".tmp");
+    try {
+      try (OutputStream output = Files.newOutputStream(temporaryFile)) {
+        current.store(output, "Dashboard page fingerprints");
+      }
+      Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+}
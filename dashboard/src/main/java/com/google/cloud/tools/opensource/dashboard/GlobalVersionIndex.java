@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.dashboard;
+
+import com.google.cloud.tools.opensource.dependencies.DependencyGraph;
+import com.google.cloud.tools.opensource.dependencies.VersionComparator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Highest versions of the artifacts in the dependency graphs of a BOM, computed once after the
+ * graphs are built and shared by all reports.
+ */
+final class GlobalVersionIndex {
+
+  private final ImmutableList<DependencyGraph> dependencyGraphs;
+  private final ImmutableSortedMap<String, String> latestVersions;
+  private final Map<DependencyGraph, ImmutableMap<String, String>> highestVersionMaps;
+
+  private GlobalVersionIndex(
+      ImmutableList<DependencyGraph> dependencyGraphs,
+      ImmutableSortedMap<String, String> latestVersions,
+      Map<DependencyGraph, ImmutableMap<String, String>> highestVersionMaps) {
+    this.dependencyGraphs = dependencyGraphs;
+    this.latestVersions = latestVersions;
+    this.highestVersionMaps = highestVersionMaps;
+  }
+
+  /**
+   * Returns the index of the dependency graphs in {@code infos}. The complete dependency graphs
+   * are the global dependencies of the BOM. Infos that failed to load are ignored.
+   */
+  static GlobalVersionIndex create(Iterable<ArtifactInfo> infos) {
+    ImmutableList.Builder<DependencyGraph> dependencyGraphs = ImmutableList.builder();
+    Map<DependencyGraph, ImmutableMap<String, String>> highestVersionMaps =
+        new IdentityHashMap<>();
+    TreeMap<String, String> latestVersions = new TreeMap<>();
+    VersionComparator comparator = new VersionComparator();
+
+    for (ArtifactInfo info : infos) {
+      if (info.getException() != null) {
+        continue;
+      }
+      DependencyGraph completeDependencies = info.getCompleteDependencies();
+      dependencyGraphs.add(completeDependencies);
+      ImmutableMap<String, String> highestVersions =
+          highestVersionMaps.computeIfAbsent(
+              completeDependencies, graph -> ImmutableMap.copyOf(graph.getHighestVersionMap()));
+      highestVersions.forEach(
+          (key, version) ->
+              latestVersions.merge(
+                  key,
+                  version,
+                  (oldVersion, newVersion) ->
+                      comparator.compare(newVersion, oldVersion) > 0 ? newVersion : oldVersion));
+
+      DependencyGraph transitiveDependencies = info.getTransitiveDependencies();
+      if (transitiveDependencies != null) {
+        highestVersionMaps.computeIfAbsent(
+            transitiveDependencies, graph -> ImmutableMap.copyOf(graph.getHighestVersionMap()));
+      }
+    }
+
+    return new GlobalVersionIndex(
+        dependencyGraphs.build(),
+        ImmutableSortedMap.copyOfSorted(latestVersions),
+        highestVersionMaps);
+  }
+
+  /** Returns the complete dependency graphs of the artifacts in the BOM. */
+  ImmutableList<DependencyGraph> getDependencyGraphs() {
+    return dependencyGraphs;
+  }
+
+  /** Returns a map of groupId:artifactId to the highest version across all dependency graphs. */
+  ImmutableSortedMap<String, String> getLatestVersions() {
+    return latestVersions;
+  }
+
+  /**
+   * Returns a map of groupId:artifactId to the highest version in {@code graph}. Graphs that are
+   * not in this index are computed on each call.
+   */
+  ImmutableMap<String, String> getHighestVersions(DependencyGraph graph) {
+    ImmutableMap<String, String> highestVersions = highestVersionMaps.get(graph);
+    if (highestVersions != null) {
+      return highestVersions;
+    }
+    return ImmutableMap.copyOf(graph.getHighestVersionMap());
+  }
+}
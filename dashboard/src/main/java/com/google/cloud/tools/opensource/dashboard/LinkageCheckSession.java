@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.dashboard;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.cloud.tools.opensource.classpath.ClassPathEntry;
+import com.google.cloud.tools.opensource.classpath.LinkageCheckSnapshot;
+import com.google.cloud.tools.opensource.classpath.LinkageProblem;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Linkage checks of the class paths of the versions of a BOM, one after another. Each check
+ * updates the {@link LinkageCheckSnapshot} of the previous check, which keeps the symbol
+ * references of the JAR files keyed by their artifacts and files. A version reads only the JAR
+ * files that it adds and checks again only the classes affected by them.
+ *
+ * <p>The class path of each version is resolved again, with new {@link ClassPathEntry} instances.
+ * This session replaces them with the equal instances of the previous check, so that an unchanged
+ * JAR file keeps its class file names. The update of the snapshot also keeps the memory mapping of
+ * an unchanged JAR file instead of mapping it again.
+ *
+ * <p>This class is not safe for use by multiple threads.
+ */
+final class LinkageCheckSession implements Closeable {
+
+  private final int parallelism;
+
+  @Nullable private LinkageCheckSnapshot snapshot;
+
+  /** The entries in the class path of the previous check, keyed by themselves. */
+  private Map<ClassPathEntry, ClassPathEntry> entries = new HashMap<>();
+
+  /**
+   * Returns a session that reads the JAR files with up to {@code parallelism} threads.
+   *
+   * @param parallelism the number of threads to read JAR files
+   */
+  LinkageCheckSession(int parallelism) {
+    checkArgument(parallelism > 0, "Parallelism must be positive: %s", parallelism);
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Returns the linkage problems in {@code classPath}, the same as {@link
+   * com.google.cloud.tools.opensource.classpath.LinkageChecker#findLinkageProblems()}.
+   */
+  ImmutableSet<LinkageProblem> findLinkageProblems(List<ClassPathEntry> classPath)
+      throws IOException {
+    ImmutableList<ClassPathEntry> internedClassPath =
+        classPath.stream()
+            .map(entry -> entries.getOrDefault(entry, entry))
+            .collect(toImmutableList());
+    if (snapshot == null) {
+      snapshot = LinkageCheckSnapshot.create(internedClassPath, null, parallelism, null);
+    } else {
+      LinkageCheckSnapshot previous = snapshot;
+      snapshot = snapshot.update(internedClassPath);
+      // The update of an unchanged class path is the previous snapshot itself
+      if (previous != snapshot) {
+        // The previous snapshot is no longer used. The update took the mappings of the unchanged
+        // JAR files, and closing it releases the mappings of the others
+        previous.close();
+      }
+    }
+
+    Map<ClassPathEntry, ClassPathEntry> newEntries = new HashMap<>();
+    for (ClassPathEntry entry : internedClassPath) {
+      newEntries.putIfAbsent(entry, entry);
+    }
+    entries = newEntries;
+    return snapshot.getLinkageProblems();
+  }
+
+  /** Releases the memory mappings of the JAR files in the class path of the last check. */
+  @Override
+  public void close() throws IOException {
+    if (snapshot != null) {
+      snapshot.close();
+    }
+  }
+}
@@ -25,3 +25,126 @@ function toggleSourceClassListVisibility(button) {
   classList.style.display = nextVisibility ? "" : "none";
   button.innerText = nextVisibility ? "▼" : "▶";
 }
+
+/**
+ * Returns a promise of the data in a JSON data file. Browsers block fetch() for pages opened from
+ * file: URLs, so the output directory has to be served over HTTP to load the data files.
+ * @param dataFile path of the JSON data file relative to the page
+ */
+function loadDataFile(dataFile) {
+  return fetch(dataFile).then(response => {
+    if (!response.ok) {
+      throw new Error(response.status + " " + response.statusText);
+    }
+    return response.json();
+  });
+}
+
+/**
+ * Toggles the visibility of the element below the button. The first click loads the data file in
+ * the data-src attribute of the element and appends the elements that render returns for its data.
+ * @param button clicked button element
+ * @param render function returning the elements for the data
+ */
+function toggleDataVisibility(button, render) {
+  const container = button.parentElement.nextElementSibling;
+  if (container.dataset.loaded) {
+    const nextVisibility = container.style.display === "none";
+    container.style.display = nextVisibility ? "" : "none";
+    button.innerText = nextVisibility ? "▼" : "▶";
+    return;
+  }
+
+  button.disabled = true;
+  loadDataFile(container.dataset.src)
+    .then(data => {
+      container.appendChild(render(data));
+      container.dataset.loaded = "true";
+      container.style.display = "";
+      button.innerText = "▼";
+    })
+    .catch(error => {
+      container.textContent = "Could not load " + container.dataset.src + ": " + error.message;
+      container.style.display = "";
+    })
+    .finally(() => {
+      button.disabled = false;
+    });
+}
+
+/**
+ * Toggles the visibility of the dependency tree below the button. The first click loads the tree
+ * from the data file in the data-src attribute of the tree element.
+ * @param button clicked button element
+ */
+function toggleDependencyTreeVisibility(button) {
+  toggleDataVisibility(button, root => createDependencyTreeNode(root, null));
+}
+
+/**
+ * Toggles the visibility of the linkage errors below the button. The first click loads the errors
+ * from the data file in the data-src attribute of their element.
+ * @param button clicked button element
+ */
+function toggleLinkageProblemsVisibility(button) {
+  toggleDataVisibility(button, createLinkageProblemNodes);
+}
+
+/**
+ * Returns the elements for the linkage errors in a JAR file, in the same structure as the linkage
+ * errors of an artifact report.
+ * @param problemTable problem table of a JAR file in data/linkage, with problems and their
+ *     sourceClasses
+ */
+function createLinkageProblemNodes(problemTable) {
+  const fragment = document.createDocumentFragment();
+  for (const problem of problemTable.problems) {
+    const count = problem.sourceClasses.length;
+    const paragraph = document.createElement("p");
+    paragraph.className = "jar-linkage-report-cause";
+    paragraph.textContent =
+        problem.problem + ", referenced from " + count + (count > 1 ? " classes " : " class ");
+    const button = document.createElement("button");
+    button.title = "Toggle visibility of source class list";
+    button.innerText = "▶";
+    button.onclick = () => toggleSourceClassListVisibility(button);
+    paragraph.appendChild(button);
+    fragment.appendChild(paragraph);
+
+    const list = document.createElement("ul");
+    list.className = "jar-linkage-report-cause";
+    list.style.display = "none";
+    for (const sourceClass of problem.sourceClasses) {
+      const item = document.createElement("li");
+      item.textContent = sourceClass;
+      list.appendChild(item);
+    }
+    fragment.appendChild(list);
+  }
+  return fragment;
+}
+
+/**
+ * Returns the elements for a node of a dependency tree and its descendants, in the same structure
+ * as the dependency tree of an artifact report.
+ * @param node node of a dependency tree in data/trees, with artifact and optional children
+ * @param parent parent node, or null for the root
+ */
+function createDependencyTreeNode(node, parent) {
+  const fragment = document.createDocumentFragment();
+  const paragraph = document.createElement("p");
+  paragraph.className = "dependency-tree-node";
+  paragraph.title = parent === null ? "root" : "parent: " + parent.artifact;
+  paragraph.textContent = node.artifact;
+  fragment.appendChild(paragraph);
+
+  const list = document.createElement("ul");
+  for (const child of node.children || []) {
+    const item = document.createElement("li");
+    item.className = "dependency-tree-node";
+    item.appendChild(createDependencyTreeNode(child, node));
+    list.appendChild(item);
+  }
+  fragment.appendChild(list);
+  return fragment;
+}
@@ -46,7 +46,8 @@
     <h2>Linkage Errors</h2>
 
     <#list linkageProblems as jar, problems>
-      <@formatJarLinkageReport jar problems classPathResult dependencyPathRootCauses/>
+      <@formatJarLinkageReport jar problems classPathResult dependencyPathRootCauses
+          linkageProblemFiles[jar.toString()] />
     </#list>
 
     <hr />
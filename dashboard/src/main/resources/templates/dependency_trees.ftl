@@ -10,10 +10,15 @@
   <body>
     <h1>Dependency Tree of the Artifacts in ${coordinates}</h1>
     <p class="bom-coordinates">BOM: ${coordinates?html}</p>
-    <#list dependencyGraphs as graph>
-      <#assign rootPath = graph.getRootPath() />
-      <h2>Dependency Tree of ${rootPath.getLeaf()?html}</h2>
-      <@formatDependencyGraph graph rootPath "" />
+    <#-- The trees are loaded on demand, because all of them are too large for one page -->
+    <#list dependencyTrees as artifact, dataFile>
+      <h2>Dependency Tree of ${artifact?html}
+        <button onclick="toggleDependencyTreeVisibility(this)"
+                title="Toggle visibility of dependency tree">▶
+        </button>
+      </h2>
+      <!-- The visibility of this tree is toggled via the button above. Hidden by default -->
+      <div class="dependency-tree" data-src="${dataFile?html}" style="display:none"></div>
     </#list>
 
     <hr />
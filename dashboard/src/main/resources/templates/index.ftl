@@ -165,6 +165,12 @@
       <a href="dependency_trees.html">Dependency Trees</a>
     </p>
 
+    <p>
+      The data of this dashboard is also available as JSON, starting from
+      <a href="data/artifacts.json">artifacts.json</a> and
+      <a href="data/linkage.json">linkage.json</a>.
+    </p>
+
     <hr />
 
     <p id='updated'>Last generated at ${lastUpdated}</p>
@@ -8,8 +8,9 @@
   <#return plural?string(pluralNoun, singularNoun)>
 </#function>
 
+<#-- problemFile: the data file of the linkage errors to load on demand instead of listing them -->
 <#macro formatJarLinkageReport classPathEntry linkageProblems classPathResult
-    dependencyPathRootCauses>
+    dependencyPathRootCauses problemFile="">
   <#-- problemsToClasses: ImmutableMap<LinkageProblem, ImmutableList<String>> to get key and set of
     values in Freemarker -->
   <#assign problemsToClasses = linkageProblem.groupBySymbolProblem(linkageProblems) />
@@ -25,21 +26,31 @@
     causing linkage errors referenced from
     ${pluralize(referenceCount, "source class", "source classes")}.
   </p>
-  <#list problemsToClasses as problem, sourceClasses>
-    <p class="jar-linkage-report-cause">${problem?html}, referenced from ${
-      pluralize(sourceClasses?size, "class", "classes")?html}
-      <button onclick="toggleSourceClassListVisibility(this)"
-              title="Toggle visibility of source class list">▶
+  <#if problemFile?has_content>
+    <p class="jar-linkage-problems">Linkage errors
+      <button onclick="toggleLinkageProblemsVisibility(this)"
+              title="Toggle visibility of linkage errors">▶
       </button>
     </p>
+    <!-- The visibility of the linkage errors is toggled via the button above. Hidden by default -->
+    <div class="jar-linkage-problems" data-src="${problemFile?html}" style="display:none"></div>
+  <#else>
+    <#list problemsToClasses as problem, sourceClasses>
+      <p class="jar-linkage-report-cause">${problem?html}, referenced from ${
+        pluralize(sourceClasses?size, "class", "classes")?html}
+        <button onclick="toggleSourceClassListVisibility(this)"
+                title="Toggle visibility of source class list">▶
+        </button>
+      </p>
 
-    <!-- The visibility of this list is toggled via the button above. Hidden by default -->
-    <ul class="jar-linkage-report-cause" style="display:none">
-      <#list sourceClasses as sourceClass>
-        <li>${sourceClass?html}</li>
-      </#list>
-    </ul>
-  </#list>
+      <!-- The visibility of this list is toggled via the button above. Hidden by default -->
+      <ul class="jar-linkage-report-cause" style="display:none">
+        <#list sourceClasses as sourceClass>
+          <li>${sourceClass?html}</li>
+        </#list>
+      </ul>
+    </#list>
+  </#if>
   <#assign jarsInProblem = {} >
   <#list linkageProblems as problem>
     <#if (problem.getTargetClass())?? >
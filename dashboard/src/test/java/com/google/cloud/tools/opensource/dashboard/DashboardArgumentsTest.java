@@ -90,4 +90,42 @@ public class DashboardArgumentsTest {
       // pass
     }
   }
+
+  @Test
+  public void testParseArgument_threads() throws ParseException {
+    DashboardArguments dashboardArguments =
+        DashboardArguments.readCommandLine("-c", "com.google.cloud:libraries-bom:1.0.0", "-t", "4");
+    assertEquals(4, dashboardArguments.getThreadCount());
+  }
+
+  @Test
+  public void testParseArgument_defaultThreads() throws ParseException {
+    DashboardArguments dashboardArguments =
+        DashboardArguments.readCommandLine("-c", "com.google.cloud:libraries-bom:1.0.0");
+    assertEquals(Runtime.getRuntime().availableProcessors(), dashboardArguments.getThreadCount());
+  }
+
+  @Test
+  public void testParseArgument_invalidThreads() {
+    try {
+      DashboardArguments.readCommandLine("-c", "com.google.cloud:libraries-bom:1.0.0", "-t", "0");
+      Assert.fail("The argument should validate the number of threads");
+    } catch (ParseException ex) {
+      assertEquals("The number of threads must be positive: 0", ex.getMessage());
+    }
+  }
+
+  @Test
+  public void testParseArgument_incremental() throws ParseException {
+    DashboardArguments dashboardArguments =
+        DashboardArguments.readCommandLine("-c", "com.google.cloud:libraries-bom:1.0.0", "-i");
+    assertTrue(dashboardArguments.isIncremental());
+  }
+
+  @Test
+  public void testParseArgument_notIncremental() throws ParseException {
+    DashboardArguments dashboardArguments =
+        DashboardArguments.readCommandLine("-c", "com.google.cloud:libraries-bom:1.0.0");
+    assertFalse(dashboardArguments.isIncremental());
+  }
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.dashboard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import com.google.cloud.tools.opensource.dependencies.DependencyGraph;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DashboardDataTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path output;
+
+  @Before
+  public void setUp() throws IOException {
+    output = temporaryFolder.newFolder().toPath();
+  }
+
+  private String read(String dataFile) throws IOException {
+    return new String(Files.readAllBytes(output.resolve(dataFile)), StandardCharsets.UTF_8);
+  }
+
+  /** Returns the JSON object in {@code dataFile}. */
+  static JsonObject parseDataFile(Path output, String dataFile) throws IOException {
+    String json = new String(Files.readAllBytes(output.resolve(dataFile)), StandardCharsets.UTF_8);
+    return JsonParser.parseString(json).getAsJsonObject();
+  }
+
+  private static DefaultDependencyNode node(String coordinates) {
+    return new DefaultDependencyNode(new Dependency(new DefaultArtifact(coordinates), "compile"));
+  }
+
+  @Test
+  public void testWriteDependencyTrees() throws IOException {
+    DefaultDependencyNode root = node("com.google:foo:1");
+    DefaultDependencyNode bar = node("com.google:bar:2");
+    bar.setChildren(ImmutableList.of(node("com.google:qux:4")));
+    root.setChildren(ImmutableList.of(bar, node("com.google:baz:3")));
+
+    ImmutableMap<String, String> dataFiles =
+        DashboardData.writeDependencyTrees(output, ImmutableList.of(DependencyGraph.from(root)));
+
+    assertEquals(
+        ImmutableMap.of("com.google:foo:1", "data/trees/com.google_foo_1.json"), dataFiles);
+    JsonObject tree = parseDataFile(output, "data/trees/com.google_foo_1.json");
+    assertFalse(Files.exists(output.resolve("data/trees/com.google_foo_1.js")));
+    assertEquals("com.google:foo:jar:1", tree.get("artifact").getAsString());
+    JsonArray children = tree.getAsJsonArray("children");
+    assertEquals(2, children.size());
+    JsonObject barTree = children.get(0).getAsJsonObject();
+    assertEquals("com.google:bar:jar:2", barTree.get("artifact").getAsString());
+    assertEquals(
+        "com.google:qux:jar:4",
+        barTree.getAsJsonArray("children").get(0).getAsJsonObject().get("artifact").getAsString());
+    JsonObject bazTree = children.get(1).getAsJsonObject();
+    assertEquals("com.google:baz:jar:3", bazTree.get("artifact").getAsString());
+    assertFalse(bazTree.has("children"));
+  }
+
+  @Test
+  public void testWriteArtifacts() throws IOException {
+    ArtifactResults foo = new ArtifactResults(new DefaultArtifact("com.google:foo:1"));
+    foo.addResult("Linkage Errors", 2);
+    ArtifactResults bar = new ArtifactResults(new DefaultArtifact("com.google:bar:2"));
+    bar.setExceptionMessage("Not found");
+
+    DashboardData.writeArtifacts(
+        output,
+        ImmutableList.of(foo, bar),
+        ImmutableMap.of("com.google:foo:1", "data/trees/com.google_foo_1.json"));
+
+    assertEquals(
+        "[{\"coordinates\":\"com.google:foo:1\",\"results\":{\"Linkage Errors\":2},"
+            + "\"dependencyTree\":\"data/trees/com.google_foo_1.json\"},"
+            + "{\"coordinates\":\"com.google:bar:2\",\"results\":{},"
+            + "\"exceptionMessage\":\"Not found\"}]",
+        read("data/artifacts.json"));
+  }
+
+  @Test
+  public void testWriteArtifacts_specialCharacters() throws IOException {
+    ArtifactResults foo = new ArtifactResults(new DefaultArtifact("com.google:foo:1"));
+    foo.setExceptionMessage("a\"b\\c\nd\u0001\u2028");
+
+    DashboardData.writeArtifacts(output, ImmutableList.of(foo), ImmutableMap.of());
+
+    JsonArray artifacts = JsonParser.parseString(read("data/artifacts.json")).getAsJsonArray();
+    assertEquals(
+        "a\"b\\c\nd\u0001\u2028",
+        artifacts.get(0).getAsJsonObject().get("exceptionMessage").getAsString());
+    // Escaped, the line separator keeps the data files valid JavaScript as well as JSON
+    assertFalse(read("data/artifacts.json").contains("\u2028"));
+  }
+
+  @Test
+  public void testWriteLinkageProblems_empty() throws IOException {
+    DashboardData.writeLinkageProblems(output, ImmutableMap.of());
+
+    assertEquals("[]", read("data/linkage.json"));
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.dashboard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DashboardManifestTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final Artifact artifact = new DefaultArtifact("com.google.guava:guava:28.1-jre");
+  private final String page = "com.google.guava_guava_28.1-jre.html";
+
+  private Path directory;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = temporaryFolder.newFolder().toPath();
+    Files.write(directory.resolve(page), "report".getBytes(StandardCharsets.UTF_8));
+  }
+
+  private void writeManifest(String fingerprint) throws IOException {
+    DashboardManifest manifest = DashboardManifest.create(directory, "v1");
+    ArtifactResults results = new ArtifactResults(artifact);
+    results.addResult("Upper Bounds", 0);
+    results.addResult("Linkage Errors", 3);
+    manifest.putArtifactResults(page, fingerprint, results);
+    manifest.putBom(fingerprint);
+    manifest.write();
+  }
+
+  @Test
+  public void testFingerprint() {
+    DashboardManifest manifest = DashboardManifest.create(directory, "v1");
+    String fingerprint = manifest.fingerprint(ImmutableList.of("a", "b"));
+
+    assertEquals(fingerprint, manifest.fingerprint(ImmutableList.of("a", "b")));
+    assertNotEquals(fingerprint, manifest.fingerprint(ImmutableList.of("ab")));
+    assertNotEquals(
+        fingerprint,
+        DashboardManifest.create(directory, "v2").fingerprint(ImmutableList.of("a", "b")));
+  }
+
+  @Test
+  public void testRead() throws IOException {
+    DashboardManifest manifest = DashboardManifest.create(directory, "v1");
+    String fingerprint = manifest.fingerprint(ImmutableList.of(artifact));
+    writeManifest(fingerprint);
+
+    DashboardManifest previous = DashboardManifest.read(directory, "v1");
+    assertTrue(previous.isBomUpToDate(fingerprint));
+    ArtifactResults results = previous.getArtifactResults(artifact, page, fingerprint);
+    assertEquals("com.google.guava:guava:28.1-jre", results.getCoordinates());
+    assertTrue(results.getResult("Upper Bounds"));
+    assertEquals(3, results.getFailureCount("Linkage Errors"));
+    assertNull(results.getResult("Dependency Convergence"));
+  }
+
+  @Test
+  public void testRead_changedFingerprint() throws IOException {
+    writeManifest("fingerprint1");
+
+    DashboardManifest previous = DashboardManifest.read(directory, "v1");
+    assertFalse(previous.isBomUpToDate("fingerprint2"));
+    assertNull(previous.getArtifactResults(artifact, page, "fingerprint2"));
+  }
+
+  @Test
+  public void testRead_missingPage() throws IOException {
+    writeManifest("fingerprint1");
+    Files.delete(directory.resolve(page));
+
+    assertNull(
+        DashboardManifest.read(directory, "v1").getArtifactResults(artifact, page, "fingerprint1"));
+  }
+
+  @Test
+  public void testCreate_ignoresPreviousRun() throws IOException {
+    writeManifest("fingerprint1");
+
+    DashboardManifest manifest = DashboardManifest.create(directory, "v1");
+    assertFalse(manifest.isBomUpToDate("fingerprint1"));
+    assertNull(manifest.getArtifactResults(artifact, page, "fingerprint1"));
+  }
+
+  @Test
+  public void testWrite_keepsReusedPages() throws IOException {
+    writeManifest("fingerprint1");
+
+    DashboardManifest manifest = DashboardManifest.read(directory, "v1");
+    manifest.getArtifactResults(artifact, page, "fingerprint1");
+    manifest.write();
+
+    ArtifactResults results =
+        DashboardManifest.read(directory, "v1").getArtifactResults(artifact, page, "fingerprint1");
+    assertEquals(3, results.getFailureCount("Linkage Errors"));
+  }
+}
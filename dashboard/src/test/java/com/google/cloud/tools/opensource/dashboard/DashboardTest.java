@@ -27,6 +27,8 @@ import com.google.common.io.MoreFiles;
 import com.google.common.io.RecursiveDeleteOption;
 import com.google.common.truth.Correspondence;
 import com.google.common.truth.Truth;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URLDecoder;
@@ -72,7 +74,7 @@ public class DashboardTest {
   public static void setUp() throws IOException, ParsingException {
     // Creates "index.html" and artifact reports in outputDirectory
     try {
-      outputDirectory = DashboardMain.generate("com.google.cloud:libraries-bom:1.0.0");
+      outputDirectory = DashboardMain.generate("com.google.cloud:libraries-bom:1.0.0", 2, false);
     } catch (Throwable t) {
       t.printStackTrace();
       Assert.fail("Could not generate dashboard");
@@ -238,6 +240,21 @@ public class DashboardTest {
                 + " commons-logging:commons-logging:1.2 (compile)");
   }
 
+  @Test
+  public void testLinkageReports_problemFiles() throws IOException {
+    // The details page loads the linkage errors of each JAR file on demand
+    Assert.assertEquals(0, details.query("//p[@class='jar-linkage-report-cause']").size());
+    Nodes reports = details.query("//p[@class='jar-linkage-report']");
+    Nodes problemFiles = details.query("//div[@class='jar-linkage-problems']/@data-src");
+    Assert.assertEquals(reports.size(), problemFiles.size());
+
+    JsonObject problemTable =
+        DashboardDataTest.parseDataFile(outputDirectory, problemFiles.get(0).getValue());
+    String targetClassCount = trimAndCollapseWhiteSpace(reports.get(0).getValue()).split(" ")[0];
+    Assert.assertEquals(
+        Integer.parseInt(targetClassCount), problemTable.getAsJsonArray("problems").size());
+  }
+
   @Test
   public void testDashboard_recommendedCoordinates() {
     Nodes recommendedListItem = dashboard.query("//ul[@id='recommended']/li");
@@ -444,12 +461,34 @@ public class DashboardTest {
   @Test
   public void testDependencyTrees() throws IOException, ParsingException {
     Document document = parseOutputFile("dependency_trees.html");
-    Nodes dependencyTreeParagraph = document.query("//p[@class='dependency-tree-node']");
+    Nodes dataFiles = document.query("//div[@class='dependency-tree']/@data-src");
+    Assert.assertEquals(
+        "data/trees/com.google.protobuf_protobuf-java_3.6.1.json", dataFiles.get(0).getValue());
 
-    // characterization test
-    Assert.assertEquals(38391, dependencyTreeParagraph.size());
+    List<JsonObject> trees = new ArrayList<>();
+    for (Node dataFile : dataFiles) {
+      trees.add(DashboardDataTest.parseDataFile(outputDirectory, dataFile.getValue()));
+    }
     Assert.assertEquals(
-        "com.google.protobuf:protobuf-java:jar:3.6.1", dependencyTreeParagraph.get(0).getValue());
+        "com.google.protobuf:protobuf-java:jar:3.6.1", trees.get(0).get("artifact").getAsString());
+
+    // characterization test
+    int nodeCount = 0;
+    for (JsonObject tree : trees) {
+      nodeCount += countNodes(tree);
+    }
+    Assert.assertEquals(38391, nodeCount);
+  }
+
+  /** Returns the number of the nodes in {@code tree}, a dependency tree in a data file. */
+  private static int countNodes(JsonObject tree) {
+    int count = 1;
+    if (tree.has("children")) {
+      for (JsonElement child : tree.getAsJsonArray("children")) {
+        count += countNodes(child.getAsJsonObject());
+      }
+    }
+    return count;
   }
 
   @Test
@@ -85,6 +85,7 @@ public class DashboardUnavailableArtifactTest {
     
     ArtifactCache cache = new ArtifactCache();
     cache.setInfoMap(map);
+    cache.setGlobalVersionIndex(GlobalVersionIndex.create(map.values()));
     List<ArtifactResults> artifactResults =
         DashboardMain.generateReports(
             configuration,
@@ -92,7 +93,10 @@ public class DashboardUnavailableArtifactTest {
             cache,
             ImmutableMap.of(),
             new ClassPathResult(LinkedListMultimap.create(), ImmutableList.of()),
-            bom);
+            bom,
+            DashboardManifest.create(outputDirectory, "test"),
+            false,
+            2);
 
     Assert.assertEquals(
         "The length of the ArtifactResults should match the length of artifacts",
@@ -137,7 +141,7 @@ public class DashboardUnavailableArtifactTest {
         configuration,
         outputDirectory,
         table,
-        ImmutableList.of(),
+        GlobalVersionIndex.create(ImmutableList.of()),
         ImmutableMap.of(),
         new ClassPathResult(LinkedListMultimap.create(), ImmutableList.of()),
         bom);
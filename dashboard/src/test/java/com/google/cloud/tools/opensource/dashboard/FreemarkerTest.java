@@ -23,7 +23,6 @@ import com.google.cloud.tools.opensource.classpath.ClassPathResult;
 import com.google.cloud.tools.opensource.classpath.ClassSymbol;
 import com.google.cloud.tools.opensource.classpath.LinkageProblem;
 import com.google.cloud.tools.opensource.dependencies.Bom;
-import com.google.cloud.tools.opensource.dependencies.DependencyGraph;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -100,12 +99,11 @@ public class FreemarkerTest {
     results2.addResult("Linkage Errors", 0);
 
     List<ArtifactResults> table = ImmutableList.of(results1, results2);
-    List<DependencyGraph> globalDependencies = ImmutableList.of();
     DashboardMain.generateDashboard(
         configuration,
         outputDirectory,
         table,
-        globalDependencies,
+        GlobalVersionIndex.create(ImmutableList.of()),
         symbolProblemTable,
         new ClassPathResult(LinkedListMultimap.create(), ImmutableList.of()),
         new Bom("mock:artifact:1.6.7", null));
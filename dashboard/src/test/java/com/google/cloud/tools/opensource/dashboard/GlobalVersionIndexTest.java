@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.dashboard;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.cloud.tools.opensource.dependencies.DependencyGraph;
+import com.google.cloud.tools.opensource.dependencies.DependencyPath;
+import com.google.common.collect.ImmutableList;
+import org.eclipse.aether.RepositoryException;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.Dependency;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GlobalVersionIndexTest {
+
+  private static DependencyGraph graph(String... coordinates) {
+    DependencyGraph graph = new DependencyGraph(null);
+    for (String coordinate : coordinates) {
+      Dependency dependency = new Dependency(new DefaultArtifact(coordinate), "compile");
+      graph.addPath(new DependencyPath(null).append(dependency));
+    }
+    return graph;
+  }
+
+  private final DependencyGraph complete1 = graph("com.google:foo:1", "com.google:bar:2.0");
+  private final DependencyGraph transitive1 = graph("com.google:foo:1");
+  private final DependencyGraph complete2 = graph("com.google:bar:10.0", "com.google:baz:1");
+  private final DependencyGraph transitive2 = graph("com.google:bar:10.0");
+
+  private final GlobalVersionIndex index =
+      GlobalVersionIndex.create(
+          ImmutableList.of(
+              new ArtifactInfo(complete1, transitive1),
+              new ArtifactInfo(new RepositoryException("foo")),
+              new ArtifactInfo(complete2, transitive2)));
+
+  @Test
+  public void testGetDependencyGraphs() {
+    assertThat(index.getDependencyGraphs()).containsExactly(complete1, complete2).inOrder();
+  }
+
+  @Test
+  public void testGetLatestVersions() {
+    assertThat(index.getLatestVersions())
+        .containsExactly("com.google:bar", "10.0", "com.google:baz", "1", "com.google:foo", "1")
+        .inOrder();
+  }
+
+  @Test
+  public void testGetHighestVersions() {
+    assertThat(index.getHighestVersions(complete1))
+        .containsExactly("com.google:foo", "1", "com.google:bar", "2.0");
+    Assert.assertSame(
+        index.getHighestVersions(transitive2), index.getHighestVersions(transitive2));
+  }
+
+  @Test
+  public void testGetHighestVersions_notIndexed() {
+    DependencyGraph graph = graph("com.google:qux:3");
+    assertThat(index.getHighestVersions(graph)).containsExactly("com.google:qux", "3");
+  }
+}
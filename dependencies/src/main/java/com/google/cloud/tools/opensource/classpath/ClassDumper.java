@@ -19,29 +19,50 @@ package com.google.cloud.tools.opensource.classpath;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 
+import com.google.common.base.Splitter;
+import com.google.common.base.Throwables;
 import com.google.common.base.Verify;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.HashBiMap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.graph.Traverser;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimaps;
+import com.google.common.collect.SetMultimap;
+import java.io.Closeable;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.Nullable;
+import javax.lang.model.SourceVersion;
 import org.apache.bcel.Const;
 import org.apache.bcel.classfile.Attribute;
 import org.apache.bcel.classfile.ClassFormatException;
 import org.apache.bcel.classfile.Constant;
 import org.apache.bcel.classfile.ConstantCP;
 import org.apache.bcel.classfile.ConstantClass;
-import org.apache.bcel.classfile.ConstantFieldref;
-import org.apache.bcel.classfile.ConstantInterfaceMethodref;
-import org.apache.bcel.classfile.ConstantNameAndType;
 import org.apache.bcel.classfile.ConstantPool;
 import org.apache.bcel.classfile.ConstantUtf8;
 import org.apache.bcel.classfile.ExceptionTable;
@@ -59,29 +80,138 @@ import org.apache.bcel.generic.InstructionList;
 import org.apache.bcel.generic.MethodGen;
 import org.apache.bcel.generic.ObjectType;
 import org.apache.bcel.generic.Type;
-import org.apache.bcel.util.ClassPath;
 
 /**
  * Class to read symbol references in Java class files and to verify the availability of references
  * in them, through the input class path for a linkage check.
+ *
+ * <p>The methods to look up classes, such as {@link #loadClassSummary(String)}, {@link
+ * #findClassLocation(String)}, {@link #isSystemClass(String)}, and {@link
+ * #catchesLinkageErrorOnClass(String)}, are safe for use by multiple threads, so that {@link
+ * LinkageChecker} can check the references of different classes concurrently.
+ *
+ * <p>{@link #close()} releases the memory mappings of the JAR files in the input class path.
  */
-class ClassDumper {
+class ClassDumper implements Closeable {
   private static final Logger logger = Logger.getLogger(ClassDumper.class.getName());
 
   private final ImmutableList<ClassPathEntry> inputClassPath;
+  private final LinkageCheckClassPath classPath;
   private final FixedSizeClassPathRepository classRepository;
-  private final ClassLoader extensionClassLoader;
+  private final ClassSummaryRepository classSummaryRepository;
+
+  /**
+   * Member indices of the target classes of symbol references. The number of entries is bounded
+   * because an index holds the members inherited from all superclasses and interfaces.
+   */
+  private final Cache<String, MemberIndex> memberIndices =
+      CacheBuilder.newBuilder().maximumSize(10_000).build();
+  private final JdkClassIndex jdkClassIndex;
   private final ImmutableMap<String, ClassPathEntry> fileNameToClassPathEntry;
+  @Nullable private final SymbolReferenceCache symbolReferenceCache;
 
-  private static FixedSizeClassPathRepository createClassRepository(List<ClassPathEntry> entries) {
-    ClassPath classPath = new LinkageCheckClassPath(entries);
-    return new FixedSizeClassPathRepository(classPath);
-  }
+  /**
+   * The flags of {@link ClassSummary#getCaughtErrors()} for the source classes, including the
+   * exception handlers in their outer classes. Keyed by class name.
+   */
+  private final Map<String, Integer> caughtErrors = new ConcurrentHashMap<>();
+
+  /**
+   * Symbol references loaded from {@link #symbolReferenceCache} and not yet used by {@link
+   * #findSymbolReferences(int)}.
+   */
+  private final Map<ClassPathEntry, JarSymbolReferences> cachedSymbolReferences;
 
   static ClassDumper create(List<ClassPathEntry> entries) throws IOException {
-    ClassLoader systemClassLoader = ClassLoader.getSystemClassLoader();
-    ClassLoader extensionClassLoader = systemClassLoader.getParent();
+    return create(entries, (SymbolReferenceCache) null);
+  }
+
+  /**
+   * Returns a class dumper for {@code entries}. If {@code symbolReferenceCache} is not null, the
+   * dumper reads the class file names and the symbol references of the JAR files from the cache
+   * when they are available, and stores them to the cache otherwise.
+   */
+  static ClassDumper create(
+      List<ClassPathEntry> entries, @Nullable SymbolReferenceCache symbolReferenceCache)
+      throws IOException {
+    return create(entries, symbolReferenceCache, JdkClassIndex.runtime());
+  }
+
+  /**
+   * Returns a class dumper for {@code entries} as in {@link #create(List, SymbolReferenceCache)},
+   * with {@code jdkClassIndex} for the Java runtime classes, such as the index of a Java release.
+   */
+  static ClassDumper create(
+      List<ClassPathEntry> entries,
+      @Nullable SymbolReferenceCache symbolReferenceCache,
+      JdkClassIndex jdkClassIndex)
+      throws IOException {
+    checkReadable(entries);
+
+    Map<ClassPathEntry, JarSymbolReferences> cachedSymbolReferences = new ConcurrentHashMap<>();
+    if (symbolReferenceCache != null) {
+      for (ClassPathEntry entry : entries) {
+        JarSymbolReferences jarSymbolReferences = loadFromCache(symbolReferenceCache, entry);
+        if (jarSymbolReferences != null) {
+          cachedSymbolReferences.put(entry, jarSymbolReferences);
+          entry.setFileNames(jarSymbolReferences.getFileNames());
+        }
+      }
+    }
+    return new ClassDumper(
+        entries,
+        jdkClassIndex,
+        LinkageCheckClassPath.fileNameToClassPathEntry(entries),
+        symbolReferenceCache,
+        cachedSymbolReferences);
+  }
+
+  /**
+   * Returns a class dumper for {@code entries}, a class path that replaces the one of this dumper.
+   * The new dumper shares the index of the Java runtime classes and the symbol reference cache of
+   * this dumper. It takes the symbol references of the JAR files from {@code jarSymbolReferences}
+   * instead of reading the JAR files again, and reads the JAR files missing in the map. The new
+   * dumper also takes the memory mappings of the JAR files in the map from this dumper. See {@link
+   * #copyClassSummaries(ClassDumper, Predicate)} to reuse the classes this dumper loaded.
+   */
+  ClassDumper update(
+      List<ClassPathEntry> entries, Map<ClassPathEntry, JarSymbolReferences> jarSymbolReferences)
+      throws IOException {
+    checkReadable(entries);
+
+    Map<ClassPathEntry, JarSymbolReferences> knownSymbolReferences = new ConcurrentHashMap<>();
+    for (ClassPathEntry entry : entries) {
+      JarSymbolReferences references = jarSymbolReferences.get(entry);
+      if (references == null && symbolReferenceCache != null) {
+        references = loadFromCache(symbolReferenceCache, entry);
+      }
+      if (references != null) {
+        knownSymbolReferences.put(entry, references);
+        entry.setFileNames(references.getFileNames());
+      }
+    }
+    ClassDumper dumper =
+        new ClassDumper(
+            entries,
+            jdkClassIndex,
+            LinkageCheckClassPath.fileNameToClassPathEntry(entries),
+            symbolReferenceCache,
+            knownSymbolReferences);
+    dumper.classPath.takeJarIndices(classPath, jarSymbolReferences.keySet());
+    return dumper;
+  }
 
+  /**
+   * Copies the class summaries and the member indices that {@code previous} loaded for the
+   * classes that {@code isUnchanged} accepts. The classes must have the same class files and class
+   * hierarchies in the class path of this dumper as in the one of {@code previous}.
+   */
+  void copyClassSummaries(ClassDumper previous, Predicate<String> isUnchanged) {
+    classSummaryRepository.putAll(previous.classSummaryRepository, isUnchanged);
+    memberIndices.putAll(Maps.filterKeys(previous.memberIndices.asMap(), isUnchanged::test));
+  }
+
+  private static void checkReadable(List<ClassPathEntry> entries) {
     ImmutableList<Path> unreadableFiles =
         entries.stream()
             .map(ClassPathEntry::getJar)
@@ -89,28 +219,34 @@ class ClassDumper {
             .collect(toImmutableList());
     checkArgument(
         unreadableFiles.isEmpty(), "Some jar files are not readable: %s", unreadableFiles);
-    
-    Map<String, ClassPathEntry> map = new HashMap<>();
-    for (ClassPathEntry entry : entries) {
-      for (String className : entry.getFileNames()) {
-        if (!map.containsKey(className)) {
-          map.put(className, entry);
-        }
-      }
-    }
-    
-    return new ClassDumper(entries, extensionClassLoader, map);
   }
 
   private ClassDumper(
       List<ClassPathEntry> inputClassPath,
-      ClassLoader extensionClassLoader,
-      Map<String, ClassPathEntry> fileNameToClassPathEntry)
+      JdkClassIndex jdkClassIndex,
+      Map<String, ClassPathEntry> fileNameToClassPathEntry,
+      @Nullable SymbolReferenceCache symbolReferenceCache,
+      Map<ClassPathEntry, JarSymbolReferences> cachedSymbolReferences)
       throws IOException {
     this.inputClassPath = ImmutableList.copyOf(inputClassPath);
-    this.classRepository = createClassRepository(inputClassPath);
-    this.extensionClassLoader = extensionClassLoader;
     this.fileNameToClassPathEntry = ImmutableMap.copyOf(fileNameToClassPathEntry);
+    this.classPath =
+        new LinkageCheckClassPath(inputClassPath, this.fileNameToClassPathEntry, jdkClassIndex);
+    this.classRepository = new FixedSizeClassPathRepository(classPath);
+    this.classSummaryRepository =
+        new ClassSummaryRepository(classPath, classRepository::getFileName);
+    this.jdkClassIndex = jdkClassIndex;
+    this.symbolReferenceCache = symbolReferenceCache;
+    this.cachedSymbolReferences = cachedSymbolReferences;
+  }
+
+  /**
+   * Releases the memory mappings of the JAR files in the input class path. The JAR files are
+   * mapped again if this dumper reads them afterwards.
+   */
+  @Override
+  public void close() throws IOException {
+    classPath.close();
   }
 
   /**
@@ -123,111 +259,459 @@ class ClassDumper {
     return classRepository.loadClass(className);
   }
 
-  /** Returns true if {@code className} is available in the system class loader. */
+  /**
+   * Returns {@link ClassSummary} for {@code className} in the input class path. Prefer this method
+   * to {@link #loadJavaClass(String)} unless the constant pool or the code of the class is needed.
+   */
+  ClassSummary loadClassSummary(String className) throws ClassNotFoundException {
+    return classSummaryRepository.loadClassSummary(className);
+  }
+
+  /** Returns the index of the methods and fields that {@code targetClass} declares or inherits. */
+  MemberIndex getMemberIndex(ClassSummary targetClass) {
+    String className = targetClass.getClassName();
+    MemberIndex memberIndex = memberIndices.getIfPresent(className);
+    if (memberIndex == null) {
+      // Two threads may create the index of the same class at the same time. They get the same
+      // content.
+      memberIndex = MemberIndex.create(targetClass, this);
+      memberIndices.put(className, memberIndex);
+    }
+    return memberIndex;
+  }
+
+  /**
+   * Returns true if {@code className} is an array class or a class in the Java runtime. This does
+   * not load the class.
+   */
   boolean isSystemClass(String className) {
-    try {
-      if (className.startsWith("[")) {
-        // Array class
-        return true;
-      }
-      extensionClassLoader.loadClass(className);
+    if (className.startsWith("[")) {
+      // Array class
       return true;
-    } catch (ClassNotFoundException ex) {
-      return false;
     }
+    return jdkClassIndex.contains(className);
   }
 
   /**
    * Returns a map from classes to the symbol references they contain.
    */
   SymbolReferences findSymbolReferences() throws IOException {
-    SymbolReferences.Builder builder = new SymbolReferences.Builder();
+    return findSymbolReferences(1);
+  }
 
-    for (ClassPathEntry jar : inputClassPath) {
-      for (JavaClass javaClass : listClasses(jar)) {
-        if (isCompatibleClassFileVersion(javaClass)) {
-          String className = javaClass.getClassName();
-          // In listClasses(jar), ClassPathRepository creates JavaClass through the first JAR file
-          // that contains the class. It may be different from "jar" for an overlapping class.
-          ClassFile source = new ClassFile(findClassLocation(className), className);
-          builder.addAll(findSymbolReferences(source, javaClass));
+  /**
+   * Returns a map from classes to the symbol references they contain, reading the JAR files in the
+   * input class path with up to {@code parallelism} threads of a {@link ForkJoinPool}. The result
+   * is the same regardless of {@code parallelism}, because the class file names and the symbol
+   * references of each JAR file are merged in the order of the class path.
+   *
+   * @param parallelism the number of threads to read JAR files. 1 reads them in the caller thread
+   */
+  SymbolReferences findSymbolReferences(int parallelism) throws IOException {
+    return findSymbolReferences(readJarSymbolReferences(parallelism));
+  }
+
+  /**
+   * Returns the symbol references of the JAR files in the input class path keyed by JAR file in
+   * the order of the class path, reading them with up to {@code parallelism} threads of a {@link
+   * ForkJoinPool}. The JAR files whose symbol references are known to this dumper, such as the ones
+   * in the symbol reference cache, are not read again.
+   *
+   * @param parallelism the number of threads to read JAR files. 1 reads them in the caller thread
+   */
+  ImmutableMap<ClassPathEntry, JarSymbolReferences> readJarSymbolReferences(int parallelism)
+      throws IOException {
+    checkArgument(parallelism > 0, "Parallelism must be positive: %s", parallelism);
+
+    ImmutableSet<ClassPathEntry> jars = ImmutableSet.copyOf(inputClassPath);
+    ImmutableMap.Builder<ClassPathEntry, JarSymbolReferences> jarSymbolReferences =
+        ImmutableMap.builder();
+    if (parallelism == 1) {
+      for (ClassPathEntry jar : jars) {
+        jarSymbolReferences.put(jar, readSymbolReferences(jar));
+      }
+    } else {
+      ForkJoinPool pool = new ForkJoinPool(parallelism);
+      try {
+        Map<ClassPathEntry, ForkJoinTask<JarSymbolReferences>> tasks = new LinkedHashMap<>();
+        for (ClassPathEntry jar : jars) {
+          tasks.put(jar, pool.submit(() -> readSymbolReferences(jar)));
+        }
+        for (Map.Entry<ClassPathEntry, ForkJoinTask<JarSymbolReferences>> task :
+            tasks.entrySet()) {
+          jarSymbolReferences.put(task.getKey(), getTaskResult(task.getValue()));
         }
+      } finally {
+        pool.shutdownNow();
       }
     }
+    return jarSymbolReferences.build();
+  }
+
+  /**
+   * Returns a map from classes to the symbol references they contain, taking the symbol
+   * references of each JAR file in the input class path from {@code jarSymbolReferences} returned
+   * by {@link #readJarSymbolReferences(int)}.
+   */
+  SymbolReferences findSymbolReferences(
+      Map<ClassPathEntry, JarSymbolReferences> jarSymbolReferences) {
+    // The class file names are recorded in the order of the class path, so that the first JAR
+    // file containing a class at a special location provides the class.
+    for (ClassPathEntry jar : inputClassPath) {
+      putClassFileNames(jarSymbolReferences.get(jar));
+    }
 
+    SymbolReferences.Builder builder = new SymbolReferences.Builder();
+    for (ClassPathEntry jar : inputClassPath) {
+      addSymbolReferences(builder, jar, jarSymbolReferences.get(jar));
+    }
     return builder.build();
   }
 
   /**
-   * Returns true if {@code javaClass} file format is compatible with this tool. Currently
-   * Java 8 and earlier are supported.
+   * Returns the symbol references in the classes of {@code jar}, taking them from the cache when
+   * available.
+   */
+  private JarSymbolReferences readSymbolReferences(ClassPathEntry jar) throws IOException {
+    JarSymbolReferences jarSymbolReferences = cachedSymbolReferences.remove(jar);
+    if (jarSymbolReferences == null) {
+      jarSymbolReferences = JarSymbolReferences.scan(jar, classPath.getJarIndex(jar));
+      if (symbolReferenceCache != null) {
+        storeToCache(symbolReferenceCache, jar, jarSymbolReferences);
+      }
+    }
+
+    logCorruptedFiles(jar, jarSymbolReferences.getCorruptedFileNames());
+    return jarSymbolReferences;
+  }
+
+  /**
+   * Returns the symbol references of {@code entry} in {@code cache}, or null if they are not in
+   * the cache. The cache only saves time; failing to read it does not fail the linkage check.
+   */
+  @Nullable
+  private static JarSymbolReferences loadFromCache(
+      SymbolReferenceCache cache, ClassPathEntry entry) {
+    try {
+      return cache.load(entry);
+    } catch (IOException ex) {
+      logger.log(Level.WARNING, "Could not read the symbol reference cache for " + entry, ex);
+      return null;
+    }
+  }
+
+  /** Stores the symbol references of {@code entry} to {@code cache}, logging failures. */
+  private static void storeToCache(
+      SymbolReferenceCache cache, ClassPathEntry entry, JarSymbolReferences jarSymbolReferences) {
+    try {
+      cache.store(entry, jarSymbolReferences);
+    } catch (IOException ex) {
+      logger.log(Level.WARNING, "Could not write the symbol reference cache for " + entry, ex);
+    }
+  }
+
+  /** Logs the class files in {@code jar} that could not be read, once for the JAR file. */
+  private static void logCorruptedFiles(ClassPathEntry jar, Collection<String> corruptedFiles) {
+    int corruptedFileCount = corruptedFiles.size();
+    if (corruptedFileCount > 0) {
+      logger.warning(
+          "Corrupt files in "
+              + jar
+              + "; could not load "
+              + corruptedFiles.iterator().next()
+              + (corruptedFileCount > 1
+                  ? " and other " + (corruptedFileCount - 1) + " files"
+                  : ""));
+    }
+  }
+
+  /** Records the class files at special locations not matching their class names. */
+  private void putClassFileNames(JarSymbolReferences jarSymbolReferences) {
+    for (ClassFile source : jarSymbolReferences.getSymbolReferences().getClassFiles()) {
+      String className = source.getBinaryName();
+      String classFileName = jarSymbolReferences.getClassFileName(className);
+      if (!className.equals(classFileName) && !fileNameToClassPathEntry.containsKey(className)) {
+        // A class file at the standard location in the class path takes precedence.
+        classRepository.putFileName(className, classFileName);
+      }
+    }
+  }
+
+  /**
+   * Adds the symbol references in the classes of {@code jar} to {@code builder}, excluding the
+   * classes that an earlier JAR file in the input class path or the Java runtime supersedes.
+   */
+  private void addSymbolReferences(
+      SymbolReferences.Builder builder,
+      ClassPathEntry jar,
+      JarSymbolReferences jarSymbolReferences) {
+    SymbolReferences symbolReferences = jarSymbolReferences.getSymbolReferences();
+    for (ClassFile source : symbolReferences.getClassFiles()) {
+      String className = source.getBinaryName();
+      if (!jar.equals(findClassLocation(className))) {
+        // For an overlapping class, the first JAR file in the class path that contains the
+        // class provides the symbol references.
+        continue;
+      }
+      if (isSystemClass(className)) {
+        // LinkageCheckClassPath loads the Java runtime's copy of the class, such as javax.xml.ws
+        // classes in Java 8, instead of the class file in the JAR file.
+        continue;
+      }
+      addSymbolReferences(builder, source, symbolReferences);
+    }
+  }
+
+  /**
+   * Returns a map from the classes reachable from the classes in {@code entryPoints} to the symbol
+   * references they contain. Unlike {@link #findSymbolReferences(int)}, this reads only the class
+   * files that a breadth-first search over the class references discovers, so that the classes
+   * unreachable from the entry points are never parsed. The classes in the result are in the order
+   * of {@link #findSymbolReferences(int)}, and {@link ClassReferenceGraph} built from the result
+   * has the same reachable classes as the one built from all classes in the input class path.
    *
-   * @see <a href="https://docs.oracle.com/javase/specs/jvms/se11/html/jvms-4.html#jvms-4.1">Java
-   *     Virtual Machine Specification: The ClassFile Structure: minor_version, major_version</a>
+   * <p>The classes at a special location not matching their class names, such as {@code
+   * BOOT-INF.classes.com.google.Foo}, are read beforehand to find their class names. This assumes
+   * that a class file whose package names are Java identifiers is at the standard location.
    */
-  private static boolean isCompatibleClassFileVersion(JavaClass javaClass) {
-    int classFileMajorVersion = javaClass.getMajor();
-    return 45 <= classFileMajorVersion && classFileMajorVersion <= 52;
+  SymbolReferences findReachableSymbolReferences(Set<ClassPathEntry> entryPoints)
+      throws IOException {
+    return findReachableSymbolReferences(entryPoints, 1);
   }
 
-  private static SymbolReferences.Builder findSymbolReferences(
-      ClassFile source, JavaClass javaClass) {
-    SymbolReferences.Builder builder = new SymbolReferences.Builder();
+  /**
+   * Returns a map from the classes reachable from the classes in {@code entryPoints} to the symbol
+   * references they contain, as in {@link #findReachableSymbolReferences(Set)}. The class files
+   * discovered at the same depth of the search are read with up to {@code parallelism} threads of
+   * a {@link ForkJoinPool}. The result is the same regardless of {@code parallelism}.
+   *
+   * <p>The JAR files in the symbol reference cache are not read. Their classes take the symbol
+   * references in the cache. This does not add the other JAR files to the cache, because it does
+   * not read all of their classes.
+   *
+   * @param parallelism the number of threads to read class files. 1 reads them in the caller
+   *     thread
+   */
+  SymbolReferences findReachableSymbolReferences(Set<ClassPathEntry> entryPoints, int parallelism)
+      throws IOException {
+    checkArgument(parallelism > 0, "Parallelism must be positive: %s", parallelism);
 
-    ConstantPool constantPool = javaClass.getConstantPool();
-    Constant[] constants = constantPool.getConstantPool();
-    for (Constant constant : constants) {
-      if (constant == null) {
-         continue;
+    // The class files that could not be read, logged once for each JAR file at the end. The
+    // threads reading class files add to this multimap.
+    SetMultimap<ClassPathEntry, String> corruptedFiles =
+        Multimaps.synchronizedSetMultimap(LinkedHashMultimap.create());
+    for (ClassPathEntry jar : inputClassPath) {
+      JarSymbolReferences cached = cachedSymbolReferences.get(jar);
+      Map<String, String> classNames =
+          cached == null ? null : HashBiMap.create(cached.getClassFileNames()).inverse();
+      for (String fileName : jar.getFileNames()) {
+        if (!isStandardLocation(fileName)) {
+          String className;
+          if (cached != null) {
+            className = classNames.getOrDefault(fileName, fileName);
+          } else {
+            ClassFileScanner scanner = scanClassFile(jar, fileName, corruptedFiles);
+            if (scanner == null) {
+              continue;
+            }
+            className = scanner.getClassName();
+          }
+          if (!className.equals(fileName) && !fileNameToClassPathEntry.containsKey(className)) {
+            classRepository.putFileName(className, fileName);
+          }
+        }
       }
+    }
 
-      byte constantTag = constant.getTag();
-      switch (constantTag) {
-        case Const.CONSTANT_Class:
-          ConstantClass constantClass = (ConstantClass) constant;
-          ClassSymbol classSymbol = makeSymbol(constantClass, constantPool, javaClass);
-          // skip array class because it is provided by runtime
-          if (classSymbol.getClassBinaryName().startsWith("[")) {
-            break;
+    // The reachable classes keyed by their file names, and their symbol references
+    Map<String, ClassFile> reachableClasses = new HashMap<>();
+    Map<ClassFile, SymbolReferences> reachableSymbolReferences = new HashMap<>();
+    Set<String> discovered = new HashSet<>();
+    List<String> classNames = new ArrayList<>();
+    for (ClassPathEntry entryPoint : entryPoints) {
+      for (String className : entryPoint.getFileNames()) {
+        if (discovered.add(className)) {
+          classNames.add(className);
+        }
+      }
+    }
+
+    ForkJoinPool pool = parallelism == 1 ? null : new ForkJoinPool(parallelism);
+    try {
+      while (!classNames.isEmpty()) {
+        // The classes discovered at the same depth of the search
+        List<SymbolReferences> classSymbolReferences = new ArrayList<>();
+        if (pool == null) {
+          for (String className : classNames) {
+            classSymbolReferences.add(readReachableClass(className, corruptedFiles));
+          }
+        } else {
+          List<ForkJoinTask<SymbolReferences>> tasks = new ArrayList<>();
+          for (String className : classNames) {
+            tasks.add(pool.submit(() -> readReachableClass(className, corruptedFiles)));
+          }
+          for (ForkJoinTask<SymbolReferences> task : tasks) {
+            classSymbolReferences.add(getTaskResult(task));
+          }
+        }
+
+        List<String> nextClassNames = new ArrayList<>();
+        for (int i = 0; i < classNames.size(); i++) {
+          SymbolReferences symbolReferences = classSymbolReferences.get(i);
+          if (symbolReferences == null) {
+            continue;
+          }
+          String className = classNames.get(i);
+          ClassFile source = new ClassFile(findClassLocation(className), className);
+          reachableClasses.put(getFileName(className), source);
+          reachableSymbolReferences.put(source, symbolReferences);
+          for (ClassSymbol classSymbol : symbolReferences.getClassSymbols(source)) {
+            String targetClassName = classSymbol.getClassBinaryName();
+            if (discovered.add(targetClassName)) {
+              nextClassNames.add(targetClassName);
+            }
           }
-          builder.addClassReference(source, classSymbol);
-          break;
-        case Const.CONSTANT_Methodref:
-        case Const.CONSTANT_InterfaceMethodref:
-          // Both ConstantMethodref and ConstantInterfaceMethodref are subclass of ConstantCP
-          ConstantCP constantMethodref = (ConstantCP) constant;
-          builder.addMethodReference(source, makeSymbol(constantMethodref, constantPool));
-          break;
-        case Const.CONSTANT_Fieldref:
-          ConstantFieldref constantFieldref = (ConstantFieldref) constant;
-          builder.addFieldReference(source, makeSymbol(constantFieldref, constantPool));
-          break;
-        default:
-          break;
+        }
+        classNames = nextClassNames;
+      }
+    } finally {
+      if (pool != null) {
+        pool.shutdownNow();
       }
     }
+    logger.fine(
+        "Read " + reachableClasses.size() + " classes reachable from " + entryPoints.size()
+            + " entry points");
+    for (ClassPathEntry jar : inputClassPath) {
+      logCorruptedFiles(jar, corruptedFiles.get(jar));
+    }
+
+    SymbolReferences.Builder builder = new SymbolReferences.Builder();
+    for (ClassPathEntry jar : inputClassPath) {
+      for (String fileName : jar.getFileNames()) {
+        ClassFile source = reachableClasses.get(fileName);
+        if (source != null && jar.equals(source.getClassPathEntry())) {
+          addSymbolReferences(builder, source, reachableSymbolReferences.get(source));
+        }
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns the symbol references that contain the ones of {@code className}, for {@link
+   * #findReachableSymbolReferences(Set, int)}. The references are taken from the symbol reference
+   * cache when the JAR file of the class is in it. Null if the class is missing, in the Java
+   * runtime, not readable, or its format is not supported. The class files that are not readable
+   * are added to {@code corruptedFiles}.
+   */
+  @Nullable
+  private SymbolReferences readReachableClass(
+      String className, SetMultimap<ClassPathEntry, String> corruptedFiles) throws IOException {
+    ClassPathEntry jar = findClassLocation(className);
+    if (jar == null || isSystemClass(className)) {
+      // Missing classes and the classes in the Java runtime do not have symbol references. The
+      // Java runtime's copy of a class takes precedence over the class file in a JAR file.
+      return null;
+    }
+    ClassFile source = new ClassFile(jar, className);
 
-    for (String interfaceName : javaClass.getInterfaceNames()) {
-      builder.addClassReference(source, new InterfaceSymbol(interfaceName));
+    JarSymbolReferences cached = cachedSymbolReferences.get(jar);
+    if (cached != null) {
+      SymbolReferences symbolReferences = cached.getSymbolReferences();
+      return symbolReferences.getClassFiles().contains(source) ? symbolReferences : null;
     }
 
-    return builder;
+    String fileName = getFileName(className);
+    ClassFileScanner scanner = scanClassFile(jar, fileName, corruptedFiles);
+    if (scanner == null || !scanner.getClassName().equals(className)) {
+      // An entry point file name at a special location is not a class name. The class is
+      // reachable only through its class name.
+      return null;
+    }
+    SymbolReferences.Builder builder = new SymbolReferences.Builder();
+    try {
+      scanner.addSymbolReferences(source, builder);
+    } catch (ClassFormatException ex) {
+      corruptedFiles.put(jar, fileName);
+      return null;
+    }
+    return builder.build();
   }
 
-  private static ConstantNameAndType constantNameAndType(
-      ConstantCP constantCP, ConstantPool constantPool) {
-    int nameAndTypeIndex = constantCP.getNameAndTypeIndex();
-    Constant constantAtNameAndTypeIndex = constantPool.getConstant(nameAndTypeIndex);
-    if (!(constantAtNameAndTypeIndex instanceof ConstantNameAndType)) {
-      // This constant_pool entry must be a CONSTANT_NameAndType_info
-      // as specified https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html#jvms-4.4.2
-      throw new ClassFormatException(
-          "Failed to lookup nameAndType constant indexed at "
-              + nameAndTypeIndex
-              + ". However, the content is not ConstantNameAndType. It is "
-              + constantAtNameAndTypeIndex);
+  /**
+   * Returns true if {@code fileName} of a class file may be the name of the class in it. It's not
+   * when the class file is in a directory not a Java package, such as {@code BOOT-INF}.
+   */
+  private static boolean isStandardLocation(String fileName) {
+    List<String> names = Splitter.on('.').splitToList(fileName);
+    for (String name : names.subList(0, names.size() - 1)) {
+      if (name.isEmpty() || !SourceVersion.isIdentifier(name)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the scanner for the class file {@code fileName} in {@code jar}. Null if the class file
+   * is not readable or its format is not supported, as in {@link JarSymbolReferences#scan}. The
+   * class files that are not readable are added to {@code corruptedFiles}.
+   */
+  @Nullable
+  private ClassFileScanner scanClassFile(
+      ClassPathEntry jar, String fileName, SetMultimap<ClassPathEntry, String> corruptedFiles)
+      throws IOException {
+    if (fileName.startsWith("META-INF.versions.")) {
+      // Linkage Checker does not support multi-release JAR (for Java 9+) yet
+      return null;
+    }
+    JarIndex jarIndex = classPath.getJarIndex(jar);
+    try {
+      byte[] bytes = jarIndex.read(jarIndex.getClassEntryName(fileName));
+      if (bytes == null) {
+        return null;
+      }
+      ClassFileScanner scanner = ClassFileScanner.scan(bytes, bytes.length);
+      return JarSymbolReferences.isCompatibleClassFileVersion(scanner.getMajorVersion())
+          ? scanner
+          : null;
+    } catch (IOException | ClassFormatException ex) {
+      corruptedFiles.put(jar, fileName);
+      return null;
+    }
+  }
+
+  /** Adds the references of {@code source} in {@code symbolReferences} to {@code builder}. */
+  private static void addSymbolReferences(
+      SymbolReferences.Builder builder, ClassFile source, SymbolReferences symbolReferences) {
+    for (ClassSymbol classSymbol : symbolReferences.getClassSymbols(source)) {
+      builder.addClassReference(source, classSymbol);
+    }
+    for (MethodSymbol methodSymbol : symbolReferences.getMethodSymbols(source)) {
+      builder.addMethodReference(source, methodSymbol);
+    }
+    for (FieldSymbol fieldSymbol : symbolReferences.getFieldSymbols(source)) {
+      builder.addFieldReference(source, fieldSymbol);
+    }
+  }
+
+  /**
+   * Returns the result of {@code task}, rethrowing {@link IOException} and unchecked exceptions
+   * thrown by the task.
+   */
+  static <T> T getTaskResult(Future<T> task) throws IOException {
+    try {
+      return task.get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for a task", ex);
+    } catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
+      Throwables.throwIfInstanceOf(cause, IOException.class);
+      Throwables.throwIfUnchecked(cause);
+      throw new IOException(cause);
     }
-    return (ConstantNameAndType) constantAtNameAndTypeIndex;
   }
 
   private static ClassSymbol makeSymbol(
@@ -258,27 +742,6 @@ class ClassDumper {
     return new ClassSymbol(targetClassName);
   }
 
-  private static MethodSymbol makeSymbol(
-      ConstantCP constantMethodref, ConstantPool constantPool) {
-    String className = constantMethodref.getClass(constantPool);
-    ConstantNameAndType constantNameAndType = constantNameAndType(constantMethodref, constantPool);
-    String methodName = constantNameAndType.getName(constantPool);
-    String descriptor = constantNameAndType.getSignature(constantPool);
-    // constantMethodref is either ConstantMethodref or ConstantInterfaceMethodref
-    boolean isInterfaceMethod = constantMethodref instanceof ConstantInterfaceMethodref;
-    return new MethodSymbol(className, methodName, descriptor, isInterfaceMethod);
-  }
-
-  private static FieldSymbol makeSymbol(
-      ConstantFieldref constantFieldref, ConstantPool constantPool) {
-    // Either a class type or an interface type
-    String className = constantFieldref.getClass(constantPool);
-    ConstantNameAndType constantNameAndType = constantNameAndType(constantFieldref, constantPool);
-    String fieldName = constantNameAndType.getName(constantPool);
-    String descriptor = constantNameAndType.getSignature(constantPool);
-    return new FieldSymbol(className, fieldName, descriptor);
-  }
-
   static ImmutableSet<String> listInnerClassNames(JavaClass javaClass) {
     ImmutableSet.Builder<String> innerClassNames = ImmutableSet.builder();
     String topLevelClassName = javaClass.getClassName();
@@ -299,7 +762,7 @@ class ClassDumper {
               continue;
             }
           }
-  
+
           // Class names stored in constant pool have '/' as separator. We want '.' (as binary name)
           String normalInnerClassName = innerClassName.replace('/', '.');
           innerClassNames.add(normalInnerClassName);
@@ -309,7 +772,7 @@ class ClassDumper {
     return innerClassNames.build();
   }
 
-  /** Returns the first class path entry containing the class. Null if the class is 
+  /** Returns the first class path entry containing the class. Null if the class is
    *  not in the class path. */
   @Nullable
   ClassPathEntry findClassLocation(String className) {
@@ -330,62 +793,25 @@ class ClassDumper {
     return classRepository.getFileName(className);
   }
 
-  /**
-   * Returns a set of {@link JavaClass}es which have entries in the {@code entry} through {@link
-   * #classRepository}.
-   */
-  private ImmutableSet<JavaClass> listClasses(ClassPathEntry entry) throws IOException {
-    ImmutableSet.Builder<JavaClass> javaClasses = ImmutableSet.builder();
-
-    ImmutableList.Builder<String> corruptedClassFileNames = ImmutableList.builder();
-
-    for (String classFileName : entry.getFileNames()) {
-      if (classFileName.startsWith("META-INF.versions.")) {
-        // Linkage Checker does not support multi-release JAR (for Java 9+) yet
-        // https://github.com/GoogleCloudPlatform/cloud-opensource-java/issues/897
-        continue;
-      }
-
-      try {
-        JavaClass javaClass = classRepository.loadClass(classFileName);
-        javaClasses.add(javaClass);
-      } catch (ClassNotFoundException | ClassFormatException ex) {
-        // We couldn't read the class in the JAR file where we found it.
-        corruptedClassFileNames.add(classFileName);
-      }
-    }
-
-    ImmutableList<String> corruptedFiles = corruptedClassFileNames.build();
-    int corruptedFileCount = corruptedFiles.size();
-    if (corruptedFileCount > 0) {
-      logger.warning(
-          "Corrupt files in "
-              + entry
-              + "; could not load "
-              + corruptedFiles.get(0)
-              + (corruptedFileCount > 1
-                  ? " and other " + (corruptedFileCount - 1) + " files"
-                  : ""));
-    }
-    return javaClasses.build();
-  }
-
   /** Returns true if two class names (binary name JLS 13.1) have the same package. */
   static boolean classesInSamePackage(String classNameA, String classNameB) {
+    return packageName(classNameA).equals(packageName(classNameB));
+  }
+
+  /** Returns the package name of {@code className}. Empty for the unnamed package. */
+  static String packageName(String className) {
     // Because package name cannot have '.' at the beginning, we can use lastDotIndex=0 (that will
     // return empty string via substring below) for unnamed package.
     // https://docs.oracle.com/javase/specs/jls/se8/html/jls-7.html#jls-7.4.1
-    int lastDotIndexA = Math.max(classNameA.lastIndexOf('.'), 0);
-    int lastDotIndexB = Math.max(classNameB.lastIndexOf('.'), 0);
-    String packageNameA = classNameA.substring(0, lastDotIndexA);
-    String packageNameB = classNameB.substring(0, lastDotIndexB);
-    return packageNameA.equals(packageNameB);
+    int lastDotIndex = Math.max(className.lastIndexOf('.'), 0);
+    return className.substring(0, lastDotIndex);
   }
 
   /** Returns true if {@code childClass} is a subclass of {@code parentClass}. */
-  static boolean isClassSubClassOf(JavaClass childClass, JavaClass parentClass) {
-    for (JavaClass superClass : getClassHierarchy(childClass)) {
-      if (superClass.equals(parentClass)) {
+  boolean isClassSubClassOf(ClassSummary childClass, ClassSummary parentClass) {
+    String parentClassName = parentClass.getClassName();
+    for (ClassSummary superClass : getClassHierarchy(childClass)) {
+      if (superClass.getClassName().equals(parentClassName)) {
         return true;
       }
     }
@@ -405,22 +831,23 @@ class ClassDumper {
   }
 
   /**
-   * Returns true if {@code parentJavaClass} is not {@code final} and {@code childJavaClass} is not
-   * overriding any {@code final} method of {@code parentJavaClass}.
+   * Returns true if {@code parentClass} is not {@code final} and {@code childClass} is not
+   * overriding any {@code final} method of {@code parentClass}.
    *
    * @see <a href="https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html#jvms-4.10">Java
    *     Virtual Machine Specification: 4.10. Verification of class Files</a>
    */
-  static boolean hasValidSuperclass(JavaClass childJavaClass, JavaClass parentJavaClass) {
-    if (parentJavaClass.isFinal()) {
+  boolean hasValidSuperclass(ClassSummary childClass, ClassSummary parentClass) {
+    if (parentClass.isFinal()) {
       return false;
     }
 
-    for (Method method : childJavaClass.getMethods()) {
-      for (JavaClass parentClass : getClassHierarchy(parentJavaClass)) {
-        for (final Method methodInParent : parentClass.getMethods()) {
+    ImmutableList<ClassSummary> parentClassHierarchy = getClassHierarchy(parentClass);
+    for (ClassSummary.Member method : childClass.getMethods()) {
+      for (ClassSummary classInHierarchy : parentClassHierarchy) {
+        for (ClassSummary.Member methodInParent : classInHierarchy.getMethods()) {
           if (methodInParent.getName().equals(method.getName())
-              && methodInParent.getSignature().equals(method.getSignature())
+              && methodInParent.getDescriptor().equals(method.getDescriptor())
               && methodInParent.isFinal()) {
             return false;
           }
@@ -459,102 +886,56 @@ class ClassDumper {
     return constantPoolIndicesForTarget.build();
   }
 
-  private static final ImmutableSet<String> LINKAGE_ERRORS_CAUGHT_IN_SOURCE =
-      ImmutableSet.of(
-          LinkageError.class.getName(),
-          NoClassDefFoundError.class.getName(),
-          ClassNotFoundException.class.getName());
+  private static final int LINKAGE_ERRORS_CAUGHT_IN_SOURCE =
+      ClassSummary.CATCHES_LINKAGE_ERROR
+          | ClassSummary.CATCHES_NO_CLASS_DEF_FOUND_ERROR
+          | ClassSummary.CATCHES_CLASS_NOT_FOUND_EXCEPTION;
 
-  private static final ImmutableSet<String> NO_SUCH_METHOD_ERROR_CAUGHT_IN_SOURCE =
-      ImmutableSet.of(LinkageError.class.getName(), NoSuchMethodError.class.getName());
+  private static final int NO_SUCH_METHOD_ERROR_CAUGHT_IN_SOURCE =
+      ClassSummary.CATCHES_LINKAGE_ERROR | ClassSummary.CATCHES_NO_SUCH_METHOD_ERROR;
 
   boolean catchesLinkageErrorOnClass(String sourceClassName) {
-    return catchesLinkageError(sourceClassName, LINKAGE_ERRORS_CAUGHT_IN_SOURCE);
+    return (getCaughtErrors(sourceClassName) & LINKAGE_ERRORS_CAUGHT_IN_SOURCE) != 0;
   }
 
   boolean catchesLinkageErrorOnMethod(String sourceClassName) {
-    return catchesLinkageError(sourceClassName, NO_SUCH_METHOD_ERROR_CAUGHT_IN_SOURCE);
+    return (getCaughtErrors(sourceClassName) & NO_SUCH_METHOD_ERROR_CAUGHT_IN_SOURCE) != 0;
   }
 
   /**
-   * Returns true if {@code sourceClassName} has a method that has an exception handler for {@code
-   * errorNames}.
+   * Returns the flags of {@link ClassSummary#getCaughtErrors()} for the exception handlers in
+   * {@code sourceClassName} and its outer classes.
    */
-  private boolean catchesLinkageError(String sourceClassName, Set<String> errorNames) {
-    try {
-      JavaClass sourceJavaClass = loadJavaClass(sourceClassName);
-      ClassGen classGen = new ClassGen(sourceJavaClass);
-
-      for (Method method : sourceJavaClass.getMethods()) {
-        if (method.getCode() != null) {
-          // No need to check the presence of try-catch clause for methods without code. This guard
-          // avoids NullPointerException by BCEL.
-          // https://issues.apache.org/jira/browse/BCEL-336
-          MethodGen methodGen = new MethodGen(method, sourceClassName, classGen.getConstantPool());
-          CodeExceptionGen[] exceptionHandlers = methodGen.getExceptionHandlers();
-          for (CodeExceptionGen codeExceptionGen : exceptionHandlers) {
-            ObjectType catchType = codeExceptionGen.getCatchType();
-            if (catchType != null) {
-              String caughtClassName = catchType.getClassName();
-              if (errorNames.contains(caughtClassName)) {
-                // The source class catches an error and thus will not cause a runtime error.
-                return true;
-              }
-            }
-          }
-        }
-      }
+  private int getCaughtErrors(String sourceClassName) {
+    Integer cachedFlags = caughtErrors.get(sourceClassName);
+    if (cachedFlags != null) {
+      return cachedFlags;
+    }
 
-      String outerClassName = outerClassName(sourceJavaClass);
-      if (outerClassName != null) {
-        try {
-          return catchesLinkageError(outerClassName, errorNames);
-        } catch (ClassFormatException ex) {
-          // When the outer class of an inner class does not exist in the class path, we cannot
-          // say that the classes catch linkage errors.
-          return false;
-        }
-      } else {
-        // The source class does not have a method that catches NoClassDefFoundError
-        return false;
-      }
+    ClassSummary sourceClass;
+    try {
+      sourceClass = loadClassSummary(sourceClassName);
     } catch (ClassNotFoundException ex) {
       // Because the reference in the argument was extracted from the source class file,
       // the source class should be found.
       throw new ClassFormatException(
           "The source class in the reference is no longer available in the class path", ex);
     }
-  }
 
-  private static String outerClassName(JavaClass sourceJavaClass) {
-    ConstantPool constantPool = sourceJavaClass.getConstantPool();
-    if (sourceJavaClass.isNested()) {
-      for (Attribute attribute : sourceJavaClass.getAttributes()) {
-        if (attribute instanceof InnerClasses) {
-          InnerClasses innerClasses = (InnerClasses) attribute;
-          for (InnerClass innerClass : innerClasses.getInnerClasses()) {
-            // Some auto-generated classes may not have correct inner class entries,
-            // for example com.google.inject.internal.cglib.core.$DebuggingClassWriter.java
-            if (innerClass.getInnerClassIndex() <= 0 || innerClass.getOuterClassIndex() <= 0) {
-              continue;
-            }
-            // Class names in constant pool has '/' as separator
-            String innerClassName =
-                constantPool
-                    .getConstantString(innerClass.getInnerClassIndex(), Const.CONSTANT_Class)
-                    .replaceAll("/", ".");
-            String outerClassName =
-                constantPool
-                    .getConstantString(innerClass.getOuterClassIndex(), Const.CONSTANT_Class)
-                    .replaceAll("/", ".");
-            if (innerClassName.equals(sourceJavaClass.getClassName())) {
-              return outerClassName;
-            }
-          }
-        }
+    int flags = sourceClass.getCaughtErrors();
+    String outerClassName = sourceClass.getOuterClassName();
+    if (outerClassName != null) {
+      try {
+        flags |= getCaughtErrors(outerClassName);
+      } catch (ClassFormatException ex) {
+        // When the outer class of an inner class does not exist in the class path, we cannot
+        // say that the classes catch linkage errors.
       }
     }
-    return null;
+    // Two threads may compute the flags of the same class at the same time. They get the same
+    // value.
+    caughtErrors.put(sourceClassName, flags);
+    return flags;
   }
 
   /**
@@ -703,18 +1084,52 @@ class ClassDumper {
    * Returns the target class and its superclasses in order (with {@link Object} last). If any can't
    * be found, the list stops with the previous one.
    */
-  static Iterable<JavaClass> getClassHierarchy(JavaClass targetClass) {
-    return SUPERCLASSES.breadthFirst(targetClass);
+  ImmutableList<ClassSummary> getClassHierarchy(ClassSummary targetClass) {
+    ImmutableList.Builder<ClassSummary> classHierarchy = ImmutableList.builder();
+    ClassSummary javaClass = targetClass;
+    while (javaClass != null) {
+      classHierarchy.add(javaClass);
+      String superclassName = javaClass.getSuperclassName();
+      if (superclassName == null) {
+        break;
+      }
+      try {
+        javaClass = loadClassSummary(superclassName);
+      } catch (ClassNotFoundException ex) {
+        break;
+      }
+    }
+    return classHierarchy.build();
   }
 
-  private static final Traverser<JavaClass> SUPERCLASSES =
-      Traverser.forTree(
-          javaClass -> {
-            try {
-              JavaClass superClass = javaClass.getSuperClass();
-              return superClass == null ? ImmutableSet.of() : ImmutableSet.of(superClass);
-            } catch (ClassNotFoundException e) {
-              return ImmutableSet.of();
-            }
-          });
+  /**
+   * Returns all interfaces that {@code targetClass} implements, directly or through its
+   * superclasses and superinterfaces, sorted by their names. If {@code targetClass} is an
+   * interface, the result includes it. This returns the same classes as BCEL's {@link
+   * JavaClass#getAllInterfaces()} in the same order.
+   *
+   * @throws ClassNotFoundException if any of the superclasses or interfaces is missing
+   */
+  ImmutableList<ClassSummary> getAllInterfaces(ClassSummary targetClass)
+      throws ClassNotFoundException {
+    Map<String, ClassSummary> allInterfaces = new TreeMap<>();
+    Set<String> visited = new HashSet<>();
+    Queue<ClassSummary> queue = new ArrayDeque<>();
+    queue.add(targetClass);
+    while (!queue.isEmpty()) {
+      ClassSummary javaClass = queue.remove();
+      if (!visited.add(javaClass.getClassName())) {
+        continue;
+      }
+      if (javaClass.isInterface()) {
+        allInterfaces.put(javaClass.getClassName(), javaClass);
+      } else if (javaClass.getSuperclassName() != null) {
+        queue.add(loadClassSummary(javaClass.getSuperclassName()));
+      }
+      for (String interfaceName : javaClass.getInterfaceNames()) {
+        queue.add(loadClassSummary(interfaceName));
+      }
+    }
+    return ImmutableList.copyOf(allInterfaces.values());
+  }
 }
@@ -0,0 +1,502 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.apache.bcel.Const;
+import org.apache.bcel.classfile.ClassFormatException;
+
+/**
+ * A reader of the parts of a class file that Linkage Checker needs to extract symbol references:
+ * the header, the constant pool, the superclass, the interfaces, and the {@code InnerClasses}
+ * attribute. Unlike BCEL's {@link org.apache.bcel.classfile.ClassParser}, this class does not
+ * create objects for the code of methods; it records the offsets of the constant pool entries in
+ * the class file bytes and decodes only the strings it needs. {@link #getClassSummary()} reads the
+ * declarations of fields and methods.
+ *
+ * <p>An instance reads the byte array passed to {@link #scan(byte[], int)} until it is discarded.
+ * The caller must not modify the array while using the instance.
+ *
+ * @see <a href="https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html">Java Virtual
+ *     Machine Specification: The class File Format</a>
+ */
+final class ClassFileScanner {
+
+  private static final int MAGIC = 0xCAFEBABE;
+
+  private final byte[] bytes;
+  private final int length;
+  private final int majorVersion;
+
+  /** Offsets of the constant pool entries, pointing to their tags. 0 for unusable entries. */
+  private final int[] constantOffsets;
+
+  /** Decoded CONSTANT_Utf8 entries. Null until they are used. */
+  private final String[] utf8Cache;
+
+  private final int accessFlags;
+  private final int thisClassIndex;
+  private final int superClassIndex;
+  private final int[] interfaceIndices;
+
+  /** The offsets of the fields_count and methods_count items. */
+  private final int fieldsOffset;
+  private final int methodsOffset;
+
+  /** The offset of the InnerClasses attribute after its attribute length. -1 if absent. */
+  private int innerClassesOffset = -1;
+
+  private ClassFileScanner(byte[] bytes, int length) {
+    this.bytes = checkNotNull(bytes);
+    this.length = length;
+
+    if (length < 10 || readInt(0) != MAGIC) {
+      throw new ClassFormatException("Invalid magic number in class file");
+    }
+    majorVersion = readUnsignedShort(6);
+
+    int constantPoolCount = readUnsignedShort(8);
+    constantOffsets = new int[constantPoolCount];
+    utf8Cache = new String[constantPoolCount];
+    int offset = 10;
+    // constant_pool indexes start from 1
+    for (int index = 1; index < constantPoolCount; index++) {
+      constantOffsets[index] = offset;
+      byte tag = readByte(offset);
+      switch (tag) {
+        case Const.CONSTANT_Utf8:
+          offset += 3 + readUnsignedShort(offset + 1);
+          break;
+        case Const.CONSTANT_Integer:
+        case Const.CONSTANT_Float:
+        case Const.CONSTANT_Fieldref:
+        case Const.CONSTANT_Methodref:
+        case Const.CONSTANT_InterfaceMethodref:
+        case Const.CONSTANT_NameAndType:
+        case Const.CONSTANT_Dynamic:
+        case Const.CONSTANT_InvokeDynamic:
+          offset += 5;
+          break;
+        case Const.CONSTANT_Long:
+        case Const.CONSTANT_Double:
+          offset += 9;
+          // 8-byte constants take up two entries in the constant pool
+          index++;
+          break;
+        case Const.CONSTANT_Class:
+        case Const.CONSTANT_String:
+        case Const.CONSTANT_MethodType:
+        case Const.CONSTANT_Module:
+        case Const.CONSTANT_Package:
+          offset += 3;
+          break;
+        case Const.CONSTANT_MethodHandle:
+          offset += 4;
+          break;
+        default:
+          throw new ClassFormatException(
+              "Invalid constant pool tag " + tag + " at index " + index);
+      }
+    }
+
+    accessFlags = readUnsignedShort(offset);
+    thisClassIndex = readUnsignedShort(offset + 2);
+    superClassIndex = readUnsignedShort(offset + 4);
+    int interfaceCount = readUnsignedShort(offset + 6);
+    offset += 8;
+    interfaceIndices = new int[interfaceCount];
+    for (int i = 0; i < interfaceCount; i++) {
+      interfaceIndices[i] = readUnsignedShort(offset);
+      offset += 2;
+    }
+
+    fieldsOffset = offset;
+    offset = skipMembers(offset);
+    methodsOffset = offset;
+    offset = skipMembers(offset);
+
+    int attributeCount = readUnsignedShort(offset);
+    offset += 2;
+    for (int i = 0; i < attributeCount; i++) {
+      String attributeName = getUtf8(readUnsignedShort(offset));
+      int attributeLength = readLength(offset + 2);
+      offset += 6;
+      if ("InnerClasses".equals(attributeName)) {
+        innerClassesOffset = offset;
+      }
+      offset += attributeLength;
+    }
+    if (offset > length) {
+      throw new ClassFormatException("Truncated class file");
+    }
+  }
+
+  /**
+   * Returns a scanner for the class file in the first {@code length} bytes of {@code bytes}.
+   *
+   * @throws ClassFormatException if the bytes are not a valid class file
+   */
+  static ClassFileScanner scan(byte[] bytes, int length) {
+    try {
+      return new ClassFileScanner(bytes, length);
+    } catch (ArrayIndexOutOfBoundsException ex) {
+      throw new ClassFormatException("Truncated class file: " + ex.getMessage());
+    }
+  }
+
+  /** Returns the major version of the class file format. */
+  int getMajorVersion() {
+    return majorVersion;
+  }
+
+  /** Returns the access flags of the class. */
+  int getAccessFlags() {
+    return accessFlags;
+  }
+
+  /** Returns the binary name of the class, such as {@code com.google.Foo$Bar}. */
+  String getClassName() {
+    return getClassName(thisClassIndex);
+  }
+
+  /**
+   * Returns the binary name of the superclass. As in BCEL's {@link
+   * org.apache.bcel.classfile.JavaClass#getSuperclassName()}, returns {@code java.lang.Object} for
+   * {@code java.lang.Object} itself.
+   */
+  String getSuperclassName() {
+    return superClassIndex == 0 ? Object.class.getName() : getClassName(superClassIndex);
+  }
+
+  /** Returns the binary names of the interfaces that the class directly implements. */
+  ImmutableList<String> getInterfaceNames() {
+    ImmutableList.Builder<String> interfaceNames = ImmutableList.builder();
+    for (int interfaceIndex : interfaceIndices) {
+      interfaceNames.add(getClassName(interfaceIndex));
+    }
+    return interfaceNames.build();
+  }
+
+  /**
+   * Returns the binary name of the class that declares this class as a member, according to the
+   * {@code InnerClasses} attribute. Null if the class is not a member of another class.
+   */
+  @Nullable
+  String getOuterClassName() {
+    if (innerClassesOffset < 0) {
+      return null;
+    }
+    String className = getClassName();
+    int classCount = readUnsignedShort(innerClassesOffset);
+    int offset = innerClassesOffset + 2;
+    for (int i = 0; i < classCount; i++, offset += 8) {
+      int innerClassIndex = readUnsignedShort(offset);
+      int outerClassIndex = readUnsignedShort(offset + 2);
+      // Some auto-generated classes may not have correct inner class entries,
+      // for example com.google.inject.internal.cglib.core.$DebuggingClassWriter.java
+      if (innerClassIndex <= 0 || outerClassIndex <= 0) {
+        continue;
+      }
+      if (getClassName(innerClassIndex).equals(className)) {
+        return getClassName(outerClassIndex);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Adds the class, method, and field references in the constant pool and the interfaces of the
+   * class to {@code builder}, with {@code source} as their source. This decodes all references
+   * before adding them, so that a corrupt class file does not add a part of its references.
+   *
+   * @throws ClassFormatException if the constant pool has an invalid reference
+   */
+  void addSymbolReferences(ClassFile source, SymbolReferences.Builder builder) {
+    String superClassName = getSuperclassName();
+    List<ClassSymbol> classSymbols = new ArrayList<>();
+    List<MethodSymbol> methodSymbols = new ArrayList<>();
+    List<FieldSymbol> fieldSymbols = new ArrayList<>();
+    for (int index = 1; index < constantOffsets.length; index++) {
+      int offset = constantOffsets[index];
+      if (offset == 0) {
+        // The second entry of a CONSTANT_Long or CONSTANT_Double
+        continue;
+      }
+      switch (readByte(offset)) {
+        case Const.CONSTANT_Class:
+          String targetClassName = getClassName(index);
+          // skip array class because it is provided by runtime
+          if (targetClassName.startsWith("[")) {
+            break;
+          }
+          // Relationships between superclass and subclass need special validation for 'final'
+          // keyword
+          classSymbols.add(
+              superClassName.equals(targetClassName)
+                  ? new SuperClassSymbol(targetClassName)
+                  : new ClassSymbol(targetClassName));
+          break;
+        case Const.CONSTANT_Methodref:
+        case Const.CONSTANT_InterfaceMethodref:
+          boolean isInterfaceMethod = readByte(offset) == Const.CONSTANT_InterfaceMethodref;
+          int methodNameAndType = nameAndTypeOffset(offset);
+          methodSymbols.add(
+              new MethodSymbol(
+                  getClassName(readUnsignedShort(offset + 1)),
+                  getUtf8(readUnsignedShort(methodNameAndType + 1)),
+                  getUtf8(readUnsignedShort(methodNameAndType + 3)),
+                  isInterfaceMethod));
+          break;
+        case Const.CONSTANT_Fieldref:
+          int fieldNameAndType = nameAndTypeOffset(offset);
+          fieldSymbols.add(
+              new FieldSymbol(
+                  getClassName(readUnsignedShort(offset + 1)),
+                  getUtf8(readUnsignedShort(fieldNameAndType + 1)),
+                  getUtf8(readUnsignedShort(fieldNameAndType + 3))));
+          break;
+        default:
+          break;
+      }
+    }
+    for (int interfaceIndex : interfaceIndices) {
+      classSymbols.add(new InterfaceSymbol(getClassName(interfaceIndex)));
+    }
+
+    for (ClassSymbol classSymbol : classSymbols) {
+      builder.addClassReference(source, classSymbol);
+    }
+    for (MethodSymbol methodSymbol : methodSymbols) {
+      builder.addMethodReference(source, methodSymbol);
+    }
+    for (FieldSymbol fieldSymbol : fieldSymbols) {
+      builder.addFieldReference(source, fieldSymbol);
+    }
+  }
+
+  /**
+   * Returns the summary of the class for resolving symbol references. Unlike {@link
+   * #getSuperclassName()}, the summary does not have a superclass for {@code java.lang.Object}.
+   */
+  ClassSummary getClassSummary() {
+    return new ClassSummary(
+        getClassName(),
+        accessFlags,
+        superClassIndex == 0 ? null : getClassName(superClassIndex),
+        getInterfaceNames(),
+        readMembers(methodsOffset),
+        readMembers(fieldsOffset),
+        getOuterClassName(),
+        readCaughtErrors());
+  }
+
+  /**
+   * Returns the flags of {@link ClassSummary#getCaughtErrors()} for the catch types in the
+   * exception tables of the {@code Code} attributes of the methods.
+   *
+   * @see <a href="https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html#jvms-4.7.3">Java
+   *     Virtual Machine Specification: 4.7.3. The Code Attribute</a>
+   */
+  private int readCaughtErrors() {
+    int caughtErrors = 0;
+    int methodCount = readUnsignedShort(methodsOffset);
+    int offset = methodsOffset + 2;
+    for (int i = 0; i < methodCount; i++) {
+      int attributeCount = readUnsignedShort(offset + 6);
+      offset += 8;
+      for (int j = 0; j < attributeCount; j++) {
+        int attributeLength = readLength(offset + 2);
+        if ("Code".equals(getUtf8(readUnsignedShort(offset)))) {
+          // max_stack, max_locals, code_length, and code
+          int exceptionTableOffset = offset + 14 + readLength(offset + 10);
+          int exceptionTableLength = readUnsignedShort(exceptionTableOffset);
+          for (int k = 0; k < exceptionTableLength; k++) {
+            // start_pc, end_pc, handler_pc, and catch_type
+            int catchType = readUnsignedShort(exceptionTableOffset + 2 + k * 8 + 6);
+            if (catchType != 0) {
+              // 0 means a finally clause
+              caughtErrors |= ClassSummary.caughtErrorFlag(getClassName(catchType));
+            }
+          }
+        }
+        offset += 6 + attributeLength;
+      }
+    }
+    return caughtErrors;
+  }
+
+  /** Returns the fields or methods starting at {@code offset}. */
+  private ImmutableList<ClassSummary.Member> readMembers(int offset) {
+    int memberCount = readUnsignedShort(offset);
+    offset += 2;
+    ImmutableList.Builder<ClassSummary.Member> members = ImmutableList.builder();
+    for (int i = 0; i < memberCount; i++) {
+      int memberAccessFlags = readUnsignedShort(offset);
+      String name = getUtf8(readUnsignedShort(offset + 2));
+      String descriptor = getUtf8(readUnsignedShort(offset + 4));
+      members.add(new ClassSummary.Member(name, descriptor, memberAccessFlags));
+      offset = skipAttributes(offset + 6);
+    }
+    return members.build();
+  }
+
+  /** Returns the offset after the fields or methods starting at {@code offset}. */
+  private int skipMembers(int offset) {
+    int memberCount = readUnsignedShort(offset);
+    offset += 2;
+    for (int i = 0; i < memberCount; i++) {
+      // access_flags, name_index, and descriptor_index
+      offset += 6;
+      offset = skipAttributes(offset);
+    }
+    return offset;
+  }
+
+  /** Returns the offset after the attributes starting at {@code offset}. */
+  private int skipAttributes(int offset) {
+    int attributeCount = readUnsignedShort(offset);
+    offset += 2;
+    for (int i = 0; i < attributeCount; i++) {
+      offset += 6 + readLength(offset + 2);
+    }
+    return offset;
+  }
+
+  /**
+   * Returns the offset of the CONSTANT_NameAndType entry of the CONSTANT_Fieldref,
+   * CONSTANT_Methodref, or CONSTANT_InterfaceMethodref entry at {@code offset}.
+   */
+  private int nameAndTypeOffset(int offset) {
+    int nameAndTypeIndex = readUnsignedShort(offset + 3);
+    int nameAndTypeOffset = constantOffset(nameAndTypeIndex);
+    if (readByte(nameAndTypeOffset) != Const.CONSTANT_NameAndType) {
+      // This constant_pool entry must be a CONSTANT_NameAndType_info
+      // as specified https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html#jvms-4.4.2
+      throw new ClassFormatException(
+          "Failed to lookup nameAndType constant indexed at " + nameAndTypeIndex);
+    }
+    return nameAndTypeOffset;
+  }
+
+  /**
+   * Returns the binary name for the CONSTANT_Class entry at {@code index}. Class names in the
+   * constant pool use '/' as separator; binary names defined in JLS 13.1 use '.'.
+   */
+  private String getClassName(int index) {
+    int offset = constantOffset(index);
+    if (readByte(offset) != Const.CONSTANT_Class) {
+      throw new ClassFormatException("Failed to lookup class constant indexed at " + index);
+    }
+    return getUtf8(readUnsignedShort(offset + 1)).replace('/', '.');
+  }
+
+  /** Returns the string of the CONSTANT_Utf8 entry at {@code index}. */
+  private String getUtf8(int index) {
+    int offset = constantOffset(index);
+    String cached = utf8Cache[index];
+    if (cached != null) {
+      return cached;
+    }
+    if (readByte(offset) != Const.CONSTANT_Utf8) {
+      // This constant_pool entry must be a CONSTANT_Utf8_info
+      // as specified https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html#jvms-4.4.1
+      throw new ClassFormatException("Failed to lookup ConstantUtf8 constant indexed at " + index);
+    }
+    int stringLength = readUnsignedShort(offset + 1);
+    int start = offset + 3;
+    if (start + stringLength > length) {
+      throw new ClassFormatException("Truncated CONSTANT_Utf8 entry at " + index);
+    }
+    boolean ascii = true;
+    for (int i = start; i < start + stringLength; i++) {
+      // Modified UTF-8 encodes U+0000 in two bytes. Single-byte characters are ASCII.
+      if (bytes[i] <= 0) {
+        ascii = false;
+        break;
+      }
+    }
+    String value;
+    if (ascii) {
+      value = new String(bytes, start, stringLength, StandardCharsets.ISO_8859_1);
+    } else {
+      // The u2 length followed by the bytes is the format that DataInput.readUTF reads
+      try (DataInputStream input =
+          new DataInputStream(new ByteArrayInputStream(bytes, offset + 1, stringLength + 2))) {
+        value = input.readUTF();
+      } catch (IOException ex) {
+        throw new ClassFormatException(
+            "Invalid modified UTF-8 string in constant indexed at " + index);
+      }
+    }
+    utf8Cache[index] = value;
+    return value;
+  }
+
+  private int constantOffset(int index) {
+    if (index <= 0 || index >= constantOffsets.length || constantOffsets[index] == 0) {
+      throw new ClassFormatException("Invalid constant pool index " + index);
+    }
+    return constantOffsets[index];
+  }
+
+  private byte readByte(int offset) {
+    // The read methods compare the offset with the length minus the size of the item, so that a
+    // large offset does not overflow. A corrupt length in the class file may make it negative.
+    if (offset < 0 || offset > length - 1) {
+      throw new ClassFormatException("Truncated class file");
+    }
+    return bytes[offset];
+  }
+
+  private int readUnsignedShort(int offset) {
+    if (offset < 0 || offset > length - 2) {
+      throw new ClassFormatException("Truncated class file");
+    }
+    return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+  }
+
+  /**
+   * Returns the u4 length of an attribute or code at {@code offset}. The class files that this
+   * class reads are much smaller than 2 GB, so a length that does not fit in int is invalid.
+   */
+  private int readLength(int offset) {
+    int value = readInt(offset);
+    if (value < 0) {
+      throw new ClassFormatException("Invalid length " + (value & 0xFFFFFFFFL) + " at " + offset);
+    }
+    return value;
+  }
+
+  private int readInt(int offset) {
+    if (offset < 0 || offset > length - 4) {
+      throw new ClassFormatException("Truncated class file");
+    }
+    return ((bytes[offset] & 0xFF) << 24)
+        | ((bytes[offset + 1] & 0xFF) << 16)
+        | ((bytes[offset + 2] & 0xFF) << 8)
+        | (bytes[offset + 3] & 0xFF);
+  }
+}
@@ -25,6 +25,10 @@ class ClassMatcher implements LinkageProblemTargetMatcher, LinkageProblemSourceM
     this.className = className;
   }
 
+  String getClassName() {
+    return className;
+  }
+
   @Override
   public boolean match(Symbol symbol) {
     return symbol.getClassBinaryName().equals(className);
@@ -22,10 +22,7 @@ import com.google.cloud.tools.opensource.dependencies.Artifacts;
 import com.google.common.collect.ImmutableSet;
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.Enumeration;
 import java.util.Objects;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
 import org.eclipse.aether.artifact.Artifact;
 
 /** An entry in a class path. */
@@ -97,19 +94,32 @@ public final class ClassPathEntry {
    * Example: {@code BOOT-INF.classes.com.google.Foo}.
    */
   private void readFileNames() throws IOException {
-    try (JarFile jarFile = new JarFile(jar.toFile())) {
-      ImmutableSet.Builder<String> builder = ImmutableSet.builder();
-      
-      Enumeration<JarEntry> entries = jarFile.entries();
-      while (entries.hasMoreElements()) {
-        JarEntry entry = entries.nextElement();
-        String name = entry.getName();
+    ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+    try (JarIndex jarIndex = JarIndex.open(jar)) {
+      for (String name : jarIndex.getEntryNames()) {
         if (name.endsWith(".class")) {
-          String className = name.replace('/', '.').substring(0, name.length() - 6);
-          builder.add(className);
+          builder.add(classFileName(name));
         }
       }
-      this.fileNames = builder.build();
+    }
+    this.fileNames = builder.build();
+  }
+
+  /**
+   * Returns the file name for the .class file entry {@code entryName} in a JAR file. Example:
+   * {@code com.google.Foo} for {@code com/google/Foo.class}.
+   */
+  static String classFileName(String entryName) {
+    return entryName.replace('/', '.').substring(0, entryName.length() - 6);
+  }
+
+  /**
+   * Sets the names of the .class files in this entry's jar file, read from elsewhere such as
+   * {@link SymbolReferenceCache}, unless they have already been read.
+   */
+  synchronized void setFileNames(ImmutableSet<String> fileNames) {
+    if (this.fileNames == null) {
+      this.fileNames = checkNotNull(fileNames);
     }
   }
 
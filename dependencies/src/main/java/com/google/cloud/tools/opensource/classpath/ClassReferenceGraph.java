@@ -16,17 +16,22 @@
 
 package com.google.cloud.tools.opensource.classpath;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.graph.GraphBuilder;
-import com.google.common.graph.MutableGraph;
-import com.google.common.graph.Traverser;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * Directed graph of class references. Given classes in a set of entry points, it provides {@link
  * #isReachable(String)} for a class to check whether the class is reachable from the entry point
- * classes (reachability). The graph's nodes and edges are defined as follows:
+ * classes (reachability), and {@link #explainReachability(String)} for the shortest chain of class
+ * references from an entry point class to the class. The graph's nodes and edges are defined as
+ * follows:
  *
  * <p>Nodes are fully-qualified class names, returned from {@link ClassFile#getBinaryName()} and
  * {@link ClassSymbol#getClassBinaryName()} in {@code symbolReferenceMaps}.
@@ -36,13 +41,26 @@ import java.util.Set;
  * graph are anonymous with no attribute. Because self-loops and parallel edges are unnecessary for
  * reachability checks, they are not constructed.
  *
+ * <p>The nodes are numbered by dense IDs. The edges from node {@code i} are the IDs in {@code
+ * targets} from {@code offsets[i]} to {@code offsets[i + 1]}. A breadth-first search from the entry
+ * point classes records the reachable nodes in a {@link BitSet} and the node that first reached
+ * each node, which gives the shortest chain to the node.
+ *
  * @see <a
  *     href="https://github.com/GoogleCloudPlatform/cloud-opensource-java/blob/master/library-best-practices/glossary.md#class-reference-graph">
  *     Java Dependency Glossary: Class Reference Graph</a>
  */
 public class ClassReferenceGraph {
 
-  private final ImmutableSet<String> reachableClasses;
+  /** Value of {@link #parents} for the entry point classes and the unreachable classes. */
+  private static final int NO_PARENT = -1;
+
+  private final ImmutableMap<String, Integer> classIds;
+  private final String[] classNames;
+  private final BitSet reachableClasses;
+
+  /** The IDs of the classes that first reached the classes in the breadth-first search. */
+  private final int[] parents;
 
   static ClassReferenceGraph create(
       SymbolReferences symbolReferences, Set<ClassPathEntry> entryPoints) throws IOException {
@@ -59,22 +77,100 @@ public class ClassReferenceGraph {
   private ClassReferenceGraph(
       SymbolReferences symbolReferences,
       Set<String> entryPointClasses) {
-    MutableGraph<String> graph = GraphBuilder.directed().allowsSelfLoops(false).build();
+    Map<String, Integer> ids = new HashMap<>();
+    int edgeCount = 0;
+    int[] edgeSources = new int[1024];
+    int[] edgeTargets = new int[1024];
 
     for (ClassFile classFile : symbolReferences.getClassFiles()) {
       String sourceClassName = classFile.getBinaryName();
-      for (ClassSymbol symbol : symbolReferences.getClassSymbols(classFile)) {
+      int sourceId = classId(ids, sourceClassName);
+      Set<ClassSymbol> classSymbols = symbolReferences.getClassSymbols(classFile);
+      int[] targetIds = new int[classSymbols.size()];
+      int targetCount = 0;
+      for (ClassSymbol symbol : classSymbols) {
         String targetClassName = symbol.getClassBinaryName();
         if (!sourceClassName.equals(targetClassName)) { // no self-loop
-          graph.putEdge(sourceClassName, targetClassName);
+          targetIds[targetCount++] = classId(ids, targetClassName);
+        }
+      }
+
+      // A class symbol, a superclass symbol, and an interface symbol may have the same class
+      Arrays.sort(targetIds, 0, targetCount);
+      for (int i = 0; i < targetCount; i++) {
+        if (i > 0 && targetIds[i] == targetIds[i - 1]) { // no parallel edges
+          continue;
         }
+        if (edgeCount == edgeSources.length) {
+          edgeSources = Arrays.copyOf(edgeSources, edgeCount * 2);
+          edgeTargets = Arrays.copyOf(edgeTargets, edgeCount * 2);
+        }
+        edgeSources[edgeCount] = sourceId;
+        edgeTargets[edgeCount] = targetIds[i];
+        edgeCount++;
       }
     }
-    
-    entryPointClasses.forEach(graph::addNode); // to avoid IllegalArgumentError in breadthFirst
 
-    this.reachableClasses =
-        ImmutableSet.copyOf(Traverser.forGraph(graph).breadthFirst(entryPointClasses));
+    int[] entryPointIds = new int[entryPointClasses.size()];
+    int entryPointCount = 0;
+    for (String className : entryPointClasses) {
+      entryPointIds[entryPointCount++] = classId(ids, className);
+    }
+
+    int classCount = ids.size();
+    this.classIds = ImmutableMap.copyOf(ids);
+    this.classNames = new String[classCount];
+    for (Map.Entry<String, Integer> entry : ids.entrySet()) {
+      classNames[entry.getValue()] = entry.getKey();
+    }
+
+    // Adjacency arrays grouped by source class
+    int[] offsets = new int[classCount + 1];
+    for (int i = 0; i < edgeCount; i++) {
+      offsets[edgeSources[i] + 1]++;
+    }
+    for (int i = 0; i < classCount; i++) {
+      offsets[i + 1] += offsets[i];
+    }
+    int[] targets = new int[edgeCount];
+    int[] nextTargetIndices = Arrays.copyOf(offsets, classCount);
+    for (int i = 0; i < edgeCount; i++) {
+      targets[nextTargetIndices[edgeSources[i]]++] = edgeTargets[i];
+    }
+
+    this.reachableClasses = new BitSet(classCount);
+    this.parents = new int[classCount];
+    Arrays.fill(parents, NO_PARENT);
+    int[] queue = new int[classCount];
+    int queueStart = 0;
+    int queueEnd = 0;
+    for (int i = 0; i < entryPointCount; i++) {
+      int entryPointId = entryPointIds[i];
+      if (!reachableClasses.get(entryPointId)) {
+        reachableClasses.set(entryPointId);
+        queue[queueEnd++] = entryPointId;
+      }
+    }
+    while (queueStart < queueEnd) {
+      int classId = queue[queueStart++];
+      for (int i = offsets[classId]; i < offsets[classId + 1]; i++) {
+        int targetId = targets[i];
+        if (!reachableClasses.get(targetId)) {
+          reachableClasses.set(targetId);
+          parents[targetId] = classId;
+          queue[queueEnd++] = targetId;
+        }
+      }
+    }
+  }
+
+  private static int classId(Map<String, Integer> ids, String className) {
+    Integer id = ids.get(className);
+    if (id == null) {
+      id = ids.size();
+      ids.put(className, id);
+    }
+    return id;
   }
 
   /**
@@ -82,6 +178,23 @@ public class ClassReferenceGraph {
    * the graph.
    */
   public boolean isReachable(String className) {
-    return reachableClasses.contains(className);
+    Integer classId = classIds.get(className);
+    return classId != null && reachableClasses.get(classId);
+  }
+
+  /**
+   * Returns the shortest chain of class references from one of classes in {@code entryPoints} to
+   * {@code className}, starting with the entry point class and ending with {@code className}.
+   * Empty if {@code className} is not reachable.
+   */
+  public ImmutableList<String> explainReachability(String className) {
+    if (!isReachable(className)) {
+      return ImmutableList.of();
+    }
+    ImmutableList.Builder<String> chain = ImmutableList.builder();
+    for (int classId = classIds.get(className); classId != NO_PARENT; classId = parents[classId]) {
+      chain.add(classNames[classId]);
+    }
+    return chain.build().reverse();
   }
 }
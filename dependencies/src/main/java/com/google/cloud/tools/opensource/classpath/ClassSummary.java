@@ -0,0 +1,270 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.Objects;
+import javax.annotation.Nullable;
+import org.apache.bcel.Const;
+
+/**
+ * The parts of a class file that {@link LinkageChecker} needs to resolve symbol references: the
+ * access flags, the superclass, the interfaces, and the names, descriptors, and access flags of
+ * the methods and fields. Unlike BCEL's {@link org.apache.bcel.classfile.JavaClass}, this does not
+ * hold the constant pool or the code of the methods.
+ */
+final class ClassSummary {
+
+  /** Flag for {@link #getCaughtErrors()}: the class catches {@link LinkageError}. */
+  static final int CATCHES_LINKAGE_ERROR = 1;
+
+  /** Flag for {@link #getCaughtErrors()}: the class catches {@link NoClassDefFoundError}. */
+  static final int CATCHES_NO_CLASS_DEF_FOUND_ERROR = 1 << 1;
+
+  /** Flag for {@link #getCaughtErrors()}: the class catches {@link ClassNotFoundException}. */
+  static final int CATCHES_CLASS_NOT_FOUND_EXCEPTION = 1 << 2;
+
+  /** Flag for {@link #getCaughtErrors()}: the class catches {@link NoSuchMethodError}. */
+  static final int CATCHES_NO_SUCH_METHOD_ERROR = 1 << 3;
+
+  private static final ImmutableMap<String, Integer> CAUGHT_ERROR_FLAGS =
+      ImmutableMap.of(
+          LinkageError.class.getName(), CATCHES_LINKAGE_ERROR,
+          NoClassDefFoundError.class.getName(), CATCHES_NO_CLASS_DEF_FOUND_ERROR,
+          ClassNotFoundException.class.getName(), CATCHES_CLASS_NOT_FOUND_EXCEPTION,
+          NoSuchMethodError.class.getName(), CATCHES_NO_SUCH_METHOD_ERROR);
+
+  private final String className;
+  private final int accessFlags;
+  @Nullable private final String superclassName;
+  private final ImmutableList<String> interfaceNames;
+  private final ImmutableList<Member> methods;
+  private final ImmutableList<Member> fields;
+  @Nullable private final String outerClassName;
+  private final int caughtErrors;
+
+  ClassSummary(
+      String className,
+      int accessFlags,
+      @Nullable String superclassName,
+      ImmutableList<String> interfaceNames,
+      ImmutableList<Member> methods,
+      ImmutableList<Member> fields,
+      @Nullable String outerClassName,
+      int caughtErrors) {
+    this.className = checkNotNull(className);
+    this.accessFlags = accessFlags;
+    this.superclassName = superclassName;
+    this.interfaceNames = checkNotNull(interfaceNames);
+    this.methods = checkNotNull(methods);
+    this.fields = checkNotNull(fields);
+    this.outerClassName = outerClassName;
+    this.caughtErrors = caughtErrors;
+  }
+
+  /**
+   * Returns the flag for {@link #getCaughtErrors()} that represents {@code className}. 0 if the
+   * class is not one of the errors that the flags represent.
+   */
+  static int caughtErrorFlag(String className) {
+    return CAUGHT_ERROR_FLAGS.getOrDefault(className, 0);
+  }
+
+  /** Returns the binary name of the class. */
+  String getClassName() {
+    return className;
+  }
+
+  int getAccessFlags() {
+    return accessFlags;
+  }
+
+  boolean isPublic() {
+    return (accessFlags & Const.ACC_PUBLIC) != 0;
+  }
+
+  boolean isPrivate() {
+    return (accessFlags & Const.ACC_PRIVATE) != 0;
+  }
+
+  boolean isFinal() {
+    return (accessFlags & Const.ACC_FINAL) != 0;
+  }
+
+  boolean isInterface() {
+    return (accessFlags & Const.ACC_INTERFACE) != 0;
+  }
+
+  boolean isAbstract() {
+    return (accessFlags & Const.ACC_ABSTRACT) != 0;
+  }
+
+  /** Returns the binary name of the superclass. Null if the class is {@code java.lang.Object}. */
+  @Nullable
+  String getSuperclassName() {
+    return superclassName;
+  }
+
+  /** Returns the binary names of the interfaces that the class directly implements. */
+  ImmutableList<String> getInterfaceNames() {
+    return interfaceNames;
+  }
+
+  /** Returns the methods declared in the class. */
+  ImmutableList<Member> getMethods() {
+    return methods;
+  }
+
+  /** Returns the fields declared in the class. */
+  ImmutableList<Member> getFields() {
+    return fields;
+  }
+
+  /**
+   * Returns the binary name of the class that declares this class as a member, according to the
+   * {@code InnerClasses} attribute. Null if the class is not a member of another class.
+   */
+  @Nullable
+  String getOuterClassName() {
+    return outerClassName;
+  }
+
+  /**
+   * Returns the flags, such as {@link #CATCHES_LINKAGE_ERROR}, of the errors that the exception
+   * handlers of the methods in the class catch. This does not include the outer classes.
+   */
+  int getCaughtErrors() {
+    return caughtErrors;
+  }
+
+  /**
+   * Returns the approximate number of bytes that this instance retains. The strings shared with
+   * other instances are counted as retained.
+   */
+  int estimateSize() {
+    // Object headers, fields, and the lists
+    int size = 64 + estimateStringSize(className);
+    if (superclassName != null) {
+      size += estimateStringSize(superclassName);
+    }
+    if (outerClassName != null) {
+      size += estimateStringSize(outerClassName);
+    }
+    for (String interfaceName : interfaceNames) {
+      size += 8 + estimateStringSize(interfaceName);
+    }
+    for (Member method : methods) {
+      size += method.estimateSize();
+    }
+    for (Member field : fields) {
+      size += field.estimateSize();
+    }
+    return size;
+  }
+
+  private static int estimateStringSize(String string) {
+    return 40 + string.length();
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("className", className).toString();
+  }
+
+  /** A method or a field declared in a class. */
+  static final class Member {
+    private final String name;
+    private final String descriptor;
+    private final int accessFlags;
+
+    Member(String name, String descriptor, int accessFlags) {
+      this.name = checkNotNull(name);
+      this.descriptor = checkNotNull(descriptor);
+      this.accessFlags = accessFlags;
+    }
+
+    String getName() {
+      return name;
+    }
+
+    /**
+     * Returns the descriptor of the method or the field.
+     *
+     * @see <a href="https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html#jvms-4.3">Java
+     *     Virtual Machine Specification: 4.3. Descriptors</a>
+     */
+    String getDescriptor() {
+      return descriptor;
+    }
+
+    int getAccessFlags() {
+      return accessFlags;
+    }
+
+    boolean isPublic() {
+      return (accessFlags & Const.ACC_PUBLIC) != 0;
+    }
+
+    boolean isProtected() {
+      return (accessFlags & Const.ACC_PROTECTED) != 0;
+    }
+
+    boolean isPrivate() {
+      return (accessFlags & Const.ACC_PRIVATE) != 0;
+    }
+
+    boolean isFinal() {
+      return (accessFlags & Const.ACC_FINAL) != 0;
+    }
+
+    boolean isAbstract() {
+      return (accessFlags & Const.ACC_ABSTRACT) != 0;
+    }
+
+    private int estimateSize() {
+      return 32 + estimateStringSize(name) + estimateStringSize(descriptor);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (other == null || getClass() != other.getClass()) {
+        return false;
+      }
+      Member that = (Member) other;
+      return accessFlags == that.accessFlags
+          && name.equals(that.name)
+          && descriptor.equals(that.descriptor);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(name, descriptor, accessFlags);
+    }
+
+    @Override
+    public String toString() {
+      return name + descriptor;
+    }
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import org.apache.bcel.classfile.ClassFormatException;
+import org.apache.bcel.util.ClassPath;
+
+/**
+ * Repository of {@link ClassSummary} instances for the classes in a class path. The cache of the
+ * summaries is bounded by their estimated size in bytes, rather than by the number of entries as
+ * {@link FixedSizeClassPathRepository} is, because the size of a class varies widely. The default
+ * maximum size holds all classes of a typical class path, such as the one of the Libraries BOM.
+ *
+ * <p>This class remembers the names of the classes that are not found, because linkage errors
+ * tend to reference the same missing classes from many classes.
+ *
+ * <p>This class is safe for use by multiple threads.
+ */
+final class ClassSummaryRepository {
+
+  /** The default maximum total size of the cached summaries: 256 MB. */
+  static final long DEFAULT_MAXIMUM_WEIGHT = 256L << 20;
+
+  private final ClassPath classPath;
+  private final Function<String, String> fileNames;
+  private final Cache<String, ClassSummary> summaries;
+  private final Set<String> missingClassNames = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Returns a repository of the classes in {@code classPath}.
+   *
+   * @param fileNames function that returns the file name of a class name. See {@link
+   *     FixedSizeClassPathRepository#getFileName(String)}
+   */
+  ClassSummaryRepository(ClassPath classPath, Function<String, String> fileNames) {
+    this(classPath, fileNames, DEFAULT_MAXIMUM_WEIGHT);
+  }
+
+  @VisibleForTesting
+  ClassSummaryRepository(
+      ClassPath classPath, Function<String, String> fileNames, long maximumWeight) {
+    this.classPath = checkNotNull(classPath);
+    this.fileNames = checkNotNull(fileNames);
+    this.summaries =
+        CacheBuilder.newBuilder()
+            .maximumWeight(maximumWeight)
+            .weigher((String className, ClassSummary summary) -> summary.estimateSize())
+            .build();
+  }
+
+  /**
+   * Returns the summary of {@code className}.
+   *
+   * @throws ClassNotFoundException if the class is not in the class path
+   * @throws ClassFormatException if the class file is invalid
+   */
+  ClassSummary loadClassSummary(String className) throws ClassNotFoundException {
+    ClassSummary summary = summaries.getIfPresent(className);
+    if (summary != null) {
+      return summary;
+    }
+    if (missingClassNames.contains(className)) {
+      throw new ClassNotFoundException(className);
+    }
+
+    byte[] bytes;
+    // ClassPath.getInputStream converts the file name to the path of the class file
+    try (InputStream inputStream = classPath.getInputStream(fileNames.apply(className))) {
+      bytes = ByteStreams.toByteArray(inputStream);
+    } catch (IOException ex) {
+      missingClassNames.add(className);
+      throw new ClassNotFoundException(
+          "Exception while looking for class " + className + ": " + ex, ex);
+    }
+    summary = ClassFileScanner.scan(bytes, bytes.length).getClassSummary();
+    summaries.put(className, summary);
+    return summary;
+  }
+
+  /**
+   * Copies the summaries in {@code other} and the classes missing in {@code other} that {@code
+   * isUnchanged} accepts. The classes must have the same class files in the class path of this
+   * repository as in the one of {@code other}.
+   */
+  void putAll(ClassSummaryRepository other, Predicate<String> isUnchanged) {
+    summaries.putAll(Maps.filterKeys(other.summaries.asMap(), isUnchanged::test));
+    other.missingClassNames.stream().filter(isUnchanged).forEach(missingClassNames::add);
+  }
+}
@@ -16,16 +16,51 @@
 
 package com.google.cloud.tools.opensource.classpath;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.Maps;
 import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Path;
+import java.util.Map;
 import javax.annotation.Nullable;
 import org.iso_relax.verifier.VerifierConfigurationException;
 import org.xml.sax.SAXException;
 
+/**
+ * Exclusion rules to suppress linkage errors.
+ *
+ * <p>The rules are indexed by the class names, the member names, and the package names in their
+ * target matchers, or in their source matchers if they do not have target matchers. {@link
+ * #contains(LinkageProblem)} looks up the rules that may match a linkage error in the index, and
+ * runs only those rules' {@link LinkageErrorMatcher#match(LinkageProblem)}, instead of running all
+ * rules. A generated exclusion file may have thousands of rules.
+ */
 class ExcludedErrors {
-  private final ImmutableList<LinkageErrorMatcher> exclusionMatchers;
+
+  /** Rules with a target class matcher, keyed by the class name. */
+  private final ImmutableListMultimap<String, LinkageErrorMatcher> targetClassRules;
+
+  /** Rules with a target method matcher, keyed by the class name and the method name. */
+  private final ImmutableListMultimap<Map.Entry<String, String>, LinkageErrorMatcher>
+      targetMethodRules;
+
+  /** Rules with a target field matcher, keyed by the class name and the field name. */
+  private final ImmutableListMultimap<Map.Entry<String, String>, LinkageErrorMatcher>
+      targetFieldRules;
+
+  /** Rules with a target package matcher. */
+  private final PackageIndex targetPackageRules;
+
+  /** Rules without a target matcher and with a source class matcher, keyed by the class name. */
+  private final ImmutableListMultimap<String, LinkageErrorMatcher> sourceClassRules;
+
+  /** Rules without a target matcher and with a source package matcher. */
+  private final PackageIndex sourcePackageRules;
+
+  /** Rules that the index does not cover. They run for all linkage errors. */
+  private final ImmutableList<LinkageErrorMatcher> otherRules;
 
   /**
    * Creates exclusion matchers from {@code exclusionFile} with default rules. If {@code
@@ -56,8 +91,62 @@ class ExcludedErrors {
     return new ExcludedErrors(exclusionMatchers.build());
   }
 
-  private ExcludedErrors(Iterable<LinkageErrorMatcher> exclusionMatchers) {
-    this.exclusionMatchers = ImmutableList.copyOf(exclusionMatchers);
+  @VisibleForTesting
+  ExcludedErrors(Iterable<LinkageErrorMatcher> exclusionMatchers) {
+    ImmutableListMultimap.Builder<String, LinkageErrorMatcher> targetClassRules =
+        ImmutableListMultimap.builder();
+    ImmutableListMultimap.Builder<Map.Entry<String, String>, LinkageErrorMatcher>
+        targetMethodRules = ImmutableListMultimap.builder();
+    ImmutableListMultimap.Builder<Map.Entry<String, String>, LinkageErrorMatcher>
+        targetFieldRules = ImmutableListMultimap.builder();
+    PackageIndex.Builder targetPackageRules = new PackageIndex.Builder();
+    ImmutableListMultimap.Builder<String, LinkageErrorMatcher> sourceClassRules =
+        ImmutableListMultimap.builder();
+    PackageIndex.Builder sourcePackageRules = new PackageIndex.Builder();
+    ImmutableList.Builder<LinkageErrorMatcher> otherRules = ImmutableList.builder();
+
+    for (LinkageErrorMatcher rule : exclusionMatchers) {
+      TargetMatcher targetMatcher = rule.getTargetMatcher();
+      SourceMatcher sourceMatcher = rule.getSourceMatcher();
+      if (targetMatcher != null) {
+        LinkageProblemTargetMatcher matcher = targetMatcher.getMatcher();
+        if (matcher instanceof ClassMatcher) {
+          targetClassRules.put(((ClassMatcher) matcher).getClassName(), rule);
+        } else if (matcher instanceof MethodMatcher) {
+          MethodMatcher methodMatcher = (MethodMatcher) matcher;
+          targetMethodRules.put(
+              Maps.immutableEntry(methodMatcher.getClassName(), methodMatcher.getMethodName()),
+              rule);
+        } else if (matcher instanceof FieldMatcher) {
+          FieldMatcher fieldMatcher = (FieldMatcher) matcher;
+          targetFieldRules.put(
+              Maps.immutableEntry(fieldMatcher.getClassName(), fieldMatcher.getFieldName()), rule);
+        } else if (matcher instanceof PackageMatcher) {
+          targetPackageRules.put(((PackageMatcher) matcher).getPackageName(), rule);
+        } else {
+          otherRules.add(rule);
+        }
+      } else if (sourceMatcher != null) {
+        LinkageProblemSourceMatcher matcher = sourceMatcher.getMatcher();
+        if (matcher instanceof ClassMatcher) {
+          sourceClassRules.put(((ClassMatcher) matcher).getClassName(), rule);
+        } else if (matcher instanceof PackageMatcher) {
+          sourcePackageRules.put(((PackageMatcher) matcher).getPackageName(), rule);
+        } else {
+          otherRules.add(rule);
+        }
+      } else {
+        otherRules.add(rule);
+      }
+    }
+
+    this.targetClassRules = targetClassRules.build();
+    this.targetMethodRules = targetMethodRules.build();
+    this.targetFieldRules = targetFieldRules.build();
+    this.targetPackageRules = targetPackageRules.build();
+    this.sourceClassRules = sourceClassRules.build();
+    this.sourcePackageRules = sourcePackageRules.build();
+    this.otherRules = otherRules.build();
   }
 
   /**
@@ -65,11 +154,93 @@ class ExcludedErrors {
    * sourceClass}.
    */
   boolean contains(LinkageProblem linkageProblem) {
-    for (LinkageErrorMatcher matcher : exclusionMatchers) {
-      if (matcher.match(linkageProblem)) {
+    Symbol symbol = linkageProblem.getSymbol();
+    String targetClassName = symbol.getClassBinaryName();
+    if (anyMatch(targetClassRules.get(targetClassName), linkageProblem)) {
+      return true;
+    }
+    if (symbol instanceof MethodSymbol) {
+      Map.Entry<String, String> key =
+          Maps.immutableEntry(targetClassName, ((MethodSymbol) symbol).getName());
+      if (anyMatch(targetMethodRules.get(key), linkageProblem)) {
+        return true;
+      }
+    } else if (symbol instanceof FieldSymbol) {
+      Map.Entry<String, String> key =
+          Maps.immutableEntry(targetClassName, ((FieldSymbol) symbol).getName());
+      if (anyMatch(targetFieldRules.get(key), linkageProblem)) {
+        return true;
+      }
+    }
+    // PackageMatcher matches a target class in the package and its subpackages
+    if (targetPackageRules.anyMatch(targetClassName, true, linkageProblem)) {
+      return true;
+    }
+
+    String sourceClassName = linkageProblem.getSourceClass().getBinaryName();
+    if (anyMatch(sourceClassRules.get(sourceClassName), linkageProblem)) {
+      return true;
+    }
+    // PackageMatcher matches a source class whose name starts with the package name
+    if (sourcePackageRules.anyMatch(sourceClassName, false, linkageProblem)) {
+      return true;
+    }
+    return anyMatch(otherRules, linkageProblem);
+  }
+
+  private static boolean anyMatch(
+      Iterable<LinkageErrorMatcher> rules, LinkageProblem linkageProblem) {
+    for (LinkageErrorMatcher rule : rules) {
+      if (rule.match(linkageProblem)) {
         return true;
       }
     }
     return false;
   }
+
+  /**
+   * Rules keyed by package name. A lookup for a class name checks its prefixes of the lengths of
+   * the package names in the index, instead of all package names.
+   */
+  private static final class PackageIndex {
+    private final ImmutableListMultimap<String, LinkageErrorMatcher> rules;
+    private final int[] packageNameLengths;
+
+    private PackageIndex(ImmutableListMultimap<String, LinkageErrorMatcher> rules) {
+      this.rules = rules;
+      this.packageNameLengths =
+          rules.keySet().stream().mapToInt(String::length).distinct().sorted().toArray();
+    }
+
+    /**
+     * Returns true if one of the rules for the packages that are prefixes of {@code className}
+     * matches {@code linkageProblem}. If {@code beforeDot} is true, the prefixes are only the ones
+     * followed by '.' in {@code className}.
+     */
+    boolean anyMatch(String className, boolean beforeDot, LinkageProblem linkageProblem) {
+      for (int length : packageNameLengths) {
+        if (length > className.length()
+            || (beforeDot && (length == className.length() || className.charAt(length) != '.'))) {
+          continue;
+        }
+        if (ExcludedErrors.anyMatch(rules.get(className.substring(0, length)), linkageProblem)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private static final class Builder {
+      private final ImmutableListMultimap.Builder<String, LinkageErrorMatcher> rules =
+          ImmutableListMultimap.builder();
+
+      void put(String packageName, LinkageErrorMatcher rule) {
+        rules.put(packageName, rule);
+      }
+
+      PackageIndex build() {
+        return new PackageIndex(rules.build());
+      }
+    }
+  }
 }
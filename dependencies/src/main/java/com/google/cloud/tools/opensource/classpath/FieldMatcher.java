@@ -29,6 +29,14 @@ class FieldMatcher implements LinkageProblemTargetMatcher {
     this.fieldName = checkNotNull(fieldName);
   }
 
+  String getClassName() {
+    return className;
+  }
+
+  String getFieldName() {
+    return fieldName;
+  }
+
   /** Returns true if {@code symbol} is {@link #fieldName} of {@link #className}. */
   @Override
   public boolean match(Symbol symbol) {
@@ -18,8 +18,8 @@ package com.google.cloud.tools.opensource.classpath;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.Nullable;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.util.ClassPath;
@@ -38,6 +38,9 @@ import org.apache.bcel.util.ClassPathRepository;
  * this maximum size gives the best performance when running {@link
  * LinkageChecker#findLinkageProblems()}.
  *
+ * <p>This class is safe for use by multiple threads, so that {@link ClassDumper} can read classes
+ * of different JAR files concurrently.
+ *
  * @see <a href="https://github.com/google/guava/wiki/CachesExplained#size-based-eviction">Guava
  *     CachesExplained: Size-based Eviction</a>
  * @see <a href="https://github.com/GoogleCloudPlatform/cloud-opensource-java/issues/653"
@@ -81,7 +84,7 @@ final class FixedSizeClassPathRepository extends ClassPathRepository {
   FixedSizeClassPathRepository(ClassPath path, long maximumSize) {
     super(path);
     loadedClass = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
-    this.classFileNames = new HashMap<>();
+    this.classFileNames = new ConcurrentHashMap<>();
   }
 
   @Override
@@ -98,6 +101,16 @@ final class FixedSizeClassPathRepository extends ClassPathRepository {
     }
   }
 
+  /**
+   * Records that the class file for {@code className} is {@code fileName}, for a class that has
+   * not been loaded through this repository. If the class already has a file name, this does not
+   * overwrite it. Callers record the file names in the order of the class path, so that the first
+   * class file for a class name wins.
+   */
+  void putFileName(String className, String fileName) {
+    classFileNames.putIfAbsent(className, fileName);
+  }
+
   @Override
   @Nullable
   public JavaClass findClass(String className) {
@@ -17,22 +17,29 @@
 package com.google.cloud.tools.opensource.classpath;
 
 import java.util.Objects;
+import javax.annotation.Nullable;
 
 /**
  * A {@link LinkageProblem} caused by an invalid reference when both {@code sourceClass} and {@code
  * targetClass} are present in the class path.
  */
 public abstract class IncompatibleLinkageProblem extends LinkageProblem {
-  private final ClassFile targetClass;
+  @Nullable private final ClassFile targetClass;
 
   IncompatibleLinkageProblem(
-      String symbolProblemMessage, ClassFile sourceClass, ClassFile targetClass, Symbol symbol) {
+      String symbolProblemMessage,
+      ClassFile sourceClass,
+      @Nullable ClassFile targetClass,
+      Symbol symbol) {
     super(symbolProblemMessage, sourceClass, symbol);
     this.targetClass = targetClass;
   }
 
   @Override
   public String formatSymbolProblem() {
+    if (targetClass == null) {
+      return super.formatSymbolProblem();
+    }
     String jarInfo = "(" + targetClass.getClassPathEntry() + ") ";
     return jarInfo + super.formatSymbolProblem();
   }
@@ -40,8 +47,10 @@ public abstract class IncompatibleLinkageProblem extends LinkageProblem {
   /**
    * Returns the class that is expected to contain the symbol. If the symbol is a method or a field,
    * then this is the class where the symbol was expected to be found. If the symbol is an inner
-   * class, this is the outer class that was expected to contain the inner class.
+   * class, this is the outer class that was expected to contain the inner class. Null if the class
+   * is not in the class path but in the JDK.
    */
+  @Nullable
   public ClassFile getTargetClass() {
     return targetClass;
   }
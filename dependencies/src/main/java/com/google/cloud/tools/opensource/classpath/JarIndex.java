@@ -0,0 +1,553 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import javax.annotation.Nullable;
+
+/**
+ * Index of the entries of a JAR file, read from the central directory of the memory-mapped file.
+ * The index keeps the offset, the sizes, and the compression method of each entry, so that {@link
+ * #read(String)} reads an entry without opening the file again or searching the archive.
+ *
+ * <p>This class supports the entries stored without compression or compressed with the DEFLATE
+ * method, and the ZIP64 format. It does not support JAR files larger than 2 GB or encrypted
+ * entries. The uncompressed sizes in the central directory are not trusted for allocation: a
+ * compressed entry is inflated into a buffer that grows with the inflated data.
+ *
+ * <p>{@link #close()} unmaps the file. This class is safe for use by multiple threads, including
+ * closing the index while other threads read it.
+ *
+ * @see <a href="https://pkware.cachefly.net/webdocs/casestudies/APPNOTE.TXT">ZIP File Format
+ *     Specification</a>
+ */
+final class JarIndex implements Closeable {
+
+  private static final Logger logger = Logger.getLogger(JarIndex.class.getName());
+
+  private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+  private static final int CENTRAL_DIRECTORY_SIGNATURE = 0x02014b50;
+  private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+  private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064b50;
+  private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+  private static final int ZIP64_EXTRA_FIELD_ID = 0x0001;
+
+  private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+  private static final int ZIP64_LOCATOR_SIZE = 20;
+  private static final int MAXIMUM_COMMENT_LENGTH = 0xFFFF;
+  private static final long ZIP64_MAGIC_VALUE = 0xFFFFFFFFL;
+
+  private static final int STORED = 0;
+  private static final int DEFLATED = 8;
+
+  /** The method recorded for encrypted entries, which this class does not read. */
+  private static final int ENCRYPTED = -1;
+
+  /** The initial size of the array for a compressed entry, unless the entry is smaller. */
+  private static final int INITIAL_INFLATE_SIZE = 8192;
+
+  private static final byte[] EMPTY = new byte[0];
+
+  /** Inflaters reused by the threads reading DEFLATED entries. */
+  private static final ThreadLocal<Inflater> inflaters =
+      ThreadLocal.withInitial(() -> new Inflater(true));
+
+  /** Buffers for the compressed data of DEFLATED entries, reused by each thread. */
+  private static final ThreadLocal<byte[]> inputBuffers =
+      ThreadLocal.withInitial(() -> new byte[8192]);
+
+  private final Path jar;
+
+  /** The mapped JAR file in little-endian. Only read with absolute positions or duplicates. */
+  private final MappedByteBuffer buffer;
+
+  /** Held to read {@link #buffer}, and exclusively to unmap it. */
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /** Whether {@link #buffer} is unmapped. Guarded by {@link #lock}. */
+  private boolean closed;
+
+  /** Positions of the entries in the arrays below, keyed by entry name in the file order. */
+  private final ImmutableMap<String, Integer> entryIndices;
+
+  private final int[] localHeaderOffsets;
+  private final int[] compressedSizes;
+  private final int[] uncompressedSizes;
+  private final byte[] methods;
+
+  /**
+   * The names of the .class file entries not at {@link #standardEntryName(String)} of their file
+   * names, such as {@code lib/foo.bar/Baz.class}, keyed by file name. Computed on first use.
+   */
+  private ImmutableMap<String, String> nonStandardEntryNames;
+
+  private JarIndex(
+      Path jar,
+      MappedByteBuffer buffer,
+      ImmutableMap<String, Integer> entryIndices,
+      int[] localHeaderOffsets,
+      int[] compressedSizes,
+      int[] uncompressedSizes,
+      byte[] methods) {
+    this.jar = jar;
+    this.buffer = buffer;
+    this.entryIndices = entryIndices;
+    this.localHeaderOffsets = localHeaderOffsets;
+    this.compressedSizes = compressedSizes;
+    this.uncompressedSizes = uncompressedSizes;
+    this.methods = methods;
+  }
+
+  /**
+   * Returns the index of the entries in {@code jar}. The file is mapped into memory and closed;
+   * the mapping stays valid until {@link #close()} or until the index is garbage-collected.
+   *
+   * @throws IOException if the file cannot be read or is not a valid ZIP file
+   */
+  static JarIndex open(Path jar) throws IOException {
+    checkNotNull(jar);
+    MappedByteBuffer mappedBuffer;
+    try (FileChannel channel = FileChannel.open(jar, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("JAR file larger than 2 GB is not supported: " + jar);
+      }
+      mappedBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+    mappedBuffer.order(ByteOrder.LITTLE_ENDIAN);
+    try {
+      return readCentralDirectory(jar, mappedBuffer);
+    } catch (IndexOutOfBoundsException ex) {
+      unmap(mappedBuffer);
+      throw new IOException("Invalid ZIP file: " + jar, ex);
+    } catch (IOException ex) {
+      unmap(mappedBuffer);
+      throw ex;
+    }
+  }
+
+  private static JarIndex readCentralDirectory(Path jar, MappedByteBuffer buffer)
+      throws IOException {
+    int endOffset = findEndOfCentralDirectory(jar, buffer);
+    long centralDirectorySize = unsignedInt(buffer, endOffset + 12);
+    long centralDirectoryOffset = unsignedInt(buffer, endOffset + 16);
+    if (centralDirectorySize == ZIP64_MAGIC_VALUE || centralDirectoryOffset == ZIP64_MAGIC_VALUE) {
+      int locatorOffset = endOffset - ZIP64_LOCATOR_SIZE;
+      if (locatorOffset < 0 || buffer.getInt(locatorOffset) != ZIP64_LOCATOR_SIGNATURE) {
+        throw new IOException("Invalid ZIP64 end of central directory locator: " + jar);
+      }
+      int zip64EndOffset = toOffset(buffer.getLong(locatorOffset + 8), buffer);
+      if (buffer.getInt(zip64EndOffset) != ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+        throw new IOException("Invalid ZIP64 end of central directory record: " + jar);
+      }
+      centralDirectorySize = buffer.getLong(zip64EndOffset + 40);
+      centralDirectoryOffset = buffer.getLong(zip64EndOffset + 48);
+    }
+
+    int offset = toOffset(centralDirectoryOffset, buffer);
+    int centralDirectoryEnd = toOffset(centralDirectoryOffset + centralDirectorySize, buffer);
+    Map<String, Integer> entryIndices = new LinkedHashMap<>();
+    List<long[]> entries = new ArrayList<>();
+    while (offset < centralDirectoryEnd) {
+      if (buffer.getInt(offset) != CENTRAL_DIRECTORY_SIGNATURE) {
+        throw new IOException("Invalid central directory header at " + offset + " in " + jar);
+      }
+      int flags = unsignedShort(buffer, offset + 8);
+      int method = unsignedShort(buffer, offset + 10);
+      long compressedSize = unsignedInt(buffer, offset + 20);
+      long uncompressedSize = unsignedInt(buffer, offset + 24);
+      int nameLength = unsignedShort(buffer, offset + 28);
+      int extraLength = unsignedShort(buffer, offset + 30);
+      int commentLength = unsignedShort(buffer, offset + 32);
+      long localHeaderOffset = unsignedInt(buffer, offset + 42);
+
+      // The ZIP64 extended information has the values that do not fit in the header, in this order
+      int extraOffset = offset + 46 + nameLength;
+      if (uncompressedSize == ZIP64_MAGIC_VALUE
+          || compressedSize == ZIP64_MAGIC_VALUE
+          || localHeaderOffset == ZIP64_MAGIC_VALUE) {
+        int zip64Offset = findZip64ExtraField(buffer, extraOffset, extraLength);
+        if (zip64Offset < 0) {
+          throw new IOException("Missing ZIP64 extended information at " + offset + " in " + jar);
+        }
+        if (uncompressedSize == ZIP64_MAGIC_VALUE) {
+          uncompressedSize = buffer.getLong(zip64Offset);
+          zip64Offset += 8;
+        }
+        if (compressedSize == ZIP64_MAGIC_VALUE) {
+          compressedSize = buffer.getLong(zip64Offset);
+          zip64Offset += 8;
+        }
+        if (localHeaderOffset == ZIP64_MAGIC_VALUE) {
+          localHeaderOffset = buffer.getLong(zip64Offset);
+        }
+      }
+
+      String name = readString(buffer, offset + 46, nameLength);
+      if (!entryIndices.containsKey(name)) {
+        entryIndices.put(name, entries.size());
+        // Bit 0 of the general purpose flags means the entry is encrypted
+        int entryMethod = (flags & 1) != 0 ? ENCRYPTED : method;
+        entries.add(new long[] {localHeaderOffset, compressedSize, uncompressedSize, entryMethod});
+      }
+      offset = extraOffset + extraLength + commentLength;
+    }
+
+    int entryCount = entries.size();
+    int[] localHeaderOffsets = new int[entryCount];
+    int[] compressedSizes = new int[entryCount];
+    int[] uncompressedSizes = new int[entryCount];
+    byte[] methods = new byte[entryCount];
+    for (int i = 0; i < entryCount; i++) {
+      long[] entry = entries.get(i);
+      localHeaderOffsets[i] = toOffset(entry[0], buffer);
+      compressedSizes[i] = toOffset(entry[1], buffer);
+      // Only an upper bound for a compressed entry. read() allocates by the inflated data
+      uncompressedSizes[i] = (int) Math.min(entry[2], Integer.MAX_VALUE);
+      methods[i] = (byte) entry[3];
+    }
+    return new JarIndex(
+        jar,
+        buffer,
+        ImmutableMap.copyOf(entryIndices),
+        localHeaderOffsets,
+        compressedSizes,
+        uncompressedSizes,
+        methods);
+  }
+
+  /** Returns the offset of the end of central directory record, which is followed by a comment. */
+  private static int findEndOfCentralDirectory(Path jar, ByteBuffer buffer) throws IOException {
+    int lastOffset = buffer.limit() - END_OF_CENTRAL_DIRECTORY_SIZE;
+    int firstOffset = Math.max(0, lastOffset - MAXIMUM_COMMENT_LENGTH);
+    for (int offset = lastOffset; offset >= firstOffset; offset--) {
+      if (buffer.getInt(offset) == END_OF_CENTRAL_DIRECTORY_SIGNATURE
+          && offset + END_OF_CENTRAL_DIRECTORY_SIZE + unsignedShort(buffer, offset + 20)
+              == buffer.limit()) {
+        return offset;
+      }
+    }
+    throw new IOException("End of central directory record not found: " + jar);
+  }
+
+  /** Returns the offset of the data of the ZIP64 extra field. -1 if absent. */
+  private static int findZip64ExtraField(ByteBuffer buffer, int offset, int length) {
+    int end = offset + length;
+    while (offset + 4 <= end) {
+      int id = unsignedShort(buffer, offset);
+      int size = unsignedShort(buffer, offset + 2);
+      if (id == ZIP64_EXTRA_FIELD_ID) {
+        return offset + 4;
+      }
+      offset += 4 + size;
+    }
+    return -1;
+  }
+
+  /** Returns the names of the entries in the order of the central directory. */
+  ImmutableList<String> getEntryNames() {
+    return entryIndices.keySet().asList();
+  }
+
+  /** Returns true if the JAR file has the entry {@code entryName}. */
+  boolean contains(String entryName) {
+    return entryIndices.containsKey(entryName);
+  }
+
+  /**
+   * Returns the .class file entry name for the file name {@code fileName} in {@link
+   * ClassPathEntry#getFileNames()}. Example: {@code com/google/Foo.class} for {@code
+   * com.google.Foo}. The entry name is not always {@link #standardEntryName(String)} of the file
+   * name, because a directory name in a JAR file may have periods.
+   */
+  synchronized String getClassEntryName(String fileName) {
+    if (nonStandardEntryNames == null) {
+      Map<String, String> entryNames = new HashMap<>();
+      for (String name : entryIndices.keySet()) {
+        if (name.endsWith(".class")) {
+          String classFileName = ClassPathEntry.classFileName(name);
+          String standardEntryName = standardEntryName(classFileName);
+          if (!name.equals(standardEntryName) && !contains(standardEntryName)) {
+            entryNames.putIfAbsent(classFileName, name);
+          }
+        }
+      }
+      nonStandardEntryNames = ImmutableMap.copyOf(entryNames);
+    }
+    return nonStandardEntryNames.getOrDefault(fileName, standardEntryName(fileName));
+  }
+
+  /** Returns {@code com/google/Foo.class} for the file name {@code com.google.Foo}. */
+  private static String standardEntryName(String fileName) {
+    return fileName.replace('.', '/') + ".class";
+  }
+
+  /**
+   * Returns the uncompressed size of the entry {@code entryName}, as recorded in the central
+   * directory. {@link #read(String, byte[])} fails if the content does not have this size.
+   *
+   * @throws IllegalArgumentException if the JAR file does not have the entry
+   */
+  int getSize(String entryName) {
+    return uncompressedSizes[entryIndex(entryName)];
+  }
+
+  /**
+   * Returns the content of the entry {@code entryName}. Null if the JAR file does not have the
+   * entry.
+   *
+   * @throws IOException if the entry cannot be read
+   */
+  @Nullable
+  byte[] read(String entryName) throws IOException {
+    Integer index = entryIndices.get(entryName);
+    if (index == null) {
+      return null;
+    }
+    return read(index, EMPTY);
+  }
+
+  /**
+   * Reads the content of the entry {@code entryName}, which has {@link #getSize(String)} bytes.
+   * Returns {@code buffer} with the content at its start if it is large enough; otherwise a new
+   * array of the exact size.
+   *
+   * @throws IllegalArgumentException if the JAR file does not have the entry
+   * @throws IOException if the entry cannot be read
+   */
+  byte[] read(String entryName, byte[] buffer) throws IOException {
+    return read(entryIndex(entryName), buffer);
+  }
+
+  private int entryIndex(String entryName) {
+    Integer index = entryIndices.get(entryName);
+    if (index == null) {
+      throw new IllegalArgumentException(entryName + " is not in " + jar);
+    }
+    return index;
+  }
+
+  private byte[] read(int index, byte[] destination) throws IOException {
+    lock.readLock().lock();
+    try {
+      if (closed) {
+        throw new IOException("Closed JAR file index: " + jar);
+      }
+      return readMapped(index, destination);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private byte[] readMapped(int index, byte[] destination) throws IOException {
+    int size = uncompressedSizes[index];
+    int compressedSize = compressedSizes[index];
+    int localHeaderOffset = localHeaderOffsets[index];
+    try {
+      if (buffer.getInt(localHeaderOffset) != LOCAL_FILE_HEADER_SIGNATURE) {
+        throw new IOException("Invalid local file header at " + localHeaderOffset + " in " + jar);
+      }
+      // The local file header may have an extra field different from the central directory
+      int dataOffset =
+          localHeaderOffset
+              + 30
+              + unsignedShort(buffer, localHeaderOffset + 26)
+              + unsignedShort(buffer, localHeaderOffset + 28);
+      ByteBuffer data = duplicateAt(buffer, dataOffset);
+
+      switch (methods[index]) {
+        case STORED:
+          if (size != compressedSize) {
+            throw new IOException(
+                "Inconsistent sizes of a stored entry at " + localHeaderOffset + " in " + jar);
+          }
+          if (destination.length < size) {
+            destination = new byte[size];
+          }
+          data.get(destination, 0, size);
+          return destination;
+        case DEFLATED:
+          return inflate(data, compressedSize, destination, size);
+        case ENCRYPTED:
+          throw new IOException(
+              "Encrypted entry at " + localHeaderOffset + " in " + jar + " is not supported");
+        default:
+          throw new IOException(
+              "Unsupported compression method " + methods[index] + " at " + localHeaderOffset
+                  + " in " + jar);
+      }
+    } catch (IndexOutOfBoundsException | IllegalArgumentException | BufferUnderflowException ex) {
+      throw new IOException("Truncated entry at " + localHeaderOffset + " in " + jar, ex);
+    }
+  }
+
+  /**
+   * Inflates the {@code compressedSize} bytes at the position of {@code data}, which must inflate
+   * to {@code size} bytes, into {@code destination} or a new array of the exact size. A new array
+   * starts small and grows with the inflated data, so that a corrupt {@code size} does not allocate
+   * more than twice the actual content.
+   */
+  private byte[] inflate(ByteBuffer data, int compressedSize, byte[] destination, int size)
+      throws IOException {
+    byte[] input = inputBuffers.get();
+    if (input.length < compressedSize + 1) {
+      input = new byte[compressedSize + 1];
+      inputBuffers.set(input);
+    }
+    data.get(input, 0, compressedSize);
+    // An Inflater without the ZLIB header needs an extra dummy byte at the end of the input
+    input[compressedSize] = 0;
+
+    Inflater inflater = inflaters.get();
+    inflater.reset();
+    inflater.setInput(input, 0, compressedSize + 1);
+    if (destination.length < size) {
+      destination = new byte[Math.min(size, Math.max(INITIAL_INFLATE_SIZE, compressedSize * 4))];
+    }
+    try {
+      int length = 0;
+      while (length < size && !inflater.finished()) {
+        if (length == destination.length) {
+          destination = Arrays.copyOf(destination, (int) Math.min(size, 2L * length));
+        }
+        int inflated =
+            inflater.inflate(destination, length, Math.min(destination.length, size) - length);
+        if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        length += inflated;
+      }
+      if (length != size) {
+        throw new IOException("Unexpected size of an inflated entry in " + jar);
+      }
+      return destination;
+    } catch (DataFormatException ex) {
+      throw new IOException("Invalid compressed data in " + jar, ex);
+    }
+  }
+
+  /**
+   * Unmaps the JAR file. Reading the index afterwards throws {@link IOException}. This waits for
+   * the ongoing reads to finish.
+   */
+  @Override
+  public void close() {
+    lock.writeLock().lock();
+    try {
+      if (!closed) {
+        closed = true;
+        unmap(buffer);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Releases the mapping of {@code buffer} now, instead of when the buffer is garbage-collected.
+   * The buffer must not be accessed afterwards. Java 8 and Java 9+ have different internal APIs for
+   * this; if neither is available, the mapping stays until garbage collection.
+   */
+  private static void unmap(MappedByteBuffer buffer) {
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      invokeCleaner.invoke(theUnsafe.get(null), buffer);
+      return;
+    } catch (ReflectiveOperationException | RuntimeException ex) {
+      // Not Java 9+
+    }
+    try {
+      Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+      cleanerMethod.setAccessible(true);
+      Object cleaner = cleanerMethod.invoke(buffer);
+      if (cleaner != null) {
+        cleaner.getClass().getMethod("clean").invoke(cleaner);
+      }
+    } catch (ReflectiveOperationException | RuntimeException ex) {
+      logger.log(Level.FINE, "Could not unmap a JAR file; it stays mapped until GC", ex);
+    }
+  }
+
+  private static int unsignedShort(ByteBuffer buffer, int offset) {
+    return buffer.getShort(offset) & 0xFFFF;
+  }
+
+  private static long unsignedInt(ByteBuffer buffer, int offset) {
+    return buffer.getInt(offset) & 0xFFFFFFFFL;
+  }
+
+  private static int toOffset(long value, ByteBuffer buffer) {
+    if (value < 0 || value > buffer.limit()) {
+      throw new IndexOutOfBoundsException("Invalid offset " + value);
+    }
+    return (int) value;
+  }
+
+  /**
+   * Returns a buffer sharing the content of {@code buffer} positioned at {@code offset}. The calls
+   * go through {@link ByteBuffer} and {@link Buffer}, because the covariant overrides of Java 9 and
+   * later do not exist in the Java 8 runtime.
+   */
+  private static ByteBuffer duplicateAt(ByteBuffer buffer, int offset) {
+    ByteBuffer duplicate = buffer.duplicate();
+    ((Buffer) duplicate).position(offset);
+    return duplicate;
+  }
+
+  private static String readString(ByteBuffer buffer, int offset, int length) {
+    byte[] bytes = new byte[length];
+    duplicateAt(buffer, offset).get(bytes);
+    // JarFile reads entry names in UTF-8
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public String toString() {
+    return jar.toString();
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.bcel.classfile.ClassFormatException;
+
+/**
+ * The symbol references in the classes of one JAR file, read without the context of a class path.
+ * Unlike the {@link SymbolReferences} of {@link ClassDumper#findSymbolReferences()}, this
+ * includes the classes that other JAR files in a class path may supersede.
+ */
+final class JarSymbolReferences {
+
+  private final ImmutableSet<String> fileNames;
+  private final ImmutableMap<String, String> classFileNames;
+  private final SymbolReferences symbolReferences;
+  private final ImmutableList<String> corruptedFileNames;
+
+  JarSymbolReferences(
+      ImmutableSet<String> fileNames,
+      ImmutableMap<String, String> classFileNames,
+      SymbolReferences symbolReferences,
+      ImmutableList<String> corruptedFileNames) {
+    this.fileNames = checkNotNull(fileNames);
+    this.classFileNames = checkNotNull(classFileNames);
+    this.symbolReferences = checkNotNull(symbolReferences);
+    this.corruptedFileNames = checkNotNull(corruptedFileNames);
+  }
+
+  /** Returns the names of the .class files in the JAR file. See {@link ClassPathEntry}. */
+  ImmutableSet<String> getFileNames() {
+    return fileNames;
+  }
+
+  /**
+   * Returns the mapping from class names to file names for the classes whose file names do not
+   * match their class names. Example: {@code com.google.Foo} to {@code
+   * BOOT-INF.classes.com.google.Foo}.
+   */
+  ImmutableMap<String, String> getClassFileNames() {
+    return classFileNames;
+  }
+
+  /** Returns the file name of {@code className} in the JAR file. */
+  String getClassFileName(String className) {
+    return classFileNames.getOrDefault(className, className);
+  }
+
+  /** Returns the symbol references of the classes in the JAR file. */
+  SymbolReferences getSymbolReferences() {
+    return symbolReferences;
+  }
+
+  /** Returns the file names of the class files that could not be read. */
+  ImmutableList<String> getCorruptedFileNames() {
+    return corruptedFileNames;
+  }
+
+  /**
+   * Reads the class files in {@code jar} through {@link ClassFileScanner}. This reads only the
+   * constant pool and the class hierarchy of the class files, instead of building BCEL's {@link
+   * org.apache.bcel.classfile.JavaClass} instances.
+   */
+  static JarSymbolReferences scan(ClassPathEntry jar) throws IOException {
+    try (JarIndex jarIndex = JarIndex.open(jar.getJar())) {
+      return scan(jar, jarIndex);
+    }
+  }
+
+  /** Reads the class files in {@code jar} through its index {@code jarIndex}, as above. */
+  static JarSymbolReferences scan(ClassPathEntry jar, JarIndex jarIndex) throws IOException {
+    SymbolReferences.Builder builder = new SymbolReferences.Builder();
+    Map<String, String> classFileNames = new HashMap<>();
+    ImmutableList.Builder<String> corruptedFileNames = ImmutableList.builder();
+
+    // Reused across the class files in the JAR file
+    byte[] buffer = new byte[8192];
+    for (String entryName : jarIndex.getEntryNames()) {
+      if (!entryName.endsWith(".class")) {
+        continue;
+      }
+      String classFileName = ClassPathEntry.classFileName(entryName);
+      if (classFileName.startsWith("META-INF.versions.")) {
+        // Linkage Checker does not support multi-release JAR (for Java 9+) yet
+        // https://github.com/GoogleCloudPlatform/cloud-opensource-java/issues/897
+        continue;
+      }
+
+      try {
+        buffer = jarIndex.read(entryName, buffer);
+        int length = jarIndex.getSize(entryName);
+
+        ClassFileScanner scanner = ClassFileScanner.scan(buffer, length);
+        if (!isCompatibleClassFileVersion(scanner.getMajorVersion())) {
+          continue;
+        }
+        String className = scanner.getClassName();
+        if (!className.equals(classFileName)) {
+          // The class file has special location not matching class name
+          classFileNames.putIfAbsent(className, classFileName);
+        }
+        scanner.addSymbolReferences(new ClassFile(jar, className), builder);
+      } catch (IOException | ClassFormatException ex) {
+        // We couldn't read the class in the JAR file where we found it.
+        corruptedFileNames.add(classFileName);
+      }
+    }
+
+    return new JarSymbolReferences(
+        jar.getFileNames(),
+        ImmutableMap.copyOf(classFileNames),
+        builder.build(),
+        corruptedFileNames.build());
+  }
+
+  /**
+   * Returns true if the class file format is compatible with this tool. Currently
+   * Java 8 and earlier are supported.
+   *
+   * @see <a href="https://docs.oracle.com/javase/specs/jvms/se11/html/jvms-4.html#jvms-4.1">Java
+   *     Virtual Machine Specification: The ClassFile Structure: minor_version, major_version</a>
+   */
+  static boolean isCompatibleClassFileVersion(int classFileMajorVersion) {
+    return 45 <= classFileMajorVersion && classFileMajorVersion <= 52;
+  }
+}
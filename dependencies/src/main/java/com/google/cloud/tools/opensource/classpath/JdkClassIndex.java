@@ -0,0 +1,519 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Splitter;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.io.Resources;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.ProviderNotFoundException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import javax.annotation.Nullable;
+import org.apache.bcel.Const;
+import org.apache.bcel.classfile.Attribute;
+import org.apache.bcel.classfile.ClassParser;
+import org.apache.bcel.classfile.ConstantPool;
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.classfile.Module;
+
+/**
+ * Index of the names of the Java runtime classes that the extension class loader (the platform
+ * class loader in Java 9 and later) can load. {@link ClassDumper} looks up this index to tell
+ * whether a reference points to a Java runtime class, instead of loading the class into the
+ * running JVM. The members of the runtime classes are available through {@link
+ * ClassSummaryRepository}, because {@link LinkageCheckClassPath} reads their class files through
+ * {@link #getResourceAsStream(String)}.
+ *
+ * <p>In Java 9 and later, the index is built from the {@code jrt:/} file system. In Java 8, it is
+ * built from the JAR files in the boot class path and the extension directories. When neither is
+ * available, {@link #contains(String)} looks up the class file through the class loader.
+ *
+ * <p>The index of the running JVM depends on the Java runtime that runs this tool. {@link
+ * #forRelease(int)} returns the index of the public API of a Java release instead, as {@code javac
+ * --release} compiles against, so that linkage check finds the same errors in any Java runtime
+ * having the release.
+ *
+ * <p>This class is safe for use by multiple threads.
+ */
+final class JdkClassIndex {
+
+  private static final Logger logger = Logger.getLogger(JdkClassIndex.class.getName());
+
+  /** The index of the running JVM. The Java runtime does not change while the JVM runs. */
+  private static final Supplier<JdkClassIndex> runtimeIndex =
+      Suppliers.memoize(JdkClassIndex::create);
+
+  /** The indices of the Java releases keyed by the release numbers. */
+  private static final Map<Integer, JdkClassIndex> releaseIndices = new HashMap<>();
+
+  /** The class loader of the runtime classes. Null for the index of a Java release. */
+  @Nullable private final ClassLoader extensionClassLoader;
+
+  @Nullable private final ImmutableSet<String> classNames;
+
+  /**
+   * The paths of the class files in {@link #classFileSource} keyed by the class names. Null unless
+   * this is the index of a Java release.
+   */
+  @Nullable private final ImmutableMap<String, String> classFiles;
+
+  @Nullable private final ClassFileSource classFileSource;
+
+  private JdkClassIndex(
+      ClassLoader extensionClassLoader, @Nullable ImmutableSet<String> classNames) {
+    this.extensionClassLoader = extensionClassLoader;
+    this.classNames = classNames;
+    this.classFiles = null;
+    this.classFileSource = null;
+  }
+
+  private JdkClassIndex(Map<String, String> classFiles, ClassFileSource classFileSource) {
+    this.extensionClassLoader = null;
+    this.classFiles = ImmutableMap.copyOf(classFiles);
+    this.classNames = this.classFiles.keySet();
+    this.classFileSource = classFileSource;
+  }
+
+  /** Returns the index of the Java runtime running this tool. */
+  static JdkClassIndex runtime() {
+    return runtimeIndex.get();
+  }
+
+  /**
+   * Returns the index of the public API of Java {@code release}, such as 8 for Java 8. The index
+   * does not have the classes outside the exported packages, such as {@code sun.misc.Unsafe}.
+   *
+   * <p>The classes of the releases older than the running JVM come from the {@code lib/ct.sym}
+   * file of the Java runtime, which {@code javac --release} reads. The running JVM does not have
+   * its own release in the file. Its index has the public classes in the exported packages of the
+   * {@code jrt:/} file system, or in the packages of {@code java8-packages.txt} for Java 8.
+   *
+   * @throws IOException if the Java runtime does not have the classes of {@code release}
+   */
+  static synchronized JdkClassIndex forRelease(int release) throws IOException {
+    JdkClassIndex index = releaseIndices.get(release);
+    if (index == null) {
+      index = readRelease(release);
+      releaseIndices.put(release, index);
+    }
+    return index;
+  }
+
+  /** Returns the release of the running JVM, such as 8 for Java 8. */
+  static int runtimeRelease() {
+    String version = System.getProperty("java.specification.version");
+    // Java 8 and older have versions such as "1.8"
+    return Integer.parseInt(version.startsWith("1.") ? version.substring(2) : version);
+  }
+
+  @VisibleForTesting
+  static JdkClassIndex create() {
+    ClassLoader extensionClassLoader = ClassLoader.getSystemClassLoader().getParent();
+    ImmutableSet<String> classNames = null;
+    try {
+      classNames = readJrtFileSystem(extensionClassLoader);
+      if (classNames == null) {
+        classNames = readBootClassPath();
+      }
+    } catch (IOException ex) {
+      logger.log(Level.WARNING, "Could not index the classes of the Java runtime", ex);
+    }
+    return new JdkClassIndex(extensionClassLoader, classNames);
+  }
+
+  /**
+   * Returns the class names in the modules of the {@code jrt:/} file system that {@code
+   * extensionClassLoader} can load. Null if the file system is not available.
+   */
+  @Nullable
+  private static ImmutableSet<String> readJrtFileSystem(ClassLoader extensionClassLoader)
+      throws IOException {
+    FileSystem fileSystem = jrtFileSystem();
+    if (fileSystem == null) {
+      return null;
+    }
+
+    ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+    try (DirectoryStream<Path> modules =
+        Files.newDirectoryStream(fileSystem.getPath("/modules"))) {
+      for (Path module : modules) {
+        ImmutableList<String> classNamesInModule = readModule(module);
+        // The modules defined to the application class loader, such as jdk.compiler, are not
+        // visible to the extension class loader. Class files are not encapsulated by modules.
+        if (!classNamesInModule.isEmpty()
+            && findClassFile(extensionClassLoader, classNamesInModule.get(0))) {
+          builder.addAll(classNamesInModule);
+        }
+      }
+    }
+    return builder.build();
+  }
+
+  /** Returns the {@code jrt:/} file system, or null if it is not available. */
+  @Nullable
+  private static FileSystem jrtFileSystem() {
+    try {
+      return FileSystems.getFileSystem(URI.create("jrt:/"));
+    } catch (ProviderNotFoundException | FileSystemNotFoundException ex) {
+      // Java 8 does not have the jrt file system
+      return null;
+    }
+  }
+
+  private static ImmutableList<String> readModule(Path module) throws IOException {
+    try (Stream<Path> files = Files.walk(module)) {
+      return files
+          .map(file -> module.relativize(file).toString())
+          .filter(name -> name.endsWith(".class") && !name.equals("module-info.class"))
+          .map(ClassPathEntry::classFileName)
+          .collect(toImmutableList());
+    }
+  }
+
+  /** Returns the class names in the boot class path and the extension directories of Java 8. */
+  @Nullable
+  private static ImmutableSet<String> readBootClassPath() throws IOException {
+    String bootClassPath = System.getProperty("sun.boot.class.path");
+    if (bootClassPath == null) {
+      return null;
+    }
+    List<Path> jars = new ArrayList<>();
+    for (String path : Splitter.on(File.pathSeparator).omitEmptyStrings().split(bootClassPath)) {
+      jars.add(Paths.get(path));
+    }
+    String extensionDirectories = System.getProperty("java.ext.dirs", "");
+    for (String directory :
+        Splitter.on(File.pathSeparator).omitEmptyStrings().split(extensionDirectories)) {
+      Path directoryPath = Paths.get(directory);
+      if (Files.isDirectory(directoryPath)) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directoryPath, "*.jar")) {
+          files.forEach(jars::add);
+        }
+      }
+    }
+
+    ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+    for (Path jar : jars) {
+      if (!Files.isRegularFile(jar)) {
+        // The boot class path may have directories and files that do not exist
+        continue;
+      }
+      try (JarFile jarFile = new JarFile(jar.toFile())) {
+        Enumeration<JarEntry> entries = jarFile.entries();
+        while (entries.hasMoreElements()) {
+          String name = entries.nextElement().getName();
+          if (name.endsWith(".class")) {
+            builder.add(ClassPathEntry.classFileName(name));
+          }
+        }
+      }
+    }
+    return builder.build();
+  }
+
+  private static boolean findClassFile(ClassLoader classLoader, String className) {
+    return classLoader.getResource(className.replace('.', '/') + ".class") != null;
+  }
+
+  private static JdkClassIndex readRelease(int release) throws IOException {
+    int runtimeRelease = runtimeRelease();
+    if (release > runtimeRelease) {
+      throw new IOException(
+          "The Java runtime of Java " + runtimeRelease + " does not have Java " + release);
+    }
+    FileSystem fileSystem = jrtFileSystem();
+    if (fileSystem == null) {
+      if (release < runtimeRelease) {
+        throw new IOException(
+            "The Java runtime of Java " + runtimeRelease + " does not have Java " + release);
+      }
+      return readJava8Packages();
+    }
+    if (release < runtimeRelease) {
+      return readCtSym(Paths.get(System.getProperty("java.home"), "lib", "ct.sym"), release);
+    }
+    return readExportedPackages(fileSystem);
+  }
+
+  /**
+   * Returns the index of the classes of {@code release} in {@code ctSym} of Java 9 and later. The
+   * entries have names such as {@code "789A/java.base/java/lang/Object.sig"}, where the first
+   * directory lists the releases having the class file, one character each. The module directory
+   * is absent in some Java runtimes.
+   *
+   * @throws IOException if the file does not exist, for example in a Java runtime without the
+   *     compiler, or if it does not have {@code release}
+   */
+  private static JdkClassIndex readCtSym(Path ctSym, int release) throws IOException {
+    if (!Files.isRegularFile(ctSym)) {
+      throw new IOException("The Java runtime does not have " + ctSym);
+    }
+    // The file stays open for the index, which reads the class files from it
+    ZipFile zipFile = new ZipFile(ctSym.toFile());
+    char releaseCharacter = Character.toUpperCase(Character.forDigit(release, 36));
+    Map<String, String> classFiles = new HashMap<>();
+    Enumeration<? extends ZipEntry> entries = zipFile.entries();
+    while (entries.hasMoreElements()) {
+      String name = entries.nextElement().getName();
+      int releasesEnd = name.indexOf('/');
+      if (!name.endsWith(".sig")
+          || releasesEnd < 0
+          || name.substring(0, releasesEnd).indexOf(releaseCharacter) < 0
+          || name.substring(0, releasesEnd).endsWith("-modules")) {
+        continue;
+      }
+      String path = name.substring(releasesEnd + 1);
+      int moduleEnd = path.indexOf('/');
+      // Module names have dots, while package names in the paths do not
+      if (moduleEnd > 0 && path.substring(0, moduleEnd).contains(".")) {
+        path = path.substring(moduleEnd + 1);
+      }
+      if (path.equals("module-info.sig")) {
+        continue;
+      }
+      String className = path.substring(0, path.length() - 4).replace('/', '.');
+      classFiles.putIfAbsent(className, name);
+    }
+    if (classFiles.isEmpty()) {
+      zipFile.close();
+      throw new IOException(ctSym + " does not have the classes of Java " + release);
+    }
+    return new JdkClassIndex(classFiles, path -> zipFile.getInputStream(zipFile.getEntry(path)));
+  }
+
+  /**
+   * Returns the index of the public API in the packages that the modules of {@code fileSystem},
+   * the {@code jrt:/} file system, export to all modules.
+   */
+  private static JdkClassIndex readExportedPackages(FileSystem fileSystem) throws IOException {
+    Map<String, String> classFiles = new HashMap<>();
+    Set<String> exportedPackages = new HashSet<>();
+    try (DirectoryStream<Path> modules =
+        Files.newDirectoryStream(fileSystem.getPath("/modules"))) {
+      for (Path module : modules) {
+        Path moduleInfo = module.resolve("module-info.class");
+        if (Files.isRegularFile(moduleInfo)) {
+          exportedPackages.addAll(readExportedPackages(moduleInfo));
+        }
+        try (Stream<Path> files = Files.walk(module)) {
+          files.forEach(
+              file -> {
+                String name = module.relativize(file).toString();
+                if (name.endsWith(".class") && !name.equals("module-info.class")) {
+                  classFiles.putIfAbsent(ClassPathEntry.classFileName(name), file.toString());
+                }
+              });
+        }
+      }
+    }
+    return readPublicApi(
+        classFiles, exportedPackages, path -> Files.newInputStream(fileSystem.getPath(path)));
+  }
+
+  /**
+   * Returns the index of the public API in the packages of Java 8 listed in {@code
+   * java8-packages.txt}, reading the class files of the Java 8 runtime. The {@code ct.sym} file of
+   * a Java 8 JDK has the internal classes too.
+   */
+  private static JdkClassIndex readJava8Packages() throws IOException {
+    ImmutableSet<String> classNames = readBootClassPath();
+    if (classNames == null) {
+      throw new IOException("Could not find the boot class path of the Java 8 runtime");
+    }
+    ImmutableSet<String> packages =
+        Resources.readLines(
+                JdkClassIndex.class.getClassLoader().getResource("java8-packages.txt"),
+                StandardCharsets.UTF_8)
+            .stream()
+            .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+            .collect(toImmutableSet());
+
+    Map<String, String> classFiles = new HashMap<>();
+    for (String className : classNames) {
+      classFiles.put(className, className.replace('.', '/') + ".class");
+    }
+    ClassLoader extensionClassLoader = ClassLoader.getSystemClassLoader().getParent();
+    return readPublicApi(
+        classFiles,
+        packages,
+        path -> {
+          InputStream input = extensionClassLoader.getResourceAsStream(path);
+          if (input == null) {
+            throw new IOException("Could not find " + path);
+          }
+          return input;
+        });
+  }
+
+  /**
+   * Returns the index of the public API in {@code classFiles}, the paths of the class files in
+   * {@code classFileSource} keyed by the class names. As in the {@code ct.sym} file, the API has
+   * the public classes in {@code packages} except the ones nested in non-public classes, and the
+   * superclasses and the interfaces of those classes, which they inherit members from.
+   */
+  private static JdkClassIndex readPublicApi(
+      Map<String, String> classFiles, Set<String> packages, ClassFileSource classFileSource)
+      throws IOException {
+    Map<String, JavaClass> publicClasses = new HashMap<>();
+    for (Map.Entry<String, String> classFile : classFiles.entrySet()) {
+      if (packages.contains(ClassDumper.packageName(classFile.getKey()))) {
+        JavaClass javaClass = parse(classFileSource, classFile.getValue());
+        if (javaClass.isPublic()) {
+          publicClasses.put(classFile.getKey(), javaClass);
+        }
+      }
+    }
+
+    Map<String, String> apiClassFiles = new HashMap<>();
+    Deque<JavaClass> queue = new ArrayDeque<>();
+    for (Map.Entry<String, JavaClass> publicClass : publicClasses.entrySet()) {
+      String className = publicClass.getKey();
+      String enclosingClassName = ClassDumper.enclosingClassName(className);
+      while (enclosingClassName != null && publicClasses.containsKey(enclosingClassName)) {
+        enclosingClassName = ClassDumper.enclosingClassName(enclosingClassName);
+      }
+      if (enclosingClassName == null) {
+        apiClassFiles.put(className, classFiles.get(className));
+        queue.add(publicClass.getValue());
+      }
+    }
+    while (!queue.isEmpty()) {
+      JavaClass javaClass = queue.remove();
+      for (String supertype :
+          Lists.asList(javaClass.getSuperclassName(), javaClass.getInterfaceNames())) {
+        String path = classFiles.get(supertype);
+        if (path != null && apiClassFiles.putIfAbsent(supertype, path) == null) {
+          JavaClass supertypeClass = publicClasses.get(supertype);
+          queue.add(supertypeClass != null ? supertypeClass : parse(classFileSource, path));
+        }
+      }
+    }
+    return new JdkClassIndex(apiClassFiles, classFileSource);
+  }
+
+  private static JavaClass parse(ClassFileSource classFileSource, String path) throws IOException {
+    try (InputStream input = classFileSource.open(path)) {
+      return new ClassParser(input, path).parse();
+    }
+  }
+
+  /** Returns the packages that the module of {@code moduleInfo} exports to all modules. */
+  private static ImmutableSet<String> readExportedPackages(Path moduleInfo) throws IOException {
+    JavaClass moduleInfoClass;
+    try (InputStream input = Files.newInputStream(moduleInfo)) {
+      moduleInfoClass = new ClassParser(input, moduleInfo.toString()).parse();
+    }
+    ConstantPool constantPool = moduleInfoClass.getConstantPool();
+    ImmutableSet.Builder<String> packages = ImmutableSet.builder();
+    for (Attribute attribute : moduleInfoClass.getAttributes()) {
+      if (!(attribute instanceof Module)) {
+        continue;
+      }
+      // BCEL's ModuleExports does not tell the package. This reads the Module attribute as in
+      // the Java Virtual Machine Specification 4.7.25.
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      attribute.dump(new DataOutputStream(bytes));
+      DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+      // attribute_name_index, attribute_length, module_name_index, module_flags and
+      // module_version_index
+      input.skipBytes(12);
+      int requiresCount = input.readUnsignedShort();
+      input.skipBytes(requiresCount * 6);
+      int exportsCount = input.readUnsignedShort();
+      for (int i = 0; i < exportsCount; i++) {
+        int packageIndex = input.readUnsignedShort();
+        input.readUnsignedShort(); // exports_flags
+        int exportsToCount = input.readUnsignedShort();
+        input.skipBytes(exportsToCount * 2);
+        // Qualified exports are only for the modules of the Java runtime
+        if (exportsToCount == 0) {
+          packages.add(constantPool.constantToString(packageIndex, Const.CONSTANT_Package));
+        }
+      }
+    }
+    return packages.build();
+  }
+
+  /** Returns true if {@code className} is a class in the Java runtime. */
+  boolean contains(String className) {
+    if (classNames != null) {
+      return classNames.contains(className);
+    }
+    return findClassFile(extensionClassLoader, className);
+  }
+
+  /**
+   * Returns an input stream of the resource {@code resourceName}, such as {@code
+   * "java/lang/Object.class"}, in the Java runtime, or null if it is not found. The index of a Java
+   * release has only the class files of its classes.
+   */
+  @Nullable
+  InputStream getResourceAsStream(String resourceName) throws IOException {
+    if (classFiles == null) {
+      return extensionClassLoader.getResourceAsStream(resourceName);
+    }
+    if (!resourceName.endsWith(".class")) {
+      return null;
+    }
+    String path = classFiles.get(ClassPathEntry.classFileName(resourceName));
+    return path == null ? null : classFileSource.open(path);
+  }
+
+  /** Source of the class files of the index of a Java release. */
+  private interface ClassFileSource {
+    InputStream open(String path) throws IOException;
+  }
+}
@@ -16,12 +16,16 @@
 
 package com.google.cloud.tools.opensource.classpath;
 
-import java.io.File;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.bcel.util.ClassPath;
 
 /**
@@ -39,32 +43,82 @@ import org.apache.bcel.util.ClassPath;
  *
  * <p>This class is introduced to avoid the mix-up of the class paths. It loads resources only from
  * the extension class loader, which does not include the class path of this project, or the class
- * path specified at the constructor argument.
+ * path specified at the constructor argument. With the {@link JdkClassIndex} of a Java release, it
+ * reads the Java runtime classes from the index instead of the extension class loader.
+ *
+ * <p>This class reads the class files of the class path through a {@link JarIndex} of each JAR
+ * file, rather than searching the JAR files through BCEL's {@link ClassPath}. The indices belong to
+ * this class path, not to the {@link ClassPathEntry} instances that other class paths may share,
+ * so that {@link #close()} does not affect the readers of other class paths.
  *
  * @see <a
  *     href="https://commons.apache.org/proper/commons-bcel/apidocs/org/apache/bcel/util/ClassPath.html">BCEL's
  *     ClassPath</a>
  */
 public class LinkageCheckClassPath extends ClassPath {
-  private final ClassLoader extensionClassLoader;
+  private final JdkClassIndex jdkClassIndex;
+  private final ImmutableList<ClassPathEntry> entries;
+  private final ImmutableMap<String, ClassPathEntry> fileNameToClassPathEntry;
+
+  /** The indices of the JAR files this class path opened. {@link #close()} closes them. */
+  private final Map<ClassPathEntry, JarIndex> jarIndices = new ConcurrentHashMap<>();
 
   /**
    * Constructs a classpath for check.
    *
    * @param entries the elements in the class path
    */
-  LinkageCheckClassPath(List<ClassPathEntry> entries) {
-    super(
-        entries.stream()
-            .map(ClassPathEntry::getJar)
-            .map(Path::toString)
-            .collect(Collectors.joining(File.pathSeparator)));
-    extensionClassLoader = ClassLoader.getSystemClassLoader().getParent();
+  LinkageCheckClassPath(List<ClassPathEntry> entries) throws IOException {
+    this(entries, fileNameToClassPathEntry(entries));
   }
 
   /**
-   * Returns an input stream for a resource in the class path. This uses either the
-   * extension class loader or the class path specified at the constructor argument, ensuring that
+   * Constructs a classpath for check with the first class path entry containing each class file
+   * name, as in {@link ClassDumper#findClassLocation(String)}.
+   *
+   * @param entries the elements in the class path
+   * @param fileNameToClassPathEntry the first entry in {@code entries} having each class file name
+   */
+  LinkageCheckClassPath(
+      List<ClassPathEntry> entries, Map<String, ClassPathEntry> fileNameToClassPathEntry) {
+    this(entries, fileNameToClassPathEntry, JdkClassIndex.runtime());
+  }
+
+  /**
+   * Constructs a classpath for check, reading the Java runtime classes through {@code
+   * jdkClassIndex}.
+   *
+   * @param entries the elements in the class path
+   * @param fileNameToClassPathEntry the first entry in {@code entries} having each class file name
+   * @param jdkClassIndex the index of the Java runtime classes, such as the one of a Java release
+   */
+  LinkageCheckClassPath(
+      List<ClassPathEntry> entries,
+      Map<String, ClassPathEntry> fileNameToClassPathEntry,
+      JdkClassIndex jdkClassIndex) {
+    // BCEL's ClassPath opens a ZipFile for each JAR file in its path. This class reads the JAR
+    // files through JarIndex instead.
+    super("");
+    this.jdkClassIndex = jdkClassIndex;
+    this.entries = ImmutableList.copyOf(entries);
+    this.fileNameToClassPathEntry = ImmutableMap.copyOf(fileNameToClassPathEntry);
+  }
+
+  /** Returns the first entry in {@code entries} having each class file name. */
+  static ImmutableMap<String, ClassPathEntry> fileNameToClassPathEntry(List<ClassPathEntry> entries)
+      throws IOException {
+    Map<String, ClassPathEntry> map = new HashMap<>();
+    for (ClassPathEntry entry : entries) {
+      for (String fileName : entry.getFileNames()) {
+        map.putIfAbsent(fileName, entry);
+      }
+    }
+    return ImmutableMap.copyOf(map);
+  }
+
+  /**
+   * Returns an input stream for a resource in the class path. This uses either the index of the
+   * Java runtime classes or the class path specified at the constructor argument, ensuring that
    * the resource is not loaded from the class path of this tool itself.
    * 
    * @param name a slash separated relative path such as "java/lang/String"
@@ -72,10 +126,106 @@ public class LinkageCheckClassPath extends ClassPath {
    */
   @Override
   public InputStream getInputStream(String name, String suffix) throws IOException {
-    InputStream inputStream = extensionClassLoader.getResourceAsStream(name + suffix);
+    InputStream inputStream = jdkClassIndex.getResourceAsStream(name + suffix);
     if (inputStream != null) {
       return inputStream;
     }
-    return getClassFile(name, suffix).getInputStream();
+
+    String entryName = name + suffix;
+    if (".class".equals(suffix)) {
+      String fileName = name.replace('/', '.');
+      ClassPathEntry entry = fileNameToClassPathEntry.get(fileName);
+      if (entry != null) {
+        JarIndex jarIndex = getJarIndex(entry);
+        byte[] bytes = jarIndex.read(jarIndex.getClassEntryName(fileName));
+        if (bytes != null) {
+          return new ByteArrayInputStream(bytes);
+        }
+      }
+      throw new IOException("Couldn't find: " + entryName);
+    }
+
+    for (ClassPathEntry entry : entries) {
+      byte[] bytes = getJarIndex(entry).read(entryName);
+      if (bytes != null) {
+        return new ByteArrayInputStream(bytes);
+      }
+    }
+    throw new IOException("Couldn't find: " + entryName);
+  }
+
+  /**
+   * Returns the index of the entries in the JAR file of {@code entry}. The JAR file is indexed
+   * once, and the index is shared by the readers of this class path until {@link #close()}.
+   *
+   * @throws IOException if the JAR file can't be read
+   */
+  JarIndex getJarIndex(ClassPathEntry entry) throws IOException {
+    JarIndex jarIndex = jarIndices.get(entry);
+    if (jarIndex != null) {
+      return jarIndex;
+    }
+    // Opening outside a lock lets threads index different JAR files at the same time
+    JarIndex opened = JarIndex.open(entry.getJar());
+    jarIndex = jarIndices.putIfAbsent(entry, opened);
+    if (jarIndex != null) {
+      opened.close();
+      return jarIndex;
+    }
+    return opened;
+  }
+
+  /**
+   * Moves the indices that {@code previous} opened for {@code entries} to this class path, so that
+   * this class path reads those JAR files without mapping them again. Closing {@code previous} no
+   * longer releases them, and {@code previous} maps the JAR files again if it reads them later.
+   */
+  void takeJarIndices(LinkageCheckClassPath previous, Set<ClassPathEntry> entries) {
+    for (ClassPathEntry entry : entries) {
+      JarIndex jarIndex = previous.jarIndices.remove(entry);
+      if (jarIndex == null) {
+        continue;
+      }
+      JarIndex existing = jarIndices.putIfAbsent(entry, jarIndex);
+      if (existing != null) {
+        jarIndex.close();
+      }
+    }
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (other == null || getClass() != other.getClass()) {
+      return false;
+    }
+    return entries.equals(((LinkageCheckClassPath) other).entries);
+  }
+
+  @Override
+  public int hashCode() {
+    return entries.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return entries.toString();
+  }
+
+  /**
+   * Releases the memory mappings of the JAR files that this class path opened. {@link
+   * #getJarIndex(ClassPathEntry)} opens the JAR files again if called afterwards.
+   */
+  @Override
+  public void close() throws IOException {
+    for (ClassPathEntry entry : jarIndices.keySet()) {
+      JarIndex jarIndex = jarIndices.remove(entry);
+      if (jarIndex != null) {
+        jarIndex.close();
+      }
+    }
+    super.close();
   }
 }
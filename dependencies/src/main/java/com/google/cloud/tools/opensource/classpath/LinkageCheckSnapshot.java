@@ -0,0 +1,510 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
+import com.google.common.math.IntMath;
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+
+/**
+ * Result of a linkage check with the state to check a changed class path incrementally. {@link
+ * #update(List)} re-reads only the JAR files that are new or modified, and checks again only the
+ * source classes that are in such JAR files or that reference an affected class. A class is
+ * affected when its class file moved to another JAR file, appeared, disappeared, or changed, or
+ * when one of its superclasses, interfaces, or enclosing classes is affected. The linkage errors
+ * of the other source classes and the symbol resolutions of the unaffected classes are carried
+ * over. The result is the same as {@link LinkageChecker#findLinkageProblems()} for the new class
+ * path.
+ *
+ * <p>A JAR file is modified when its size or last modified time changes. Because a {@link
+ * ClassPathEntry} reads its JAR file only once, use a new {@link ClassPathEntry} for a JAR file
+ * modified in place.
+ *
+ * <p>The new and modified JAR files are read in parallel, through the symbol reference cache if
+ * the snapshot was created with a cache directory. The source classes are checked in parallel.
+ * The class summaries loaded for the unaffected classes are carried over to the {@link
+ * ClassDumper} of the new class path.
+ *
+ * <p>{@link #close()} releases the memory mappings of the JAR files in the class path. An update
+ * takes over the mappings of the unchanged JAR files instead of mapping them again.
+ */
+public final class LinkageCheckSnapshot implements Closeable {
+
+  private static final Logger logger = Logger.getLogger(LinkageCheckSnapshot.class.getName());
+
+  private final ImmutableList<ClassPathEntry> classPath;
+  private final ExcludedErrors excludedErrors;
+
+  /** The dumper of {@link #classPath}, with the classes loaded to check it. */
+  private final ClassDumper classDumper;
+
+  /** The number of threads to read JAR files and to check source classes. */
+  private final int parallelism;
+
+  /** The sizes and the last modified times of the JAR files, to find modified JAR files. */
+  private final ImmutableMap<ClassPathEntry, String> fingerprints;
+
+  private final ImmutableMap<ClassPathEntry, JarSymbolReferences> jarSymbolReferences;
+
+  /** The JAR files of the class files keyed by file name, as in {@link ClassDumper}. */
+  private final ImmutableMap<String, ClassPathEntry> classLocations;
+
+  private final ImmutableMap<Map.Entry<Symbol, String>, SymbolResolution> resolutions;
+
+  /** The source classes of the symbol references in the class path. */
+  private final ImmutableSet<ClassFile> sourceClasses;
+
+  /**
+   * The linkage errors, before exclusion, found in the class, method, and field symbol references
+   * of each source class.
+   */
+  private final ImmutableListMultimap<ClassFile, LinkageProblem> classSymbolProblems;
+
+  private final ImmutableListMultimap<ClassFile, LinkageProblem> methodSymbolProblems;
+  private final ImmutableListMultimap<ClassFile, LinkageProblem> fieldSymbolProblems;
+
+  private final ImmutableSet<LinkageProblem> linkageProblems;
+  private final int checkedClassCount;
+
+  private LinkageCheckSnapshot(
+      ImmutableList<ClassPathEntry> classPath,
+      ExcludedErrors excludedErrors,
+      ClassDumper classDumper,
+      int parallelism,
+      ImmutableMap<ClassPathEntry, String> fingerprints,
+      ImmutableMap<ClassPathEntry, JarSymbolReferences> jarSymbolReferences,
+      ImmutableMap<String, ClassPathEntry> classLocations,
+      ImmutableMap<Map.Entry<Symbol, String>, SymbolResolution> resolutions,
+      ImmutableSet<ClassFile> sourceClasses,
+      ImmutableListMultimap<ClassFile, LinkageProblem> classSymbolProblems,
+      ImmutableListMultimap<ClassFile, LinkageProblem> methodSymbolProblems,
+      ImmutableListMultimap<ClassFile, LinkageProblem> fieldSymbolProblems,
+      int checkedClassCount) {
+    this.classPath = checkNotNull(classPath);
+    this.excludedErrors = checkNotNull(excludedErrors);
+    this.classDumper = checkNotNull(classDumper);
+    this.parallelism = parallelism;
+    this.fingerprints = checkNotNull(fingerprints);
+    this.jarSymbolReferences = checkNotNull(jarSymbolReferences);
+    this.classLocations = checkNotNull(classLocations);
+    this.resolutions = checkNotNull(resolutions);
+    this.sourceClasses = checkNotNull(sourceClasses);
+    this.classSymbolProblems = checkNotNull(classSymbolProblems);
+    this.methodSymbolProblems = checkNotNull(methodSymbolProblems);
+    this.fieldSymbolProblems = checkNotNull(fieldSymbolProblems);
+    this.checkedClassCount = checkedClassCount;
+
+    // The same order as LinkageChecker.findLinkageProblems: class, method, and then field symbols
+    this.linkageProblems =
+        Stream.of(classSymbolProblems, methodSymbolProblems, fieldSymbolProblems)
+            .flatMap(problems -> problems.values().stream())
+            .distinct()
+            .filter(problem -> !excludedErrors.contains(problem))
+            .collect(toImmutableSet());
+  }
+
+  /**
+   * Returns the snapshot of the linkage check on {@code classPath}.
+   *
+   * @param classPath JAR files to find linkage errors in
+   * @param exclusionFile exclusion file to suppress linkage errors
+   * @throws IOException I/O error reading files in the classpath
+   */
+  public static LinkageCheckSnapshot create(
+      List<ClassPathEntry> classPath, @Nullable Path exclusionFile) throws IOException {
+    return create(classPath, exclusionFile, 1, null);
+  }
+
+  /**
+   * Returns the snapshot of the linkage check on {@code classPath}, reading the JAR files and
+   * checking the source classes with up to {@code parallelism} threads, and caching the symbol
+   * references of the JAR files in {@code cacheDirectory}. {@link #update(List)} reads the new and
+   * modified JAR files and checks the affected source classes in the same way.
+   *
+   * @param classPath JAR files to find linkage errors in
+   * @param exclusionFile exclusion file to suppress linkage errors
+   * @param parallelism the number of threads to read the JAR files in {@code classPath} and to
+   *     check the source classes
+   * @param cacheDirectory directory to cache the symbol references of the JAR files across runs.
+   *     Null disables the cache
+   * @throws IOException I/O error reading files in the classpath
+   */
+  public static LinkageCheckSnapshot create(
+      List<ClassPathEntry> classPath,
+      @Nullable Path exclusionFile,
+      int parallelism,
+      @Nullable Path cacheDirectory)
+      throws IOException {
+    checkArgument(parallelism > 0, "Parallelism must be positive: %s", parallelism);
+    ImmutableMap<ClassPathEntry, String> fingerprints = fingerprints(classPath);
+    SymbolReferenceCache symbolReferenceCache =
+        cacheDirectory == null ? null : SymbolReferenceCache.create(cacheDirectory);
+    ClassDumper dumper = ClassDumper.create(classPath, symbolReferenceCache);
+    ImmutableMap<ClassPathEntry, JarSymbolReferences> jarSymbolReferences =
+        dumper.readJarSymbolReferences(parallelism);
+    LinkageChecker linkageChecker =
+        LinkageChecker.create(
+            classPath,
+            dumper,
+            dumper.findSymbolReferences(jarSymbolReferences),
+            ExcludedErrors.create(exclusionFile));
+    return check(
+        linkageChecker, parallelism, fingerprints, jarSymbolReferences, null, classFile -> true);
+  }
+
+  /**
+   * Returns the snapshot of the linkage check on {@code newClassPath}, checking again only the
+   * source classes affected by the difference from the class path of this snapshot. The exclusion
+   * file of this snapshot applies to the new snapshot. If {@code newClassPath} has the same JAR
+   * files as the class path of this snapshot, this returns this snapshot.
+   *
+   * @param newClassPath JAR files to find linkage errors in
+   * @throws IOException I/O error reading files in the classpath
+   */
+  public LinkageCheckSnapshot update(List<ClassPathEntry> newClassPath) throws IOException {
+    ImmutableMap<ClassPathEntry, String> newFingerprints = fingerprints(newClassPath);
+    if (classPath.equals(newClassPath) && fingerprints.equals(newFingerprints)) {
+      return this;
+    }
+
+    Set<ClassPathEntry> changedJars = new HashSet<>();
+    Map<ClassPathEntry, JarSymbolReferences> unchangedJarSymbolReferences = new HashMap<>();
+    for (ClassPathEntry entry : newClassPath) {
+      JarSymbolReferences references = jarSymbolReferences.get(entry);
+      if (references != null && newFingerprints.get(entry).equals(fingerprints.get(entry))) {
+        unchangedJarSymbolReferences.put(entry, references);
+      } else {
+        changedJars.add(entry);
+      }
+    }
+
+    // The dumper reads only the changed JAR files, in parallel or from the cache
+    ClassDumper dumper = classDumper.update(newClassPath, unchangedJarSymbolReferences);
+    ImmutableMap<ClassPathEntry, JarSymbolReferences> newJarSymbolReferences =
+        dumper.readJarSymbolReferences(parallelism);
+    SymbolReferences symbolReferences = dumper.findSymbolReferences(newJarSymbolReferences);
+    LinkageChecker linkageChecker =
+        LinkageChecker.create(newClassPath, dumper, symbolReferences, excludedErrors);
+    Set<String> affectedClasses =
+        findAffectedClasses(
+            symbolReferences,
+            newJarSymbolReferences.values(),
+            classLocations(newClassPath),
+            changedJars);
+
+    // The class files, the resolutions of the symbols, and the class hierarchies of the unaffected
+    // classes do not change
+    dumper.copyClassSummaries(classDumper, className -> !affectedClasses.contains(className));
+    linkageChecker.putResolutions(
+        Maps.filterKeys(
+            resolutions, key -> !affectedClasses.contains(key.getKey().getClassBinaryName())));
+
+    return check(
+        linkageChecker,
+        parallelism,
+        newFingerprints,
+        newJarSymbolReferences,
+        this,
+        classFile ->
+            changedJars.contains(classFile.getClassPathEntry())
+                || !sourceClasses.contains(classFile)
+                || referencesAny(symbolReferences, classFile, affectedClasses));
+  }
+
+  /**
+   * Returns the names of the classes whose class files changed from this snapshot, and the names
+   * of their subclasses, implementations, and nested classes in {@code symbolReferences}.
+   */
+  private Set<String> findAffectedClasses(
+      SymbolReferences symbolReferences,
+      Collection<JarSymbolReferences> newJarSymbolReferences,
+      ImmutableMap<String, ClassPathEntry> newClassLocations,
+      Set<ClassPathEntry> changedJars) {
+    Set<String> affectedClasses = new HashSet<>();
+    for (String fileName : Sets.union(classLocations.keySet(), newClassLocations.keySet())) {
+      ClassPathEntry newLocation = newClassLocations.get(fileName);
+      if (!Objects.equals(classLocations.get(fileName), newLocation)
+          || changedJars.contains(newLocation)) {
+        affectedClasses.add(fileName);
+      }
+    }
+
+    // Class files at special locations, such as BOOT-INF/classes, have file names different from
+    // their class names
+    for (JarSymbolReferences references :
+        Iterables.concat(jarSymbolReferences.values(), newJarSymbolReferences)) {
+      for (Map.Entry<String, String> entry : references.getClassFileNames().entrySet()) {
+        if (affectedClasses.contains(entry.getValue())) {
+          affectedClasses.add(entry.getKey());
+        }
+      }
+    }
+
+    // Resolving a symbol in a class looks up its superclasses and interfaces. Checking the access
+    // to a nested class looks up its enclosing classes.
+    SetMultimap<String, String> dependentClasses = HashMultimap.create();
+    for (ClassFile classFile : symbolReferences.getClassFiles()) {
+      String className = classFile.getBinaryName();
+      for (ClassSymbol classSymbol : symbolReferences.getClassSymbols(classFile)) {
+        if (classSymbol instanceof SuperClassSymbol || classSymbol instanceof InterfaceSymbol) {
+          dependentClasses.put(classSymbol.getClassBinaryName(), className);
+        }
+      }
+      String enclosingClassName = ClassDumper.enclosingClassName(className);
+      if (enclosingClassName != null) {
+        dependentClasses.put(enclosingClassName, className);
+      }
+    }
+    Queue<String> queue = new ArrayDeque<>(affectedClasses);
+    while (!queue.isEmpty()) {
+      for (String dependentClass : dependentClasses.get(queue.remove())) {
+        if (affectedClasses.add(dependentClass)) {
+          queue.add(dependentClass);
+        }
+      }
+    }
+    return affectedClasses;
+  }
+
+  private static boolean referencesAny(
+      SymbolReferences symbolReferences, ClassFile classFile, Set<String> classNames) {
+    return Stream.of(
+            symbolReferences.getClassSymbols(classFile),
+            symbolReferences.getMethodSymbols(classFile),
+            symbolReferences.getFieldSymbols(classFile))
+        .flatMap(Set::stream)
+        .anyMatch(symbol -> classNames.contains(symbol.getClassBinaryName()));
+  }
+
+  /**
+   * Returns the snapshot of the linkage check by {@code linkageChecker}. The source classes that
+   * {@code needsCheck} accepts are checked, and the linkage errors of the others are taken from
+   * {@code previous}. If {@code previous} is null, all source classes are checked.
+   */
+  private static LinkageCheckSnapshot check(
+      LinkageChecker linkageChecker,
+      int parallelism,
+      ImmutableMap<ClassPathEntry, String> fingerprints,
+      Map<ClassPathEntry, JarSymbolReferences> jarSymbolReferences,
+      @Nullable LinkageCheckSnapshot previous,
+      Predicate<ClassFile> needsCheck)
+      throws IOException {
+    SymbolReferences symbolReferences = linkageChecker.getSymbolReferences();
+    ImmutableListMultimap.Builder<ClassFile, LinkageProblem> classSymbolProblems =
+        ImmutableListMultimap.builder();
+    ImmutableListMultimap.Builder<ClassFile, LinkageProblem> methodSymbolProblems =
+        ImmutableListMultimap.builder();
+    ImmutableListMultimap.Builder<ClassFile, LinkageProblem> fieldSymbolProblems =
+        ImmutableListMultimap.builder();
+
+    ImmutableList<ClassFile> classesToCheck =
+        symbolReferences.getClassFiles().stream()
+            .filter(classFile -> previous == null || needsCheck.test(classFile))
+            .collect(toImmutableList());
+    Map<ClassFile, SourceClassProblems> checkedProblems =
+        findProblems(linkageChecker, classesToCheck, parallelism);
+
+    for (ClassFile classFile : symbolReferences.getClassFiles()) {
+      SourceClassProblems problems = checkedProblems.get(classFile);
+      if (problems != null) {
+        classSymbolProblems.putAll(classFile, problems.classSymbolProblems);
+        methodSymbolProblems.putAll(classFile, problems.methodSymbolProblems);
+        fieldSymbolProblems.putAll(classFile, problems.fieldSymbolProblems);
+      } else {
+        classSymbolProblems.putAll(classFile, previous.classSymbolProblems.get(classFile));
+        methodSymbolProblems.putAll(classFile, previous.methodSymbolProblems.get(classFile));
+        fieldSymbolProblems.putAll(classFile, previous.fieldSymbolProblems.get(classFile));
+      }
+    }
+    int checkedClassCount = checkedProblems.size();
+    logger.fine(
+        "Checked " + checkedClassCount + " of " + symbolReferences.getClassFiles().size()
+            + " classes");
+
+    ImmutableList<ClassPathEntry> classPath = linkageChecker.getClassPath();
+    return new LinkageCheckSnapshot(
+        classPath,
+        linkageChecker.getExcludedErrors(),
+        linkageChecker.getClassDumper(),
+        parallelism,
+        fingerprints,
+        ImmutableMap.copyOf(jarSymbolReferences),
+        classLocations(classPath),
+        linkageChecker.getResolutions(),
+        symbolReferences.getClassFiles(),
+        classSymbolProblems.build(),
+        methodSymbolProblems.build(),
+        fieldSymbolProblems.build(),
+        checkedClassCount);
+  }
+
+  /**
+   * Returns the linkage errors of {@code classFiles} keyed by class file, checking partitions of
+   * the classes with up to {@code parallelism} threads of a {@link ForkJoinPool} as in {@link
+   * LinkageChecker#findLinkageProblems(int)}.
+   */
+  private static Map<ClassFile, SourceClassProblems> findProblems(
+      LinkageChecker linkageChecker, List<ClassFile> classFiles, int parallelism)
+      throws IOException {
+    Map<ClassFile, SourceClassProblems> problems = new HashMap<>();
+    if (parallelism == 1 || classFiles.size() <= 1) {
+      for (ClassFile classFile : classFiles) {
+        problems.put(classFile, SourceClassProblems.find(linkageChecker, classFile));
+      }
+      return problems;
+    }
+
+    // Smaller partitions than the number of threads balance the load across the threads
+    int partitionSize = IntMath.divide(classFiles.size(), parallelism * 4, RoundingMode.CEILING);
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      List<ForkJoinTask<ImmutableList<SourceClassProblems>>> tasks = new ArrayList<>();
+      for (List<ClassFile> partition : Lists.partition(classFiles, partitionSize)) {
+        tasks.add(
+            pool.submit(
+                () -> {
+                  ImmutableList.Builder<SourceClassProblems> partitionProblems =
+                      ImmutableList.builder();
+                  for (ClassFile classFile : partition) {
+                    partitionProblems.add(SourceClassProblems.find(linkageChecker, classFile));
+                  }
+                  return partitionProblems.build();
+                }));
+      }
+      for (ForkJoinTask<ImmutableList<SourceClassProblems>> task : tasks) {
+        for (SourceClassProblems classProblems : ClassDumper.getTaskResult(task)) {
+          problems.put(classProblems.classFile, classProblems);
+        }
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    return problems;
+  }
+
+  /** The linkage errors, before exclusion, found in the symbol references of a source class. */
+  private static final class SourceClassProblems {
+    private final ClassFile classFile;
+    private final ImmutableList<LinkageProblem> classSymbolProblems;
+    private final ImmutableList<LinkageProblem> methodSymbolProblems;
+    private final ImmutableList<LinkageProblem> fieldSymbolProblems;
+
+    private SourceClassProblems(
+        ClassFile classFile,
+        ImmutableList<LinkageProblem> classSymbolProblems,
+        ImmutableList<LinkageProblem> methodSymbolProblems,
+        ImmutableList<LinkageProblem> fieldSymbolProblems) {
+      this.classFile = classFile;
+      this.classSymbolProblems = classSymbolProblems;
+      this.methodSymbolProblems = methodSymbolProblems;
+      this.fieldSymbolProblems = fieldSymbolProblems;
+    }
+
+    private static SourceClassProblems find(LinkageChecker linkageChecker, ClassFile classFile)
+        throws IOException {
+      ImmutableList<ClassFile> source = ImmutableList.of(classFile);
+      return new SourceClassProblems(
+          classFile,
+          linkageChecker.findClassSymbolProblems(source),
+          linkageChecker.findMethodSymbolProblems(source),
+          linkageChecker.findFieldSymbolProblems(source));
+    }
+  }
+
+  private static ImmutableMap<ClassPathEntry, String> fingerprints(List<ClassPathEntry> classPath)
+      throws IOException {
+    Map<ClassPathEntry, String> fingerprints = new HashMap<>();
+    for (ClassPathEntry entry : classPath) {
+      Path jar = entry.getJar();
+      fingerprints.put(entry, Files.size(jar) + ":" + Files.getLastModifiedTime(jar).toMillis());
+    }
+    return ImmutableMap.copyOf(fingerprints);
+  }
+
+  /** Returns the JAR files keyed by the names of their class files. The first JAR file wins. */
+  private static ImmutableMap<String, ClassPathEntry> classLocations(
+      List<ClassPathEntry> classPath) throws IOException {
+    Map<String, ClassPathEntry> classLocations = new HashMap<>();
+    for (ClassPathEntry entry : classPath) {
+      for (String fileName : entry.getFileNames()) {
+        classLocations.putIfAbsent(fileName, entry);
+      }
+    }
+    return ImmutableMap.copyOf(classLocations);
+  }
+
+  /**
+   * Releases the memory mappings of the JAR files that this snapshot opened. The mappings of the
+   * unchanged JAR files belong to the updates of this snapshot, which this does not affect. The JAR
+   * files are mapped again if this snapshot reads them afterwards.
+   */
+  @Override
+  public void close() throws IOException {
+    classDumper.close();
+  }
+
+  /** Returns the class path of the linkage check. */
+  public ImmutableList<ClassPathEntry> getClassPath() {
+    return classPath;
+  }
+
+  /** Returns the linkage errors found in the class path, except the excluded ones. */
+  public ImmutableSet<LinkageProblem> getLinkageProblems() {
+    return linkageProblems;
+  }
+
+  /** Returns the number of the source classes checked to create this snapshot. */
+  @VisibleForTesting
+  int getCheckedClassCount() {
+    return checkedClassCount;
+  }
+}
@@ -16,52 +16,112 @@
 
 package com.google.cloud.tools.opensource.classpath;
 
-import static com.google.cloud.tools.opensource.classpath.ClassDumper.getClassHierarchy;
-import static com.google.common.collect.ImmutableSet.toImmutableSet;
-
 import com.google.cloud.tools.opensource.dependencies.Bom;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.math.IntMath;
+import java.io.Closeable;
 import java.io.IOException;
+import java.math.RoundingMode;
 import java.nio.file.Path;
 import java.util.ArrayDeque;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.Nullable;
-import org.apache.bcel.classfile.Field;
-import org.apache.bcel.classfile.FieldOrMethod;
-import org.apache.bcel.classfile.JavaClass;
-import org.apache.bcel.classfile.Method;
 import org.eclipse.aether.artifact.Artifact;
 
-/** A tool to find linkage errors in a class path. */
-public class LinkageChecker {
+/**
+ * A tool to find linkage errors in a class path.
+ *
+ * <p>The checker memory-maps the JAR files of the class path. {@link #close()} releases them.
+ */
+public class LinkageChecker implements Closeable {
 
   private static final Logger logger = Logger.getLogger(LinkageChecker.class.getName());
-  
+
+  /** The maximum number of symbol resolutions to cache. */
+  private static final long MAXIMUM_RESOLUTIONS = 500_000;
+
   private final ClassDumper classDumper;
   private final ImmutableList<ClassPathEntry> classPath;
   private final SymbolReferences symbolReferences;
   private final ClassReferenceGraph classReferenceGraph;
   private final ExcludedErrors excludedErrors;
 
-  @VisibleForTesting
+  /**
+   * Resolutions of symbols keyed by the symbol and the package of the source class. Many classes
+   * reference the same symbols, such as the methods of Guava's {@code ImmutableList}.
+   */
+  private final Cache<Map.Entry<Symbol, String>, SymbolResolution> resolutions =
+      CacheBuilder.newBuilder().maximumSize(MAXIMUM_RESOLUTIONS).recordStats().build();
+
+  /**
+   * Releases the memory mappings of the JAR files in the class path. The JAR files are mapped again
+   * if this checker reads them afterwards.
+   */
+  @Override
+  public void close() throws IOException {
+    classDumper.close();
+  }
+
   SymbolReferences getSymbolReferences() {
     return symbolReferences;
   }
 
+  ClassDumper getClassDumper() {
+    return classDumper;
+  }
+
+  ImmutableList<ClassPathEntry> getClassPath() {
+    return classPath;
+  }
+
+  ExcludedErrors getExcludedErrors() {
+    return excludedErrors;
+  }
+
   public ClassReferenceGraph getClassReferenceGraph() {
     return classReferenceGraph;
   }
 
+  /** Returns the statistics of the cache of the symbol resolutions, such as the hit rate. */
+  public CacheStats getResolutionCacheStats() {
+    return resolutions.stats();
+  }
+
+  /** Returns the cached symbol resolutions keyed by the symbols and the source packages. */
+  ImmutableMap<Map.Entry<Symbol, String>, SymbolResolution> getResolutions() {
+    return ImmutableMap.copyOf(resolutions.asMap());
+  }
+
+  /**
+   * Adds {@code symbolResolutions}, keyed as in {@link #getResolutions()}, to the cache of the
+   * symbol resolutions. The resolutions must be valid for the class path of this checker.
+   */
+  void putResolutions(Map<Map.Entry<Symbol, String>, SymbolResolution> symbolResolutions) {
+    resolutions.putAll(symbolResolutions);
+  }
+
   public static LinkageChecker create(List<ClassPathEntry> classPath) throws IOException {
     return create(classPath, ImmutableSet.copyOf(classPath), null);
   }
@@ -78,9 +138,80 @@ public class LinkageChecker {
       Iterable<ClassPathEntry> entryPoints,
       @Nullable Path exclusionFile)
       throws IOException {
+    return create(classPath, entryPoints, exclusionFile, 1);
+  }
+
+  /**
+   * Returns Linkage Checker for {@code classPath}, reading the class files with up to {@code
+   * parallelism} threads.
+   *
+   * @param classPath JAR files to find linkage errors in
+   * @param entryPoints JAR files to specify entry point classes in reachability
+   * @param exclusionFile exclusion file to suppress linkage errors
+   * @param parallelism the number of threads to read the JAR files in {@code classPath}. For
+   *     example, {@code Runtime.getRuntime().availableProcessors()}
+   */
+  public static LinkageChecker create(
+      List<ClassPathEntry> classPath,
+      Iterable<ClassPathEntry> entryPoints,
+      @Nullable Path exclusionFile,
+      int parallelism)
+      throws IOException {
+    return create(classPath, entryPoints, exclusionFile, parallelism, null);
+  }
+
+  /**
+   * Returns Linkage Checker for {@code classPath}, reading the class files with up to {@code
+   * parallelism} threads and caching their symbol references in {@code cacheDirectory}.
+   *
+   * @param classPath JAR files to find linkage errors in
+   * @param entryPoints JAR files to specify entry point classes in reachability
+   * @param exclusionFile exclusion file to suppress linkage errors
+   * @param parallelism the number of threads to read the JAR files in {@code classPath}
+   * @param cacheDirectory directory to cache the symbol references of the JAR files across runs.
+   *     Null disables the cache
+   */
+  public static LinkageChecker create(
+      List<ClassPathEntry> classPath,
+      Iterable<ClassPathEntry> entryPoints,
+      @Nullable Path exclusionFile,
+      int parallelism,
+      @Nullable Path cacheDirectory)
+      throws IOException {
+    return create(classPath, entryPoints, exclusionFile, parallelism, cacheDirectory, null);
+  }
+
+  /**
+   * Returns Linkage Checker for {@code classPath} as in {@link #create(List, Iterable, Path, int,
+   * Path)}, checking the references to the Java runtime classes against the public API of Java
+   * {@code javaRelease}. The linkage errors do not depend on the Java runtime running the check,
+   * as long as it has the release.
+   *
+   * @param classPath JAR files to find linkage errors in
+   * @param entryPoints JAR files to specify entry point classes in reachability
+   * @param exclusionFile exclusion file to suppress linkage errors
+   * @param parallelism the number of threads to read the JAR files in {@code classPath}
+   * @param cacheDirectory directory to cache the symbol references of the JAR files across runs.
+   *     Null disables the cache
+   * @param javaRelease the Java release, such as 8 for Java 8. Null checks the references against
+   *     the classes of the Java runtime running the check
+   * @throws IOException if the Java runtime does not have the classes of {@code javaRelease}
+   */
+  public static LinkageChecker create(
+      List<ClassPathEntry> classPath,
+      Iterable<ClassPathEntry> entryPoints,
+      @Nullable Path exclusionFile,
+      int parallelism,
+      @Nullable Path cacheDirectory,
+      @Nullable Integer javaRelease)
+      throws IOException {
     Preconditions.checkArgument(!classPath.isEmpty(), "The linkage classpath is empty.");
-    ClassDumper dumper = ClassDumper.create(classPath);
-    SymbolReferences symbolReferenceMaps = dumper.findSymbolReferences();
+    Preconditions.checkArgument(parallelism > 0, "Parallelism must be positive: %s", parallelism);
+    SymbolReferenceCache symbolReferenceCache =
+        cacheDirectory == null ? null : SymbolReferenceCache.create(cacheDirectory);
+    ClassDumper dumper =
+        ClassDumper.create(classPath, symbolReferenceCache, jdkClassIndex(javaRelease));
+    SymbolReferences symbolReferenceMaps = dumper.findSymbolReferences(parallelism);
 
     ClassReferenceGraph classReferenceGraph =
         ClassReferenceGraph.create(symbolReferenceMaps, ImmutableSet.copyOf(entryPoints));
@@ -93,6 +224,115 @@ public class LinkageChecker {
         ExcludedErrors.create(exclusionFile));
   }
 
+  /**
+   * Returns Linkage Checker for the classes in {@code classPath} reachable from the classes in
+   * {@code entryPoints}. Unlike {@link #create(List, Iterable, Path)}, this reads only the class
+   * files that the class references from the entry points reach. {@link #findLinkageProblems()}
+   * returns the linkage errors in the reachable classes, which are the ones that {@link
+   * ClassReferenceGraph#isReachable(String)} accepts for the sources of the linkage errors found
+   * by {@link #create(List, Iterable, Path)}.
+   *
+   * @param classPath JAR files to find linkage errors in
+   * @param entryPoints JAR files to specify entry point classes in reachability
+   * @param exclusionFile exclusion file to suppress linkage errors
+   */
+  public static LinkageChecker createForReachableClasses(
+      List<ClassPathEntry> classPath,
+      Iterable<ClassPathEntry> entryPoints,
+      @Nullable Path exclusionFile)
+      throws IOException {
+    return createForReachableClasses(classPath, entryPoints, exclusionFile, 1, null);
+  }
+
+  /**
+   * Returns Linkage Checker for the classes in {@code classPath} reachable from the classes in
+   * {@code entryPoints}, as in {@link #createForReachableClasses(List, Iterable, Path)}. The class
+   * files are read with up to {@code parallelism} threads. The JAR files whose symbol references
+   * are in {@code cacheDirectory} take the references from the cache instead of reading their
+   * class files. This does not add JAR files to the cache, because it does not read all of their
+   * classes.
+   *
+   * @param classPath JAR files to find linkage errors in
+   * @param entryPoints JAR files to specify entry point classes in reachability
+   * @param exclusionFile exclusion file to suppress linkage errors
+   * @param parallelism the number of threads to read the class files in {@code classPath}
+   * @param cacheDirectory directory of the symbol references of the JAR files cached by {@link
+   *     #create(List, Iterable, Path, int, Path)}. Null disables the cache
+   */
+  public static LinkageChecker createForReachableClasses(
+      List<ClassPathEntry> classPath,
+      Iterable<ClassPathEntry> entryPoints,
+      @Nullable Path exclusionFile,
+      int parallelism,
+      @Nullable Path cacheDirectory)
+      throws IOException {
+    return createForReachableClasses(
+        classPath, entryPoints, exclusionFile, parallelism, cacheDirectory, null);
+  }
+
+  /**
+   * Returns Linkage Checker for the classes in {@code classPath} reachable from the classes in
+   * {@code entryPoints} as in {@link #createForReachableClasses(List, Iterable, Path, int, Path)},
+   * checking the references to the Java runtime classes against the public API of Java {@code
+   * javaRelease}.
+   *
+   * @param javaRelease the Java release, such as 8 for Java 8. Null checks the references against
+   *     the classes of the Java runtime running the check
+   * @throws IOException if the Java runtime does not have the classes of {@code javaRelease}
+   */
+  public static LinkageChecker createForReachableClasses(
+      List<ClassPathEntry> classPath,
+      Iterable<ClassPathEntry> entryPoints,
+      @Nullable Path exclusionFile,
+      int parallelism,
+      @Nullable Path cacheDirectory,
+      @Nullable Integer javaRelease)
+      throws IOException {
+    Preconditions.checkArgument(!classPath.isEmpty(), "The linkage classpath is empty.");
+    Preconditions.checkArgument(parallelism > 0, "Parallelism must be positive: %s", parallelism);
+    SymbolReferenceCache symbolReferenceCache =
+        cacheDirectory == null ? null : SymbolReferenceCache.create(cacheDirectory);
+    ClassDumper dumper =
+        ClassDumper.create(classPath, symbolReferenceCache, jdkClassIndex(javaRelease));
+    ImmutableSet<ClassPathEntry> entryPointSet = ImmutableSet.copyOf(entryPoints);
+    SymbolReferences symbolReferenceMaps =
+        dumper.findReachableSymbolReferences(entryPointSet, parallelism);
+
+    ClassReferenceGraph classReferenceGraph =
+        ClassReferenceGraph.create(symbolReferenceMaps, entryPointSet);
+
+    return new LinkageChecker(
+        dumper,
+        classPath,
+        symbolReferenceMaps,
+        classReferenceGraph,
+        ExcludedErrors.create(exclusionFile));
+  }
+
+  /** Returns the index of Java {@code javaRelease}, or of the running Java runtime if null. */
+  private static JdkClassIndex jdkClassIndex(@Nullable Integer javaRelease) throws IOException {
+    return javaRelease == null ? JdkClassIndex.runtime() : JdkClassIndex.forRelease(javaRelease);
+  }
+
+  /**
+   * Returns Linkage Checker for {@code classPath} with {@code dumper} for the class path and the
+   * symbol references that the dumper found in it. All classes in {@code classPath} are entry
+   * points. See {@link LinkageCheckSnapshot}.
+   */
+  static LinkageChecker create(
+      List<ClassPathEntry> classPath,
+      ClassDumper dumper,
+      SymbolReferences symbolReferences,
+      ExcludedErrors excludedErrors)
+      throws IOException {
+    Preconditions.checkArgument(!classPath.isEmpty(), "The linkage classpath is empty.");
+    ClassReferenceGraph classReferenceGraph =
+        ClassReferenceGraph.create(symbolReferences, ImmutableSet.copyOf(classPath));
+
+    return new LinkageChecker(
+        dumper, classPath, symbolReferences, classReferenceGraph, excludedErrors);
+  }
+
   public static LinkageChecker create(Bom bom) throws IOException {
     return create(bom, null);
   }
@@ -138,11 +378,157 @@ public class LinkageChecker {
    * @throws IOException I/O error reading files in the classpath
    */
   public ImmutableSet<LinkageProblem> findLinkageProblems() throws IOException {
+    return findLinkageProblems(1);
+  }
+
+  /**
+   * Searches the classpath for linkage errors with up to {@code parallelism} threads of a {@link
+   * ForkJoinPool}. The result is the same regardless of {@code parallelism}, because the problems
+   * found in the partitions of the source classes are merged in the order of the sequential
+   * search.
+   *
+   * @param parallelism the number of threads to check the references. 1 checks them in the caller
+   *     thread
+   * @return {@link LinkageProblem}s found in the class path and referencing classes
+   * @throws IOException I/O error reading files in the classpath
+   */
+  public ImmutableSet<LinkageProblem> findLinkageProblems(int parallelism) throws IOException {
     ImmutableSet.Builder<LinkageProblem> problemToClass = ImmutableSet.builder();
+    findLinkageProblems(
+        parallelism,
+        problem -> {
+          problemToClass.add(problem);
+          return true;
+        });
+    return problemToClass.build();
+  }
+
+  /**
+   * Searches the classpath for linkage errors, passing each linkage error not excluded by the
+   * exclusion file to {@code consumer} as soon as it is found. Each linkage error is passed once,
+   * in the same order as {@link #findLinkageProblems()}. The search stops when
+   * {@code consumer} returns false, for example, at the first linkage error for a fail-fast check.
+   * Because {@code consumer} runs in the caller thread, a slow consumer slows down the search
+   * instead of accumulating the linkage errors.
+   *
+   * @param consumer the function to receive linkage errors. It returns false to stop the search
+   * @return true if the search checked the whole classpath; false if {@code consumer} stopped it
+   * @throws IOException I/O error reading files in the classpath
+   */
+  public boolean findLinkageProblems(Predicate<? super LinkageProblem> consumer)
+      throws IOException {
+    return findLinkageProblems(1, consumer);
+  }
+
+  /**
+   * Searches the classpath for linkage errors with up to {@code parallelism} threads of a {@link
+   * ForkJoinPool}, passing each linkage error to {@code consumer} in the same order as {@link
+   * #findLinkageProblems(Predicate)}. When {@code consumer} returns false, the threads stop at the
+   * next source class and the partitions not started yet are cancelled.
+   *
+   * @param parallelism the number of threads to check the references. 1 checks them in the caller
+   *     thread
+   * @param consumer the function to receive linkage errors. It returns false to stop the search
+   * @return true if the search checked the whole classpath; false if {@code consumer} stopped it
+   * @throws IOException I/O error reading files in the classpath
+   */
+  public boolean findLinkageProblems(
+      int parallelism, Predicate<? super LinkageProblem> consumer) throws IOException {
+    Preconditions.checkArgument(parallelism > 0, "Parallelism must be positive: %s", parallelism);
+    Preconditions.checkNotNull(consumer);
+    ImmutableList<ClassFile> classFiles = symbolReferences.getClassFiles().asList();
+    Set<LinkageProblem> passedProblems = new HashSet<>();
+    // The same order as the sequential search: class, method, and then field symbols
+    ImmutableList<PassFunction> passes =
+        ImmutableList.of(
+            this::findClassSymbolProblems,
+            this::findMethodSymbolProblems,
+            this::findFieldSymbolProblems);
+
+    try {
+      if (parallelism == 1 || classFiles.isEmpty()) {
+        for (PassFunction pass : passes) {
+          for (ClassFile classFile : classFiles) {
+            for (LinkageProblem problem : pass.apply(ImmutableList.of(classFile))) {
+              if (!passProblem(problem, passedProblems, consumer)) {
+                return false;
+              }
+            }
+          }
+        }
+        return true;
+      }
+
+      // Smaller partitions than the number of threads balance the load across the threads
+      int partitionSize = IntMath.divide(classFiles.size(), parallelism * 4, RoundingMode.CEILING);
+      List<List<ClassFile>> partitions = Lists.partition(classFiles, partitionSize);
+      AtomicBoolean stopped = new AtomicBoolean();
+      ForkJoinPool pool = new ForkJoinPool(parallelism);
+      try {
+        List<ForkJoinTask<ImmutableList<LinkageProblem>>> tasks = new ArrayList<>();
+        for (PassFunction pass : passes) {
+          for (List<ClassFile> partition : partitions) {
+            tasks.add(pool.submit(() -> findProblemsUntilStopped(pass, partition, stopped)));
+          }
+        }
+        for (ForkJoinTask<ImmutableList<LinkageProblem>> task : tasks) {
+          for (LinkageProblem problem : ClassDumper.getTaskResult(task)) {
+            if (!passProblem(problem, passedProblems, consumer)) {
+              return false;
+            }
+          }
+        }
+        return true;
+      } finally {
+        // The results of the running tasks are no longer needed once the search returns
+        stopped.set(true);
+        pool.shutdownNow();
+      }
+    } finally {
+      logger.log(Level.FINE, "Symbol resolution cache: {0}", resolutions.stats());
+    }
+  }
+
+  /**
+   * Passes {@code problem} to {@code consumer} unless it is excluded or already passed. Returns
+   * false if {@code consumer} stopped the search.
+   */
+  private boolean passProblem(
+      LinkageProblem problem,
+      Set<LinkageProblem> passedProblems,
+      Predicate<? super LinkageProblem> consumer) {
+    return !problemFilter(problem) || !passedProblems.add(problem) || consumer.test(problem);
+  }
+
+  /**
+   * Returns the linkage errors found by {@code pass} for {@code classFiles}, checking them one by
+   * one until {@code stopped} is set. The result is incomplete if the search stopped.
+   */
+  private static ImmutableList<LinkageProblem> findProblemsUntilStopped(
+      PassFunction pass, List<ClassFile> classFiles, AtomicBoolean stopped) throws IOException {
+    ImmutableList.Builder<LinkageProblem> problems = ImmutableList.builder();
+    for (ClassFile classFile : classFiles) {
+      if (stopped.get()) {
+        break;
+      }
+      problems.addAll(pass.apply(ImmutableList.of(classFile)));
+    }
+    return problems.build();
+  }
+
+  /** One of the passes of the search for linkage errors in {@link #findLinkageProblems()}. */
+  private interface PassFunction {
+    ImmutableList<LinkageProblem> apply(List<ClassFile> classFiles) throws IOException;
+  }
+
+  /** Returns the linkage errors for the class symbols referenced from {@code classFiles}. */
+  ImmutableList<LinkageProblem> findClassSymbolProblems(List<ClassFile> classFiles)
+      throws IOException {
+    ImmutableList.Builder<LinkageProblem> problemToClass = ImmutableList.builder();
 
     // This sourceClassFile is a source of references to other symbols.
-    for (ClassFile classFile : symbolReferences.getClassFiles()) {
-      ImmutableSet<ClassSymbol> classSymbols = symbolReferences.getClassSymbols(classFile);
+    for (ClassFile classFile : classFiles) {
+      Set<ClassSymbol> classSymbols = symbolReferences.getClassSymbols(classFile);
       for (ClassSymbol classSymbol : classSymbols) {
         if (classSymbol instanceof SuperClassSymbol) {
           String superClassName = classSymbol.getClassBinaryName();
@@ -179,11 +565,17 @@ public class LinkageChecker {
                 .ifPresent(problemToClass::add);
           }
         }
-      }    
+      }
     }
-    
-    for (ClassFile classFile : symbolReferences.getClassFiles()) {
-      ImmutableSet<MethodSymbol> methodSymbols = symbolReferences.getMethodSymbols(classFile);
+    return problemToClass.build();
+  }
+
+  /** Returns the linkage errors for the method symbols referenced from {@code classFiles}. */
+  ImmutableList<LinkageProblem> findMethodSymbolProblems(List<ClassFile> classFiles)
+      throws IOException {
+    ImmutableList.Builder<LinkageProblem> problemToClass = ImmutableList.builder();
+    for (ClassFile classFile : classFiles) {
+      Set<MethodSymbol> methodSymbols = symbolReferences.getMethodSymbols(classFile);
       ImmutableSet<String> classFileNames = classFile.getClassPathEntry().getFileNames();
       for (MethodSymbol methodSymbol : methodSymbols) {
         String classBinaryName = methodSymbol.getClassBinaryName();
@@ -194,9 +586,15 @@ public class LinkageChecker {
         }
       }
     }
+    return problemToClass.build();
+  }
 
-    for (ClassFile classFile : symbolReferences.getClassFiles()) {
-      ImmutableSet<FieldSymbol> fieldSymbols = symbolReferences.getFieldSymbols(classFile);
+  /** Returns the linkage errors for the field symbols referenced from {@code classFiles}. */
+  ImmutableList<LinkageProblem> findFieldSymbolProblems(List<ClassFile> classFiles)
+      throws IOException {
+    ImmutableList.Builder<LinkageProblem> problemToClass = ImmutableList.builder();
+    for (ClassFile classFile : classFiles) {
+      Set<FieldSymbol> fieldSymbols = symbolReferences.getFieldSymbols(classFile);
       ImmutableSet<String> classFileNames = classFile.getClassPathEntry().getFileNames();
       for (FieldSymbol fieldSymbol : fieldSymbols) {
         String classBinaryName = fieldSymbol.getClassBinaryName();
@@ -207,11 +605,7 @@ public class LinkageChecker {
         }
       }
     }
-
-    // Filter classes in whitelist
-    ImmutableSet<LinkageProblem> filteredMap =
-        problemToClass.build().stream().filter(this::problemFilter).collect(toImmutableSet());
-    return filteredMap;
+    return problemToClass.build();
   }
 
   /**
@@ -237,34 +631,39 @@ public class LinkageChecker {
   Optional<LinkageProblem> findLinkageProblem(
       ClassFile classFile, MethodSymbol symbol, ClassFile sourceClassFile) {
     String sourceClassName = classFile.getBinaryName();
+    SymbolResolution resolution =
+        resolve(symbol, sourceClassName, () -> resolveMethod(symbol, sourceClassName));
+
+    // Slf4J catches LinkageError to check the existence of other classes
+    if (resolution.getResult() == SymbolResolution.Result.SYMBOL_NOT_FOUND
+        && classDumper.catchesLinkageErrorOnMethod(sourceClassName)) {
+      return Optional.empty();
+    }
+    return toLinkageProblem(classFile, symbol, sourceClassFile, resolution);
+  }
+
+  private SymbolResolution resolveMethod(MethodSymbol symbol, String sourceClassName) {
     String targetClassName = symbol.getClassBinaryName();
-    String methodName = symbol.getName();
 
     // Skip references to Java runtime class. For example, java.lang.String.
     if (classDumper.isSystemClass(targetClassName)) {
-      return Optional.empty();
+      return SymbolResolution.RESOLVED;
     }
 
     try {
-      JavaClass targetJavaClass = classDumper.loadJavaClass(targetClassName);
-      ClassPathEntry classPathEntry = classDumper.findClassLocation(targetClassName);
-      ClassFile targetClassFile =
-          classPathEntry == null ? null : new ClassFile(classPathEntry, targetClassName);
-
-      if (!isClassAccessibleFrom(targetJavaClass, sourceClassName)) {
-        return Optional.of(new InaccessibleClassProblem(sourceClassFile, targetClassFile, symbol));
+      ClassSummary targetClass = classDumper.loadClassSummary(targetClassName);
+      if (!isClassAccessibleFrom(targetClass, sourceClassName)) {
+        return SymbolResolution.INACCESSIBLE_CLASS;
       }
 
-      if (targetJavaClass.isInterface() != symbol.isInterfaceMethod()) {
-        return Optional.of(
-            new IncompatibleClassChangeProblem(sourceClassFile, targetClassFile, symbol));
+      if (targetClass.isInterface() != symbol.isInterfaceMethod()) {
+        return SymbolResolution.INCOMPATIBLE_CLASS_CHANGE;
       }
 
       // Check the existence of the parent class or interface for the class
-      Optional<LinkageProblem> parentLinkageProblem =
-          findParentClassLinkageProblem(targetClassName, sourceClassFile);
-      if (parentLinkageProblem.isPresent()) {
-        return parentLinkageProblem;
+      String missingParentClassName = findMissingParentClassName(targetClassName);
+      if (missingParentClassName != null) {
+        return SymbolResolution.parentClassNotFound(missingParentClassName);
       }
 
       // Checks the target class, its parent classes, and its interfaces.
@@ -272,37 +671,18 @@ public class LinkageChecker {
       // class that implements an interface. For example, Guava's ImmutableList is an abstract class
       // that implements the List interface, but the class does not have a get() method. A method
       // reference to ImmutableList.get() should not be reported as a linkage error.
-      Iterable<JavaClass> typesToCheck =
-          Iterables.concat(
-              getClassHierarchy(targetJavaClass),
-              Arrays.asList(targetJavaClass.getAllInterfaces()));
-      for (JavaClass javaClass : typesToCheck) {
-        for (Method method : javaClass.getMethods()) {
-          if (method.getName().equals(methodName)
-              && method.getSignature().equals(symbol.getDescriptor())) {
-            if (!isMemberAccessibleFrom(javaClass, method, sourceClassName)) {
-              return Optional.of(
-                  new InaccessibleMemberProblem(sourceClassFile, targetClassFile, symbol));
-            }
-            // The method is found and accessible. Returning no error.
-            return Optional.empty();
-          }
-        }
-      }
-
-      // Slf4J catches LinkageError to check the existence of other classes
-      if (classDumper.catchesLinkageErrorOnMethod(sourceClassName)) {
-        return Optional.empty();
+      MemberIndex.ResolvedMember method =
+          classDumper
+              .getMemberIndex(targetClass)
+              .findMethod(symbol.getName(), symbol.getDescriptor());
+      if (method != null) {
+        return resolveMemberAccess(method, sourceClassName);
       }
 
       // The class is in class path but the symbol is not found
-      return Optional.of(new SymbolNotFoundProblem(sourceClassFile, targetClassFile, symbol));
+      return SymbolResolution.SYMBOL_NOT_FOUND;
     } catch (ClassNotFoundException ex) {
-      if (classDumper.catchesLinkageErrorOnClass(sourceClassName)) {
-        return Optional.empty();
-      }
-      ClassSymbol classSymbol = new ClassSymbol(symbol.getClassBinaryName());
-      return Optional.of(new ClassNotFoundProblem(sourceClassFile, classSymbol));
+      return SymbolResolution.CLASS_NOT_FOUND;
     }
   }
 
@@ -319,33 +699,22 @@ public class LinkageChecker {
 
     ImmutableList.Builder<LinkageProblem> builder = ImmutableList.builder();
     try {
-      JavaClass implementingClass = classDumper.loadJavaClass(classFile.getBinaryName());
+      ClassSummary implementingClass = classDumper.loadClassSummary(classFile.getBinaryName());
       if (implementingClass.isAbstract()) {
         // Abstract class does not need to implement methods in an interface.
         return ImmutableList.of();
       }
-      JavaClass interfaceDefinition = classDumper.loadJavaClass(interfaceName);
-      for (Method interfaceMethod : interfaceDefinition.getMethods()) {
-        if (interfaceMethod.getCode() != null) {
+      ClassSummary interfaceDefinition = classDumper.loadClassSummary(interfaceName);
+      MemberIndex memberIndex = classDumper.getMemberIndex(implementingClass);
+      for (ClassSummary.Member interfaceMethod : interfaceDefinition.getMethods()) {
+        if (!interfaceMethod.isAbstract()) {
           // This interface method has default implementation. Subclass does not have to implement
           // it.
           continue;
         }
         String interfaceMethodName = interfaceMethod.getName();
-        String interfaceMethodDescriptor = interfaceMethod.getSignature();
-        boolean methodFound = false;
-
-        Iterable<JavaClass> typesToCheck = Iterables.concat(getClassHierarchy(implementingClass));
-        for (JavaClass javaClass : typesToCheck) {
-          for (Method method : javaClass.getMethods()) {
-            if (method.getName().equals(interfaceMethodName)
-                && method.getSignature().equals(interfaceMethodDescriptor)) {
-              methodFound = true;
-              break;
-            }
-          }
-        }
-        if (!methodFound) {
+        String interfaceMethodDescriptor = interfaceMethod.getDescriptor();
+        if (memberIndex.findClassMethod(interfaceMethodName, interfaceMethodDescriptor) == null) {
           MethodSymbol missingMethodOnClass =
               new MethodSymbol(
                   classFile.getBinaryName(), interfaceMethodName, interfaceMethodDescriptor, false);
@@ -367,83 +736,79 @@ public class LinkageChecker {
   Optional<LinkageProblem> findLinkageProblem(
       ClassFile classFile, FieldSymbol symbol, ClassFile sourceClassFile) {
     String sourceClassName = classFile.getBinaryName();
-    String targetClassName = symbol.getClassBinaryName();
+    SymbolResolution resolution =
+        resolve(symbol, sourceClassName, () -> resolveField(symbol, sourceClassName));
+    return toLinkageProblem(classFile, symbol, sourceClassFile, resolution);
+  }
 
-    String fieldName = symbol.getName();
+  private SymbolResolution resolveField(FieldSymbol symbol, String sourceClassName) {
     try {
-      JavaClass targetJavaClass = classDumper.loadJavaClass(targetClassName);
-      ClassPathEntry classFileLocation = classDumper.findClassLocation(targetClassName);
-      ClassFile targetClassFile =
-          classFileLocation == null ? null : new ClassFile(classFileLocation, targetClassName);
-
-      if (!isClassAccessibleFrom(targetJavaClass, sourceClassName)) {
-        return Optional.of(new InaccessibleClassProblem(sourceClassFile, targetClassFile, symbol));
+      ClassSummary targetClass = classDumper.loadClassSummary(symbol.getClassBinaryName());
+      if (!isClassAccessibleFrom(targetClass, sourceClassName)) {
+        return SymbolResolution.INACCESSIBLE_CLASS;
       }
 
-      for (JavaClass javaClass : getClassHierarchy(targetJavaClass)) {
-        for (Field field : javaClass.getFields()) {
-          if (field.getName().equals(fieldName)) {
-            if (!isMemberAccessibleFrom(javaClass, field, sourceClassName)) {
-              return Optional.of(
-                  new InaccessibleMemberProblem(sourceClassFile, targetClassFile, symbol));
-            }
-            // The field is found and accessible. Returning no error.
-            return Optional.empty();
-          }
-        }
+      MemberIndex.ResolvedMember field =
+          classDumper.getMemberIndex(targetClass).findField(symbol.getName());
+      if (field != null) {
+        return resolveMemberAccess(field, sourceClassName);
       }
       // The field was not found in the class from the classpath
-      return Optional.of(new SymbolNotFoundProblem(sourceClassFile, targetClassFile, symbol));
+      return SymbolResolution.SYMBOL_NOT_FOUND;
     } catch (ClassNotFoundException ex) {
-      if (classDumper.catchesLinkageErrorOnClass(sourceClassName)) {
-        return Optional.empty();
-      }
-      ClassSymbol classSymbol = new ClassSymbol(symbol.getClassBinaryName());
-      return Optional.of(new ClassNotFoundProblem(sourceClassFile, classSymbol));
+      return SymbolResolution.CLASS_NOT_FOUND;
     }
   }
 
   /**
-   * Returns true if the field or method of a class is accessible from {@code sourceClassName}.
+   * Returns the resolution of the accessibility of {@code resolvedMember} from {@code
+   * sourceClassName}. Whether a protected member is accessible from a subclass in another package
+   * depends on the source class; such a member resolves to {@link
+   * SymbolResolution.Result#PROTECTED_MEMBER} for {@link #isSubclassOf(String, String)} to check.
    *
    * @see <a href="https://docs.oracle.com/javase/specs/jls/se8/html/jls-6.html#jls-6.6.1">JLS 6.6.1
    *     Determining Accessibility</a>
    */
-  private boolean isMemberAccessibleFrom(
-      JavaClass targetClass, FieldOrMethod member, String sourceClassName) {
+  private static SymbolResolution resolveMemberAccess(
+      MemberIndex.ResolvedMember resolvedMember, String sourceClassName) {
+    ClassSummary.Member member = resolvedMember.getMember();
+    String targetClassName = resolvedMember.getDeclaringClass().getClassName();
     // The order of these if statements for public, protected, and private are in the same order
-    // they
-    // appear in JLS 6.6.1
+    // they appear in JLS 6.6.1
     if (member.isPublic()) {
-      return true;
+      return SymbolResolution.RESOLVED;
     }
     if (member.isProtected()) {
-      if (ClassDumper.classesInSamePackage(targetClass.getClassName(), sourceClassName)) {
-        return true;
-      }
-      try {
-        JavaClass sourceClass = classDumper.loadJavaClass(sourceClassName);
-        if (ClassDumper.isClassSubClassOf(sourceClass, targetClass)) {
-          return true;
-        }
-      } catch (ClassNotFoundException ex) {
-        logger.warning(
-            "The source class "
-                + sourceClassName
-                + " of a reference was not found in the class path when checking accessibility");
-        return false;
+      if (ClassDumper.classesInSamePackage(targetClassName, sourceClassName)) {
+        return SymbolResolution.RESOLVED;
       }
+      return SymbolResolution.protectedMember(targetClassName);
     }
     if (member.isPrivate()) {
       // Access from within same top-level class is allowed to read private class. However, such
       // cases are already filtered at errorsFromSymbolReferences.
-      return false;
+      return SymbolResolution.INACCESSIBLE_MEMBER;
     }
     // Default: package private
-    if (ClassDumper.classesInSamePackage(targetClass.getClassName(), sourceClassName)) {
-      return true;
+    if (ClassDumper.classesInSamePackage(targetClassName, sourceClassName)) {
+      return SymbolResolution.RESOLVED;
+    }
+    return SymbolResolution.INACCESSIBLE_MEMBER;
+  }
+
+  /** Returns true if {@code sourceClassName} is a subclass of {@code targetClassName}. */
+  private boolean isSubclassOf(String sourceClassName, String targetClassName) {
+    try {
+      ClassSummary sourceClass = classDumper.loadClassSummary(sourceClassName);
+      return classDumper.isClassSubClassOf(
+          sourceClass, classDumper.loadClassSummary(targetClassName));
+    } catch (ClassNotFoundException ex) {
+      logger.warning(
+          "The source class "
+              + sourceClassName
+              + " of a reference was not found in the class path when checking accessibility");
+      return false;
     }
-    return false;
   }
 
   /**
@@ -455,27 +820,26 @@ public class LinkageChecker {
   Optional<LinkageProblem> findLinkageProblem(
       ClassFile classFile, ClassSymbol symbol, ClassFile sourceClassFile) {
     String sourceClassName = classFile.getBinaryName();
-    String targetClassName = symbol.getClassBinaryName();
+    SymbolResolution resolution =
+        resolve(symbol, sourceClassName, () -> resolveClass(symbol, sourceClassName));
 
     try {
-      JavaClass targetClass = classDumper.loadJavaClass(targetClassName);
-      ClassPathEntry classFileLocation = classDumper.findClassLocation(targetClassName);
-      ClassFile targetClassFile =
-          classFileLocation == null ? null : new ClassFile(classFileLocation, targetClassName);
-
+      // An invalid superclass is reported before the accessibility of the class, which also needs
+      // its enclosing classes. A missing target class throws ClassNotFoundException.
       boolean isSubclassReference = symbol instanceof SuperClassSymbol;
       if (isSubclassReference
-          && !ClassDumper.hasValidSuperclass(
-              classDumper.loadJavaClass(sourceClassName), targetClass)) {
+          && !classDumper.hasValidSuperclass(
+              classDumper.loadClassSummary(sourceClassName),
+              classDumper.loadClassSummary(symbol.getClassBinaryName()))) {
         return Optional.of(
-            new IncompatibleClassChangeProblem(sourceClassFile, targetClassFile, symbol));
-      }
-
-      if (!isClassAccessibleFrom(targetClass, sourceClassName)) {
-        return Optional.of(new InaccessibleClassProblem(sourceClassFile, targetClassFile, symbol));
+            new IncompatibleClassChangeProblem(
+                sourceClassFile, findClassFile(symbol.getClassBinaryName()), symbol));
       }
-      return Optional.empty();
     } catch (ClassNotFoundException ex) {
+      resolution = SymbolResolution.CLASS_NOT_FOUND;
+    }
+
+    if (resolution.getResult() == SymbolResolution.Result.CLASS_NOT_FOUND) {
       if (classDumper.isUnusedClassSymbolReference(sourceClassName, symbol)
           || classDumper.catchesLinkageErrorOnClass(sourceClassName)) {
         // The class reference is unused in the source
@@ -483,6 +847,89 @@ public class LinkageChecker {
       }
       return Optional.of(new ClassNotFoundProblem(sourceClassFile, symbol));
     }
+    return toLinkageProblem(classFile, symbol, sourceClassFile, resolution);
+  }
+
+  private SymbolResolution resolveClass(ClassSymbol symbol, String sourceClassName) {
+    try {
+      ClassSummary targetClass = classDumper.loadClassSummary(symbol.getClassBinaryName());
+      if (!isClassAccessibleFrom(targetClass, sourceClassName)) {
+        return SymbolResolution.INACCESSIBLE_CLASS;
+      }
+      return SymbolResolution.RESOLVED;
+    } catch (ClassNotFoundException ex) {
+      return SymbolResolution.CLASS_NOT_FOUND;
+    }
+  }
+
+  /**
+   * Returns the resolution of {@code symbol} referenced from {@code sourceClassName}. The
+   * resolutions are cached by the symbol and the package of the source class, because the class
+   * is not needed to resolve the symbol except for its package. {@code resolver} computes the
+   * resolution when it is not in the cache.
+   */
+  private SymbolResolution resolve(
+      Symbol symbol, String sourceClassName, Supplier<SymbolResolution> resolver) {
+    Map.Entry<Symbol, String> key =
+        Maps.immutableEntry(symbol, ClassDumper.packageName(sourceClassName));
+    SymbolResolution resolution = resolutions.getIfPresent(key);
+    if (resolution == null) {
+      resolution = resolver.get();
+      resolutions.put(key, resolution);
+    }
+    return resolution;
+  }
+
+  /**
+   * Returns an {@code Optional} describing the linkage error for {@code resolution} of {@code
+   * symbol} referenced from {@code classFile}; otherwise an empty {@code Optional}.
+   */
+  private Optional<LinkageProblem> toLinkageProblem(
+      ClassFile classFile, Symbol symbol, ClassFile sourceClassFile, SymbolResolution resolution) {
+    String sourceClassName = classFile.getBinaryName();
+    String targetClassName = symbol.getClassBinaryName();
+    switch (resolution.getResult()) {
+      case RESOLVED:
+        return Optional.empty();
+      case CLASS_NOT_FOUND:
+        if (classDumper.catchesLinkageErrorOnClass(sourceClassName)) {
+          return Optional.empty();
+        }
+        return Optional.of(
+            new ClassNotFoundProblem(sourceClassFile, new ClassSymbol(targetClassName)));
+      case PARENT_CLASS_NOT_FOUND:
+        return Optional.of(
+            new ClassNotFoundProblem(sourceClassFile, new ClassSymbol(resolution.getClassName())));
+      case INACCESSIBLE_CLASS:
+        return Optional.of(
+            new InaccessibleClassProblem(
+                sourceClassFile, findClassFile(targetClassName), symbol));
+      case INCOMPATIBLE_CLASS_CHANGE:
+        return Optional.of(
+            new IncompatibleClassChangeProblem(
+                sourceClassFile, findClassFile(targetClassName), symbol));
+      case SYMBOL_NOT_FOUND:
+        return Optional.of(
+            new SymbolNotFoundProblem(sourceClassFile, findClassFile(targetClassName), symbol));
+      case PROTECTED_MEMBER:
+        if (isSubclassOf(sourceClassName, resolution.getClassName())) {
+          return Optional.empty();
+        }
+        // fall through
+      case INACCESSIBLE_MEMBER:
+        return Optional.of(
+            new InaccessibleMemberProblem(
+                sourceClassFile, findClassFile(targetClassName), symbol));
+      default:
+        throw new IllegalStateException("Unexpected resolution: " + resolution);
+    }
+  }
+
+  /** Returns the class file of {@code className}. Null if the class is not in the class path. */
+  @Nullable
+  private ClassFile findClassFile(String className) {
+    ClassPathEntry classPathEntry = classDumper.findClassLocation(className);
+    return classPathEntry == null ? null : new ClassFile(classPathEntry, className);
   }
 
   /**
@@ -492,7 +939,7 @@ public class LinkageChecker {
    * @see <a href="https://docs.oracle.com/javase/specs/jls/se8/html/jls-8.html#jls-ClassModifier">
    *     JLS 8.1.1. Class Modifiers</a>
    */
-  private boolean isClassAccessibleFrom(JavaClass javaClass, String sourceClassName)
+  private boolean isClassAccessibleFrom(ClassSummary javaClass, String sourceClassName)
       throws ClassNotFoundException {
     if (javaClass.isPrivate()) {
       // Nested class can be declared as private. Class reference within same file is allowed to
@@ -509,7 +956,7 @@ public class LinkageChecker {
         // Nested class can be declared as private or protected, in addition to
         // public and package private. Protected is treated same as package private.
         // https://docs.oracle.com/javase/specs/jls/se8/html/jls-8.html#jls-ClassModifier
-        JavaClass enclosingJavaClass = classDumper.loadJavaClass(enclosingClassName);
+        ClassSummary enclosingJavaClass = classDumper.loadClassSummary(enclosingClassName);
         return isClassAccessibleFrom(enclosingJavaClass, sourceClassName);
       } else {
         // Top-level class can be declared as public or package private.
@@ -522,11 +969,11 @@ public class LinkageChecker {
   }
 
   /**
-   * Returns an {@code Optional} describing the symbol problem in the parent classes or interfaces
-   * of {@code baseClassName}, if any of them are missing; otherwise an empty {@code Optional}.
+   * Returns the name of the missing parent class or interface of {@code baseClassName}, if any of
+   * them are missing; otherwise null.
    */
-  private Optional<LinkageProblem> findParentClassLinkageProblem(
-      String baseClassName, ClassFile sourceClassFile) {
+  @Nullable
+  private String findMissingParentClassName(String baseClassName) {
     Queue<String> queue = new ArrayDeque<>();
     queue.add(baseClassName);
     while (!queue.isEmpty()) {
@@ -536,23 +983,23 @@ public class LinkageChecker {
       }
       String potentiallyMissingClassName = className;
       try {
-        JavaClass baseClass = classDumper.loadJavaClass(className);
-        queue.add(baseClass.getSuperclassName());
+        ClassSummary baseClass = classDumper.loadClassSummary(className);
+        if (baseClass.getSuperclassName() != null) {
+          queue.add(baseClass.getSuperclassName());
+        }
 
         for (String interfaceName : baseClass.getInterfaceNames()) {
           potentiallyMissingClassName = interfaceName;
-          JavaClass interfaceClass = classDumper.loadJavaClass(interfaceName);
+          ClassSummary interfaceClass = classDumper.loadClassSummary(interfaceName);
           // An interface may implement other interfaces
-          queue.addAll(Arrays.asList(interfaceClass.getInterfaceNames()));
+          queue.addAll(interfaceClass.getInterfaceNames());
         }
       } catch (ClassNotFoundException ex) {
         // potentiallyMissingClassName (either className or interfaceName) is missing
-        LinkageProblem problem =
-            new ClassNotFoundProblem(sourceClassFile, new ClassSymbol(potentiallyMissingClassName));
-        return Optional.of(problem);
+        return potentiallyMissingClassName;
       }
     }
-    return Optional.empty();
+    return null;
   }
 
   private ImmutableList<LinkageProblem> findAbstractParentProblems(
@@ -565,31 +1012,34 @@ public class LinkageChecker {
 
     try {
       String className = classFile.getBinaryName();
-      JavaClass implementingClass = classDumper.loadJavaClass(className);
+      ClassSummary implementingClass = classDumper.loadClassSummary(className);
       if (implementingClass.isAbstract()) {
         return ImmutableList.of();
       }
 
-      JavaClass superClass = classDumper.loadJavaClass(superClassName);
+      ClassSummary superClass = classDumper.loadClassSummary(superClassName);
       if (!superClass.isAbstract()) {
         return ImmutableList.of();
       }
 
-      JavaClass abstractClass = superClass;
+      ClassSummary abstractClass = superClass;
 
-      // Equality of BCEL's Method class is on its name and descriptor field
-      Set<Method> implementedMethods = new HashSet<>();
-      implementedMethods.addAll(ImmutableList.copyOf(implementingClass.getMethods()));
+      // Methods are identified by their names and descriptors
+      Set<String> implementedMethods = new HashSet<>();
+      for (ClassSummary.Member method : implementingClass.getMethods()) {
+        implementedMethods.add(method.getName() + method.getDescriptor());
+      }
 
       while (abstractClass.isAbstract()) {
-        for (Method abstractMethod : abstractClass.getMethods()) {
+        for (ClassSummary.Member abstractMethod : abstractClass.getMethods()) {
+          String unimplementedMethodName = abstractMethod.getName();
+          String unimplementedMethodDescriptor = abstractMethod.getDescriptor();
           if (!abstractMethod.isAbstract()) {
             // This abstract method has implementation. Subclass does not have to implement it.
-            implementedMethods.add(abstractMethod);
-          } else if (!implementedMethods.contains(abstractMethod)) {
-            String unimplementedMethodName = abstractMethod.getName();
-            String unimplementedMethodDescriptor = abstractMethod.getSignature();
-  
+            implementedMethods.add(unimplementedMethodName + unimplementedMethodDescriptor);
+          } else if (!implementedMethods.contains(
+              unimplementedMethodName + unimplementedMethodDescriptor)) {
+
             MethodSymbol missingMethodOnClass =
                 new MethodSymbol(
                     className, unimplementedMethodName, unimplementedMethodDescriptor, false);
@@ -597,7 +1047,7 @@ public class LinkageChecker {
                 new AbstractMethodProblem(sourceClassFile, classFile, missingMethodOnClass));
           }
         }
-        abstractClass = abstractClass.getSuperClass();
+        abstractClass = classDumper.loadClassSummary(abstractClass.getSuperclassName());
       }
     } catch (ClassNotFoundException ex) {
       // Missing classes are reported by findLinkageProblem method.
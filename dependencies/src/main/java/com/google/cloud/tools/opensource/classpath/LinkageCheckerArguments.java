@@ -85,12 +85,40 @@ final class LinkageCheckerArguments {
 
     try {
       CommandLine commandLine = parser.parse(options, arguments);
+      if (commandLine.hasOption("t")) {
+        parsePositiveInt(commandLine.getOptionValue("t"), "The number of threads");
+      }
+      if (commandLine.hasOption("p")) {
+        parsePositiveInt(commandLine.getOptionValue("p"), "The maximum number of linkage errors");
+      }
+      if (commandLine.hasOption("jr")) {
+        parsePositiveInt(commandLine.getOptionValue("jr"), "The Java release");
+      }
       return new LinkageCheckerArguments(commandLine);
     } catch (IllegalArgumentException ex) {
       throw new ParseException("Invalid URL syntax in Maven repository URL" + ex.getMessage());
     }
   }
 
+  /**
+   * Returns the positive integer in {@code value}.
+   *
+   * @param name the name of the value in the error messages
+   * @throws ParseException if {@code value} is not an integer or not positive
+   */
+  private static int parsePositiveInt(String value, String name) throws ParseException {
+    int number;
+    try {
+      number = Integer.parseInt(value.trim());
+    } catch (NumberFormatException ex) {
+      throw new ParseException(name + " must be an integer: " + value);
+    }
+    if (number <= 0) {
+      throw new ParseException(name + " must be positive: " + value);
+    }
+    return number;
+  }
+
   private static Options configureOptions() {
     Options options = new Options();
 
@@ -179,6 +207,52 @@ final class LinkageCheckerArguments {
             .build();
     options.addOption(writeAsExclusionFile);
 
+    Option cacheDirectory =
+        Option.builder("c")
+            .longOpt("cache-directory")
+            .hasArg(true)
+            .desc(
+                "Directory to cache the symbol references of JAR files and the artifact"
+                    + " descriptors of Maven artifacts across runs, such as "
+                    + SymbolReferenceCache.defaultDirectory()
+                    + ". With --report-only-reachable, the symbol references are read from the"
+                    + " cache but not stored in it")
+            .build();
+    options.addOption(cacheDirectory);
+
+    Option threadCount =
+        Option.builder("t")
+            .longOpt("threads")
+            .hasArg(true)
+            .desc(
+                "Number of threads to read the JAR files in the class path and to check "
+                    + "the symbol references in them. The default is the number of available "
+                    + "processors")
+            .build();
+    options.addOption(threadCount);
+
+    Option maxProblems =
+        Option.builder("p")
+            .longOpt("max-problems")
+            .hasArg(true)
+            .desc(
+                "Stop the check after finding the specified number of linkage errors. 1 fails at "
+                    + "the first linkage error")
+            .build();
+    options.addOption(maxProblems);
+
+    Option javaRelease =
+        Option.builder("jr")
+            .longOpt("java-release")
+            .hasArg(true)
+            .desc(
+                "Java release to check the references to the Java runtime classes against, such as"
+                    + " 8. The check uses the public API of the release, as javac --release does,"
+                    + " so that it finds the same linkage errors in any Java runtime having the"
+                    + " release. The default is the classes of the Java runtime running the check")
+            .build();
+    options.addOption(javaRelease);
+
     options.addOptionGroup(inputGroup);
     return options;
   }
@@ -276,4 +350,48 @@ final class LinkageCheckerArguments {
     }
     return null;
   }
+
+  /**
+   * Returns the directory to cache the symbol references of JAR files and the artifact descriptors
+   * of Maven artifacts. If the argument is not specified, {@code null}.
+   */
+  Path getCacheDirectory() {
+    if (commandLine.hasOption("c")) {
+      return Paths.get(commandLine.getOptionValue("c"));
+    }
+    return null;
+  }
+
+  /**
+   * Returns the number of threads to read the JAR files in the class path and to check their
+   * symbol references. If the argument is not specified, the number of available processors.
+   */
+  int getThreadCount() {
+    if (commandLine.hasOption("t")) {
+      return Integer.parseInt(commandLine.getOptionValue("t").trim());
+    }
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * Returns the number of linkage errors to stop the check at. If the argument is not specified,
+   * {@link Integer#MAX_VALUE} to report all linkage errors.
+   */
+  int getMaxProblems() {
+    if (commandLine.hasOption("p")) {
+      return Integer.parseInt(commandLine.getOptionValue("p").trim());
+    }
+    return Integer.MAX_VALUE;
+  }
+
+  /**
+   * Returns the Java release to check the references to the Java runtime classes against. If the
+   * argument is not specified, {@code null} for the classes of the running Java runtime.
+   */
+  Integer getJavaRelease() {
+    if (commandLine.hasOption("jr")) {
+      return Integer.parseInt(commandLine.getOptionValue("jr").trim());
+    }
+    return null;
+  }
 }
@@ -16,8 +16,6 @@
 
 package com.google.cloud.tools.opensource.classpath;
 
-import static com.google.common.collect.ImmutableSet.toImmutableSet;
-
 import com.google.cloud.tools.opensource.dependencies.ArtifactProblem;
 import com.google.cloud.tools.opensource.dependencies.DependencyGraphBuilder;
 import com.google.common.collect.ImmutableList;
@@ -25,7 +23,9 @@ import com.google.common.collect.ImmutableSet;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.transform.TransformerException;
 import org.apache.commons.cli.ParseException;
@@ -77,6 +77,11 @@ class LinkageCheckerMain {
           // When a BOM or Maven artifacts are passed as arguments, resolve the dependencies.
           DependencyGraphBuilder dependencyGraphBuilder =
               new DependencyGraphBuilder(linkageCheckerArguments.getMavenRepositoryUrls());
+          Path cacheDirectory = linkageCheckerArguments.getCacheDirectory();
+          if (cacheDirectory != null) {
+            dependencyGraphBuilder.setArtifactDescriptorCacheDirectory(
+                cacheDirectory.resolve("artifact-descriptors"));
+          }
           ClassPathBuilder classPathBuilder = new ClassPathBuilder(dependencyGraphBuilder);
           classPathResult = classPathBuilder.resolve(artifacts, false);
           inputClassPath = classPathResult.getClassPath();
@@ -84,19 +89,37 @@ class LinkageCheckerMain {
           entryPoints = ImmutableSet.copyOf(inputClassPath.subList(0, artifacts.size()));
         }
 
-        LinkageChecker linkageChecker =
-            LinkageChecker.create(
-                inputClassPath, entryPoints, linkageCheckerArguments.getInputExclusionFile());
-        ImmutableSet<LinkageProblem> linkageProblems = linkageChecker.findLinkageProblems();
-
-        if (linkageCheckerArguments.getReportOnlyReachable()) {
-          ClassReferenceGraph graph = linkageChecker.getClassReferenceGraph();
-          linkageProblems =
-              linkageProblems.stream()
-                  .filter(
-                      (LinkageProblem problem) ->
-                          graph.isReachable(problem.getSourceClass().getBinaryName()))
-                  .collect(toImmutableSet());
+        // To report only the linkage errors in the classes reachable from the entry points, the
+        // unreachable classes are not read at all
+        ImmutableSet<LinkageProblem> linkageProblems;
+        boolean checkedWholeClassPath;
+        try (LinkageChecker linkageChecker =
+            linkageCheckerArguments.getReportOnlyReachable()
+                ? LinkageChecker.createForReachableClasses(
+                    inputClassPath,
+                    entryPoints,
+                    linkageCheckerArguments.getInputExclusionFile(),
+                    linkageCheckerArguments.getThreadCount(),
+                    linkageCheckerArguments.getCacheDirectory(),
+                    linkageCheckerArguments.getJavaRelease())
+                : LinkageChecker.create(
+                    inputClassPath,
+                    entryPoints,
+                    linkageCheckerArguments.getInputExclusionFile(),
+                    linkageCheckerArguments.getThreadCount(),
+                    linkageCheckerArguments.getCacheDirectory(),
+                    linkageCheckerArguments.getJavaRelease())) {
+          // The check stops at the maximum number of linkage errors, such as 1 to fail fast
+          int maxProblems = linkageCheckerArguments.getMaxProblems();
+          Set<LinkageProblem> foundProblems = new LinkedHashSet<>();
+          checkedWholeClassPath =
+              linkageChecker.findLinkageProblems(
+                  linkageCheckerArguments.getThreadCount(),
+                  problem -> {
+                    foundProblems.add(problem);
+                    return foundProblems.size() < maxProblems;
+                  });
+          linkageProblems = ImmutableSet.copyOf(foundProblems);
         }
 
         if (classPathResult != null) {
@@ -118,9 +141,11 @@ class LinkageCheckerMain {
           ImmutableSet.Builder<ClassPathEntry> problematicJars = ImmutableSet.builder();
           for (LinkageProblem linkageProblem : linkageProblems) {
             if (linkageProblem instanceof IncompatibleLinkageProblem) {
-              IncompatibleLinkageProblem incompatibleLinkageProblem =
-                  (IncompatibleLinkageProblem) linkageProblem;
-              problematicJars.add(incompatibleLinkageProblem.getTargetClass().getClassPathEntry());
+              ClassFile targetClass =
+                  ((IncompatibleLinkageProblem) linkageProblem).getTargetClass();
+              if (targetClass != null) {
+                problematicJars.add(targetClass.getClassPathEntry());
+              }
             }
             ClassFile sourceClassFile = linkageProblem.getSourceClass();
             problematicJars.add(sourceClassFile.getClassPathEntry());
@@ -136,6 +161,12 @@ class LinkageCheckerMain {
                   + "https://github.com/GoogleCloudPlatform/cloud-opensource-java/wiki/Linkage-Checker-Messages");
         }
 
+        if (!checkedWholeClassPath) {
+          System.out.println(
+              "Stopped the check at the maximum number of linkage errors: "
+                  + linkageCheckerArguments.getMaxProblems());
+        }
+
         if (!linkageProblems.isEmpty()) {
           // Throwing an exception is more test-friendly compared with System.exit(1). The latter
           // abruptly stops test execution.
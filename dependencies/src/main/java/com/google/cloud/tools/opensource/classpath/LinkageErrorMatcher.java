@@ -37,6 +37,16 @@ class LinkageErrorMatcher implements LinkageProblemMatcher {
     this.targetMatcher = checkNotNull(targetMatcher);
   }
 
+  @Nullable
+  SourceMatcher getSourceMatcher() {
+    return sourceMatcher;
+  }
+
+  @Nullable
+  TargetMatcher getTargetMatcher() {
+    return targetMatcher;
+  }
+
   /**
    * Returns true if {@link #sourceMatcher} matches if present and {@link #targetMatcher} matches if
    * present.
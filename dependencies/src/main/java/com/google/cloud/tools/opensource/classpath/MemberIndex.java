@@ -0,0 +1,172 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * The methods and fields that a class declares or inherits, indexed by their names and
+ * descriptors. With this index, {@link LinkageChecker} resolves a member reference with a hash
+ * lookup instead of scanning the members of the classes in the hierarchy for each reference.
+ *
+ * <p>When two classes in the hierarchy declare a member with the same name and descriptor, the
+ * index holds the first one in the order of the lookup: the class itself and its superclasses,
+ * then for methods the interfaces in the order of {@link
+ * ClassDumper#getAllInterfaces(ClassSummary)}.
+ */
+final class MemberIndex {
+
+  /** A member and the class that declares it. */
+  static final class ResolvedMember {
+    private final ClassSummary declaringClass;
+    private final ClassSummary.Member member;
+
+    private ResolvedMember(ClassSummary declaringClass, ClassSummary.Member member) {
+      this.declaringClass = checkNotNull(declaringClass);
+      this.member = checkNotNull(member);
+    }
+
+    ClassSummary getDeclaringClass() {
+      return declaringClass;
+    }
+
+    ClassSummary.Member getMember() {
+      return member;
+    }
+  }
+
+  /** Methods declared in the class and its superclasses. Keyed by name, then by descriptor. */
+  private final ImmutableMap<String, ImmutableMap<String, ResolvedMember>> classMethods;
+
+  /**
+   * Methods declared in the interfaces of the class. Keyed by name, then by descriptor. Null if an
+   * interface is missing in the class path.
+   */
+  @Nullable
+  private final ImmutableMap<String, ImmutableMap<String, ResolvedMember>> interfaceMethods;
+
+  /** Fields declared in the class and its superclasses. Keyed by name. */
+  private final ImmutableMap<String, ResolvedMember> fields;
+
+  private MemberIndex(
+      ImmutableMap<String, ImmutableMap<String, ResolvedMember>> classMethods,
+      @Nullable ImmutableMap<String, ImmutableMap<String, ResolvedMember>> interfaceMethods,
+      ImmutableMap<String, ResolvedMember> fields) {
+    this.classMethods = classMethods;
+    this.interfaceMethods = interfaceMethods;
+    this.fields = fields;
+  }
+
+  /**
+   * Returns the index of the members of {@code targetClass}, loading its superclasses and
+   * interfaces through {@code classDumper}. As in {@link
+   * ClassDumper#getClassHierarchy(ClassSummary)}, the superclasses stop at a missing class.
+   */
+  static MemberIndex create(ClassSummary targetClass, ClassDumper classDumper) {
+    Map<String, Map<String, ResolvedMember>> classMethods = new HashMap<>();
+    Map<String, ResolvedMember> fields = new HashMap<>();
+    for (ClassSummary javaClass : classDumper.getClassHierarchy(targetClass)) {
+      addMethods(javaClass, classMethods);
+      for (ClassSummary.Member field : javaClass.getFields()) {
+        fields.putIfAbsent(field.getName(), new ResolvedMember(javaClass, field));
+      }
+    }
+
+    ImmutableMap<String, ImmutableMap<String, ResolvedMember>> interfaceMethods;
+    try {
+      Map<String, Map<String, ResolvedMember>> methods = new HashMap<>();
+      for (ClassSummary interfaceClass : classDumper.getAllInterfaces(targetClass)) {
+        addMethods(interfaceClass, methods);
+      }
+      interfaceMethods = copyOf(methods);
+    } catch (ClassNotFoundException ex) {
+      interfaceMethods = null;
+    }
+
+    return new MemberIndex(copyOf(classMethods), interfaceMethods, ImmutableMap.copyOf(fields));
+  }
+
+  private static void addMethods(
+      ClassSummary javaClass, Map<String, Map<String, ResolvedMember>> methods) {
+    for (ClassSummary.Member method : javaClass.getMethods()) {
+      methods
+          .computeIfAbsent(method.getName(), name -> new HashMap<>())
+          .putIfAbsent(method.getDescriptor(), new ResolvedMember(javaClass, method));
+    }
+  }
+
+  private static ImmutableMap<String, ImmutableMap<String, ResolvedMember>> copyOf(
+      Map<String, Map<String, ResolvedMember>> methods) {
+    ImmutableMap.Builder<String, ImmutableMap<String, ResolvedMember>> builder =
+        ImmutableMap.builderWithExpectedSize(methods.size());
+    for (Map.Entry<String, Map<String, ResolvedMember>> entry : methods.entrySet()) {
+      builder.put(entry.getKey(), ImmutableMap.copyOf(entry.getValue()));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns the method of {@code name} and {@code descriptor} declared in the class, its
+   * superclasses, or its interfaces. Null if there is no such method.
+   *
+   * @throws ClassNotFoundException if the method is not in the class and its superclasses, and an
+   *     interface of the class is missing
+   */
+  @Nullable
+  ResolvedMember findMethod(String name, String descriptor) throws ClassNotFoundException {
+    ResolvedMember method = findClassMethod(name, descriptor);
+    if (method != null) {
+      return method;
+    }
+    if (interfaceMethods == null) {
+      throw new ClassNotFoundException("An interface is missing when resolving " + name);
+    }
+    return find(interfaceMethods, name, descriptor);
+  }
+
+  /**
+   * Returns the method of {@code name} and {@code descriptor} declared in the class or its
+   * superclasses. Null if there is no such method.
+   */
+  @Nullable
+  ResolvedMember findClassMethod(String name, String descriptor) {
+    return find(classMethods, name, descriptor);
+  }
+
+  @Nullable
+  private static ResolvedMember find(
+      ImmutableMap<String, ImmutableMap<String, ResolvedMember>> methods,
+      String name,
+      String descriptor) {
+    ImmutableMap<String, ResolvedMember> methodsWithName = methods.get(name);
+    return methodsWithName == null ? null : methodsWithName.get(descriptor);
+  }
+
+  /**
+   * Returns the field of {@code name} declared in the class or its superclasses. Null if there is
+   * no such field.
+   */
+  @Nullable
+  ResolvedMember findField(String name) {
+    return fields.get(name);
+  }
+}
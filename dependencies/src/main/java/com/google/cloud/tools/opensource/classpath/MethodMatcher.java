@@ -29,6 +29,14 @@ class MethodMatcher implements LinkageProblemTargetMatcher {
     this.methodName = checkNotNull(methodName);
   }
 
+  String getClassName() {
+    return className;
+  }
+
+  String getMethodName() {
+    return methodName;
+  }
+
   /** Returns true if {@code symbol} has {@link #methodName} of {@link #className}. */
   @Override
   public boolean match(Symbol symbol) {
@@ -32,6 +32,10 @@ class PackageMatcher implements LinkageProblemTargetMatcher, LinkageProblemSourc
     this.packageName = checkNotNull(packageName);
   }
 
+  String getPackageName() {
+    return packageName;
+  }
+
   @Override
   public boolean match(Symbol problem) {
     return problem.getClassBinaryName().startsWith(packageName + ".");
@@ -26,6 +26,10 @@ class SourceMatcher implements LinkageProblemMatcher {
     this.matcher = (LinkageProblemSourceMatcher) child;
   }
 
+  LinkageProblemSourceMatcher getMatcher() {
+    return matcher;
+  }
+
   @Override
   public boolean match(LinkageProblem problem) {
     return matcher.match(problem.getSourceClass());
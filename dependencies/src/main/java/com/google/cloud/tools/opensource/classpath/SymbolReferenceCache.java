@@ -0,0 +1,300 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import com.google.cloud.tools.opensource.dependencies.CacheDirectory;
+import com.google.cloud.tools.opensource.dependencies.CacheDirectory.EntryInputStream;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hashing;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+
+/**
+ * On-disk cache of the class file names and the symbol references of JAR files, so that Linkage
+ * Checker does not read the same JAR file again across runs.
+ *
+ * <p>A cache entry is a file keyed by the SHA-256 hash of the JAR file content and {@link
+ * #FORMAT_VERSION}. The entries are in a {@link CacheDirectory}, which deletes the least recently
+ * used entries when their total size exceeds the maximum size. The cache ignores and deletes
+ * corrupt entries.
+ *
+ * <p>This class is safe for use by multiple threads.
+ */
+final class SymbolReferenceCache {
+
+  private static final Logger logger = Logger.getLogger(SymbolReferenceCache.class.getName());
+
+  /** The version of the file format. Change this when the format or its content changes. */
+  @VisibleForTesting static final int FORMAT_VERSION = 1;
+
+  /** The default maximum total size of the cache entries: 1 GB. */
+  static final long DEFAULT_MAXIMUM_SIZE = 1L << 30;
+
+  private static final int MAGIC = 0x4C435352; // "LCSR"
+  private static final String SUFFIX = ".v" + FORMAT_VERSION;
+
+  private static final byte CLASS_SYMBOL = 0;
+  private static final byte SUPER_CLASS_SYMBOL = 1;
+  private static final byte INTERFACE_SYMBOL = 2;
+
+  private final CacheDirectory cacheDirectory;
+
+  /** Cache keys of JAR files. Hashing a JAR file once is enough during a run. */
+  private final Map<Path, String> keys = new ConcurrentHashMap<>();
+
+  @VisibleForTesting
+  SymbolReferenceCache(Path directory, long maximumSize) {
+    this.cacheDirectory = new CacheDirectory(directory, maximumSize);
+  }
+
+  /**
+   * Returns a cache in {@code directory} with the default maximum size. A directory that cannot be
+   * created makes the cache store nothing, rather than failing the caller.
+   */
+  static SymbolReferenceCache create(Path directory) {
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException ex) {
+      logger.log(Level.WARNING, "Could not create the symbol reference cache " + directory, ex);
+    }
+    return new SymbolReferenceCache(directory, DEFAULT_MAXIMUM_SIZE);
+  }
+
+  /** Returns the default cache directory {@code ~/.cache/linkage-checker}. */
+  static Path defaultDirectory() {
+    return Paths.get(System.getProperty("user.home"), ".cache", "linkage-checker");
+  }
+
+  /**
+   * Returns the cached symbol references of {@code entry}, or null if they are not in the cache
+   * or the cache entry is corrupt.
+   */
+  @Nullable
+  JarSymbolReferences load(ClassPathEntry entry) throws IOException {
+    return cacheDirectory.load(cacheFile(entry), input -> read(input, entry));
+  }
+
+  /** Stores the symbol references of {@code entry} to the cache. */
+  void store(ClassPathEntry entry, JarSymbolReferences jarSymbolReferences) throws IOException {
+    cacheDirectory.store(cacheFile(entry), output -> write(output, jarSymbolReferences));
+  }
+
+  /** Returns the cache entry file for {@code entry}. */
+  @VisibleForTesting
+  Path cacheFile(ClassPathEntry entry) throws IOException {
+    Path jar = entry.getJar();
+    String key = keys.get(jar);
+    if (key == null) {
+      key = com.google.common.io.Files.asByteSource(jar.toFile()).hash(Hashing.sha256()).toString();
+      keys.put(jar, key);
+    }
+    return cacheDirectory.resolve(key + SUFFIX);
+  }
+
+  /**
+   * Writes {@code jarSymbolReferences}. The strings are written once in a string table and the
+   * symbols refer to them by their indices.
+   */
+  private static void write(DataOutputStream output, JarSymbolReferences jarSymbolReferences)
+      throws IOException {
+    SymbolReferences symbolReferences = jarSymbolReferences.getSymbolReferences();
+    Map<String, Integer> stringTable = new LinkedHashMap<>();
+    for (String fileName : jarSymbolReferences.getFileNames()) {
+      stringTable.putIfAbsent(fileName, stringTable.size());
+    }
+    for (String name : jarSymbolReferences.getCorruptedFileNames()) {
+      stringTable.putIfAbsent(name, stringTable.size());
+    }
+    for (ClassFile classFile : symbolReferences.getClassFiles()) {
+      String className = classFile.getBinaryName();
+      stringTable.putIfAbsent(className, stringTable.size());
+      stringTable.putIfAbsent(jarSymbolReferences.getClassFileName(className), stringTable.size());
+      for (ClassSymbol classSymbol : symbolReferences.getClassSymbols(classFile)) {
+        stringTable.putIfAbsent(classSymbol.getClassBinaryName(), stringTable.size());
+      }
+      for (MethodSymbol methodSymbol : symbolReferences.getMethodSymbols(classFile)) {
+        stringTable.putIfAbsent(methodSymbol.getClassBinaryName(), stringTable.size());
+        stringTable.putIfAbsent(methodSymbol.getName(), stringTable.size());
+        stringTable.putIfAbsent(methodSymbol.getDescriptor(), stringTable.size());
+      }
+      for (FieldSymbol fieldSymbol : symbolReferences.getFieldSymbols(classFile)) {
+        stringTable.putIfAbsent(fieldSymbol.getClassBinaryName(), stringTable.size());
+        stringTable.putIfAbsent(fieldSymbol.getName(), stringTable.size());
+        stringTable.putIfAbsent(fieldSymbol.getDescriptor(), stringTable.size());
+      }
+    }
+
+    output.writeInt(MAGIC);
+    output.writeInt(FORMAT_VERSION);
+    output.writeInt(stringTable.size());
+    for (String string : stringTable.keySet()) {
+      output.writeUTF(string);
+    }
+
+    writeStrings(output, stringTable, jarSymbolReferences.getFileNames());
+    writeStrings(output, stringTable, jarSymbolReferences.getCorruptedFileNames());
+
+    output.writeInt(symbolReferences.getClassFiles().size());
+    for (ClassFile classFile : symbolReferences.getClassFiles()) {
+      String className = classFile.getBinaryName();
+      output.writeInt(stringTable.get(className));
+      output.writeInt(stringTable.get(jarSymbolReferences.getClassFileName(className)));
+
+      Set<ClassSymbol> classSymbols = symbolReferences.getClassSymbols(classFile);
+      output.writeInt(classSymbols.size());
+      for (ClassSymbol classSymbol : classSymbols) {
+        if (classSymbol instanceof SuperClassSymbol) {
+          output.writeByte(SUPER_CLASS_SYMBOL);
+        } else if (classSymbol instanceof InterfaceSymbol) {
+          output.writeByte(INTERFACE_SYMBOL);
+        } else {
+          output.writeByte(CLASS_SYMBOL);
+        }
+        output.writeInt(stringTable.get(classSymbol.getClassBinaryName()));
+      }
+
+      Set<MethodSymbol> methodSymbols = symbolReferences.getMethodSymbols(classFile);
+      output.writeInt(methodSymbols.size());
+      for (MethodSymbol methodSymbol : methodSymbols) {
+        output.writeInt(stringTable.get(methodSymbol.getClassBinaryName()));
+        output.writeInt(stringTable.get(methodSymbol.getName()));
+        output.writeInt(stringTable.get(methodSymbol.getDescriptor()));
+        output.writeBoolean(methodSymbol.isInterfaceMethod());
+      }
+
+      Set<FieldSymbol> fieldSymbols = symbolReferences.getFieldSymbols(classFile);
+      output.writeInt(fieldSymbols.size());
+      for (FieldSymbol fieldSymbol : fieldSymbols) {
+        output.writeInt(stringTable.get(fieldSymbol.getClassBinaryName()));
+        output.writeInt(stringTable.get(fieldSymbol.getName()));
+        output.writeInt(stringTable.get(fieldSymbol.getDescriptor()));
+      }
+    }
+    // Marks the end of a complete entry
+    output.writeInt(MAGIC);
+  }
+
+  private static void writeStrings(
+      DataOutputStream output, Map<String, Integer> stringTable, Collection<String> strings)
+      throws IOException {
+    output.writeInt(strings.size());
+    for (String string : strings) {
+      output.writeInt(stringTable.get(string));
+    }
+  }
+
+  /**
+   * Reads the symbol references written by {@link #write(DataOutputStream, JarSymbolReferences)}
+   * with {@code entry} as the location of the classes.
+   *
+   * @throws IOException if the content is not a valid cache entry
+   */
+  private static JarSymbolReferences read(EntryInputStream input, ClassPathEntry entry)
+      throws IOException {
+    if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+      throw new IOException("Unexpected header");
+    }
+    // A string takes at least 2 bytes for its length
+    String[] strings = new String[input.readCount(2)];
+    for (int i = 0; i < strings.length; i++) {
+      strings[i] = input.readUTF();
+    }
+
+    ImmutableSet<String> fileNames = ImmutableSet.copyOf(readStrings(input, strings));
+    ImmutableList<String> corruptedFileNames = readStrings(input, strings);
+
+    SymbolReferences.Builder builder = new SymbolReferences.Builder();
+    ImmutableMap.Builder<String, String> classFileNames = ImmutableMap.builder();
+    // A class file takes at least 5 ints: its names and the counts of its 3 kinds of symbols
+    int classFileCount = input.readCount(20);
+    for (int i = 0; i < classFileCount; i++) {
+      String className = strings[input.readInt()];
+      String classFileName = strings[input.readInt()];
+      if (!className.equals(classFileName)) {
+        classFileNames.put(className, classFileName);
+      }
+      ClassFile source = new ClassFile(entry, className);
+
+      int classSymbolCount = input.readCount(5);
+      for (int j = 0; j < classSymbolCount; j++) {
+        byte kind = input.readByte();
+        String targetClassName = strings[input.readInt()];
+        switch (kind) {
+          case SUPER_CLASS_SYMBOL:
+            builder.addClassReference(source, new SuperClassSymbol(targetClassName));
+            break;
+          case INTERFACE_SYMBOL:
+            builder.addClassReference(source, new InterfaceSymbol(targetClassName));
+            break;
+          case CLASS_SYMBOL:
+            builder.addClassReference(source, new ClassSymbol(targetClassName));
+            break;
+          default:
+            throw new IOException("Unexpected class symbol kind " + kind);
+        }
+      }
+
+      int methodSymbolCount = input.readCount(13);
+      for (int j = 0; j < methodSymbolCount; j++) {
+        String targetClassName = strings[input.readInt()];
+        String methodName = strings[input.readInt()];
+        String descriptor = strings[input.readInt()];
+        boolean isInterfaceMethod = input.readBoolean();
+        builder.addMethodReference(
+            source, new MethodSymbol(targetClassName, methodName, descriptor, isInterfaceMethod));
+      }
+
+      int fieldSymbolCount = input.readCount(12);
+      for (int j = 0; j < fieldSymbolCount; j++) {
+        String targetClassName = strings[input.readInt()];
+        String fieldName = strings[input.readInt()];
+        String descriptor = strings[input.readInt()];
+        builder.addFieldReference(source, new FieldSymbol(targetClassName, fieldName, descriptor));
+      }
+    }
+    if (input.readInt() != MAGIC) {
+      throw new IOException("Unexpected end of cache entry");
+    }
+
+    return new JarSymbolReferences(
+        fileNames, classFileNames.build(), builder.build(), corruptedFileNames);
+  }
+
+  private static ImmutableList<String> readStrings(EntryInputStream input, String[] strings)
+      throws IOException {
+    int count = input.readCount(4);
+    ImmutableList.Builder<String> builder = ImmutableList.builder();
+    for (int i = 0; i < count; i++) {
+      builder.add(strings[input.readInt()]);
+    }
+    return builder.build();
+  }
+}
@@ -18,91 +18,334 @@ package com.google.cloud.tools.opensource.classpath;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.UnmodifiableIterator;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * The symbol references found in class files.
+ *
+ * <p>The symbols are interned in a {@link SymbolTable}. For each class file, the IDs of the symbols
+ * it references are stored as a range in a flat int array, in the order of the class files. The
+ * getters return unmodifiable views of these ranges, not copies.
  */
 class SymbolReferences {
   
   // TODO this is still wonky. A ClassFile should have symbol references,
   // not be mapped to symbol references
   
-  private final ImmutableSetMultimap<ClassFile, ClassSymbol> classToClassSymbols;
-  private final ImmutableSetMultimap<ClassFile, MethodSymbol> classToMethodSymbols;
-  private final ImmutableSetMultimap<ClassFile, FieldSymbol> classToFieldSymbols;
   private final ImmutableSet<ClassFile> classFiles;
 
-  ImmutableSet<MethodSymbol> getMethodSymbols(ClassFile classFile) {
-    return classToMethodSymbols.get(classFile);
+  /** Indices of the class files that reference symbols, into the offset arrays. */
+  private final ImmutableMap<ClassFile, Integer> sourceIndices;
+
+  private final SymbolTable symbolTable;
+
+  // The symbol IDs for the source at index i are at [offsets[i], offsets[i + 1]) of the ID arrays
+  private final int[] classSymbolOffsets;
+  private final int[] classSymbolIds;
+  private final int[] methodSymbolOffsets;
+  private final int[] methodSymbolIds;
+  private final int[] fieldSymbolOffsets;
+  private final int[] fieldSymbolIds;
+
+  Set<MethodSymbol> getMethodSymbols(ClassFile classFile) {
+    return getSymbols(classFile, methodSymbolOffsets, methodSymbolIds);
   }
 
   ImmutableSet<ClassFile> getClassFiles() {
     return this.classFiles;
   }
 
-  ImmutableSet<FieldSymbol> getFieldSymbols(ClassFile classFile) {
-    return classToFieldSymbols.get(classFile);
+  Set<FieldSymbol> getFieldSymbols(ClassFile classFile) {
+    return getSymbols(classFile, fieldSymbolOffsets, fieldSymbolIds);
   }
 
-  ImmutableSet<ClassSymbol> getClassSymbols(ClassFile classFile) {
-    return classToClassSymbols.get(classFile);
+  Set<ClassSymbol> getClassSymbols(ClassFile classFile) {
+    return getSymbols(classFile, classSymbolOffsets, classSymbolIds);
+  }
+
+  private <T extends Symbol> Set<T> getSymbols(
+      ClassFile classFile, int[] offsets, int[] symbolIds) {
+    Integer index = sourceIndices.get(classFile);
+    if (index == null) {
+      return ImmutableSet.of();
+    }
+    return new SymbolSet<>(symbolTable, symbolIds, offsets[index], offsets[index + 1]);
+  }
+
+  /**
+   * Unmodifiable view of the symbols at {@code [start, end)} of an ID array. The builder removes
+   * duplicate IDs in a range, so that the view is a set.
+   */
+  private static final class SymbolSet<T extends Symbol> extends AbstractSet<T> {
+    private final SymbolTable symbolTable;
+    private final int[] symbolIds;
+    private final int start;
+    private final int end;
+
+    private SymbolSet(SymbolTable symbolTable, int[] symbolIds, int start, int end) {
+      this.symbolTable = symbolTable;
+      this.symbolIds = symbolIds;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+      return new UnmodifiableIterator<T>() {
+        private int next = start;
+
+        @Override
+        public boolean hasNext() {
+          return next < end;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+          if (next >= end) {
+            throw new NoSuchElementException();
+          }
+          return (T) symbolTable.getSymbol(symbolIds[next++]);
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return end - start;
+    }
+
+    @Override
+    public boolean contains(Object object) {
+      for (int i = start; i < end; i++) {
+        if (symbolTable.matches(symbolIds[i], object)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Compares the symbols by their IDs without creating them. The IDs of the two sets may come
+     * from different symbol tables, so both are sorted by the content of their symbols.
+     */
+    @Override
+    public boolean equals(Object object) {
+      if (this == object) {
+        return true;
+      }
+      if (!(object instanceof SymbolSet)) {
+        return super.equals(object);
+      }
+      SymbolSet<?> that = (SymbolSet<?>) object;
+      if (size() != that.size()) {
+        return false;
+      }
+      Integer[] ids = sortedIds();
+      Integer[] thatIds = that.sortedIds();
+      for (int i = 0; i < ids.length; i++) {
+        if (symbolTable.compare(ids[i], that.symbolTable, thatIds[i]) != 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /** The sum of the hash codes of the symbols, as {@link Set#hashCode()} specifies. */
+    @Override
+    public int hashCode() {
+      return super.hashCode();
+    }
+
+    /** Returns the IDs in this set, sorted by the content of their symbols. */
+    private Integer[] sortedIds() {
+      Integer[] ids = new Integer[size()];
+      for (int i = start; i < end; i++) {
+        ids[i - start] = symbolIds[i];
+      }
+      Arrays.sort(ids, (id1, id2) -> symbolTable.compare(id1, symbolTable, id2));
+      return ids;
+    }
   }
 
   private SymbolReferences(
       ImmutableSet<ClassFile> classFiles,
-      ImmutableSetMultimap<ClassFile, ClassSymbol> classToClassSymbols,
-      ImmutableSetMultimap<ClassFile, MethodSymbol> classToMethodSymbols,
-      ImmutableSetMultimap<ClassFile, FieldSymbol> classToFieldSymbols) {
-    this.classToClassSymbols = checkNotNull(classToClassSymbols);
-    this.classToMethodSymbols = checkNotNull(classToMethodSymbols);
-    this.classToFieldSymbols = checkNotNull(classToFieldSymbols);
+      ImmutableMap<ClassFile, Integer> sourceIndices,
+      SymbolTable symbolTable,
+      int[] classSymbolOffsets,
+      int[] classSymbolIds,
+      int[] methodSymbolOffsets,
+      int[] methodSymbolIds,
+      int[] fieldSymbolOffsets,
+      int[] fieldSymbolIds) {
     this.classFiles = checkNotNull(classFiles);
+    this.sourceIndices = checkNotNull(sourceIndices);
+    this.symbolTable = checkNotNull(symbolTable);
+    this.classSymbolOffsets = classSymbolOffsets;
+    this.classSymbolIds = classSymbolIds;
+    this.methodSymbolOffsets = methodSymbolOffsets;
+    this.methodSymbolIds = methodSymbolIds;
+    this.fieldSymbolOffsets = fieldSymbolOffsets;
+    this.fieldSymbolIds = fieldSymbolIds;
   }
 
   static class Builder {
-    private final ImmutableSetMultimap.Builder<ClassFile, ClassSymbol> classToClassSymbols;
-    private final ImmutableSetMultimap.Builder<ClassFile, MethodSymbol> classToMethodSymbols;
-    private final ImmutableSetMultimap.Builder<ClassFile, FieldSymbol> classToFieldSymbols;
-    private final ImmutableSet.Builder<ClassFile> classFiles = ImmutableSet.builder();
-
-    Builder() {
-      classToClassSymbols = ImmutableSetMultimap.builder();
-      classToMethodSymbols = ImmutableSetMultimap.builder();
-      classToFieldSymbols = ImmutableSetMultimap.builder();
-    }
+    private final SymbolTable.Builder symbolTable = new SymbolTable.Builder();
+    private final Map<ClassFile, SourceReferences> sources = new LinkedHashMap<>();
+    private final Set<ClassFile> classFiles = new LinkedHashSet<>();
 
     Builder addClassReference(ClassFile source, ClassSymbol symbol) {
-      classToClassSymbols.put(source, symbol);
+      sourceReferences(source).classSymbolIds.add(symbolTable.intern(symbol));
       classFiles.add(source);
       return this;
     }
 
     Builder addMethodReference(ClassFile source, MethodSymbol symbol) {
-      classToMethodSymbols.put(source, symbol);
+      sourceReferences(source).methodSymbolIds.add(symbolTable.intern(symbol));
       classFiles.add(source);
       return this;
     }
 
     Builder addFieldReference(ClassFile source, FieldSymbol symbol) {
-      classToFieldSymbols.put(source, symbol);
+      sourceReferences(source).fieldSymbolIds.add(symbolTable.intern(symbol));
       return this;
     }
 
+    private SourceReferences sourceReferences(ClassFile source) {
+      return sources.computeIfAbsent(checkNotNull(source), unused -> new SourceReferences());
+    }
+
     SymbolReferences build() {
-      return new SymbolReferences(classFiles.build(),
-          classToClassSymbols.build(), classToMethodSymbols.build(), classToFieldSymbols.build());
+      int sourceCount = sources.size();
+      ImmutableMap.Builder<ClassFile, Integer> sourceIndices = ImmutableMap.builder();
+      int[] classSymbolOffsets = new int[sourceCount + 1];
+      int[] methodSymbolOffsets = new int[sourceCount + 1];
+      int[] fieldSymbolOffsets = new int[sourceCount + 1];
+
+      // The index of the last source that added each symbol, to skip duplicate references
+      int[] lastSources = new int[symbolTable.size()];
+      Arrays.fill(lastSources, -1);
+      int index = 0;
+      for (Map.Entry<ClassFile, SourceReferences> entry : sources.entrySet()) {
+        sourceIndices.put(entry.getKey(), index);
+        SourceReferences references = entry.getValue();
+        // The IDs of different kinds of symbols never overlap
+        references.classSymbolIds.removeDuplicates(lastSources, index);
+        references.methodSymbolIds.removeDuplicates(lastSources, index);
+        references.fieldSymbolIds.removeDuplicates(lastSources, index);
+        classSymbolOffsets[index + 1] =
+            classSymbolOffsets[index] + references.classSymbolIds.size;
+        methodSymbolOffsets[index + 1] =
+            methodSymbolOffsets[index] + references.methodSymbolIds.size;
+        fieldSymbolOffsets[index + 1] =
+            fieldSymbolOffsets[index] + references.fieldSymbolIds.size;
+        index++;
+      }
+
+      int[] classSymbolIds = new int[classSymbolOffsets[sourceCount]];
+      int[] methodSymbolIds = new int[methodSymbolOffsets[sourceCount]];
+      int[] fieldSymbolIds = new int[fieldSymbolOffsets[sourceCount]];
+      index = 0;
+      for (SourceReferences references : sources.values()) {
+        references.classSymbolIds.copyTo(classSymbolIds, classSymbolOffsets[index]);
+        references.methodSymbolIds.copyTo(methodSymbolIds, methodSymbolOffsets[index]);
+        references.fieldSymbolIds.copyTo(fieldSymbolIds, fieldSymbolOffsets[index]);
+        index++;
+      }
+
+      return new SymbolReferences(
+          ImmutableSet.copyOf(classFiles),
+          sourceIndices.build(),
+          symbolTable.build(),
+          classSymbolOffsets,
+          classSymbolIds,
+          methodSymbolOffsets,
+          methodSymbolIds,
+          fieldSymbolOffsets,
+          fieldSymbolIds);
     }
 
     Builder addAll(Builder other) {
-      classToClassSymbols.putAll(other.classToClassSymbols.build());
-      classToMethodSymbols.putAll(other.classToMethodSymbols.build());
-      classToFieldSymbols.putAll(other.classToFieldSymbols.build());
-      classFiles.addAll(other.classFiles.build());
+      // The IDs of the symbols in this builder, indexed by the IDs in the other builder
+      int[] symbolIds = new int[other.symbolTable.size()];
+      Arrays.fill(symbolIds, -1);
+
+      for (Map.Entry<ClassFile, SourceReferences> entry : other.sources.entrySet()) {
+        SourceReferences otherReferences = entry.getValue();
+        SourceReferences references = sourceReferences(entry.getKey());
+        addAll(other, otherReferences.classSymbolIds, references.classSymbolIds, symbolIds);
+        addAll(other, otherReferences.methodSymbolIds, references.methodSymbolIds, symbolIds);
+        addAll(other, otherReferences.fieldSymbolIds, references.fieldSymbolIds, symbolIds);
+      }
+      classFiles.addAll(other.classFiles);
       return this;
     }
+
+    private void addAll(Builder other, IdList otherSymbolIds, IdList destination, int[] symbolIds) {
+      for (int i = 0; i < otherSymbolIds.size; i++) {
+        int otherSymbolId = otherSymbolIds.ids[i];
+        if (symbolIds[otherSymbolId] < 0) {
+          symbolIds[otherSymbolId] = symbolTable.intern(other.symbolTable.getSymbol(otherSymbolId));
+        }
+        destination.add(symbolIds[otherSymbolId]);
+      }
+    }
+  }
+
+  /**
+   * The IDs of the symbols that a class file references, in the order of addition. They may have
+   * duplicates until {@link Builder#build()}.
+   */
+  private static final class SourceReferences {
+    private final IdList classSymbolIds = new IdList();
+    private final IdList methodSymbolIds = new IdList();
+    private final IdList fieldSymbolIds = new IdList();
+  }
+
+  /** Growable list of symbol IDs, avoiding a boxed {@link Integer} for each reference. */
+  private static final class IdList {
+    private static final int[] EMPTY = new int[0];
+
+    private int[] ids = EMPTY;
+    private int size;
+
+    void add(int id) {
+      if (size == ids.length) {
+        ids = Arrays.copyOf(ids, Math.max(8, size * 2));
+      }
+      ids[size++] = id;
+    }
+
+    /**
+     * Removes the IDs that {@code source} already added, as recorded in {@code lastSources}, and
+     * records the rest. This keeps the first occurrence of each ID.
+     */
+    void removeDuplicates(int[] lastSources, int source) {
+      int newSize = 0;
+      for (int i = 0; i < size; i++) {
+        int id = ids[i];
+        if (lastSources[id] != source) {
+          lastSources[id] = source;
+          ids[newSize++] = id;
+        }
+      }
+      size = newSize;
+    }
+
+    void copyTo(int[] destination, int offset) {
+      System.arraycopy(ids, 0, destination, offset, size);
+    }
   }
 
   @Override
@@ -114,13 +357,30 @@ class SymbolReferences {
       return false;
     }
     SymbolReferences that = (SymbolReferences) other;
-    return classToClassSymbols.equals(that.classToClassSymbols)
-        && classToMethodSymbols.equals(that.classToMethodSymbols)
-        && classToFieldSymbols.equals(that.classToFieldSymbols);
+    if (!sourceIndices.keySet().equals(that.sourceIndices.keySet())) {
+      return false;
+    }
+    for (ClassFile source : sourceIndices.keySet()) {
+      if (!getClassSymbols(source).equals(that.getClassSymbols(source))
+          || !getMethodSymbols(source).equals(that.getMethodSymbols(source))
+          || !getFieldSymbols(source).equals(that.getFieldSymbols(source))) {
+        return false;
+      }
+    }
+    return true;
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(classToClassSymbols, classToMethodSymbols, classToFieldSymbols);
+    int hashCode = 0;
+    for (ClassFile source : sourceIndices.keySet()) {
+      hashCode +=
+          Objects.hash(
+              source,
+              getClassSymbols(source),
+              getMethodSymbols(source),
+              getFieldSymbols(source));
+    }
+    return hashCode;
   }
 }
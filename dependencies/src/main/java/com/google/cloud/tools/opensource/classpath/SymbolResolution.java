@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.MoreObjects;
+import javax.annotation.Nullable;
+
+/**
+ * The result of resolving a symbol reference in the class path. Except for protected members,
+ * the result depends only on the symbol and the package of the source class, not on the source
+ * class itself. Therefore {@link LinkageChecker} resolves a symbol once for the source classes in
+ * the same package, and then checks what depends on each source class, such as whether the source
+ * class catches {@link LinkageError}.
+ */
+final class SymbolResolution {
+
+  enum Result {
+    /** The symbol is found and accessible. */
+    RESOLVED,
+
+    /** The class of the symbol is not found. */
+    CLASS_NOT_FOUND,
+
+    /** A superclass or an interface of the class of the symbol is not found. */
+    PARENT_CLASS_NOT_FOUND,
+
+    /** The class of the symbol is not accessible. */
+    INACCESSIBLE_CLASS,
+
+    /** The class of the symbol is a class where an interface is expected, or vice versa. */
+    INCOMPATIBLE_CLASS_CHANGE,
+
+    /** The class is found but the method or the field is not. */
+    SYMBOL_NOT_FOUND,
+
+    /** The method or the field is not accessible. */
+    INACCESSIBLE_MEMBER,
+
+    /**
+     * The method or the field is protected and declared in a class in another package. It is
+     * accessible only from the subclasses of the declaring class.
+     */
+    PROTECTED_MEMBER
+  }
+
+  static final SymbolResolution RESOLVED = new SymbolResolution(Result.RESOLVED, null);
+  static final SymbolResolution CLASS_NOT_FOUND =
+      new SymbolResolution(Result.CLASS_NOT_FOUND, null);
+  static final SymbolResolution INACCESSIBLE_CLASS =
+      new SymbolResolution(Result.INACCESSIBLE_CLASS, null);
+  static final SymbolResolution INCOMPATIBLE_CLASS_CHANGE =
+      new SymbolResolution(Result.INCOMPATIBLE_CLASS_CHANGE, null);
+  static final SymbolResolution SYMBOL_NOT_FOUND =
+      new SymbolResolution(Result.SYMBOL_NOT_FOUND, null);
+  static final SymbolResolution INACCESSIBLE_MEMBER =
+      new SymbolResolution(Result.INACCESSIBLE_MEMBER, null);
+
+  private final Result result;
+  @Nullable private final String className;
+
+  private SymbolResolution(Result result, @Nullable String className) {
+    this.result = result;
+    this.className = className;
+  }
+
+  /** Returns the resolution for the missing parent class {@code className}. */
+  static SymbolResolution parentClassNotFound(String className) {
+    return new SymbolResolution(Result.PARENT_CLASS_NOT_FOUND, checkNotNull(className));
+  }
+
+  /** Returns the resolution for a protected member declared in {@code declaringClassName}. */
+  static SymbolResolution protectedMember(String declaringClassName) {
+    return new SymbolResolution(Result.PROTECTED_MEMBER, checkNotNull(declaringClassName));
+  }
+
+  Result getResult() {
+    return result;
+  }
+
+  /**
+   * Returns the missing class name for {@link Result#PARENT_CLASS_NOT_FOUND} or the declaring
+   * class name for {@link Result#PROTECTED_MEMBER}. Null for the other results.
+   */
+  @Nullable
+  String getClassName() {
+    return className;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("result", result)
+        .add("className", className)
+        .omitNullValues()
+        .toString();
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interned {@link Symbol}s identified by dense int IDs. Class names, member names and descriptors
+ * are stored once in a string pool, and each symbol is a row of int indices into the pool. This
+ * keeps the symbol references of a large class path compact, because the same symbols (such as
+ * {@code java.lang.String}'s methods) are referenced from many classes.
+ *
+ * <p>{@link #getSymbol(int)} creates a new {@link Symbol} instance on every call and does not keep
+ * it, so that the table stays compact after callers iterate all symbol references. {@link
+ * #matches(int, Object)} and {@link #compare(int, SymbolTable, int)} work on the IDs without
+ * creating symbols.
+ */
+final class SymbolTable {
+
+  private static final byte CLASS = 0;
+  private static final byte SUPER_CLASS = 1;
+  private static final byte INTERFACE = 2;
+  private static final byte METHOD = 3;
+  private static final byte INTERFACE_METHOD = 4;
+  private static final byte FIELD = 5;
+
+  /** Index for the name and descriptor of class symbols, which do not have them. */
+  private static final int NONE = -1;
+
+  private final String[] strings;
+  private final byte[] kinds;
+  private final int[] classNames;
+  private final int[] memberNames;
+  private final int[] descriptors;
+
+  private SymbolTable(
+      String[] strings, byte[] kinds, int[] classNames, int[] memberNames, int[] descriptors) {
+    this.strings = strings;
+    this.kinds = kinds;
+    this.classNames = classNames;
+    this.memberNames = memberNames;
+    this.descriptors = descriptors;
+  }
+
+  /** Returns the number of symbols in this table. */
+  int size() {
+    return kinds.length;
+  }
+
+  /** Returns a new symbol of {@code id}. */
+  Symbol getSymbol(int id) {
+    String className = strings[classNames[id]];
+    switch (kinds[id]) {
+      case CLASS:
+        return new ClassSymbol(className);
+      case SUPER_CLASS:
+        return new SuperClassSymbol(className);
+      case INTERFACE:
+        return new InterfaceSymbol(className);
+      case METHOD:
+        return new MethodSymbol(
+            className, strings[memberNames[id]], strings[descriptors[id]], false);
+      case INTERFACE_METHOD:
+        return new MethodSymbol(
+            className, strings[memberNames[id]], strings[descriptors[id]], true);
+      case FIELD:
+        return new FieldSymbol(className, strings[memberNames[id]], strings[descriptors[id]]);
+      default:
+        throw new IllegalStateException("Unexpected symbol kind " + kinds[id]);
+    }
+  }
+
+  /** Returns true if the symbol of {@code id} is equal to {@code object}. */
+  boolean matches(int id, Object object) {
+    if (!(object instanceof Symbol)) {
+      return false;
+    }
+    Symbol symbol = (Symbol) object;
+    if (kinds[id] != kindOf(symbol)
+        || !strings[classNames[id]].equals(symbol.getClassBinaryName())) {
+      return false;
+    }
+    if (symbol instanceof MethodSymbol) {
+      MethodSymbol methodSymbol = (MethodSymbol) symbol;
+      return strings[memberNames[id]].equals(methodSymbol.getName())
+          && strings[descriptors[id]].equals(methodSymbol.getDescriptor());
+    } else if (symbol instanceof FieldSymbol) {
+      FieldSymbol fieldSymbol = (FieldSymbol) symbol;
+      return strings[memberNames[id]].equals(fieldSymbol.getName())
+          && strings[descriptors[id]].equals(fieldSymbol.getDescriptor());
+    }
+    return true;
+  }
+
+  /**
+   * Compares the symbol of {@code id} with the symbol of {@code otherId} in {@code other}. The
+   * result is 0 if and only if the symbols are equal.
+   */
+  int compare(int id, SymbolTable other, int otherId) {
+    int result = Byte.compare(kinds[id], other.kinds[otherId]);
+    if (result == 0) {
+      result = strings[classNames[id]].compareTo(other.strings[other.classNames[otherId]]);
+    }
+    if (result == 0 && memberNames[id] != NONE) {
+      result = strings[memberNames[id]].compareTo(other.strings[other.memberNames[otherId]]);
+    }
+    if (result == 0 && descriptors[id] != NONE) {
+      result = strings[descriptors[id]].compareTo(other.strings[other.descriptors[otherId]]);
+    }
+    return result;
+  }
+
+  private static byte kindOf(Symbol symbol) {
+    if (symbol instanceof SuperClassSymbol) {
+      return SUPER_CLASS;
+    } else if (symbol instanceof InterfaceSymbol) {
+      return INTERFACE;
+    } else if (symbol instanceof ClassSymbol) {
+      return CLASS;
+    } else if (symbol instanceof MethodSymbol) {
+      return ((MethodSymbol) symbol).isInterfaceMethod() ? INTERFACE_METHOD : METHOD;
+    } else if (symbol instanceof FieldSymbol) {
+      return FIELD;
+    }
+    throw new IllegalArgumentException("Unexpected symbol " + symbol);
+  }
+
+  /** Builder of {@link SymbolTable}. This class is not thread-safe. */
+  static final class Builder {
+    private final Map<Symbol, Integer> ids = new HashMap<>();
+    private final List<Symbol> symbols = new ArrayList<>();
+
+    /** Returns the ID of {@code symbol}, adding it to the table if it is not there yet. */
+    int intern(Symbol symbol) {
+      Integer id = ids.get(checkNotNull(symbol));
+      if (id == null) {
+        id = symbols.size();
+        ids.put(symbol, id);
+        symbols.add(symbol);
+      }
+      return id;
+    }
+
+    /** Returns the symbol of {@code id} in this builder. */
+    Symbol getSymbol(int id) {
+      return symbols.get(id);
+    }
+
+    int size() {
+      return symbols.size();
+    }
+
+    SymbolTable build() {
+      int size = symbols.size();
+      byte[] kinds = new byte[size];
+      int[] classNames = new int[size];
+      int[] memberNames = new int[size];
+      int[] descriptors = new int[size];
+      Map<String, Integer> stringIds = new HashMap<>();
+      List<String> strings = new ArrayList<>();
+
+      for (int id = 0; id < size; id++) {
+        Symbol symbol = symbols.get(id);
+        kinds[id] = kindOf(symbol);
+        classNames[id] = internString(symbol.getClassBinaryName(), stringIds, strings);
+        memberNames[id] = NONE;
+        descriptors[id] = NONE;
+        if (symbol instanceof MethodSymbol) {
+          MethodSymbol methodSymbol = (MethodSymbol) symbol;
+          memberNames[id] = internString(methodSymbol.getName(), stringIds, strings);
+          descriptors[id] = internString(methodSymbol.getDescriptor(), stringIds, strings);
+        } else if (symbol instanceof FieldSymbol) {
+          FieldSymbol fieldSymbol = (FieldSymbol) symbol;
+          memberNames[id] = internString(fieldSymbol.getName(), stringIds, strings);
+          descriptors[id] = internString(fieldSymbol.getDescriptor(), stringIds, strings);
+        }
+      }
+
+      return new SymbolTable(
+          strings.toArray(new String[0]), kinds, classNames, memberNames, descriptors);
+    }
+
+    private static int internString(
+        String string, Map<String, Integer> stringIds, List<String> strings) {
+      Integer id = stringIds.get(string);
+      if (id == null) {
+        id = strings.size();
+        stringIds.put(string, id);
+        strings.add(string);
+      }
+      return id;
+    }
+  }
+}
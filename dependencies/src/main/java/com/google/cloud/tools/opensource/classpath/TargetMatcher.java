@@ -26,6 +26,10 @@ class TargetMatcher implements LinkageProblemMatcher {
     this.matcher = child;
   }
 
+  LinkageProblemTargetMatcher getMatcher() {
+    return matcher;
+  }
+
   @Override
   public boolean match(LinkageProblem problem) {
     return matcher.match(problem.getSymbol());
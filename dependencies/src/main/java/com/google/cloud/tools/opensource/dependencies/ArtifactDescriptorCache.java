@@ -0,0 +1,548 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.dependencies;
+
+import com.google.cloud.tools.opensource.dependencies.CacheDirectory.EntryInputStream;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+import org.apache.maven.model.Parent;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.Exclusion;
+import org.eclipse.aether.repository.ArtifactRepository;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.LocalRepositoryManager;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.repository.RepositoryPolicy;
+import org.eclipse.aether.resolution.ArtifactDescriptorRequest;
+import org.eclipse.aether.resolution.ArtifactDescriptorResult;
+
+/**
+ * On-disk cache of the artifact descriptors (the effective dependencies, managed dependencies,
+ * relocations, and repositories of pom.xml files), so that Maven does not build the same models
+ * again across runs.
+ *
+ * <p>A cache entry is a file keyed by the SHA-256 hash of the artifact coordinates, the remote
+ * repositories of the request, the session properties that affect model building, and {@link
+ * #FORMAT_VERSION}. The cache holds descriptors of release versions only, because the content of
+ * a SNAPSHOT version changes over time. For the same reason, the descriptor of an artifact that
+ * inherits from a SNAPSHOT parent POM is not cached. The files of the artifacts in the local
+ * repository are stored relative to it, so that the entries remain valid for another local
+ * repository.
+ *
+ * <p>The entries are in a {@link CacheDirectory}, which deletes the least recently used entries
+ * when their total size exceeds the maximum size. The cache ignores and deletes corrupt entries.
+ *
+ * <p>This class is safe for use by multiple threads.
+ */
+final class ArtifactDescriptorCache {
+
+  private static final Logger logger = Logger.getLogger(ArtifactDescriptorCache.class.getName());
+
+  /** The key of the session configuration property that holds the cache. */
+  static final String CONFIG_PROPERTY = ArtifactDescriptorCache.class.getName();
+
+  /** The version of the file format. Change this when the format or its content changes. */
+  @VisibleForTesting static final int FORMAT_VERSION = 2;
+
+  /** The default maximum total size of the cache entries: 256 MB. */
+  static final long DEFAULT_MAXIMUM_SIZE = 256L << 20;
+
+  /** Properties used in profile activation and interpolation of pom.xml files. */
+  private static final ImmutableList<String> KEY_PROPERTIES =
+      ImmutableList.of(
+          "os.detected.name",
+          "os.detected.arch",
+          "os.detected.classifier",
+          "os.name",
+          "os.arch",
+          "java.version");
+
+  private static final int MAGIC = 0x4C434144; // "LCAD"
+  private static final String SUFFIX = ".v" + FORMAT_VERSION;
+
+  private static final byte NO_REPOSITORY = 0;
+  private static final byte REMOTE_REPOSITORY = 1;
+  private static final byte LOCAL_REPOSITORY = 2;
+
+  private static final byte STRING_PROPERTY = 0;
+  private static final byte INTEGER_PROPERTY = 1;
+  private static final byte BOOLEAN_PROPERTY = 2;
+  private static final byte NULL_PROPERTY = 3;
+
+  /**
+   * The minimum sizes of an artifact (five strings, the file type, and the property count) and a
+   * remote repository (three strings and two policies) in an entry, to validate counts.
+   */
+  private static final int ARTIFACT_SIZE = 15;
+
+  private static final int REMOTE_REPOSITORY_SIZE = 16;
+
+  private static final byte NO_FILE = 0;
+  private static final byte LOCAL_REPOSITORY_FILE = 1;
+  private static final byte ABSOLUTE_FILE = 2;
+
+  private final CacheDirectory cacheDirectory;
+
+  @VisibleForTesting
+  ArtifactDescriptorCache(Path directory, long maximumSize) {
+    this.cacheDirectory = new CacheDirectory(directory, maximumSize);
+  }
+
+  /** Returns a cache in {@code directory} with the default maximum size. */
+  static ArtifactDescriptorCache create(Path directory) throws IOException {
+    Files.createDirectories(directory);
+    return new ArtifactDescriptorCache(directory, DEFAULT_MAXIMUM_SIZE);
+  }
+
+  /** Returns the cache set to {@code session}, or null if the session does not use a cache. */
+  @Nullable
+  static ArtifactDescriptorCache fromSession(RepositorySystemSession session) {
+    Object cache = session.getConfigProperties().get(CONFIG_PROPERTY);
+    return cache instanceof ArtifactDescriptorCache ? (ArtifactDescriptorCache) cache : null;
+  }
+
+  /**
+   * Returns true if the descriptor of the artifact of {@code request} can be cached. The content
+   * of SNAPSHOT versions and version ranges changes over time.
+   */
+  static boolean isCacheable(ArtifactDescriptorRequest request) {
+    Artifact artifact = request.getArtifact();
+    String version = artifact.getVersion();
+    return !artifact.isSnapshot()
+        && !version.isEmpty()
+        && version.indexOf('[') < 0
+        && version.indexOf('(') < 0;
+  }
+
+  /**
+   * Returns the cached descriptor for {@code request}, or null if it is not in the cache or the
+   * cache entry is corrupt.
+   */
+  @Nullable
+  ArtifactDescriptorResult load(RepositorySystemSession session, ArtifactDescriptorRequest request)
+      throws IOException {
+    if (session.getLocalRepositoryManager() == null) {
+      // The files in the local repository are stored relative to it
+      return null;
+    }
+    return cacheDirectory.load(cacheFile(session, request), input -> read(input, session, request));
+  }
+
+  /**
+   * Stores {@code result} to the cache. A result with exceptions, without the repository of the
+   * descriptor (the descriptor is missing), or with properties of unsupported types is not stored.
+   * Nor is a result whose POM or relocated POMs have a SNAPSHOT parent or a parent missing in the
+   * local repository.
+   */
+  void store(RepositorySystemSession session, ArtifactDescriptorResult result) throws IOException {
+    if (!result.getExceptions().isEmpty() || result.getRepository() == null) {
+      return;
+    }
+    for (Object value : result.getProperties().values()) {
+      if (value != null
+          && !(value instanceof String || value instanceof Integer || value instanceof Boolean)) {
+        return;
+      }
+    }
+    if (!hasReleaseParents(session, result.getRequest().getArtifact())) {
+      return;
+    }
+    for (Artifact relocation : result.getRelocations()) {
+      if (!hasReleaseParents(session, relocation)) {
+        return;
+      }
+    }
+
+    Path localRepository = localRepositoryDirectory(session);
+    cacheDirectory.store(
+        cacheFile(session, result.getRequest()),
+        output -> write(output, result, localRepository));
+  }
+
+  /**
+   * Returns true if the chain of the parent POMs of {@code artifact} consists of release versions
+   * in the local repository of {@code session}. The effective model of an artifact inherits from
+   * its parents, so the descriptor of an artifact with a SNAPSHOT parent changes over time.
+   */
+  private static boolean hasReleaseParents(RepositorySystemSession session, Artifact artifact) {
+    LocalRepositoryManager localRepositoryManager = session.getLocalRepositoryManager();
+    if (localRepositoryManager == null) {
+      return false;
+    }
+    Path localRepository = localRepositoryDirectory(session);
+    Set<String> visited = new HashSet<>();
+    Artifact pom =
+        new DefaultArtifact(
+            artifact.getGroupId(), artifact.getArtifactId(), "pom", artifact.getVersion());
+    while (visited.add(pom.toString())) {
+      Path pomFile = localRepository.resolve(localRepositoryManager.getPathForLocalArtifact(pom));
+      Parent parent;
+      try (InputStream input = Files.newInputStream(pomFile)) {
+        parent = new MavenXpp3Reader().read(input, false).getParent();
+      } catch (IOException | XmlPullParserException ex) {
+        logger.log(Level.FINE, "Could not read the parent of " + pom + " in " + pomFile, ex);
+        return false;
+      }
+      if (parent == null) {
+        return true;
+      }
+      pom =
+          new DefaultArtifact(
+              parent.getGroupId(), parent.getArtifactId(), "pom", parent.getVersion());
+      if (pom.isSnapshot() || pom.getVersion().contains("${")) {
+        // An unresolved version such as ${revision} may be a SNAPSHOT version
+        return false;
+      }
+    }
+    // A cycle of parents
+    return false;
+  }
+
+  private static Path localRepositoryDirectory(RepositorySystemSession session) {
+    return session.getLocalRepository().getBasedir().toPath().toAbsolutePath();
+  }
+
+  /** Returns the cache entry file for {@code request}. */
+  @VisibleForTesting
+  Path cacheFile(RepositorySystemSession session, ArtifactDescriptorRequest request) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putString(request.getArtifact().toString(), StandardCharsets.UTF_8).putByte((byte) 0);
+    for (RemoteRepository repository : request.getRepositories()) {
+      hasher.putString(repository.getId(), StandardCharsets.UTF_8).putByte((byte) 0);
+      hasher.putString(repository.getUrl(), StandardCharsets.UTF_8).putByte((byte) 0);
+    }
+    for (String property : KEY_PROPERTIES) {
+      String value = session.getUserProperties().get(property);
+      if (value == null) {
+        value = session.getSystemProperties().get(property);
+      }
+      if (value == null) {
+        value = System.getProperty(property, "");
+      }
+      hasher.putString(property + '=' + value, StandardCharsets.UTF_8).putByte((byte) 0);
+    }
+    return cacheDirectory.resolve(hasher.hash().toString() + SUFFIX);
+  }
+
+  private static void write(
+      DataOutputStream output, ArtifactDescriptorResult result, Path localRepository)
+      throws IOException {
+    output.writeInt(MAGIC);
+    output.writeInt(FORMAT_VERSION);
+
+    writeArtifact(output, result.getArtifact(), localRepository);
+    writeArtifacts(output, result.getRelocations(), localRepository);
+    writeArtifacts(output, result.getAliases(), localRepository);
+
+    ArtifactRepository repository = result.getRepository();
+    if (repository instanceof RemoteRepository) {
+      output.writeByte(REMOTE_REPOSITORY);
+      writeRemoteRepository(output, (RemoteRepository) repository);
+    } else if (repository instanceof LocalRepository) {
+      output.writeByte(LOCAL_REPOSITORY);
+    } else {
+      output.writeByte(NO_REPOSITORY);
+    }
+
+    output.writeInt(result.getRepositories().size());
+    for (RemoteRepository remoteRepository : result.getRepositories()) {
+      writeRemoteRepository(output, remoteRepository);
+    }
+    writeDependencies(output, result.getDependencies(), localRepository);
+    writeDependencies(output, result.getManagedDependencies(), localRepository);
+
+    Map<String, Object> properties = result.getProperties();
+    output.writeInt(properties.size());
+    for (Map.Entry<String, Object> property : properties.entrySet()) {
+      output.writeUTF(property.getKey());
+      Object value = property.getValue();
+      if (value == null) {
+        // Such as "license.0.comments" of a license without comments
+        output.writeByte(NULL_PROPERTY);
+      } else if (value instanceof Integer) {
+        output.writeByte(INTEGER_PROPERTY);
+        output.writeInt((Integer) value);
+      } else if (value instanceof Boolean) {
+        output.writeByte(BOOLEAN_PROPERTY);
+        output.writeBoolean((Boolean) value);
+      } else {
+        output.writeByte(STRING_PROPERTY);
+        output.writeUTF((String) value);
+      }
+    }
+    // Marks the end of a complete entry
+    output.writeInt(MAGIC);
+  }
+
+  /**
+   * Reads the descriptor written by {@link #write(DataOutputStream, ArtifactDescriptorResult,
+   * Path)} as the result of {@code request}.
+   *
+   * @throws IOException if the content is not a valid cache entry
+   */
+  private static ArtifactDescriptorResult read(
+      EntryInputStream input, RepositorySystemSession session, ArtifactDescriptorRequest request)
+      throws IOException {
+    if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+      throw new IOException("Unexpected header");
+    }
+    ArtifactDescriptorResult result = new ArtifactDescriptorResult(request);
+    Path localRepository = localRepositoryDirectory(session);
+
+    result.setArtifact(readArtifact(input, localRepository));
+    result.setRelocations(readArtifacts(input, localRepository));
+    result.setAliases(readArtifacts(input, localRepository));
+
+    byte repositoryType = input.readByte();
+    switch (repositoryType) {
+      case REMOTE_REPOSITORY:
+        result.setRepository(readRemoteRepository(input));
+        break;
+      case LOCAL_REPOSITORY:
+        result.setRepository(session.getLocalRepository());
+        break;
+      case NO_REPOSITORY:
+        break;
+      default:
+        throw new IOException("Unexpected repository type " + repositoryType);
+    }
+
+    int repositoryCount = input.readCount(REMOTE_REPOSITORY_SIZE);
+    List<RemoteRepository> repositories = new ArrayList<>(repositoryCount);
+    for (int i = 0; i < repositoryCount; i++) {
+      repositories.add(readRemoteRepository(input));
+    }
+    result.setRepositories(repositories);
+    result.setDependencies(readDependencies(input, localRepository));
+    result.setManagedDependencies(readDependencies(input, localRepository));
+
+    int propertyCount = input.readCount(3);
+    Map<String, Object> properties = new LinkedHashMap<>();
+    for (int i = 0; i < propertyCount; i++) {
+      String key = input.readUTF();
+      byte type = input.readByte();
+      switch (type) {
+        case STRING_PROPERTY:
+          properties.put(key, input.readUTF());
+          break;
+        case INTEGER_PROPERTY:
+          properties.put(key, input.readInt());
+          break;
+        case BOOLEAN_PROPERTY:
+          properties.put(key, input.readBoolean());
+          break;
+        case NULL_PROPERTY:
+          properties.put(key, null);
+          break;
+        default:
+          throw new IOException("Unexpected property type " + type);
+      }
+    }
+    result.setProperties(properties);
+
+    if (input.readInt() != MAGIC) {
+      throw new IOException("Unexpected end of cache entry");
+    }
+    return result;
+  }
+
+  private static void writeArtifact(
+      DataOutputStream output, Artifact artifact, Path localRepository) throws IOException {
+    output.writeUTF(artifact.getGroupId());
+    output.writeUTF(artifact.getArtifactId());
+    output.writeUTF(artifact.getClassifier());
+    output.writeUTF(artifact.getExtension());
+    output.writeUTF(artifact.getVersion());
+    writeFile(output, artifact.getFile(), localRepository);
+    Map<String, String> properties = artifact.getProperties();
+    output.writeInt(properties.size());
+    for (Map.Entry<String, String> property : properties.entrySet()) {
+      output.writeUTF(property.getKey());
+      output.writeUTF(property.getValue());
+    }
+  }
+
+  private static Artifact readArtifact(EntryInputStream input, Path localRepository)
+      throws IOException {
+    String groupId = input.readUTF();
+    String artifactId = input.readUTF();
+    String classifier = input.readUTF();
+    String extension = input.readUTF();
+    String version = input.readUTF();
+    File file = readFile(input, localRepository);
+    int propertyCount = input.readCount(4);
+    Map<String, String> properties = new LinkedHashMap<>();
+    for (int i = 0; i < propertyCount; i++) {
+      properties.put(input.readUTF(), input.readUTF());
+    }
+    return new DefaultArtifact(
+        groupId,
+        artifactId,
+        classifier,
+        extension,
+        version,
+        properties,
+        file);
+  }
+
+  private static void writeArtifacts(
+      DataOutputStream output, Collection<Artifact> artifacts, Path localRepository)
+      throws IOException {
+    output.writeInt(artifacts.size());
+    for (Artifact artifact : artifacts) {
+      writeArtifact(output, artifact, localRepository);
+    }
+  }
+
+  private static List<Artifact> readArtifacts(EntryInputStream input, Path localRepository)
+      throws IOException {
+    int count = input.readCount(ARTIFACT_SIZE);
+    List<Artifact> artifacts = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      artifacts.add(readArtifact(input, localRepository));
+    }
+    return artifacts;
+  }
+
+  private static void writeDependencies(
+      DataOutputStream output, List<Dependency> dependencies, Path localRepository)
+      throws IOException {
+    output.writeInt(dependencies.size());
+    for (Dependency dependency : dependencies) {
+      writeArtifact(output, dependency.getArtifact(), localRepository);
+      output.writeUTF(dependency.getScope());
+      Boolean optional = dependency.getOptional();
+      // 0 for unspecified, 1 for false, and 2 for true
+      output.writeByte(optional == null ? 0 : optional ? 2 : 1);
+      Collection<Exclusion> exclusions = dependency.getExclusions();
+      output.writeInt(exclusions.size());
+      for (Exclusion exclusion : exclusions) {
+        output.writeUTF(exclusion.getGroupId());
+        output.writeUTF(exclusion.getArtifactId());
+        output.writeUTF(exclusion.getClassifier());
+        output.writeUTF(exclusion.getExtension());
+      }
+    }
+  }
+
+  private static List<Dependency> readDependencies(EntryInputStream input, Path localRepository)
+      throws IOException {
+    int count = input.readCount(ARTIFACT_SIZE + 7);
+    List<Dependency> dependencies = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Artifact artifact = readArtifact(input, localRepository);
+      String scope = input.readUTF();
+      byte optional = input.readByte();
+      int exclusionCount = input.readCount(8);
+      List<Exclusion> exclusions = new ArrayList<>(exclusionCount);
+      for (int j = 0; j < exclusionCount; j++) {
+        exclusions.add(
+            new Exclusion(input.readUTF(), input.readUTF(), input.readUTF(), input.readUTF()));
+      }
+      dependencies.add(
+          new Dependency(artifact, scope, optional == 0 ? null : optional == 2, exclusions));
+    }
+    return dependencies;
+  }
+
+  private static void writeRemoteRepository(DataOutputStream output, RemoteRepository repository)
+      throws IOException {
+    output.writeUTF(repository.getId());
+    output.writeUTF(repository.getContentType());
+    output.writeUTF(repository.getUrl());
+    writePolicy(output, repository.getPolicy(false));
+    writePolicy(output, repository.getPolicy(true));
+  }
+
+  private static RemoteRepository readRemoteRepository(EntryInputStream input)
+      throws IOException {
+    return new RemoteRepository.Builder(input.readUTF(), input.readUTF(), input.readUTF())
+        .setReleasePolicy(readPolicy(input))
+        .setSnapshotPolicy(readPolicy(input))
+        .build();
+  }
+
+  private static void writePolicy(DataOutputStream output, RepositoryPolicy policy)
+      throws IOException {
+    output.writeBoolean(policy.isEnabled());
+    output.writeUTF(policy.getUpdatePolicy());
+    output.writeUTF(policy.getChecksumPolicy());
+  }
+
+  private static RepositoryPolicy readPolicy(EntryInputStream input) throws IOException {
+    return new RepositoryPolicy(input.readBoolean(), input.readUTF(), input.readUTF());
+  }
+
+  /**
+   * Writes {@code file}, relative to {@code localRepository} if the file is in the local
+   * repository.
+   */
+  private static void writeFile(
+      DataOutputStream output, @Nullable File file, Path localRepository) throws IOException {
+    if (file == null) {
+      output.writeByte(NO_FILE);
+      return;
+    }
+    Path path = file.toPath().toAbsolutePath().normalize();
+    if (path.startsWith(localRepository)) {
+      output.writeByte(LOCAL_REPOSITORY_FILE);
+      output.writeUTF(localRepository.relativize(path).toString());
+    } else {
+      output.writeByte(ABSOLUTE_FILE);
+      output.writeUTF(path.toString());
+    }
+  }
+
+  @Nullable
+  private static File readFile(EntryInputStream input, Path localRepository) throws IOException {
+    byte type = input.readByte();
+    switch (type) {
+      case NO_FILE:
+        return null;
+      case LOCAL_REPOSITORY_FILE:
+        return localRepository.resolve(input.readUTF()).toFile();
+      case ABSOLUTE_FILE:
+        return new File(input.readUTF());
+      default:
+        throw new IOException("Unexpected file type " + type);
+    }
+  }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.dependencies;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.io.CountingInputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+
+/**
+ * Directory of the entry files of an on-disk cache, bounded by the total size of the entries.
+ *
+ * <p>The name of an entry file contains {@code ".v"} followed by the format version of the cache.
+ * When the total size of the entries exceeds the maximum size, the least recently used entries are
+ * deleted until the total size is three quarters of the maximum size. The directory is listed once
+ * per run and the total size is tracked in memory afterwards, so that storing an entry does not
+ * read the size of every other entry. Corrupt entries are deleted when they are loaded.
+ *
+ * <p>This class is safe for use by multiple threads.
+ */
+public final class CacheDirectory {
+
+  private static final Logger logger = Logger.getLogger(CacheDirectory.class.getName());
+
+  private final Path directory;
+  private final long maximumSize;
+
+  /**
+   * The total size of the entries in {@link #directory}, or -1 if not computed yet. Other processes
+   * sharing the directory make this inaccurate until the next {@link #evict()}.
+   */
+  private long totalSize = -1;
+
+  public CacheDirectory(Path directory, long maximumSize) {
+    this.directory = checkNotNull(directory);
+    checkArgument(maximumSize > 0, "Maximum size must be positive: %s", maximumSize);
+    this.maximumSize = maximumSize;
+  }
+
+  /** Returns the entry file named {@code fileName}, which contains {@code ".v"}. */
+  public Path resolve(String fileName) {
+    checkArgument(fileName.contains(".v"), "Invalid cache entry file name: %s", fileName);
+    return directory.resolve(fileName);
+  }
+
+  /**
+   * Returns the entry read from {@code file} by {@code reader}, or null if the file does not exist
+   * or {@code reader} fails on it. The file is deleted if {@code reader} fails.
+   */
+  @Nullable
+  public <T> T load(Path file, EntryReader<T> reader) throws IOException {
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+
+    try (EntryInputStream input =
+        new EntryInputStream(
+            new BufferedInputStream(Files.newInputStream(file)), Files.size(file))) {
+      T entry = reader.read(input);
+      touch(file);
+      return entry;
+    } catch (IOException | RuntimeException ex) {
+      logger.log(Level.WARNING, "Deleting corrupt cache entry " + file, ex);
+      Files.deleteIfExists(file);
+      return null;
+    }
+  }
+
+  /**
+   * Writes the entry {@code file} by {@code writer}, deleting the least recently used entries if
+   * the total size exceeds the maximum size.
+   */
+  public void store(Path file, EntryWriter writer) throws IOException {
+    Files.createDirectories(directory);
+    // Writing to a temporary file first avoids leaving a partially-written entry
+    Path temporaryFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+    long addedSize;
+    try {
+      try (DataOutputStream output =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+        writer.write(output);
+      }
+      addedSize = Files.size(temporaryFile);
+      if (Files.isRegularFile(file)) {
+        addedSize -= Files.size(file);
+      }
+      Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+    addSize(addedSize);
+  }
+
+  /**
+   * Adds {@code size} to the total size of the entries and deletes the least recently used entries
+   * if the total size exceeds the maximum size.
+   */
+  private synchronized void addSize(long size) throws IOException {
+    if (totalSize < 0) {
+      totalSize = sizeOf(listEntries());
+    } else {
+      totalSize += size;
+    }
+    if (totalSize > maximumSize) {
+      evict();
+    }
+  }
+
+  /**
+   * Deletes the least recently used entries until the total size fits in three quarters of the
+   * maximum size. Leaving room avoids listing the directory again for the next few entries.
+   */
+  @VisibleForTesting
+  synchronized void evict() throws IOException {
+    Map<Path, FileTime> lastUsedTimes = new LinkedHashMap<>();
+    long currentSize = 0;
+    for (Path file : listEntries()) {
+      try {
+        currentSize += Files.size(file);
+        lastUsedTimes.put(file, Files.getLastModifiedTime(file));
+      } catch (IOException ex) {
+        // Another process may have deleted the file
+      }
+    }
+    if (currentSize <= maximumSize) {
+      totalSize = currentSize;
+      return;
+    }
+
+    long targetSize = maximumSize / 4 * 3;
+    List<Path> leastRecentlyUsedFirst = new ArrayList<>(lastUsedTimes.keySet());
+    leastRecentlyUsedFirst.sort(Comparator.comparing(lastUsedTimes::get));
+    for (Path file : leastRecentlyUsedFirst) {
+      if (currentSize <= targetSize) {
+        break;
+      }
+      try {
+        long size = Files.size(file);
+        Files.deleteIfExists(file);
+        currentSize -= size;
+      } catch (IOException ex) {
+        logger.log(Level.FINE, "Could not delete cache entry " + file, ex);
+      }
+    }
+    totalSize = currentSize;
+  }
+
+  /** Returns the entry files in {@link #directory}. */
+  private List<Path> listEntries() throws IOException {
+    try (Stream<Path> stream = Files.list(directory)) {
+      return stream
+          .filter(file -> file.getFileName().toString().contains(".v"))
+          .filter(file -> !file.getFileName().toString().endsWith(".tmp"))
+          .collect(Collectors.toList());
+    }
+  }
+
+  private static long sizeOf(List<Path> files) {
+    long size = 0;
+    for (Path file : files) {
+      try {
+        size += Files.size(file);
+      } catch (IOException ex) {
+        // Another process may have deleted the file
+      }
+    }
+    return size;
+  }
+
+  /** Updates the last modified time of {@code file}, which tells the last use of the entry. */
+  private static void touch(Path file) {
+    try {
+      Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+    } catch (IOException ex) {
+      logger.log(Level.FINE, "Could not update the last modified time of " + file, ex);
+    }
+  }
+
+  /** Function to read an entry from its file. */
+  public interface EntryReader<T> {
+    /** @throws IOException if the content is not a valid entry */
+    T read(EntryInputStream input) throws IOException;
+  }
+
+  /** Function to write an entry to its file. */
+  public interface EntryWriter {
+    void write(DataOutputStream output) throws IOException;
+  }
+
+  /** Input stream of an entry file, which rejects the counts that do not fit in the entry. */
+  public static final class EntryInputStream extends DataInputStream {
+
+    private final CountingInputStream countingInput;
+    private final long length;
+
+    EntryInputStream(InputStream input, long length) {
+      this(new CountingInputStream(input), length);
+    }
+
+    private EntryInputStream(CountingInputStream countingInput, long length) {
+      super(countingInput);
+      this.countingInput = countingInput;
+      this.length = length;
+    }
+
+    /**
+     * Reads the number of elements that follow.
+     *
+     * @throws IOException if the elements, each taking at least {@code elementSize} bytes, do not
+     *     fit in the rest of the entry. A corrupt count must not allocate a huge array
+     */
+    public int readCount(int elementSize) throws IOException {
+      int count = readInt();
+      long remaining = length - countingInput.getCount();
+      if (count < 0 || (long) count * elementSize > remaining) {
+        throw new IOException("Invalid count " + count + " for " + remaining + " remaining bytes");
+      }
+      return count;
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.dependencies;
+
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.maven.repository.internal.DefaultArtifactDescriptorReader;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.impl.ArtifactDescriptorReader;
+import org.eclipse.aether.resolution.ArtifactDescriptorException;
+import org.eclipse.aether.resolution.ArtifactDescriptorRequest;
+import org.eclipse.aether.resolution.ArtifactDescriptorResult;
+import org.eclipse.aether.spi.locator.Service;
+import org.eclipse.aether.spi.locator.ServiceLocator;
+
+/**
+ * Artifact descriptor reader that uses the {@link ArtifactDescriptorCache} of the session, if
+ * any, before building the model of a pom.xml file through Maven's {@link
+ * DefaultArtifactDescriptorReader}.
+ */
+final class CachingArtifactDescriptorReader implements ArtifactDescriptorReader, Service {
+
+  private static final Logger logger =
+      Logger.getLogger(CachingArtifactDescriptorReader.class.getName());
+
+  private final DefaultArtifactDescriptorReader delegate = new DefaultArtifactDescriptorReader();
+
+  @Override
+  public void initService(ServiceLocator locator) {
+    delegate.initService(locator);
+  }
+
+  @Override
+  public ArtifactDescriptorResult readArtifactDescriptor(
+      RepositorySystemSession session, ArtifactDescriptorRequest request)
+      throws ArtifactDescriptorException {
+    ArtifactDescriptorCache cache = ArtifactDescriptorCache.fromSession(session);
+    if (cache == null || !ArtifactDescriptorCache.isCacheable(request)) {
+      return delegate.readArtifactDescriptor(session, request);
+    }
+
+    try {
+      ArtifactDescriptorResult cachedResult = cache.load(session, request);
+      if (cachedResult != null) {
+        return cachedResult;
+      }
+    } catch (IOException ex) {
+      logger.log(Level.WARNING, "Could not read the artifact descriptor cache", ex);
+    }
+
+    ArtifactDescriptorResult result = delegate.readArtifactDescriptor(session, request);
+    try {
+      cache.store(session, result);
+    } catch (IOException ex) {
+      logger.log(Level.WARNING, "Could not write the artifact descriptor cache", ex);
+    }
+    return result;
+  }
+}
@@ -19,8 +19,6 @@ package com.google.cloud.tools.opensource.dependencies;
 import com.google.common.collect.LinkedListMultimap;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -177,16 +175,13 @@ public class DependencyGraph {
    * @return a map of groupId:artifactId to the highest version found in the tree
    */
   public Map<String, String> getHighestVersionMap() {
-    Map<String, Collection<String>> input = versions.asMap();
     Map<String, String> output = new HashMap<>();
-    
-    VersionComparator comparator = new VersionComparator();
 
-    for (Map.Entry<String, Collection<String>> entry : input.entrySet()) {
-      String highestVersion = Collections.max(entry.getValue(), comparator);
-      output.put(entry.getKey(), highestVersion);
+    // The versions of each key are already sorted by VersionComparator
+    for (String key : versions.keySet()) {
+      output.put(key, versions.get(key).last());
     }
-    
+
     return output;
   }
 
@@ -271,10 +266,7 @@ public class DependencyGraph {
         // descendant to be selected. 
         
         String groupIdAndArtifactId = Artifacts.makeKey(artifact);
-        boolean ancestorHasSameKey =
-            parentPath.getArtifactKeys().stream()
-                .anyMatch(key -> key.equals(groupIdAndArtifactId));
-        if (ancestorHasSameKey) {
+        if (parentPath.containsArtifactKey(groupIdAndArtifactId)) {
           continue;
         }
       }
@@ -18,13 +18,24 @@ package com.google.cloud.tools.opensource.dependencies;
 
 import static com.google.cloud.tools.opensource.dependencies.RepositoryUtility.CENTRAL;
 import static com.google.cloud.tools.opensource.dependencies.RepositoryUtility.mavenRepositoryFromUrl;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import org.eclipse.aether.DefaultRepositoryCache;
 import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositoryCache;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.collection.CollectRequest;
@@ -41,6 +52,10 @@ import org.eclipse.aether.resolution.DependencyResult;
 /**
  * Builds dependency graphs for Maven artifacts by querying repositories for
  * pom.xml files and following the dependency chains therein.
+ *
+ * <p>The sessions of an instance share a {@link RepositoryCache}, so that artifact descriptors
+ * and version ranges read for one graph are reused for the next. An instance is safe to use from
+ * multiple threads.
  */
 public final class DependencyGraphBuilder {
 
@@ -50,6 +65,12 @@ public final class DependencyGraphBuilder {
   private final ImmutableList<RemoteRepository> repositories;
   private Path localRepository;
 
+  /** Cache of artifact descriptors and version ranges shared by the sessions of this builder. */
+  private RepositoryCache repositoryCache = new DefaultRepositoryCache();
+
+  /** On-disk cache of artifact descriptors across runs. Null if not enabled. */
+  @Nullable private ArtifactDescriptorCache artifactDescriptorCache;
+
   static {
     OsProperties.detectOsProperties().forEach(System::setProperty);
   }
@@ -77,8 +98,20 @@ public final class DependencyGraphBuilder {
   @VisibleForTesting
   void setLocalRepository(Path localRepository) {
     this.localRepository = localRepository;
+    // The cached descriptors may point to the previous local repository
+    this.repositoryCache = new DefaultRepositoryCache();
   }
   
+  /**
+   * Enables the on-disk cache of artifact descriptors in {@code directory}, so that the builder
+   * does not build the models of the same pom.xml files of release versions across runs.
+   *
+   * @throws IOException if the directory cannot be created
+   */
+  public void setArtifactDescriptorCacheDirectory(Path directory) throws IOException {
+    this.artifactDescriptorCache = ArtifactDescriptorCache.create(directory);
+  }
+
   private DependencyNode resolveCompileTimeDependencies(
       List<DependencyNode> dependencyNodes, DefaultRepositorySystemSession session)
       throws DependencyResolutionException {
@@ -100,6 +133,10 @@ public final class DependencyGraphBuilder {
       LocalRepository local = new LocalRepository(localRepository.toAbsolutePath().toString());
       session.setLocalRepositoryManager(system.newLocalRepositoryManager(session, local));
     }
+    session.setCache(repositoryCache);
+    if (artifactDescriptorCache != null) {
+      session.setConfigProperty(ArtifactDescriptorCache.CONFIG_PROPERTY, artifactDescriptorCache);
+    }
 
     CollectRequest collectRequest = new CollectRequest();
     if (dependencyList.size() == 1) {
@@ -193,6 +230,59 @@ public final class DependencyGraphBuilder {
     return buildDependencyGraph(roots, RepositoryUtility.newSessionForMaven(system));
   }
 
+  /**
+   * Returns the graphs of {@link #buildVerboseDependencyGraph(Artifact)} for {@code artifacts},
+   * building up to {@code parallelism} graphs at a time. The graphs are in the order of {@code
+   * artifacts}.
+   *
+   * @param parallelism the number of threads to build graphs. 1 builds them in the caller thread
+   */
+  public ImmutableList<DependencyGraph> buildVerboseDependencyGraphs(
+      List<Artifact> artifacts, int parallelism) {
+    return buildDependencyGraphs(artifacts, this::buildVerboseDependencyGraph, parallelism);
+  }
+
+  /**
+   * Returns the graphs of {@link #buildMavenDependencyGraph(Dependency)} for {@code dependencies},
+   * building up to {@code parallelism} graphs at a time. The graphs are in the order of {@code
+   * dependencies}.
+   *
+   * @param parallelism the number of threads to build graphs. 1 builds them in the caller thread
+   */
+  public ImmutableList<DependencyGraph> buildMavenDependencyGraphs(
+      List<Dependency> dependencies, int parallelism) {
+    return buildDependencyGraphs(dependencies, this::buildMavenDependencyGraph, parallelism);
+  }
+
+  private static <T> ImmutableList<DependencyGraph> buildDependencyGraphs(
+      List<T> roots, Function<T, DependencyGraph> builder, int parallelism) {
+    checkArgument(parallelism > 0, "Parallelism must be positive: %s", parallelism);
+    if (parallelism == 1) {
+      return roots.stream().map(builder).collect(toImmutableList());
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      List<ForkJoinTask<DependencyGraph>> tasks = new ArrayList<>();
+      for (T root : roots) {
+        tasks.add(pool.submit(() -> builder.apply(root)));
+      }
+      ImmutableList.Builder<DependencyGraph> graphs = ImmutableList.builder();
+      for (ForkJoinTask<DependencyGraph> task : tasks) {
+        graphs.add(task.get());
+      }
+      return graphs.build();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while building dependency graphs", ex);
+    } catch (ExecutionException ex) {
+      Throwables.throwIfUnchecked(ex.getCause());
+      throw new IllegalStateException(ex.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
   private DependencyGraph buildDependencyGraph(
       List<DependencyNode> dependencyNodes, DefaultRepositorySystemSession session) {
      
@@ -17,10 +17,11 @@
 package com.google.cloud.tools.opensource.dependencies;
 
 
+import static com.google.common.base.Preconditions.checkElementIndex;
+
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -43,40 +44,72 @@ public final class DependencyPath {
 
   // The root of the dependency path. The project root is not a dependency.
   private final Artifact root;
-  // Path without the root
-  private final List<Dependency> path = new ArrayList<>();
+
+  // The path without the leaf. Null when this path consists of only the root.
+  @Nullable private final DependencyPath parent;
+
+  // The dependency to the leaf. Null when this path consists of only the root.
+  @Nullable private final Dependency dependency;
+
+  private final int size;
+  private final int hashCode;
+
+  // Bloom filter of the artifact keys in the path; a clear bit means the key is not in the path
+  private final long artifactKeyBits;
 
   public DependencyPath(@Nullable Artifact root) {
     this.root = root;
+    this.parent = null;
+    this.dependency = null;
+    this.size = 1;
+    this.hashCode = 31;
+    this.artifactKeyBits = root == null ? 0L : artifactKeyBit(Artifacts.makeKey(root));
+  }
+
+  private DependencyPath(DependencyPath parent, Dependency dependency) {
+    this.root = parent.root;
+    this.parent = parent;
+    this.dependency = dependency;
+    this.size = parent.size + 1;
+    Artifact artifact = dependency.getArtifact();
+    this.hashCode =
+        37 * parent.hashCode
+            + Objects.hash(
+                root,
+                artifact.getGroupId(),
+                artifact.getArtifactId(),
+                artifact.getVersion(),
+                dependency.getScope(),
+                dependency.isOptional());
+    this.artifactKeyBits = parent.artifactKeyBits | artifactKeyBit(Artifacts.makeKey(artifact));
   }
 
+  private static long artifactKeyBit(String artifactKey) {
+    return 1L << (artifactKey.hashCode() & 63);
+  }
+
+  /** Returns a new path that has {@code dependency} as its leaf. This path is not modified. */
   @VisibleForTesting
   public DependencyPath append(Dependency dependency) {
-    DependencyPath copy = new DependencyPath(root);
-    copy.path.addAll(path);
-    copy.path.add(dependency);
-    return copy;
+    return new DependencyPath(this, dependency);
   }
 
   public DependencyPath concat(DependencyPath childPath) {
-    DependencyPath copy = new DependencyPath(root);
-    copy.path.addAll(path);
-    copy.path.addAll(childPath.path);
-    return copy;
+    DependencyPath concatenated = this;
+    for (Dependency childDependency : childPath.getDependencies()) {
+      concatenated = concatenated.append(childDependency);
+    }
+    return concatenated;
   }
 
   /** Returns the length of the path. */
   public int size() {
-    return path.size() + 1; // including the root
+    return size; // including the root
   }
 
   /** Returns the artifact at the end of the path. */
   public Artifact getLeaf() {
-    if (path.isEmpty()) {
-      return root;
-    } else {
-      return path.get(path.size() - 1).getArtifact();
-    }
+    return dependency == null ? root : dependency.getArtifact();
   }
 
   /** Returns the versionless coordinates of the artifacts in the path. */
@@ -87,13 +120,31 @@ public final class DependencyPath {
       builder.add(Artifacts.makeKey(root));
     }
     
-    for (Dependency dependency : path) {
+    for (Dependency dependency : getDependencies()) {
       builder.add(Artifacts.makeKey(dependency.getArtifact()));
     }
     
     return builder.build();
   }
-  
+
+  /**
+   * Returns true if an artifact in the path has the versionless coordinates {@code artifactKey}.
+   * Unlike {@code getArtifactKeys().contains(artifactKey)}, this does not visit the nodes in the
+   * path unless the key may be in the path.
+   */
+  boolean containsArtifactKey(String artifactKey) {
+    long bit = artifactKeyBit(artifactKey);
+    for (DependencyPath node = this; node != null; node = node.parent) {
+      if ((node.artifactKeyBits & bit) == 0) {
+        return false;
+      }
+      if (artifactKey.equals(Artifacts.makeKey(node.getLeaf()))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Returns the artifact at {@code i}th node in the path. The {@code 0}th element is the root of
    * the dependency tree.
@@ -102,7 +153,7 @@ public final class DependencyPath {
     if (i == 0) {
       return root;
     }
-    return path.get(i - 1).getArtifact();
+    return getDependency(i - 1).getArtifact();
   }
 
   /**
@@ -110,19 +161,31 @@ public final class DependencyPath {
    * element is the dependency of the root in the path.
    */
   public Dependency getDependency(int i) {
-    return path.get(i);
+    checkElementIndex(i, size - 1);
+    DependencyPath node = this;
+    for (int j = size - 2; j > i; j--) {
+      node = node.parent;
+    }
+    return node.dependency;
+  }
+
+  /** Returns the dependencies in the path from the root to the leaf. */
+  private ImmutableList<Dependency> getDependencies() {
+    Dependency[] dependencies = new Dependency[size - 1];
+    DependencyPath node = this;
+    for (int i = size - 2; i >= 0; i--) {
+      dependencies[i] = node.dependency;
+      node = node.parent;
+    }
+    return ImmutableList.copyOf(dependencies);
   }
 
   /**
    * Returns the dependency path of the second to last node in the path. Empty dependency path if
-   * the leaf does not have a parent or {@link #path} is empty.
+   * the leaf does not have a parent or the path has only the root.
    */
   DependencyPath getParentPath() {
-    DependencyPath parent = new DependencyPath(root);
-    for (int i = 0; i < path.size() - 1; i++) {
-      parent.path.add(path.get(i));
-    }
-    return parent;
+    return parent == null ? this : parent;
   }
 
   /**
@@ -131,7 +194,7 @@ public final class DependencyPath {
    */
   public Artifact findExclusion(String groupId, String artifactId) {
     Artifact previousArtifact = root;
-    for (Dependency dependency : path) {
+    for (Dependency dependency : getDependencies()) {
       for (Exclusion exclusion : dependency.getExclusions()) {
         if (artifactId.equals(exclusion.getArtifactId())
             && groupId.equals(exclusion.getGroupId())) {
@@ -147,6 +210,7 @@ public final class DependencyPath {
 
   @Override
   public String toString() {
+    ImmutableList<Dependency> path = getDependencies();
     List<String> formatted =
         path.stream().map(DependencyPath::formatDependency).collect(Collectors.toList());
     StringBuilder builder = new StringBuilder();
@@ -173,16 +237,16 @@ public final class DependencyPath {
     }
     DependencyPath other = (DependencyPath) o;
 
-    if (!Objects.equals(other.root, root)) {
-      return false;
-    }
-    if (other.path.size() != path.size()) {
+    if (other.size != size || other.hashCode != hashCode) {
       return false;
     }
 
-    for (int i = 0; i < path.size(); i++) {
-      Dependency thisNode = path.get(i);
-      Dependency otherNode = other.path.get(i);
+    DependencyPath thisPath = this;
+    DependencyPath otherPath = other;
+    // Paths sharing the same parent node share the rest of the nodes
+    while (thisPath != otherPath && thisPath.dependency != null) {
+      Dependency thisNode = thisPath.dependency;
+      Dependency otherNode = otherPath.dependency;
       if (!artifactsEqual(thisNode.getArtifact(), otherNode.getArtifact())) {
         return false; 
       }
@@ -192,8 +256,10 @@ public final class DependencyPath {
       if (thisNode.isOptional() != otherNode.isOptional()) {
         return false;
       }
+      thisPath = thisPath.parent;
+      otherPath = otherPath.parent;
     }
-    return true;
+    return thisPath == otherPath || Objects.equals(thisPath.root, otherPath.root);
   }
 
   /**
@@ -211,19 +277,6 @@ public final class DependencyPath {
 
   @Override
   public int hashCode() {
-    int hashCode = 31;
-    for (Dependency node : path) {
-      Artifact artifact = node.getArtifact();
-      hashCode =
-          37 * hashCode
-              + Objects.hash(
-                  root,
-                  artifact.getGroupId(),
-                  artifact.getArtifactId(),
-                  artifact.getVersion(),
-                  node.getScope(),
-                  node.isOptional());
-    }
     return hashCode;
   }
 
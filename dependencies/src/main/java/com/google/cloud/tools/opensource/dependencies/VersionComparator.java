@@ -16,18 +16,36 @@
 
 package com.google.cloud.tools.opensource.dependencies;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import java.util.Comparator;
-
 import org.apache.maven.artifact.versioning.ComparableVersion;
 
 /**
  * Compare semantically by version.
+ *
+ * <p>Parsed versions are shared by all instances, so that each version string is parsed once
+ * regardless of how many times it is compared.
  */
 public class VersionComparator implements Comparator<String> {
 
+  private static final int MAXIMUM_PARSED_VERSIONS = 100_000;
+
+  /** Parsed versions keyed by version strings. ComparableVersion is immutable once created. */
+  private static final LoadingCache<String, ComparableVersion> PARSED_VERSIONS =
+      CacheBuilder.newBuilder()
+          .maximumSize(MAXIMUM_PARSED_VERSIONS)
+          .build(CacheLoader.from(ComparableVersion::new));
+
   @Override
   public int compare(String version1, String version2) {
-    return new ComparableVersion(version1).compareTo(new ComparableVersion(version2));
+    if (version1.equals(version2)) {
+      return 0;
+    }
+    ComparableVersion parsedVersion1 = PARSED_VERSIONS.getUnchecked(version1);
+    ComparableVersion parsedVersion2 = PARSED_VERSIONS.getUnchecked(version2);
+    return parsedVersion1.compareTo(parsedVersion2);
   }
 
 }
@@ -21,6 +21,8 @@ import static org.junit.Assert.assertFalse;
 
 import com.google.common.base.VerifyException;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteStreams;
 import com.google.common.truth.Correspondence;
 import com.google.common.truth.Truth;
 import java.io.IOException;
@@ -28,16 +30,26 @@ import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.apache.bcel.Const;
 import org.apache.bcel.classfile.ClassParser;
+import org.apache.bcel.classfile.ConstantCP;
+import org.apache.bcel.classfile.ConstantNameAndType;
 import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.generic.ClassGen;
+import org.apache.bcel.generic.ConstantPoolGen;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class ClassDumperTest {
   private static final String GRPC_CLOUD_FIRESTORE_JAR =
@@ -53,6 +65,8 @@ public class ClassDumperTest {
           (actual, expected) -> actual.getClassBinaryName().equals(expected),
           "has class name equal to");
 
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   private InputStream classFileInputStream;
 
   @Before
@@ -137,6 +151,51 @@ public class ClassDumperTest {
                 "Lio/grpc/MethodDescriptor$MethodType;"));
   }
 
+  @Test
+  public void testFindSymbolReferences_parallel() throws URISyntaxException, IOException {
+    ImmutableList<ClassPathEntry> classPath =
+        ImmutableList.of(
+            classPathEntryOfResource(GRPC_CLOUD_FIRESTORE_JAR),
+            classPathEntryOfResource("testdata/api-common-1.7.0.jar"),
+            classPathEntryOfResource("testdata/gax-1.32.0.jar"),
+            classPathEntryOfResource("testdata/dummy-boot-inf-prefix.jar"));
+
+    SymbolReferences sequential = ClassDumper.create(classPath).findSymbolReferences();
+    SymbolReferences parallel = ClassDumper.create(classPath).findSymbolReferences(4);
+
+    Truth.assertThat(parallel).isEqualTo(sequential);
+    Truth.assertThat(parallel.getClassFiles())
+        .containsExactlyElementsIn(sequential.getClassFiles())
+        .inOrder();
+  }
+
+  @Test
+  public void testFindSymbolReferences_parallelSpecialLocationInClassPathOrder()
+      throws URISyntaxException, IOException {
+    // The same class at two different special locations. The first JAR file in the class path
+    // provides the class regardless of the order in which the threads read the JAR files.
+    ClassPathEntry bootInfJar = classPathEntryOfResource("testdata/dummy-boot-inf-prefix.jar");
+    Path webInfJar = temporaryFolder.newFile("dummy-web-inf-prefix.jar").toPath();
+    try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(webInfJar))) {
+      output.putNextEntry(
+          new ZipEntry("WEB-INF/classes/com/google/firestore/v1beta1/FirestoreGrpc.class"));
+      ByteStreams.copy(classFileInputStream, output);
+    }
+    ClassPathEntry webInfEntry = new ClassPathEntry(webInfJar);
+
+    for (int i = 0; i < 10; i++) {
+      ClassDumper dumper = ClassDumper.create(ImmutableList.of(webInfEntry, bootInfJar));
+      dumper.findSymbolReferences(2);
+      Assert.assertEquals(
+          webInfEntry, dumper.findClassLocation("com.google.firestore.v1beta1.FirestoreGrpc"));
+
+      dumper = ClassDumper.create(ImmutableList.of(bootInfJar, webInfEntry));
+      dumper.findSymbolReferences(2);
+      Assert.assertEquals(
+          bootInfJar, dumper.findClassLocation("com.google.firestore.v1beta1.FirestoreGrpc"));
+    }
+  }
+
   @Test
   public void testScanSymbolTableFromJar_shouldNotPickArrayClass()
       throws URISyntaxException, IOException {
@@ -349,6 +408,57 @@ public class ClassDumperTest {
     Truth.assertThat(symbolReferences.getClassSymbols(classFile)).isEmpty();
   }
 
+  @Test
+  public void testFindSymbolReferences_javaRuntimeClass() throws IOException {
+    // A JAR file may contain a class that the Java runtime also has, such as the javax.xml.ws
+    // classes in Java 8. LinkageCheckClassPath loads the Java runtime's copy of the class, which
+    // does not have the references of the class file in the JAR file.
+    ClassGen classGen =
+        new ClassGen(
+            "java.util.Objects", "java.lang.Object", "Objects.java", Const.ACC_PUBLIC, null);
+    classGen.getConstantPool().addMethodref("com.example.Missing", "foo", "()V");
+    Path jar = temporaryFolder.newFile("java-runtime-class.jar").toPath();
+    try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(jar))) {
+      output.putNextEntry(new ZipEntry("java/util/Objects.class"));
+      output.write(classGen.getJavaClass().getBytes());
+    }
+    ClassPathEntry entry = new ClassPathEntry(jar);
+
+    ClassDumper classDumper = ClassDumper.create(ImmutableList.of(entry));
+    Truth.assertThat(classDumper.findSymbolReferences().getClassFiles()).isEmpty();
+    Truth.assertThat(
+            classDumper.findReachableSymbolReferences(ImmutableSet.of(entry)).getClassFiles())
+        .isEmpty();
+  }
+
+  @Test
+  public void testFindSymbolReferences_invalidConstantPoolIndex() throws IOException {
+    // A method reference to com.example.Missing.foo()V whose name index is out of range
+    ClassGen classGen =
+        new ClassGen("com.example.Corrupt", "java.lang.Object", "Corrupt.java", 0, null);
+    ConstantPoolGen constantPool = classGen.getConstantPool();
+    int methodReference = constantPool.addMethodref("com.example.Missing", "foo", "()V");
+    ConstantCP methodConstant = (ConstantCP) constantPool.getConstant(methodReference);
+    ConstantNameAndType nameAndType =
+        (ConstantNameAndType) constantPool.getConstant(methodConstant.getNameAndTypeIndex());
+    nameAndType.setNameIndex(0xFFFF);
+
+    Path jar = temporaryFolder.newFile("invalid-constant-pool-index.jar").toPath();
+    try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(jar))) {
+      output.putNextEntry(new ZipEntry("com/example/Corrupt.class"));
+      output.write(classGen.getJavaClass().getBytes());
+      output.putNextEntry(new ZipEntry("com/google/firestore/v1beta1/FirestoreGrpc.class"));
+      ByteStreams.copy(classFileInputStream, output);
+    }
+    ClassPathEntry entry = new ClassPathEntry(jar);
+
+    // The corrupt class file should not stop reading the other class files
+    SymbolReferences symbolReferences =
+        ClassDumper.create(ImmutableList.of(entry)).findSymbolReferences();
+    Truth.assertThat(symbolReferences.getClassFiles())
+        .containsExactly(new ClassFile(entry, "com.google.firestore.v1beta1.FirestoreGrpc"));
+  }
+
   @Test
   public void testListClasses_unexpectedNonClassFile() throws IOException {
     // com.amazonaws:amazon-kinesis-client:1.13.0 contains an unexpected lock file
@@ -0,0 +1,325 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.util.Map;
+import org.apache.bcel.Const;
+import org.apache.bcel.classfile.ClassFormatException;
+import org.apache.bcel.classfile.ClassParser;
+import org.apache.bcel.classfile.JavaClass;
+import org.junit.Test;
+
+public class ClassFileScannerTest {
+
+  private static final String EXAMPLE_CLASS_FILE =
+      "testdata/grpc-google-cloud-firestore-v1beta1-0.28.0_FirestoreGrpc.class";
+
+  private static byte[] readResource(String resourceName) throws IOException {
+    try (InputStream inputStream = ClassLoader.getSystemResourceAsStream(resourceName)) {
+      return ByteStreams.toByteArray(inputStream);
+    }
+  }
+
+  /**
+   * Returns a class file of class {@code Foo} that references method {@code Foo.bar()V} through a
+   * CONSTANT_NameAndType entry with {@code nameIndex} and {@code descriptorIndex}. The valid
+   * indices are 7 and 8.
+   */
+  private static byte[] methodReferenceClassFile(int nameIndex, int descriptorIndex)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream output = new DataOutputStream(bytes);
+    output.writeInt(0xCAFEBABE);
+    output.writeShort(0); // minor_version
+    output.writeShort(52); // major_version
+    output.writeShort(9); // constant_pool_count
+    output.writeByte(Const.CONSTANT_Utf8); // #1
+    output.writeUTF("Foo");
+    output.writeByte(Const.CONSTANT_Class); // #2
+    output.writeShort(1);
+    output.writeByte(Const.CONSTANT_Utf8); // #3
+    output.writeUTF("java/lang/Object");
+    output.writeByte(Const.CONSTANT_Class); // #4
+    output.writeShort(3);
+    output.writeByte(Const.CONSTANT_NameAndType); // #5
+    output.writeShort(nameIndex);
+    output.writeShort(descriptorIndex);
+    output.writeByte(Const.CONSTANT_Methodref); // #6
+    output.writeShort(2);
+    output.writeShort(5);
+    output.writeByte(Const.CONSTANT_Utf8); // #7
+    output.writeUTF("bar");
+    output.writeByte(Const.CONSTANT_Utf8); // #8
+    output.writeUTF("()V");
+    output.writeShort(Const.ACC_PUBLIC | Const.ACC_SUPER);
+    output.writeShort(2); // this_class
+    output.writeShort(4); // super_class
+    output.writeShort(0); // interfaces_count
+    output.writeShort(0); // fields_count
+    output.writeShort(0); // methods_count
+    output.writeShort(0); // attributes_count
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Returns a class file of class {@code Foo} that has static method {@code bar()V}. The {@code
+   * Code} attribute of the method has {@code attributeLength} and {@code codeLength}. The valid
+   * lengths are 13 and 1.
+   */
+  private static byte[] codeAttributeClassFile(int attributeLength, int codeLength)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream output = new DataOutputStream(bytes);
+    output.writeInt(0xCAFEBABE);
+    output.writeShort(0); // minor_version
+    output.writeShort(52); // major_version
+    output.writeShort(8); // constant_pool_count
+    output.writeByte(Const.CONSTANT_Utf8); // #1
+    output.writeUTF("Foo");
+    output.writeByte(Const.CONSTANT_Class); // #2
+    output.writeShort(1);
+    output.writeByte(Const.CONSTANT_Utf8); // #3
+    output.writeUTF("java/lang/Object");
+    output.writeByte(Const.CONSTANT_Class); // #4
+    output.writeShort(3);
+    output.writeByte(Const.CONSTANT_Utf8); // #5
+    output.writeUTF("bar");
+    output.writeByte(Const.CONSTANT_Utf8); // #6
+    output.writeUTF("()V");
+    output.writeByte(Const.CONSTANT_Utf8); // #7
+    output.writeUTF("Code");
+    output.writeShort(Const.ACC_PUBLIC | Const.ACC_SUPER);
+    output.writeShort(2); // this_class
+    output.writeShort(4); // super_class
+    output.writeShort(0); // interfaces_count
+    output.writeShort(0); // fields_count
+    output.writeShort(1); // methods_count
+    output.writeShort(Const.ACC_PUBLIC | Const.ACC_STATIC);
+    output.writeShort(5); // name_index
+    output.writeShort(6); // descriptor_index
+    output.writeShort(1); // attributes_count
+    output.writeShort(7); // attribute_name_index
+    output.writeInt(attributeLength);
+    output.writeShort(0); // max_stack
+    output.writeShort(0); // max_locals
+    output.writeInt(codeLength);
+    output.writeByte(Const.RETURN);
+    output.writeShort(0); // exception_table_length
+    output.writeShort(0); // attributes_count
+    output.writeShort(0); // attributes_count
+    return bytes.toByteArray();
+  }
+
+  private static SymbolReferences scanSymbolReferences(byte[] bytes) {
+    ClassFileScanner scanner = ClassFileScanner.scan(bytes, bytes.length);
+    ClassFile source = new ClassFile(new ClassPathEntry(Paths.get("dummy.jar")), "Foo");
+    SymbolReferences.Builder builder = new SymbolReferences.Builder();
+    scanner.addSymbolReferences(source, builder);
+    return builder.build();
+  }
+
+  @Test
+  public void testScan_classHierarchy() throws IOException {
+    byte[] bytes = readResource(EXAMPLE_CLASS_FILE);
+    ClassFileScanner scanner = ClassFileScanner.scan(bytes, bytes.length);
+
+    JavaClass javaClass =
+        new ClassParser(new ByteArrayInputStream(bytes), EXAMPLE_CLASS_FILE).parse();
+    assertThat(scanner.getClassName()).isEqualTo(javaClass.getClassName());
+    assertThat(scanner.getSuperclassName()).isEqualTo(javaClass.getSuperclassName());
+    assertThat(scanner.getInterfaceNames())
+        .containsExactlyElementsIn(javaClass.getInterfaceNames())
+        .inOrder();
+    assertThat(scanner.getMajorVersion()).isEqualTo(javaClass.getMajor());
+    assertThat(scanner.getAccessFlags()).isEqualTo(javaClass.getAccessFlags());
+    assertNull(scanner.getOuterClassName());
+  }
+
+  @Test
+  public void testAddSymbolReferences() throws IOException {
+    byte[] bytes = readResource(EXAMPLE_CLASS_FILE);
+    ClassFileScanner scanner = ClassFileScanner.scan(bytes, bytes.length);
+
+    ClassFile source =
+        new ClassFile(
+            new ClassPathEntry(Paths.get("dummy.jar")),
+            "com.google.firestore.v1beta1.FirestoreGrpc");
+    SymbolReferences.Builder builder = new SymbolReferences.Builder();
+    scanner.addSymbolReferences(source, builder);
+    SymbolReferences symbolReferences = builder.build();
+
+    assertThat(symbolReferences.getClassSymbols(source))
+        .contains(
+            new ClassSymbol(
+                "com.google.firestore.v1beta1.FirestoreGrpc$FirestoreMethodDescriptorSupplier"));
+    assertThat(symbolReferences.getClassSymbols(source))
+        .contains(new SuperClassSymbol("java.lang.Object"));
+    assertThat(symbolReferences.getMethodSymbols(source))
+        .contains(
+            new MethodSymbol(
+                "io.grpc.protobuf.ProtoUtils",
+                "marshaller",
+                "(Lcom/google/protobuf/Message;)Lio/grpc/MethodDescriptor$Marshaller;",
+                false));
+    assertThat(symbolReferences.getFieldSymbols(source))
+        .contains(
+            new FieldSymbol(
+                "io.grpc.MethodDescriptor$MethodType",
+                "BIDI_STREAMING",
+                "Lio/grpc/MethodDescriptor$MethodType;"));
+  }
+
+  @Test
+  public void testGetOuterClassName() throws IOException {
+    byte[] bytes = readResource(Map.Entry.class.getName().replace('.', '/') + ".class");
+    ClassFileScanner scanner = ClassFileScanner.scan(bytes, bytes.length);
+
+    assertThat(scanner.getClassName()).isEqualTo("java.util.Map$Entry");
+    assertThat(scanner.getOuterClassName()).isEqualTo("java.util.Map");
+  }
+
+  /** A class that catches NoClassDefFoundError, as SLF4J does to detect logger backends. */
+  private static class CatchesNoClassDefFoundError {
+    private static boolean isAvailable(String className) {
+      try {
+        Class.forName(className);
+        return true;
+      } catch (NoClassDefFoundError | ClassNotFoundException ex) {
+        return false;
+      } finally {
+        System.gc();
+      }
+    }
+  }
+
+  @Test
+  public void testGetClassSummary_caughtErrors() throws IOException {
+    byte[] bytes =
+        readResource(CatchesNoClassDefFoundError.class.getName().replace('.', '/') + ".class");
+    ClassSummary summary = ClassFileScanner.scan(bytes, bytes.length).getClassSummary();
+
+    assertThat(summary.getCaughtErrors())
+        .isEqualTo(
+            ClassSummary.CATCHES_NO_CLASS_DEF_FOUND_ERROR
+                | ClassSummary.CATCHES_CLASS_NOT_FOUND_EXCEPTION);
+    assertThat(summary.getOuterClassName()).isEqualTo(ClassFileScannerTest.class.getName());
+
+    byte[] exampleBytes = readResource(EXAMPLE_CLASS_FILE);
+    ClassSummary exampleSummary =
+        ClassFileScanner.scan(exampleBytes, exampleBytes.length).getClassSummary();
+    assertThat(exampleSummary.getCaughtErrors()).isEqualTo(0);
+  }
+
+  @Test
+  public void testScan_invalidClassFile() {
+    byte[] bytes = "This is not a class file".getBytes();
+    try {
+      ClassFileScanner.scan(bytes, bytes.length);
+      fail();
+    } catch (ClassFormatException ex) {
+      assertThat(ex).hasMessageThat().contains("magic number");
+    }
+  }
+
+  @Test
+  public void testScan_truncatedClassFile() throws IOException {
+    byte[] bytes = readResource(EXAMPLE_CLASS_FILE);
+    try {
+      ClassFileScanner.scan(bytes, bytes.length / 2);
+      fail();
+    } catch (ClassFormatException ex) {
+      assertThat(ex).hasMessageThat().contains("Truncated");
+    }
+  }
+
+  @Test
+  public void testAddSymbolReferences_methodReference() throws IOException {
+    SymbolReferences symbolReferences = scanSymbolReferences(methodReferenceClassFile(7, 8));
+
+    ClassFile source = new ClassFile(new ClassPathEntry(Paths.get("dummy.jar")), "Foo");
+    assertThat(symbolReferences.getMethodSymbols(source))
+        .containsExactly(new MethodSymbol("Foo", "bar", "()V", false));
+  }
+
+  @Test
+  public void testAddSymbolReferences_constantPoolIndexOutOfRange() throws IOException {
+    for (int nameIndex : new int[] {0, 9, 0xFFFF}) {
+      byte[] bytes = methodReferenceClassFile(nameIndex, 8);
+      try {
+        scanSymbolReferences(bytes);
+        fail();
+      } catch (ClassFormatException ex) {
+        assertThat(ex).hasMessageThat().contains("Invalid constant pool index " + nameIndex);
+      }
+    }
+  }
+
+  @Test
+  public void testAddSymbolReferences_descriptorNotUtf8() throws IOException {
+    // #2 is a CONSTANT_Class entry
+    byte[] bytes = methodReferenceClassFile(7, 2);
+    try {
+      scanSymbolReferences(bytes);
+      fail();
+    } catch (ClassFormatException ex) {
+      assertThat(ex).hasMessageThat().contains("ConstantUtf8");
+    }
+  }
+
+  @Test
+  public void testGetClassSummary_codeAttribute() throws IOException {
+    byte[] bytes = codeAttributeClassFile(13, 1);
+    ClassSummary summary = ClassFileScanner.scan(bytes, bytes.length).getClassSummary();
+
+    assertThat(summary.getClassName()).isEqualTo("Foo");
+    assertThat(summary.getCaughtErrors()).isEqualTo(0);
+  }
+
+  @Test
+  public void testScan_negativeAttributeLength() throws IOException {
+    byte[] bytes = codeAttributeClassFile(0x80000000, 1);
+    try {
+      ClassFileScanner.scan(bytes, bytes.length);
+      fail();
+    } catch (ClassFormatException ex) {
+      assertThat(ex).hasMessageThat().contains("Invalid length 2147483648");
+    }
+  }
+
+  @Test
+  public void testGetClassSummary_negativeCodeLength() throws IOException {
+    byte[] bytes = codeAttributeClassFile(13, 0xFFFFFFF2);
+    ClassFileScanner scanner = ClassFileScanner.scan(bytes, bytes.length);
+    try {
+      scanner.getClassSummary();
+      fail();
+    } catch (ClassFormatException ex) {
+      assertThat(ex).hasMessageThat().contains("Invalid length 4294967282");
+    }
+  }
+}
@@ -25,9 +25,12 @@ import com.google.common.testing.EqualsTester;
 import com.google.common.truth.Truth;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Locale;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.artifact.Artifact;
@@ -36,9 +39,13 @@ import org.eclipse.aether.resolution.ArtifactRequest;
 import org.eclipse.aether.resolution.ArtifactResolutionException;
 import org.eclipse.aether.resolution.ArtifactResult;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class ClassPathEntryTest {
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   private Path fooJar = Paths.get("foo.jar");
   private Path barJar = Paths.get("bar.jar");
   private Artifact fooArtifact =
@@ -158,4 +165,16 @@ public class ClassPathEntryTest {
     } catch (NullPointerException expected) {
     }
   }
+
+  @Test
+  public void testGetFileNames_periodInDirectoryName() throws IOException {
+    Path jar = temporaryFolder.newFile("period.jar").toPath();
+    try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(jar))) {
+      output.putNextEntry(new ZipEntry("com/google/Foo.class"));
+      output.putNextEntry(new ZipEntry("lib/foo.bar/Baz.class"));
+    }
+
+    ClassPathEntry entry = new ClassPathEntry(jar);
+    Truth.assertThat(entry.getFileNames()).containsExactly("com.google.Foo", "lib.foo.bar.Baz");
+  }
 }
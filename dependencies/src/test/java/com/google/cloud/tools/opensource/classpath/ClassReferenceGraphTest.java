@@ -60,4 +60,38 @@ public class ClassReferenceGraphTest {
     // There is no path from Firestore Grpc classes to ClassC.
     Truth.assertThat(classReferenceGraph.isReachable("ClassC")).isFalse();
   }
+
+  @Test
+  public void testExplainReachability() throws URISyntaxException, IOException {
+    ClassReferenceGraph classReferenceGraph = createExampleGraph();
+
+    Truth.assertThat(classReferenceGraph.explainReachability("ClassB"))
+        .containsExactly("com.google.firestore.v1beta1.FirestoreGrpc", "ClassA", "ClassB")
+        .inOrder();
+    Truth.assertThat(
+            classReferenceGraph.explainReachability("com.google.firestore.v1beta1.FirestoreGrpc"))
+        .containsExactly("com.google.firestore.v1beta1.FirestoreGrpc");
+    Truth.assertThat(classReferenceGraph.explainReachability("ClassC")).isEmpty();
+    Truth.assertThat(classReferenceGraph.explainReachability("ClassNotInGraph")).isEmpty();
+  }
+
+  @Test
+  public void testExplainReachability_shortestChain() throws URISyntaxException, IOException {
+    ClassPathEntry firestoreJar = classPathEntryOfResource(GRPC_CLOUD_FIRESTORE_JAR);
+    ClassFile entryPointClass =
+        new ClassFile(firestoreJar, "com.google.firestore.v1beta1.FirestoreGrpc");
+    SymbolReferences.Builder builder = new SymbolReferences.Builder();
+    builder.addClassReference(entryPointClass, new ClassSymbol("ClassA"));
+    builder.addClassReference(new ClassFile(firestoreJar, "ClassA"), new ClassSymbol("ClassB"));
+    builder.addClassReference(new ClassFile(firestoreJar, "ClassB"), new ClassSymbol("ClassC"));
+    builder.addClassReference(entryPointClass, new SuperClassSymbol("ClassC"));
+    builder.addClassReference(new ClassFile(firestoreJar, "ClassC"), new ClassSymbol("ClassA"));
+
+    ClassReferenceGraph classReferenceGraph =
+        ClassReferenceGraph.create(builder.build(), ImmutableSet.of(firestoreJar));
+
+    Truth.assertThat(classReferenceGraph.explainReachability("ClassC"))
+        .containsExactly("com.google.firestore.v1beta1.FirestoreGrpc", "ClassC")
+        .inOrder();
+  }
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import static com.google.cloud.tools.opensource.classpath.TestHelper.classPathEntryOfResource;
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.function.Function;
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.classfile.Method;
+import org.apache.bcel.util.ClassPath;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ClassSummaryRepositoryTest {
+  private ClassPath classPath;
+  private ClassSummaryRepository repository;
+
+  @Before
+  public void setup() throws URISyntaxException, IOException {
+    ClassPathEntry path = classPathEntryOfResource("testdata/api-common-1.7.0.jar");
+    classPath = new LinkageCheckClassPath(Arrays.asList(path));
+    repository = new ClassSummaryRepository(classPath, Function.identity());
+  }
+
+  @Test
+  public void testLoadClassSummary() throws ClassNotFoundException {
+    ClassSummary summary = repository.loadClassSummary("com.google.api.core.AbstractApiService");
+
+    JavaClass javaClass =
+        new FixedSizeClassPathRepository(classPath)
+            .loadClass("com.google.api.core.AbstractApiService");
+    assertThat(summary.getClassName()).isEqualTo(javaClass.getClassName());
+    assertThat(summary.getAccessFlags()).isEqualTo(javaClass.getAccessFlags());
+    assertThat(summary.getSuperclassName()).isEqualTo(javaClass.getSuperclassName());
+    assertThat(summary.getInterfaceNames())
+        .containsExactlyElementsIn(javaClass.getInterfaceNames())
+        .inOrder();
+    ImmutableList.Builder<ClassSummary.Member> expectedMethods = ImmutableList.builder();
+    for (Method method : javaClass.getMethods()) {
+      expectedMethods.add(
+          new ClassSummary.Member(
+              method.getName(), method.getSignature(), method.getAccessFlags()));
+    }
+    assertThat(summary.getMethods()).containsExactlyElementsIn(expectedMethods.build()).inOrder();
+    assertThat(summary.getFields()).hasSize(javaClass.getFields().length);
+
+    assertSame(
+        "The repository should cache the summary",
+        summary,
+        repository.loadClassSummary("com.google.api.core.AbstractApiService"));
+  }
+
+  @Test
+  public void testLoadClassSummary_javaLangObject() throws ClassNotFoundException {
+    ClassSummary summary = repository.loadClassSummary("java.lang.Object");
+    assertNull(summary.getSuperclassName());
+    assertTrue(summary.isPublic());
+  }
+
+  @Test
+  public void testLoadClassSummary_missingClass() {
+    for (int i = 0; i < 2; i++) {
+      try {
+        repository.loadClassSummary("com.google.api.core.NoSuchClass");
+        fail();
+      } catch (ClassNotFoundException ex) {
+        assertThat(ex).hasMessageThat().contains("com.google.api.core.NoSuchClass");
+      }
+    }
+  }
+
+  @Test
+  public void testLoadClassSummary_cacheEviction() throws ClassNotFoundException {
+    ClassSummaryRepository repositoryWithSmallWeight =
+        new ClassSummaryRepository(classPath, Function.identity(), 1);
+    ClassSummary summary =
+        repositoryWithSmallWeight.loadClassSummary("com.google.api.core.ApiClock");
+
+    ClassSummary reloaded =
+        repositoryWithSmallWeight.loadClassSummary("com.google.api.core.ApiClock");
+    assertThat(reloaded.getClassName()).isEqualTo(summary.getClassName());
+    assertThat(reloaded.getMethods()).isEqualTo(summary.getMethods());
+  }
+}
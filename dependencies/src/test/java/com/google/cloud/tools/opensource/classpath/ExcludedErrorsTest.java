@@ -16,12 +16,19 @@
 
 package com.google.cloud.tools.opensource.classpath;
 
+import static com.google.cloud.tools.opensource.classpath.TestHelper.absolutePathOfResource;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import com.google.common.collect.ImmutableList;
 import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import org.iso_relax.verifier.VerifierConfigurationException;
 import org.junit.Test;
+import org.xml.sax.SAXException;
 
 public class ExcludedErrorsTest {
   @Test
@@ -58,4 +65,53 @@ public class ExcludedErrorsTest {
 
     assertFalse(excludedErrors.contains(linkageProblem));
   }
+
+  @Test
+  public void testContains_sameAsMatchers()
+      throws IOException, URISyntaxException, SAXException, VerifierConfigurationException {
+    ClassPathEntry jar = new ClassPathEntry(Paths.get("foo"));
+    ImmutableList.Builder<LinkageProblem> problems = ImmutableList.builder();
+    for (String sourceClassName :
+        ImmutableList.of(
+            "reactor.core.publisher.Traces",
+            "reactor.core.publisher.Traces$1",
+            "reactor.core.publisherFoo.Bar",
+            "reactor.core.Foo",
+            "com.google.Foo")) {
+      ClassFile sourceClass = new ClassFile(jar, sourceClassName);
+      ClassFile targetClass = new ClassFile(jar, "com.google.Foo");
+      problems.add(
+          new SymbolNotFoundProblem(
+              sourceClass, targetClass, new MethodSymbol("com.google.Foo", "methodA", "()V", false)),
+          new SymbolNotFoundProblem(
+              sourceClass, targetClass, new MethodSymbol("com.google.Foo", "methodB", "()V", false)),
+          new SymbolNotFoundProblem(
+              sourceClass, targetClass, new FieldSymbol("com.google.Foo", "fieldA", "I")),
+          new SymbolNotFoundProblem(
+              sourceClass, targetClass, new FieldSymbol("com.google.Bar", "fieldA", "I")),
+          new ClassNotFoundProblem(sourceClass, new ClassSymbol("com.google.cloud.Bar")),
+          new ClassNotFoundProblem(sourceClass, new ClassSymbol("com.googlefoo.Bar")),
+          new ClassNotFoundProblem(sourceClass, new ClassSymbol("com.google")),
+          new ClassNotFoundProblem(sourceClass, new ClassSymbol("jdk.vm.ci.Foo")));
+    }
+
+    for (String exclusionFileName :
+        ImmutableList.of(
+            "source-package.xml",
+            "source-class.xml",
+            "target-package.xml",
+            "target-method.xml",
+            "target-field.xml",
+            "source-and-target.xml")) {
+      Path exclusionFile = absolutePathOfResource("exclusion-sample-rules/" + exclusionFileName);
+      ImmutableList<LinkageErrorMatcher> matchers = ExclusionFiles.parse(exclusionFile);
+      ExcludedErrors excludedErrors = new ExcludedErrors(matchers);
+
+      for (LinkageProblem problem : problems.build()) {
+        boolean expected = matchers.stream().anyMatch(matcher -> matcher.match(problem));
+        assertEquals(
+            exclusionFileName + " for " + problem, expected, excludedErrors.contains(problem));
+      }
+    }
+  }
 }
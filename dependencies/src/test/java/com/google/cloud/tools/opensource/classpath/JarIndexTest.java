@@ -0,0 +1,177 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import static com.google.cloud.tools.opensource.classpath.TestHelper.classPathEntryOfResource;
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JarIndexTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testRead() throws IOException, URISyntaxException {
+    Path jar = classPathEntryOfResource("testdata/guava-23.5-jre.jar").getJar();
+    JarIndex jarIndex = JarIndex.open(jar);
+
+    ImmutableList.Builder<String> expectedNames = ImmutableList.builder();
+    try (ZipFile zipFile = new ZipFile(jar.toFile())) {
+      Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry entry = entries.nextElement();
+        expectedNames.add(entry.getName());
+        try (InputStream inputStream = zipFile.getInputStream(entry)) {
+          assertArrayEquals(
+              entry.getName(), ByteStreams.toByteArray(inputStream), jarIndex.read(entry.getName()));
+        }
+      }
+    }
+    assertThat(jarIndex.getEntryNames()).containsExactlyElementsIn(expectedNames.build()).inOrder();
+  }
+
+  @Test
+  public void testRead_storedEntry() throws IOException {
+    Path jar = temporaryFolder.newFile("stored.jar").toPath();
+    byte[] content = "stored content".getBytes(StandardCharsets.UTF_8);
+    try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(jar))) {
+      ZipEntry entry = new ZipEntry("com/google/Foo.class");
+      entry.setMethod(ZipEntry.STORED);
+      entry.setSize(content.length);
+      CRC32 crc = new CRC32();
+      crc.update(content);
+      entry.setCrc(crc.getValue());
+      output.putNextEntry(entry);
+      output.write(content);
+      output.setComment("A comment after the end of central directory record");
+    }
+
+    JarIndex jarIndex = JarIndex.open(jar);
+    assertThat(jarIndex.getSize("com/google/Foo.class")).isEqualTo(content.length);
+    assertArrayEquals(content, jarIndex.read("com/google/Foo.class"));
+    assertNull(jarIndex.read("com/google/Bar.class"));
+  }
+
+  @Test
+  public void testRead_zip64() throws IOException {
+    // ZipOutputStream writes the ZIP64 end of central directory record for more than 65535 entries
+    int entryCount = 0x10000 + 1;
+    Path jar = temporaryFolder.newFile("zip64.jar").toPath();
+    try (OutputStream fileOutput = Files.newOutputStream(jar);
+        ZipOutputStream output = new ZipOutputStream(fileOutput)) {
+      for (int i = 0; i < entryCount; i++) {
+        output.putNextEntry(new ZipEntry("Class" + i + ".class"));
+        output.write(("content " + i).getBytes(StandardCharsets.UTF_8));
+      }
+    }
+
+    JarIndex jarIndex = JarIndex.open(jar);
+    assertThat(jarIndex.getEntryNames()).hasSize(entryCount);
+    assertThat(new String(jarIndex.read("Class65536.class"), StandardCharsets.UTF_8))
+        .isEqualTo("content 65536");
+  }
+
+  @Test
+  public void testOpen_invalidFile() throws IOException {
+    Path file = temporaryFolder.newFile("invalid.jar").toPath();
+    Files.write(file, "This is not a JAR file".getBytes(StandardCharsets.UTF_8));
+    try {
+      JarIndex.open(file);
+      fail();
+    } catch (IOException ex) {
+      assertThat(ex).hasMessageThat().contains("End of central directory record not found");
+    }
+  }
+
+  @Test
+  public void testRead_invalidUncompressedSize() throws IOException {
+    Path jar = temporaryFolder.newFile("invalid-size.jar").toPath();
+    try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(jar))) {
+      output.putNextEntry(new ZipEntry("com/google/Foo.class"));
+      output.write("deflated content".getBytes(StandardCharsets.UTF_8));
+    }
+    // Replaces the uncompressed size in the central directory with almost 2 GB
+    byte[] content = Files.readAllBytes(jar);
+    ByteBuffer buffer = ByteBuffer.wrap(content).order(ByteOrder.LITTLE_ENDIAN);
+    int offset = content.length - 4;
+    while (buffer.getInt(offset) != 0x02014b50) {
+      offset--;
+    }
+    buffer.putInt(offset + 24, Integer.MAX_VALUE - 16);
+    Files.write(jar, content);
+
+    JarIndex jarIndex = JarIndex.open(jar);
+    try {
+      jarIndex.read("com/google/Foo.class");
+      fail();
+    } catch (IOException ex) {
+      assertThat(ex).hasMessageThat().contains("Unexpected size of an inflated entry");
+    }
+  }
+
+  @Test
+  public void testGetClassEntryName_periodInDirectoryName() throws IOException {
+    Path jar = temporaryFolder.newFile("period.jar").toPath();
+    try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(jar))) {
+      output.putNextEntry(new ZipEntry("com/google/Foo.class"));
+      output.putNextEntry(new ZipEntry("lib/foo.bar/Baz.class"));
+    }
+
+    try (JarIndex jarIndex = JarIndex.open(jar)) {
+      assertEquals("com/google/Foo.class", jarIndex.getClassEntryName("com.google.Foo"));
+      assertEquals("lib/foo.bar/Baz.class", jarIndex.getClassEntryName("lib.foo.bar.Baz"));
+    }
+  }
+
+  @Test
+  public void testClose() throws IOException, URISyntaxException {
+    Path jar = classPathEntryOfResource("testdata/dummy-boot-inf-prefix.jar").getJar();
+    JarIndex jarIndex = JarIndex.open(jar);
+    jarIndex.close();
+    try {
+      jarIndex.read("META-INF/MANIFEST.MF");
+      fail();
+    } catch (IOException ex) {
+      assertThat(ex).hasMessageThat().contains("Closed JAR file index");
+    }
+    // Closing twice is fine
+    jarIndex.close();
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import org.apache.bcel.classfile.ClassParser;
+import org.apache.bcel.classfile.JavaClass;
+import org.junit.Test;
+
+public class JdkClassIndexTest {
+
+  private final JdkClassIndex index = JdkClassIndex.create();
+
+  @Test
+  public void testContains() {
+    assertTrue(index.contains("java.lang.Object"));
+    assertTrue(index.contains("java.util.concurrent.ConcurrentHashMap$KeySetView"));
+    assertTrue(index.contains("javax.net.SocketFactory"));
+    assertTrue(index.contains("java.sql.Connection"));
+  }
+
+  @Test
+  public void testContains_notInJavaRuntime() {
+    assertFalse(index.contains("com.google.common.collect.ImmutableList"));
+    assertFalse(index.contains("java.lang.NoSuchClass"));
+    // The Java compiler is not visible to the extension class loader
+    assertFalse(index.contains("com.sun.tools.javac.Main"));
+  }
+
+  @Test
+  public void testRuntime() {
+    assertSame(JdkClassIndex.runtime(), JdkClassIndex.runtime());
+  }
+
+  @Test
+  public void testForRelease_java8() throws IOException {
+    JdkClassIndex java8 = JdkClassIndex.forRelease(8);
+
+    assertTrue(java8.contains("java.lang.Object"));
+    assertTrue(java8.contains("java.util.concurrent.ConcurrentHashMap$KeySetView"));
+    // The classes added in Java 9 and the classes outside the public API are not in Java 8
+    assertFalse(java8.contains("java.lang.Module"));
+    assertFalse(java8.contains("sun.misc.Unsafe"));
+    assertFalse(java8.contains("sun.security.x509.AlgorithmId"));
+    assertSame(java8, JdkClassIndex.forRelease(8));
+  }
+
+  @Test
+  public void testForRelease_java8ClassFile() throws IOException {
+    JdkClassIndex java8 = JdkClassIndex.forRelease(8);
+
+    JavaClass byteBuffer;
+    try (InputStream input = java8.getResourceAsStream("java/nio/ByteBuffer.class")) {
+      assertNotNull(input);
+      byteBuffer = new ClassParser(input, "ByteBuffer.class").parse();
+    }
+    assertEquals("java.nio.ByteBuffer", byteBuffer.getClassName());
+    // The class file is not the one of the running JVM
+    assertNull(java8.getResourceAsStream("java/lang/Module.class"));
+    assertNull(java8.getResourceAsStream("META-INF/MANIFEST.MF"));
+  }
+
+  @Test
+  public void testForRelease_runtimeRelease() throws IOException {
+    JdkClassIndex runtimeRelease = JdkClassIndex.forRelease(JdkClassIndex.runtimeRelease());
+
+    assertTrue(runtimeRelease.contains("java.lang.Object"));
+    assertTrue(runtimeRelease.contains("java.sql.Connection"));
+    assertFalse(runtimeRelease.contains("sun.security.x509.AlgorithmId"));
+    assertNotNull(runtimeRelease.getResourceAsStream("java/lang/Object.class"));
+  }
+
+  @Test
+  public void testForRelease_newerThanRuntime() {
+    try {
+      JdkClassIndex.forRelease(JdkClassIndex.runtimeRelease() + 1);
+      fail("The Java runtime should not have a newer release");
+    } catch (IOException ex) {
+      // pass
+    }
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import static com.google.cloud.tools.opensource.classpath.TestHelper.classPathEntryOfResource;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import org.junit.Test;
+
+public class LinkageCheckClassPathTest {
+
+  @Test
+  public void testClose_doesNotCloseOtherClassPaths() throws IOException, URISyntaxException {
+    ClassPathEntry entry = classPathEntryOfResource("testdata/dummy-boot-inf-prefix.jar");
+    LinkageCheckClassPath classPath = new LinkageCheckClassPath(ImmutableList.of(entry));
+    LinkageCheckClassPath otherClassPath = new LinkageCheckClassPath(ImmutableList.of(entry));
+
+    JarIndex jarIndex = classPath.getJarIndex(entry);
+    JarIndex otherJarIndex = otherClassPath.getJarIndex(entry);
+    assertNotSame(jarIndex, otherJarIndex);
+
+    // The other class path keeps reading the JAR file of the shared entry
+    classPath.close();
+    assertNotNull(otherJarIndex.read("META-INF/MANIFEST.MF"));
+    otherClassPath.close();
+  }
+
+  @Test
+  public void testTakeJarIndices() throws IOException, URISyntaxException {
+    ClassPathEntry entry = classPathEntryOfResource("testdata/dummy-boot-inf-prefix.jar");
+    LinkageCheckClassPath previous = new LinkageCheckClassPath(ImmutableList.of(entry));
+    LinkageCheckClassPath classPath = new LinkageCheckClassPath(ImmutableList.of(entry));
+    JarIndex jarIndex = previous.getJarIndex(entry);
+
+    classPath.takeJarIndices(previous, ImmutableSet.of(entry));
+
+    // Closing the previous class path does not release the index taken by the new one
+    previous.close();
+    assertSame(jarIndex, classPath.getJarIndex(entry));
+    assertNotNull(jarIndex.read("META-INF/MANIFEST.MF"));
+    classPath.close();
+  }
+}
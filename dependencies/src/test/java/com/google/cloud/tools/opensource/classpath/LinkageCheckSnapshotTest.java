@@ -0,0 +1,183 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import static com.google.cloud.tools.opensource.classpath.TestHelper.classPathEntryOfResource;
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertSame;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.apache.bcel.Const;
+import org.apache.bcel.generic.ClassGen;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LinkageCheckSnapshotTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private ClassPathEntry firestoreJar;
+  private ClassPathEntry gax132Jar;
+  private ClassPathEntry gax148Jar;
+  private ClassPathEntry guavaJar;
+
+  @Before
+  public void setup() throws URISyntaxException, IOException {
+    firestoreJar = classPathEntryOfResource("testdata/google-cloud-firestore-0.65.0-beta.jar");
+    gax132Jar = classPathEntryOfResource("testdata/gax-1.32.0.jar");
+    gax148Jar = classPathEntryOfResource("testdata/gax-1.48.1.jar");
+    guavaJar = classPathEntryOfResource("testdata/guava-23.5-jre.jar");
+  }
+
+  /** Returns a new JAR file with {@code classes}. */
+  private ClassPathEntry writeJar(String fileName, ClassGen... classes) throws IOException {
+    Path jar = temporaryFolder.newFile(fileName).toPath();
+    try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(jar))) {
+      for (ClassGen classGen : classes) {
+        output.putNextEntry(new ZipEntry(classGen.getClassName().replace('.', '/') + ".class"));
+        output.write(classGen.getJavaClass().getBytes());
+      }
+    }
+    return new ClassPathEntry(jar);
+  }
+
+  @Test
+  public void testCreate() throws IOException {
+    ImmutableList<ClassPathEntry> classPath = ImmutableList.of(firestoreJar, gax132Jar, guavaJar);
+    ImmutableSet<LinkageProblem> expected = LinkageChecker.create(classPath).findLinkageProblems();
+
+    LinkageCheckSnapshot snapshot = LinkageCheckSnapshot.create(classPath, null);
+
+    assertThat(expected).isNotEmpty();
+    assertThat(snapshot.getLinkageProblems()).containsExactlyElementsIn(expected).inOrder();
+    assertThat(snapshot.getClassPath()).isEqualTo(classPath);
+  }
+
+  @Test
+  public void testUpdate_sameClassPath() throws IOException {
+    ImmutableList<ClassPathEntry> classPath = ImmutableList.of(firestoreJar, gax132Jar, guavaJar);
+    LinkageCheckSnapshot snapshot = LinkageCheckSnapshot.create(classPath, null);
+
+    assertSame(snapshot, snapshot.update(ImmutableList.of(firestoreJar, gax132Jar, guavaJar)));
+  }
+
+  @Test
+  public void testUpdate_changedJar() throws IOException {
+    LinkageCheckSnapshot snapshot =
+        LinkageCheckSnapshot.create(ImmutableList.of(firestoreJar, gax132Jar, guavaJar), null);
+
+    ImmutableList<ClassPathEntry> newClassPath =
+        ImmutableList.of(firestoreJar, gax148Jar, guavaJar);
+    LinkageChecker linkageChecker = LinkageChecker.create(newClassPath);
+    ImmutableSet<LinkageProblem> expected = linkageChecker.findLinkageProblems();
+
+    LinkageCheckSnapshot updated = snapshot.update(newClassPath);
+
+    assertThat(updated.getLinkageProblems()).containsExactlyElementsIn(expected).inOrder();
+    // Guava does not reference gax and is not checked again
+    assertThat(updated.getCheckedClassCount())
+        .isLessThan(linkageChecker.getSymbolReferences().getClassFiles().size());
+    assertThat(updated.getCheckedClassCount()).isGreaterThan(0);
+  }
+
+  @Test
+  public void testUpdate_removedJar() throws IOException {
+    LinkageCheckSnapshot snapshot =
+        LinkageCheckSnapshot.create(ImmutableList.of(firestoreJar, gax132Jar, guavaJar), null);
+
+    ImmutableList<ClassPathEntry> newClassPath = ImmutableList.of(firestoreJar, guavaJar);
+    ImmutableSet<LinkageProblem> expected =
+        LinkageChecker.create(newClassPath).findLinkageProblems();
+
+    LinkageCheckSnapshot updated = snapshot.update(newClassPath);
+
+    assertThat(updated.getLinkageProblems()).containsExactlyElementsIn(expected).inOrder();
+  }
+
+  @Test
+  public void testUpdate_parallelWithCache() throws IOException {
+    ImmutableList<ClassPathEntry> classPath = ImmutableList.of(firestoreJar, gax132Jar, guavaJar);
+    Path cacheDirectory = temporaryFolder.newFolder("cache").toPath();
+    LinkageCheckSnapshot snapshot = LinkageCheckSnapshot.create(classPath, null, 4, cacheDirectory);
+    assertThat(snapshot.getLinkageProblems())
+        .containsExactlyElementsIn(LinkageChecker.create(classPath).findLinkageProblems())
+        .inOrder();
+
+    ImmutableList<ClassPathEntry> newClassPath =
+        ImmutableList.of(firestoreJar, gax148Jar, guavaJar);
+    ImmutableSet<LinkageProblem> expected =
+        LinkageChecker.create(newClassPath).findLinkageProblems();
+
+    LinkageCheckSnapshot updated = snapshot.update(newClassPath);
+
+    assertThat(updated.getLinkageProblems()).containsExactlyElementsIn(expected).inOrder();
+    // The parallel check re-checks the same source classes as the sequential one
+    LinkageCheckSnapshot sequential =
+        LinkageCheckSnapshot.create(classPath, null).update(newClassPath);
+    assertThat(updated.getCheckedClassCount()).isEqualTo(sequential.getCheckedClassCount());
+  }
+
+  @Test
+  public void testUpdate_changedEnclosingClass() throws IOException {
+    // com.user.User references com.example.Outer$Inner, whose enclosing class is in another JAR
+    // file. Only that JAR file changes, making Outer and Outer$Inner inaccessible from User.
+    ClassGen user =
+        new ClassGen("com.user.User", "java.lang.Object", "User.java", Const.ACC_PUBLIC, null);
+    user.getConstantPool().addClass("com.example.Outer$Inner");
+    ClassPathEntry userJar = writeJar("user.jar", user);
+    ClassPathEntry innerJar =
+        writeJar(
+            "inner.jar",
+            new ClassGen(
+                "com.example.Outer$Inner",
+                "java.lang.Object",
+                "Outer.java",
+                Const.ACC_PUBLIC,
+                null));
+    ClassPathEntry publicOuterJar =
+        writeJar(
+            "public-outer.jar",
+            new ClassGen(
+                "com.example.Outer", "java.lang.Object", "Outer.java", Const.ACC_PUBLIC, null));
+    ClassPathEntry packagePrivateOuterJar =
+        writeJar(
+            "package-private-outer.jar",
+            new ClassGen("com.example.Outer", "java.lang.Object", "Outer.java", 0, null));
+    LinkageCheckSnapshot snapshot =
+        LinkageCheckSnapshot.create(ImmutableList.of(userJar, innerJar, publicOuterJar), null);
+    assertThat(snapshot.getLinkageProblems()).isEmpty();
+
+    ImmutableList<ClassPathEntry> newClassPath =
+        ImmutableList.of(userJar, innerJar, packagePrivateOuterJar);
+    ImmutableSet<LinkageProblem> expected =
+        LinkageChecker.create(newClassPath).findLinkageProblems();
+
+    LinkageCheckSnapshot updated = snapshot.update(newClassPath);
+
+    assertThat(expected).isNotEmpty();
+    assertThat(updated.getLinkageProblems()).containsExactlyElementsIn(expected).inOrder();
+  }
+}
@@ -175,4 +175,110 @@ public class LinkageCheckerArgumentsTest {
         LinkageCheckerArguments.readCommandLine("-j", "dummy.jar");
     Assert.assertNull(parsedArguments.getInputExclusionFile());
   }
+
+  @Test
+  public void testReadCommandLine_cacheDirectory() throws ParseException {
+    LinkageCheckerArguments parsedArguments =
+        LinkageCheckerArguments.readCommandLine("-j", "dummy.jar", "--cache-directory", "foo");
+    Assert.assertEquals(Paths.get("foo"), parsedArguments.getCacheDirectory());
+  }
+
+  @Test
+  public void testReadCommandLine_threadCount() throws ParseException {
+    LinkageCheckerArguments parsedArguments =
+        LinkageCheckerArguments.readCommandLine("-j", "dummy.jar", "--threads", "3");
+    Assert.assertEquals(3, parsedArguments.getThreadCount());
+  }
+
+  @Test
+  public void testReadCommandLine_threadCount_unspecified() throws ParseException {
+    LinkageCheckerArguments parsedArguments =
+        LinkageCheckerArguments.readCommandLine("-j", "dummy.jar");
+    Assert.assertEquals(
+        Runtime.getRuntime().availableProcessors(), parsedArguments.getThreadCount());
+  }
+
+  @Test
+  public void testReadCommandLine_threadCount_invalid() {
+    try {
+      LinkageCheckerArguments.readCommandLine("-j", "dummy.jar", "-t", "0");
+      Assert.fail("0 threads should be invalid");
+    } catch (ParseException ex) {
+      Assert.assertEquals("The number of threads must be positive: 0", ex.getMessage());
+    }
+  }
+
+  @Test
+  public void testReadCommandLine_threadCount_large() throws ParseException {
+    LinkageCheckerArguments parsedArguments =
+        LinkageCheckerArguments.readCommandLine("-j", "dummy.jar", "--threads", "1000000");
+    Assert.assertEquals(1000000, parsedArguments.getThreadCount());
+  }
+
+  @Test
+  public void testReadCommandLine_threadCount_notInteger() {
+    try {
+      LinkageCheckerArguments.readCommandLine("-j", "dummy.jar", "-t", "99999999999");
+      Assert.fail("A number larger than Integer.MAX_VALUE should be invalid");
+    } catch (ParseException ex) {
+      Assert.assertEquals(
+          "The number of threads must be an integer: 99999999999", ex.getMessage());
+    }
+  }
+
+  @Test
+  public void testReadCommandLine_maxProblems() throws ParseException {
+    LinkageCheckerArguments parsedArguments =
+        LinkageCheckerArguments.readCommandLine("-j", "dummy.jar", "--max-problems", "1");
+    Assert.assertEquals(1, parsedArguments.getMaxProblems());
+  }
+
+  @Test
+  public void testReadCommandLine_maxProblems_unspecified() throws ParseException {
+    LinkageCheckerArguments parsedArguments =
+        LinkageCheckerArguments.readCommandLine("-j", "dummy.jar");
+    Assert.assertEquals(Integer.MAX_VALUE, parsedArguments.getMaxProblems());
+  }
+
+  @Test
+  public void testReadCommandLine_maxProblems_large() throws ParseException {
+    LinkageCheckerArguments parsedArguments =
+        LinkageCheckerArguments.readCommandLine("-j", "dummy.jar", "-p", "2000000000");
+    Assert.assertEquals(2000000000, parsedArguments.getMaxProblems());
+  }
+
+  @Test
+  public void testReadCommandLine_maxProblems_invalid() {
+    try {
+      LinkageCheckerArguments.readCommandLine("-j", "dummy.jar", "-p", "0");
+      Assert.fail("0 linkage errors should be invalid");
+    } catch (ParseException ex) {
+      Assert.assertEquals(
+          "The maximum number of linkage errors must be positive: 0", ex.getMessage());
+    }
+  }
+
+  @Test
+  public void testReadCommandLine_javaRelease() throws ParseException {
+    LinkageCheckerArguments parsedArguments =
+        LinkageCheckerArguments.readCommandLine("-j", "dummy.jar", "--java-release", "8");
+    Assert.assertEquals(Integer.valueOf(8), parsedArguments.getJavaRelease());
+  }
+
+  @Test
+  public void testReadCommandLine_javaRelease_unspecified() throws ParseException {
+    LinkageCheckerArguments parsedArguments =
+        LinkageCheckerArguments.readCommandLine("-j", "dummy.jar");
+    Assert.assertNull(parsedArguments.getJavaRelease());
+  }
+
+  @Test
+  public void testReadCommandLine_javaRelease_invalid() {
+    try {
+      LinkageCheckerArguments.readCommandLine("-j", "dummy.jar", "-jr", "0");
+      Assert.fail("Java 0 should be invalid");
+    } catch (ParseException ex) {
+      Assert.assertEquals("The Java release must be positive: 0", ex.getMessage());
+    }
+  }
 }
@@ -85,6 +85,39 @@ public class LinkageCheckerMainIntegrationTest {
                 + ")");
   }
 
+  @Test
+  public void testJarFiles_maxProblems()
+      throws IOException, URISyntaxException, RepositoryException, TransformerException,
+          XMLStreamException {
+    Path googleCloudCore = absolutePathOfResource("testdata/google-cloud-core-1.48.0.jar");
+    Path googleCloudFirestore =
+        absolutePathOfResource("testdata/google-cloud-firestore-0.65.0-beta.jar");
+    Path guava = absolutePathOfResource("testdata/guava-23.5-jre.jar");
+    String jarArgument = googleCloudCore + "," + googleCloudFirestore + "," + guava;
+
+    String sequentialOutput = null;
+    for (String threadCount : new String[] {"1", "4"}) {
+      capturedOutputStream.reset();
+      try {
+        LinkageCheckerMain.main(
+            new String[] {"-j", jarArgument, "--threads", threadCount, "--max-problems", "1"});
+        fail("LinkageCheckerMain should throw LinkageCheckResultException upon errors");
+      } catch (LinkageCheckResultException expected) {
+        assertEquals("Found 1 linkage error", expected.getMessage());
+      }
+
+      String output = readCapturedStdout();
+      Truth.assertThat(output)
+          .contains("Stopped the check at the maximum number of linkage errors: 1");
+      // The parallel check stops at the same linkage error as the sequential check
+      if (sequentialOutput == null) {
+        sequentialOutput = output;
+      } else {
+        assertEquals(sequentialOutput, output);
+      }
+    }
+  }
+
   @Test
   public void testArtifacts()
       throws IOException, RepositoryException, TransformerException, XMLStreamException {
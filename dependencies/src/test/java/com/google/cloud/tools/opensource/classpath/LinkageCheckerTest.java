@@ -19,6 +19,7 @@ package com.google.cloud.tools.opensource.classpath;
 import static com.google.cloud.tools.opensource.classpath.TestHelper.COORDINATES;
 import static com.google.cloud.tools.opensource.classpath.TestHelper.classPathEntryOfResource;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -38,14 +39,24 @@ import com.google.common.truth.Truth;
 import com.google.common.truth.Truth8;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.apache.bcel.Const;
+import org.apache.bcel.generic.ClassGen;
 import org.apache.commons.cli.ParseException;
 import org.eclipse.aether.RepositoryException;
 import org.eclipse.aether.artifact.DefaultArtifact;
 import org.eclipse.aether.graph.Dependency;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class LinkageCheckerTest {
 
@@ -56,6 +67,8 @@ public class LinkageCheckerTest {
 
   private static DependencyGraphBuilder dependencyGraphBuilder = new DependencyGraphBuilder();
 
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   private ClassPathEntry guavaJar;
   private ClassPathEntry firestoreJar;
   private ClassPathBuilder classPathBuilder = new ClassPathBuilder();
@@ -111,6 +124,133 @@ public class LinkageCheckerTest {
             new FieldSymbol("com.google.common.util.concurrent.Monitor$Guard", "waiterCount", "I"));
   }
 
+  @Test
+  public void testFindLinkageProblems_parallel() throws IOException {
+    List<ClassPathEntry> paths = ImmutableList.of(firestoreJar, guavaJar);
+    ImmutableSet<LinkageProblem> sequentialProblems =
+        LinkageChecker.create(paths).findLinkageProblems();
+    ImmutableSet<LinkageProblem> parallelProblems =
+        LinkageChecker.create(paths).findLinkageProblems(4);
+
+    Truth.assertThat(sequentialProblems).isNotEmpty();
+    Truth.assertThat(parallelProblems).containsExactlyElementsIn(sequentialProblems).inOrder();
+  }
+
+  @Test
+  public void testFindLinkageProblems_consumer() throws IOException {
+    LinkageChecker linkageChecker = LinkageChecker.create(ImmutableList.of(firestoreJar, guavaJar));
+    ImmutableSet<LinkageProblem> expected = linkageChecker.findLinkageProblems();
+
+    List<LinkageProblem> problems = new ArrayList<>();
+    boolean completed = linkageChecker.findLinkageProblems(problems::add);
+
+    assertTrue(completed);
+    Truth.assertThat(problems).containsExactlyElementsIn(expected).inOrder();
+  }
+
+  @Test
+  public void testFindLinkageProblems_consumerStopsSearch() throws IOException {
+    LinkageChecker linkageChecker = LinkageChecker.create(ImmutableList.of(firestoreJar, guavaJar));
+    ImmutableSet<LinkageProblem> expected = linkageChecker.findLinkageProblems();
+
+    List<LinkageProblem> problems = new ArrayList<>();
+    boolean completed =
+        linkageChecker.findLinkageProblems(
+            problem -> {
+              problems.add(problem);
+              return false;
+            });
+
+    assertFalse(completed);
+    Truth.assertThat(problems).containsExactly(expected.iterator().next());
+  }
+
+  @Test
+  public void testFindLinkageProblems_consumerStopsParallelSearch() throws IOException {
+    LinkageChecker linkageChecker = LinkageChecker.create(ImmutableList.of(firestoreJar, guavaJar));
+    ImmutableList<LinkageProblem> expected = linkageChecker.findLinkageProblems().asList();
+
+    List<LinkageProblem> problems = new ArrayList<>();
+    boolean completed =
+        linkageChecker.findLinkageProblems(
+            4,
+            problem -> {
+              problems.add(problem);
+              return problems.size() < 3;
+            });
+
+    assertFalse(completed);
+    Truth.assertThat(problems).containsExactlyElementsIn(expected.subList(0, 3)).inOrder();
+  }
+
+  @Test
+  public void testCreateForReachableClasses() throws IOException {
+    List<ClassPathEntry> paths = ImmutableList.of(firestoreJar, guavaJar);
+    ImmutableSet<ClassPathEntry> entryPoints = ImmutableSet.of(firestoreJar);
+    LinkageChecker linkageChecker = LinkageChecker.create(paths, entryPoints, null);
+    ClassReferenceGraph graph = linkageChecker.getClassReferenceGraph();
+    ImmutableSet<LinkageProblem> reachableProblems =
+        linkageChecker.findLinkageProblems().stream()
+            .filter(problem -> graph.isReachable(problem.getSourceClass().getBinaryName()))
+            .collect(toImmutableSet());
+
+    LinkageChecker reachableClassesChecker =
+        LinkageChecker.createForReachableClasses(paths, entryPoints, null);
+
+    Truth.assertThat(reachableProblems).isNotEmpty();
+    Truth.assertThat(reachableClassesChecker.findLinkageProblems())
+        .containsExactlyElementsIn(reachableProblems)
+        .inOrder();
+    // The classes in Guava unreachable from Firestore are not read
+    Truth.assertThat(reachableClassesChecker.getSymbolReferences().getClassFiles().size())
+        .isLessThan(linkageChecker.getSymbolReferences().getClassFiles().size());
+  }
+
+  @Test
+  public void testCreateForReachableClasses_parallelWithCache() throws IOException {
+    List<ClassPathEntry> paths = ImmutableList.of(firestoreJar, guavaJar);
+    ImmutableSet<ClassPathEntry> entryPoints = ImmutableSet.of(firestoreJar);
+    LinkageChecker sequential = LinkageChecker.createForReachableClasses(paths, entryPoints, null);
+    ImmutableSet<LinkageProblem> expected = sequential.findLinkageProblems();
+
+    // The check of all classes stores the symbol references of the JAR files in the cache
+    Path cacheDirectory = temporaryFolder.newFolder("cache").toPath();
+    LinkageChecker.create(paths, entryPoints, null, 4, cacheDirectory).close();
+
+    for (Path directory : Arrays.asList(null, cacheDirectory)) {
+      LinkageChecker parallel =
+          LinkageChecker.createForReachableClasses(paths, entryPoints, null, 4, directory);
+      Truth.assertThat(parallel.getSymbolReferences()).isEqualTo(sequential.getSymbolReferences());
+      Truth.assertThat(parallel.findLinkageProblems(4))
+          .containsExactlyElementsIn(expected)
+          .inOrder();
+    }
+  }
+
+  @Test
+  public void testCreateForReachableClasses_classFileAtSpecialLocation()
+      throws IOException, URISyntaxException {
+    // This JAR file contains com.google.firestore.v1beta1.FirestoreGrpc under BOOT-INF/classes.
+    ClassPathEntry jar = classPathEntryOfResource("testdata/dummy-boot-inf-prefix.jar");
+    // The Firestore client library references FirestoreGrpc by its class name
+    ClassPathEntry firestoreClientJar =
+        classPathEntryOfResource("testdata/google-cloud-firestore-0.65.0-beta.jar");
+    List<ClassPathEntry> paths = ImmutableList.of(firestoreClientJar, jar, guavaJar);
+    ImmutableSet<ClassPathEntry> entryPoints = ImmutableSet.of(firestoreClientJar);
+    LinkageChecker linkageChecker = LinkageChecker.create(paths, entryPoints, null);
+    ClassReferenceGraph graph = linkageChecker.getClassReferenceGraph();
+    ImmutableSet<LinkageProblem> reachableProblems =
+        linkageChecker.findLinkageProblems().stream()
+            .filter(problem -> graph.isReachable(problem.getSourceClass().getBinaryName()))
+            .collect(toImmutableSet());
+
+    ImmutableSet<LinkageProblem> problems =
+        LinkageChecker.createForReachableClasses(paths, entryPoints, null).findLinkageProblems();
+
+    Truth.assertThat(reachableProblems).isNotEmpty();
+    Truth.assertThat(problems).containsExactlyElementsIn(reachableProblems).inOrder();
+  }
+
   @Test
   public void testFindInvalidReferences_arrayCloneMethod() throws IOException {
     List<ClassPathEntry> paths = ImmutableList.of(guavaJar);
@@ -169,6 +309,40 @@ public class LinkageCheckerTest {
     assertTrue(linkageProblem.get() instanceof IncompatibleClassChangeProblem);
   }
 
+  @Test
+  public void testFindLinkageProblem_finalSuperclassWithMissingEnclosingClass()
+      throws IOException {
+    // com.example.Child extends the final class com.example.Outer$Inner, whose enclosing class
+    // com.example.Outer is missing. The invalid superclass is reported before the missing class.
+    ClassGen inner =
+        new ClassGen(
+            "com.example.Outer$Inner",
+            "java.lang.Object",
+            "Outer.java",
+            Const.ACC_PUBLIC | Const.ACC_FINAL,
+            null);
+    ClassGen child =
+        new ClassGen(
+            "com.example.Child", "com.example.Outer$Inner", "Child.java", Const.ACC_PUBLIC, null);
+    Path jar = temporaryFolder.newFile("missing-enclosing-class.jar").toPath();
+    try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(jar))) {
+      output.putNextEntry(new ZipEntry("com/example/Outer$Inner.class"));
+      output.write(inner.getJavaClass().getBytes());
+      output.putNextEntry(new ZipEntry("com/example/Child.class"));
+      output.write(child.getJavaClass().getBytes());
+    }
+    ClassPathEntry entry = new ClassPathEntry(jar);
+    LinkageChecker linkageChecker = LinkageChecker.create(ImmutableList.of(entry));
+    ClassFile childClassFile = new ClassFile(entry, "com.example.Child");
+
+    Optional<LinkageProblem> problemFound =
+        linkageChecker.findLinkageProblem(
+            childClassFile, new SuperClassSymbol("com.example.Outer$Inner"), childClassFile);
+
+    Truth8.assertThat(problemFound).isPresent();
+    assertTrue(problemFound.get() instanceof IncompatibleClassChangeProblem);
+  }
+
   @Test
   public void testCheckLinkageErrorMissingMethodAt_interfaceAndClassSeparation()
       throws IOException {
@@ -516,6 +690,60 @@ public class LinkageCheckerTest {
     Truth8.assertThat(problemFound).isEmpty();
   }
 
+  @Test
+  public void testFindLinkageProblem_resolutionCachedByPackage() throws IOException {
+    List<ClassPathEntry> paths = ImmutableList.of(guavaJar);
+    LinkageChecker linkageChecker = LinkageChecker.create(paths);
+    MethodSymbol methodSymbol =
+        new MethodSymbol("com.google.common.collect.ImmutableList", "noSuchMethod", "()V", false);
+
+    Optional<LinkageProblem> problemFromJoiner =
+        linkageChecker.findLinkageProblem(
+            new ClassFile(guavaJar, "com.google.common.base.Joiner"),
+            methodSymbol,
+            dummySourceClass);
+    Optional<LinkageProblem> problemFromSplitter =
+        linkageChecker.findLinkageProblem(
+            new ClassFile(guavaJar, "com.google.common.base.Splitter"),
+            methodSymbol,
+            dummySourceClass);
+    Optional<LinkageProblem> problemFromFiles =
+        linkageChecker.findLinkageProblem(
+            new ClassFile(guavaJar, "com.google.common.io.Files"),
+            methodSymbol,
+            dummySourceClass);
+
+    assertTrue(problemFromJoiner.get() instanceof SymbolNotFoundProblem);
+    assertTrue(problemFromSplitter.get() instanceof SymbolNotFoundProblem);
+    assertTrue(problemFromFiles.get() instanceof SymbolNotFoundProblem);
+    // Splitter is in the same package as Joiner, while Files is not
+    assertEquals(1, linkageChecker.getResolutionCacheStats().hitCount());
+    assertEquals(2, linkageChecker.getResolutionCacheStats().missCount());
+  }
+
+  @Test
+  public void testFindLinkageProblem_protectedFieldFromSubclassInSamePackage() throws IOException {
+    List<ClassPathEntry> paths = ImmutableList.of(guavaJar);
+    LinkageChecker linkageChecker = LinkageChecker.create(paths);
+    FieldSymbol modCount = new FieldSymbol("java.util.AbstractList", "modCount", "I");
+
+    // Lists.Partition extends AbstractList while ImmutableList does not. The two classes share the
+    // resolution of the protected field for their package.
+    Optional<LinkageProblem> problemFromSubclass =
+        linkageChecker.findLinkageProblem(
+            new ClassFile(guavaJar, "com.google.common.collect.Lists$Partition"),
+            modCount,
+            dummySourceClass);
+    Optional<LinkageProblem> problemFromOtherClass =
+        linkageChecker.findLinkageProblem(
+            new ClassFile(guavaJar, "com.google.common.collect.ImmutableList"),
+            modCount,
+            dummySourceClass);
+
+    Truth8.assertThat(problemFromSubclass).isEmpty();
+    assertTrue(problemFromOtherClass.get() instanceof InaccessibleMemberProblem);
+  }
+
   @Test
   public void testFindInvalidClassReferences_nonExistentClass() throws IOException {
     List<ClassPathEntry> paths = ImmutableList.of(firestoreJar);
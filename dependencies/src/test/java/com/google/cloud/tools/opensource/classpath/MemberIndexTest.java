@@ -0,0 +1,87 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import static com.google.cloud.tools.opensource.classpath.TestHelper.classPathEntryOfResource;
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MemberIndexTest {
+  private ClassDumper classDumper;
+
+  @Before
+  public void setup() throws URISyntaxException, IOException {
+    classDumper =
+        ClassDumper.create(
+            ImmutableList.of(classPathEntryOfResource("testdata/guava-23.5-jre.jar")));
+  }
+
+  @Test
+  public void testFindMethod_declaredInInterface() throws ClassNotFoundException {
+    // ImmutableList is an abstract class that does not declare get(int) of the List interface
+    ClassSummary immutableList =
+        classDumper.loadClassSummary("com.google.common.collect.ImmutableList");
+    MemberIndex memberIndex = classDumper.getMemberIndex(immutableList);
+
+    assertNull(memberIndex.findClassMethod("get", "(I)Ljava/lang/Object;"));
+    MemberIndex.ResolvedMember method = memberIndex.findMethod("get", "(I)Ljava/lang/Object;");
+    assertThat(method.getDeclaringClass().getClassName()).isEqualTo("java.util.List");
+    assertTrue(method.getMember().isAbstract());
+  }
+
+  @Test
+  public void testFindMethod_declaredInSuperclass() throws ClassNotFoundException {
+    ClassSummary immutableList =
+        classDumper.loadClassSummary("com.google.common.collect.ImmutableList");
+    MemberIndex memberIndex = classDumper.getMemberIndex(immutableList);
+
+    MemberIndex.ResolvedMember method = memberIndex.findMethod("hashCode", "()I");
+    // ImmutableList overrides hashCode of java.lang.Object
+    assertThat(method.getDeclaringClass().getClassName())
+        .isEqualTo("com.google.common.collect.ImmutableList");
+
+    MemberIndex.ResolvedMember notify = memberIndex.findMethod("notify", "()V");
+    assertThat(notify.getDeclaringClass().getClassName()).isEqualTo("java.lang.Object");
+
+    assertNull(memberIndex.findMethod("hashCode", "()J"));
+  }
+
+  @Test
+  public void testFindField() throws ClassNotFoundException {
+    ClassSummary arrayList = classDumper.loadClassSummary("java.util.ArrayList");
+    MemberIndex memberIndex = classDumper.getMemberIndex(arrayList);
+
+    MemberIndex.ResolvedMember field = memberIndex.findField("modCount");
+    assertThat(field.getDeclaringClass().getClassName()).isEqualTo("java.util.AbstractList");
+    assertTrue(field.getMember().isProtected());
+    assertNull(memberIndex.findField("noSuchField"));
+  }
+
+  @Test
+  public void testGetMemberIndex_cached() throws ClassNotFoundException {
+    ClassSummary arrayList = classDumper.loadClassSummary("java.util.ArrayList");
+    assertSame(classDumper.getMemberIndex(arrayList), classDumper.getMemberIndex(arrayList));
+  }
+}
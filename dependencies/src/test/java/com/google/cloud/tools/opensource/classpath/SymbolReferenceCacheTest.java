@@ -0,0 +1,160 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import static com.google.cloud.tools.opensource.classpath.TestHelper.classPathEntryOfResource;
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SymbolReferenceCacheTest {
+
+  private Path cacheDirectory;
+
+  @Before
+  public void setup() throws IOException {
+    cacheDirectory = Files.createTempDirectory("symbol-reference-cache");
+  }
+
+  @After
+  public void cleanup() throws IOException {
+    MoreFiles.deleteRecursively(cacheDirectory, RecursiveDeleteOption.ALLOW_INSECURE);
+  }
+
+  @Test
+  public void testStoreAndLoad() throws IOException, URISyntaxException {
+    ClassPathEntry entry = classPathEntryOfResource("testdata/dummy-boot-inf-prefix.jar");
+    JarSymbolReferences scanned = JarSymbolReferences.scan(entry);
+
+    SymbolReferenceCache cache = SymbolReferenceCache.create(cacheDirectory);
+    assertNull(cache.load(entry));
+    cache.store(entry, scanned);
+
+    // Another instance, as in the next run, reads the entry
+    SymbolReferenceCache nextCache = SymbolReferenceCache.create(cacheDirectory);
+    JarSymbolReferences loaded = nextCache.load(entry);
+    assertNotNull(loaded);
+    assertThat(loaded.getFileNames()).isEqualTo(scanned.getFileNames());
+    assertThat(loaded.getClassFileNames()).isEqualTo(scanned.getClassFileNames());
+    assertThat(loaded.getCorruptedFileNames()).isEqualTo(scanned.getCorruptedFileNames());
+    assertThat(loaded.getSymbolReferences()).isEqualTo(scanned.getSymbolReferences());
+  }
+
+  @Test
+  public void testFindSymbolReferences_cached() throws IOException, URISyntaxException {
+    ImmutableList<ClassPathEntry> classPath =
+        ImmutableList.of(
+            classPathEntryOfResource("testdata/api-common-1.7.0.jar"),
+            classPathEntryOfResource("testdata/dummy-boot-inf-prefix.jar"));
+    SymbolReferences expected = ClassDumper.create(classPath).findSymbolReferences();
+
+    SymbolReferences firstRun =
+        ClassDumper.create(classPath, SymbolReferenceCache.create(cacheDirectory))
+            .findSymbolReferences();
+    assertThat(firstRun).isEqualTo(expected);
+    assertThat(MoreFiles.listFiles(cacheDirectory)).hasSize(2);
+
+    SymbolReferences secondRun =
+        ClassDumper.create(classPath, SymbolReferenceCache.create(cacheDirectory))
+            .findSymbolReferences();
+    assertThat(secondRun).isEqualTo(expected);
+  }
+
+  @Test
+  public void testFindSymbolReferences_notWritableCache() throws IOException, URISyntaxException {
+    ImmutableList<ClassPathEntry> classPath =
+        ImmutableList.of(classPathEntryOfResource("testdata/api-common-1.7.0.jar"));
+    SymbolReferences expected = ClassDumper.create(classPath).findSymbolReferences();
+
+    // A regular file in place of the directory fails to create and write entries, even for root
+    Path notDirectory = Files.createFile(cacheDirectory.resolve("not-directory"));
+    SymbolReferences symbolReferences =
+        ClassDumper.create(classPath, SymbolReferenceCache.create(notDirectory))
+            .findSymbolReferences();
+    assertThat(symbolReferences).isEqualTo(expected);
+    assertTrue(Files.isRegularFile(notDirectory));
+  }
+
+  @Test
+  public void testLoad_corruptEntry() throws IOException, URISyntaxException {
+    ClassPathEntry entry = classPathEntryOfResource("testdata/api-common-1.7.0.jar");
+    SymbolReferenceCache cache = SymbolReferenceCache.create(cacheDirectory);
+    cache.store(entry, JarSymbolReferences.scan(entry));
+
+    Path cacheFile = cache.cacheFile(entry);
+    byte[] content = Files.readAllBytes(cacheFile);
+    Files.write(cacheFile, ImmutableList.of("corrupt"), StandardCharsets.UTF_8);
+    assertNull(cache.load(entry));
+    assertFalse(Files.exists(cacheFile));
+
+    // Truncated entry
+    Files.write(cacheFile, java.util.Arrays.copyOf(content, content.length / 2));
+    assertNull(cache.load(entry));
+    assertFalse(Files.exists(cacheFile));
+  }
+
+  @Test
+  public void testLoad_corruptCount() throws IOException, URISyntaxException {
+    ClassPathEntry entry = classPathEntryOfResource("testdata/api-common-1.7.0.jar");
+    SymbolReferenceCache cache = SymbolReferenceCache.create(cacheDirectory);
+    cache.store(entry, JarSymbolReferences.scan(entry));
+
+    Path cacheFile = cache.cacheFile(entry);
+    byte[] content = Files.readAllBytes(cacheFile);
+    for (int count : new int[] {Integer.MAX_VALUE, -1}) {
+      // The number of strings follows the magic number and the format version
+      ByteBuffer.wrap(content).putInt(8, count);
+      Files.write(cacheFile, content);
+      assertNull(cache.load(entry));
+      assertFalse(Files.exists(cacheFile));
+    }
+  }
+
+  @Test
+  public void testStore_evictsLeastRecentlyUsedEntry() throws IOException, URISyntaxException {
+    ClassPathEntry first = classPathEntryOfResource("testdata/api-common-1.7.0.jar");
+    ClassPathEntry second = classPathEntryOfResource("testdata/dummy-boot-inf-prefix.jar");
+
+    SymbolReferenceCache unbounded = SymbolReferenceCache.create(cacheDirectory);
+    unbounded.store(first, JarSymbolReferences.scan(first));
+    Path firstCacheFile = unbounded.cacheFile(first);
+    Files.setLastModifiedTime(firstCacheFile, FileTime.fromMillis(0));
+
+    SymbolReferenceCache cache =
+        new SymbolReferenceCache(cacheDirectory, Files.size(firstCacheFile));
+    cache.store(second, JarSymbolReferences.scan(second));
+
+    assertFalse(Files.exists(firstCacheFile));
+    assertTrue(Files.exists(cache.cacheFile(second)));
+  }
+}
@@ -16,6 +16,7 @@
 
 package com.google.cloud.tools.opensource.classpath;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.testing.EqualsTester;
 import com.google.common.testing.NullPointerTester;
 import com.google.common.testing.NullPointerTester.Visibility;
@@ -126,4 +127,92 @@ public class SymbolReferencesTest {
     Truth.assertThat(references.getMethodSymbols(sourceClass2)).contains(methodSymbol);
     Truth.assertThat(references.getFieldSymbols(sourceClass2)).contains(fieldSymbol);
   }
+
+  @Test
+  public void testSymbolKindsAndOrder() {
+    SymbolReferences.Builder builder = new SymbolReferences.Builder();
+    SuperClassSymbol superClassSymbol = new SuperClassSymbol("java.lang.Object");
+    InterfaceSymbol interfaceSymbol = new InterfaceSymbol("java.io.Serializable");
+    MethodSymbol interfaceMethodSymbol =
+        new MethodSymbol("java.util.List", "size", "()I", true);
+
+    builder.addClassReference(sourceClass, superClassSymbol);
+    builder.addClassReference(sourceClass, classSymbol);
+    builder.addClassReference(sourceClass, interfaceSymbol);
+    builder.addClassReference(sourceClass, classSymbol);
+    builder.addMethodReference(sourceClass, interfaceMethodSymbol);
+    builder.addMethodReference(sourceClass, methodSymbol);
+
+    SymbolReferences references = builder.build();
+
+    Truth.assertThat(references.getClassSymbols(sourceClass))
+        .containsExactly(superClassSymbol, classSymbol, interfaceSymbol)
+        .inOrder();
+    Truth.assertThat(references.getMethodSymbols(sourceClass))
+        .containsExactly(interfaceMethodSymbol, methodSymbol)
+        .inOrder();
+    Truth.assertThat(references.getFieldSymbols(sourceClass)).isEmpty();
+    Truth.assertThat(references.getClassFiles()).containsExactly(sourceClass);
+  }
+
+  @Test
+  public void testAddAll_duplicateReferences() {
+    SymbolReferences.Builder builder = new SymbolReferences.Builder();
+    builder.addClassReference(sourceClass, classSymbol);
+    builder.addFieldReference(sourceClass, fieldSymbol);
+    SymbolReferences.Builder other = new SymbolReferences.Builder();
+    other.addMethodReference(sourceClass, methodSymbol);
+    other.addClassReference(sourceClass, classSymbol);
+    other.addFieldReference(sourceClass, fieldSymbol);
+
+    SymbolReferences references = builder.addAll(other).build();
+
+    Truth.assertThat(references.getClassSymbols(sourceClass)).containsExactly(classSymbol);
+    Truth.assertThat(references.getMethodSymbols(sourceClass)).containsExactly(methodSymbol);
+    Truth.assertThat(references.getFieldSymbols(sourceClass)).containsExactly(fieldSymbol);
+  }
+
+  @Test
+  public void testSymbolSetContainsAndEquals() {
+    SuperClassSymbol superClassSymbol = new SuperClassSymbol("java.lang.Object");
+    MethodSymbol interfaceMethodSymbol =
+        new MethodSymbol(
+            methodSymbol.getClassBinaryName(),
+            methodSymbol.getName(),
+            methodSymbol.getDescriptor(),
+            true);
+    SymbolReferences.Builder builder1 = new SymbolReferences.Builder();
+    builder1.addClassReference(sourceClass, classSymbol);
+    builder1.addClassReference(sourceClass, superClassSymbol);
+    builder1.addMethodReference(sourceClass, methodSymbol);
+    // The other symbol table has different IDs for the symbols
+    SymbolReferences.Builder builder2 = new SymbolReferences.Builder();
+    builder2.addMethodReference(sourceClass, methodSymbol);
+    builder2.addClassReference(sourceClass, superClassSymbol);
+    builder2.addClassReference(sourceClass, classSymbol);
+
+    SymbolReferences references1 = builder1.build();
+    SymbolReferences references2 = builder2.build();
+
+    Truth.assertThat(references1.getClassSymbols(sourceClass).contains(classSymbol)).isTrue();
+    Truth.assertThat(
+            references1.getClassSymbols(sourceClass)
+                .contains(new SuperClassSymbol(classSymbol.getClassBinaryName())))
+        .isFalse();
+    Truth.assertThat(references1.getMethodSymbols(sourceClass).contains(methodSymbol)).isTrue();
+    Truth.assertThat(references1.getMethodSymbols(sourceClass).contains(interfaceMethodSymbol))
+        .isFalse();
+    Truth.assertThat(references1.getFieldSymbols(sourceClass).contains(fieldSymbol)).isFalse();
+
+    new EqualsTester()
+        .addEqualityGroup(
+            references1.getClassSymbols(sourceClass),
+            references2.getClassSymbols(sourceClass),
+            ImmutableSet.of(classSymbol, superClassSymbol))
+        .addEqualityGroup(
+            references1.getMethodSymbols(sourceClass),
+            references2.getMethodSymbols(sourceClass),
+            ImmutableSet.of(methodSymbol))
+        .testEquals();
+  }
 }
@@ -0,0 +1,305 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.dependencies;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.Exclusion;
+import org.eclipse.aether.internal.impl.SimpleLocalRepositoryManagerFactory;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.NoLocalRepositoryManagerException;
+import org.eclipse.aether.resolution.ArtifactDescriptorRequest;
+import org.eclipse.aether.resolution.ArtifactDescriptorResult;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ArtifactDescriptorCacheTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+  private final ArtifactDescriptorRequest request =
+      new ArtifactDescriptorRequest(
+          new DefaultArtifact("com.google.guava:guava:28.1-jre"),
+          ImmutableList.of(RepositoryUtility.CENTRAL),
+          null);
+
+  private Path directory;
+  private Path localRepository;
+  private ArtifactDescriptorCache cache;
+
+  @Before
+  public void setUp() throws IOException, NoLocalRepositoryManagerException {
+    directory = temporaryFolder.newFolder().toPath();
+    cache = ArtifactDescriptorCache.create(directory);
+    localRepository = temporaryFolder.newFolder("repository").toPath();
+    setLocalRepository(session, localRepository);
+    writePom(
+        localRepository,
+        "com.google.guava:guava:28.1-jre",
+        "com.google.guava:guava-parent:28.1-jre");
+    writePom(localRepository, "com.google.guava:guava-parent:28.1-jre", null);
+  }
+
+  private static void setLocalRepository(DefaultRepositorySystemSession session, Path directory)
+      throws NoLocalRepositoryManagerException {
+    session.setLocalRepositoryManager(
+        new SimpleLocalRepositoryManagerFactory()
+            .newInstance(session, new LocalRepository(directory.toFile())));
+  }
+
+  /** Writes the pom.xml of {@code coordinates} with the parent {@code parentCoordinates}. */
+  private static void writePom(
+      Path localRepository, String coordinates, @Nullable String parentCoordinates)
+      throws IOException {
+    DefaultArtifact artifact = new DefaultArtifact(coordinates);
+    StringBuilder pom = new StringBuilder("<project><modelVersion>4.0.0</modelVersion>");
+    if (parentCoordinates != null) {
+      DefaultArtifact parent = new DefaultArtifact(parentCoordinates);
+      pom.append("<parent><groupId>")
+          .append(parent.getGroupId())
+          .append("</groupId><artifactId>")
+          .append(parent.getArtifactId())
+          .append("</artifactId><version>")
+          .append(parent.getVersion())
+          .append("</version></parent>");
+    }
+    pom.append("<artifactId>").append(artifact.getArtifactId()).append("</artifactId></project>");
+
+    Path file =
+        localRepository
+            .resolve(artifact.getGroupId().replace('.', '/'))
+            .resolve(artifact.getArtifactId())
+            .resolve(artifact.getVersion())
+            .resolve(artifact.getArtifactId() + "-" + artifact.getVersion() + ".pom");
+    Files.createDirectories(file.getParent());
+    Files.write(file, pom.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  private ArtifactDescriptorResult createResult() {
+    return createResult(request);
+  }
+
+  private static ArtifactDescriptorResult createResult(ArtifactDescriptorRequest request) {
+    ArtifactDescriptorResult result = new ArtifactDescriptorResult(request);
+    result.setArtifact(request.getArtifact());
+    result.setRepository(RepositoryUtility.CENTRAL);
+    result.addRepository(RepositoryUtility.mavenRepositoryFromUrl("https://example.com/maven2"));
+    result.addDependency(
+        new Dependency(
+            new DefaultArtifact("com.google.guava:failureaccess:1.0.1"),
+            "compile",
+            null,
+            ImmutableList.of(new Exclusion("g1", "a1", "", "jar"))));
+    result.addDependency(
+        new Dependency(
+            new DefaultArtifact("com.google.code.findbugs:jsr305:3.0.2"), "provided", true));
+    result.addManagedDependency(
+        new Dependency(new DefaultArtifact("junit:junit:4.12"), "test", false));
+    Map<String, Object> properties = new LinkedHashMap<>();
+    properties.put("license.count", 1);
+    properties.put("license.0.name", "Apache 2.0");
+    properties.put("license.0.comments", null);
+    result.setProperties(properties);
+    return result;
+  }
+
+  @Test
+  public void testStoreAndLoad() throws IOException {
+    ArtifactDescriptorResult result = createResult();
+    cache.store(session, result);
+
+    ArtifactDescriptorResult loaded = cache.load(session, request);
+
+    assertEquals(request, loaded.getRequest());
+    assertEquals(result.getArtifact(), loaded.getArtifact());
+    assertEquals(result.getRepository(), loaded.getRepository());
+    assertEquals(result.getRepositories(), loaded.getRepositories());
+    assertEquals(result.getDependencies(), loaded.getDependencies());
+    assertEquals(result.getManagedDependencies(), loaded.getManagedDependencies());
+    assertEquals(result.getProperties(), loaded.getProperties());
+    assertNull(loaded.getDependencies().get(0).getOptional());
+  }
+
+  @Test
+  public void testStoreAndLoad_fileInLocalRepository()
+      throws IOException, NoLocalRepositoryManagerException {
+    ArtifactDescriptorResult result = createResult();
+    Path jar = localRepository.resolve("com/google/guava/guava/28.1-jre/guava-28.1-jre.jar");
+    result.setArtifact(request.getArtifact().setFile(jar.toFile()));
+    cache.store(session, result);
+
+    DefaultRepositorySystemSession otherSession = new DefaultRepositorySystemSession();
+    Path otherLocalRepository = temporaryFolder.newFolder("other-repository").toPath();
+    setLocalRepository(otherSession, otherLocalRepository);
+    ArtifactDescriptorResult loaded = cache.load(otherSession, request);
+
+    assertEquals(
+        otherLocalRepository.resolve("com/google/guava/guava/28.1-jre/guava-28.1-jre.jar"),
+        loaded.getArtifact().getFile().toPath());
+  }
+
+  @Test
+  public void testStore_snapshotParent() throws IOException {
+    writePom(localRepository, "com.google.guava:guava-parent:28.1-jre", "g:parent:1.0-SNAPSHOT");
+    writePom(localRepository, "g:parent:1.0-SNAPSHOT", null);
+
+    cache.store(session, createResult());
+
+    assertNull(cache.load(session, request));
+  }
+
+  @Test
+  public void testStore_missingParent() throws IOException {
+    writePom(localRepository, "com.google.guava:guava-parent:28.1-jre", "g:parent:1.0");
+
+    cache.store(session, createResult());
+
+    assertNull(cache.load(session, request));
+  }
+
+  @Test
+  public void testStore_evictLeastRecentlyUsed() throws IOException {
+    cache.store(session, createResult());
+    Path file = cache.cacheFile(session, request);
+    long entrySize = Files.size(file);
+    Files.setLastModifiedTime(file, FileTime.fromMillis(0));
+
+    ArtifactDescriptorCache smallCache =
+        new ArtifactDescriptorCache(directory, entrySize * 3 / 2);
+    ArtifactDescriptorRequest otherRequest =
+        new ArtifactDescriptorRequest(request.getArtifact(), ImmutableList.of(), null);
+    smallCache.store(session, createResult(otherRequest));
+
+    assertFalse(Files.exists(file));
+    assertTrue(Files.exists(smallCache.cacheFile(session, otherRequest)));
+  }
+
+  @Test
+  public void testLoad_corruptCount() throws IOException {
+    cache.store(session, createResult());
+    Path file = cache.cacheFile(session, request);
+
+    // The count of the relocations follows the header and the artifact: five strings, the file
+    // type, and the property count
+    int offset = 8 + (2 + "com.google.guava".length()) + (2 + "guava".length()) + 2
+        + (2 + "jar".length()) + (2 + "28.1-jre".length()) + 1 + 4;
+    byte[] content = Files.readAllBytes(file);
+    ByteBuffer.wrap(content).putInt(offset, Integer.MAX_VALUE);
+    Files.write(file, content);
+
+    assertNull(cache.load(session, request));
+    assertFalse(Files.exists(file));
+  }
+
+  @Test
+  public void testLoad_differentRepositories() throws IOException {
+    cache.store(session, createResult());
+
+    ArtifactDescriptorRequest otherRequest =
+        new ArtifactDescriptorRequest(request.getArtifact(), ImmutableList.of(), null);
+
+    assertNull(cache.load(session, otherRequest));
+  }
+
+  @Test
+  public void testLoad_differentOsClassifier()
+      throws IOException, NoLocalRepositoryManagerException {
+    cache.store(session, createResult());
+
+    DefaultRepositorySystemSession otherSession = new DefaultRepositorySystemSession();
+    setLocalRepository(otherSession, localRepository);
+    otherSession.setUserProperty("os.detected.classifier", "foo-bar");
+
+    assertNull(cache.load(otherSession, request));
+  }
+
+  @Test
+  public void testStore_missingDescriptor() throws IOException {
+    ArtifactDescriptorResult result = createResult();
+    result.setRepository(null);
+
+    cache.store(session, result);
+
+    assertNull(cache.load(session, request));
+  }
+
+  @Test
+  public void testLoad_corruptEntry() throws IOException {
+    Path file = cache.cacheFile(session, request);
+    Files.write(file, "corrupt".getBytes(StandardCharsets.UTF_8));
+
+    assertNull(cache.load(session, request));
+    assertFalse(Files.exists(file));
+  }
+
+  @Test
+  public void testIsCacheable() {
+    assertTrue(ArtifactDescriptorCache.isCacheable(request));
+    assertFalse(
+        ArtifactDescriptorCache.isCacheable(
+            new ArtifactDescriptorRequest(new DefaultArtifact("g:a:1.0-SNAPSHOT"), null, null)));
+    assertFalse(
+        ArtifactDescriptorCache.isCacheable(
+            new ArtifactDescriptorRequest(new DefaultArtifact("g:a:[1.0,2.0)"), null, null)));
+  }
+
+  @Test
+  public void testDependencyGraphBuilder_warmCache() throws IOException {
+    DefaultArtifact artifact = new DefaultArtifact("com.google.guava:guava:28.1-jre");
+
+    DependencyGraphBuilder coldBuilder = new DependencyGraphBuilder();
+    coldBuilder.setArtifactDescriptorCacheDirectory(directory);
+    DependencyGraph coldGraph = coldBuilder.buildVerboseDependencyGraph(artifact);
+    ImmutableList<Path> entries = listEntries();
+    assertThat(entries).isNotEmpty();
+
+    DependencyGraphBuilder warmBuilder = new DependencyGraphBuilder();
+    warmBuilder.setArtifactDescriptorCacheDirectory(directory);
+    DependencyGraph warmGraph = warmBuilder.buildVerboseDependencyGraph(artifact);
+
+    assertEquals(coldGraph.list(), warmGraph.list());
+    assertThat(listEntries()).containsExactlyElementsIn(entries);
+  }
+
+  private ImmutableList<Path> listEntries() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.collect(toImmutableList());
+    }
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.dependencies;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CacheDirectoryTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path directory;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = temporaryFolder.newFolder().toPath();
+  }
+
+  @Test
+  public void testStoreAndLoad() throws IOException {
+    CacheDirectory cacheDirectory = new CacheDirectory(directory, 1024);
+    Path file = cacheDirectory.resolve("entry.v1");
+
+    cacheDirectory.store(file, output -> output.writeUTF("foo"));
+
+    assertEquals("foo", cacheDirectory.load(file, input -> input.readUTF()));
+  }
+
+  @Test
+  public void testLoad_missingEntry() throws IOException {
+    CacheDirectory cacheDirectory = new CacheDirectory(directory, 1024);
+
+    assertNull(cacheDirectory.load(cacheDirectory.resolve("entry.v1"), input -> input.readUTF()));
+  }
+
+  @Test
+  public void testLoad_corruptCount() throws IOException {
+    CacheDirectory cacheDirectory = new CacheDirectory(directory, 1024);
+    Path file = cacheDirectory.resolve("entry.v1");
+    cacheDirectory.store(file, output -> output.writeInt(Integer.MAX_VALUE));
+
+    // The count would allocate a huge array if it were not validated against the entry length
+    assertNull(cacheDirectory.load(file, input -> new byte[input.readCount(1)]));
+    assertFalse(Files.exists(file));
+  }
+
+  @Test
+  public void testStore_evictLeastRecentlyUsed() throws IOException {
+    CacheDirectory cacheDirectory = new CacheDirectory(directory, 12);
+    Path first = cacheDirectory.resolve("first.v1");
+    Path second = cacheDirectory.resolve("second.v1");
+    Path third = cacheDirectory.resolve("third.v1");
+    cacheDirectory.store(first, output -> output.writeLong(1));
+    Files.setLastModifiedTime(first, FileTime.fromMillis(0));
+    cacheDirectory.store(second, output -> output.writeInt(2));
+    Files.setLastModifiedTime(second, FileTime.fromMillis(1000));
+
+    cacheDirectory.store(third, output -> output.writeInt(3));
+
+    assertFalse(Files.exists(first));
+    assertTrue(Files.exists(second));
+    assertTrue(Files.exists(third));
+  }
+
+  @Test
+  public void testEvict_ignoresOtherFiles() throws IOException {
+    CacheDirectory cacheDirectory = new CacheDirectory(directory, 1);
+    Path otherFile = directory.resolve("other.txt");
+    Files.write(otherFile, new byte[16]);
+
+    cacheDirectory.evict();
+
+    assertTrue(Files.exists(otherFile));
+  }
+}
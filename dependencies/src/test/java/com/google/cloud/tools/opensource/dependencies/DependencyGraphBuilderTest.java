@@ -117,6 +117,32 @@ public class DependencyGraphBuilderTest {
     Assert.assertEquals(1, guavaCount);
   }
 
+  @Test
+  public void testBuildDependencyGraphs_parallel() {
+    ImmutableList<Artifact> artifacts = ImmutableList.of(datastore, guava, logging);
+    ImmutableList<Dependency> dependencies =
+        ImmutableList.of(
+            new Dependency(datastore, "compile"),
+            new Dependency(guava, "compile"),
+            new Dependency(logging, "compile"));
+
+    ImmutableList<DependencyGraph> verboseGraphs =
+        dependencyGraphBuilder.buildVerboseDependencyGraphs(artifacts, 3);
+    ImmutableList<DependencyGraph> mavenGraphs =
+        dependencyGraphBuilder.buildMavenDependencyGraphs(dependencies, 3);
+
+    Assert.assertEquals(3, verboseGraphs.size());
+    Assert.assertEquals(3, mavenGraphs.size());
+    for (int i = 0; i < artifacts.size(); i++) {
+      Assert.assertEquals(
+          dependencyGraphBuilder.buildVerboseDependencyGraph(artifacts.get(i)).list(),
+          verboseGraphs.get(i).list());
+      Assert.assertEquals(
+          dependencyGraphBuilder.buildMavenDependencyGraph(dependencies.get(i)).list(),
+          mavenGraphs.get(i).list());
+    }
+  }
+
   @Test
   public void testGetCompleteDependencies() {
     DependencyGraph graph =
@@ -241,4 +241,38 @@ public class DependencyPathTest {
     Assert.assertNull(path.findExclusion("g1", "abc"));
     Assert.assertNull(path.findExclusion("abc", "a1"));
   }
+
+  @Test
+  public void testContainsArtifactKey() {
+    Assert.assertTrue(pathRootFooBar.containsArtifactKey("a:b"));
+    Assert.assertTrue(pathRootFooBar.containsArtifactKey("com.google:foo"));
+    Assert.assertTrue(pathRootFooBar.containsArtifactKey("com.google:bar"));
+    Assert.assertFalse(pathRootFooBar.containsArtifactKey("com.google:baz"));
+    Assert.assertFalse(pathRootFooBar.getParentPath().containsArtifactKey("com.google:bar"));
+    Assert.assertFalse(pathNullRootFooBar.containsArtifactKey("a:b"));
+  }
+
+  @Test
+  public void testConcat() {
+    DependencyPath childPath = new DependencyPath(null).append(new Dependency(bar, "compile", true));
+    DependencyPath parentPath = new DependencyPath(root).append(new Dependency(foo, "test", false));
+
+    DependencyPath concatenated = parentPath.concat(childPath);
+
+    Assert.assertEquals(pathRootFooBar, concatenated);
+    Assert.assertEquals(pathRootFooBar.hashCode(), concatenated.hashCode());
+    Assert.assertEquals(2, parentPath.size());
+  }
+
+  @Test
+  public void testGetDependency() {
+    Assert.assertEquals(foo, pathRootFooBar.getDependency(0).getArtifact());
+    Assert.assertEquals(bar, pathRootFooBar.getDependency(1).getArtifact());
+    try {
+      pathRootFooBar.getDependency(2);
+      Assert.fail();
+    } catch (IndexOutOfBoundsException expected) {
+      // pass
+    }
+  }
 }
@@ -33,5 +33,14 @@ public class VersionComparatorTest {
     Assert.assertTrue(comparator.compare("25.1-jre", "25.1-android") > 0);
     
     
-  }  
+  }
+
+  @Test
+  public void testEquivalentVersions() {
+    // Different strings can represent the same version
+    Assert.assertEquals(0, comparator.compare("1.0", "1"));
+    Assert.assertEquals(0, comparator.compare("1", "1.0.0"));
+    Assert.assertTrue(comparator.compare("1.0-SNAPSHOT", "1.0") < 0);
+    Assert.assertTrue(comparator.compare("1.0", "1.0-SNAPSHOT") > 0);
+  }
 }